@@ -14,3 +14,50 @@
 -- limitations under the License.
 --
 
+-- TIME-SERIES ROLLUPS START
+
+CREATE TABLE IF NOT EXISTS ts_rollup
+(
+    entity_id   uuid   NOT NULL,
+    key         int    NOT NULL,
+    interval_ms bigint NOT NULL,
+    ts          bigint NOT NULL,
+    long_sum    bigint,
+    dbl_sum     double precision,
+    long_min    bigint,
+    long_max    bigint,
+    dbl_min     double precision,
+    dbl_max     double precision,
+    str_min     varchar(10000000),
+    str_max     varchar(10000000),
+    bool_count  bigint NOT NULL,
+    str_count   bigint NOT NULL,
+    long_count  bigint NOT NULL,
+    dbl_count   bigint NOT NULL,
+    json_count  bigint NOT NULL,
+    max_ts      bigint NOT NULL,
+    str_max_ts  bigint,
+    CONSTRAINT ts_rollup_pkey PRIMARY KEY (entity_id, key, interval_ms, ts)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ts_rollup_interval_ts ON ts_rollup (interval_ms, ts);
+
+CREATE TABLE IF NOT EXISTS ts_rollup_state
+(
+    id          int    NOT NULL CONSTRAINT ts_rollup_state_pkey PRIMARY KEY,
+    valid_since bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ts_rollup_dirty
+(
+    entity_id     uuid   NOT NULL,
+    key           int    NOT NULL,
+    day_ts        bigint NOT NULL,
+    start_ts      bigint NOT NULL,
+    end_ts        bigint NOT NULL,
+    version       bigint NOT NULL,
+    claimed_until bigint NOT NULL DEFAULT 0,
+    CONSTRAINT ts_rollup_dirty_pkey PRIMARY KEY (entity_id, key, day_ts)
+);
+
+-- TIME-SERIES ROLLUPS END
@@ -188,6 +188,8 @@ public class AppActor extends ContextAwareActor {
                     log.info("[{}] Handling tenant deleted notification: {}", msg.getTenantId(), msg);
                     deletedTenants.add(tenantId);
                     ctx.stop(new TbEntityActorId(tenantId));
+                    // the actors are stopped synchronously, so their destroy tasks are already queued
+                    systemContext.getActorSystem().removeTenant(tenantId);
                     return;
                 }
             }
@@ -26,20 +26,32 @@ import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActorDispatcherType;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbTenantFairScheduler;
 import org.thingsboard.server.actors.app.AppActor;
 import org.thingsboard.server.actors.app.AppInitMsg;
 import org.thingsboard.server.actors.stats.StatsActor;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -86,6 +98,44 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.cfe_dispatcher_pool_size:8}")
     private int calculatedFieldEntityDispatcherSize;
 
+    @Value("${actors.system.app_dispatcher_type:FIXED}")
+    private TbActorDispatcherType appDispatcherType;
+
+    @Value("${actors.system.tenant_dispatcher_type:FIXED}")
+    private TbActorDispatcherType tenantDispatcherType;
+
+    @Value("${actors.system.device_dispatcher_type:FIXED}")
+    private TbActorDispatcherType deviceDispatcherType;
+
+    @Value("${actors.system.rule_dispatcher_type:FIXED}")
+    private TbActorDispatcherType ruleDispatcherType;
+
+    @Value("${actors.system.cfm_dispatcher_type:FIXED}")
+    private TbActorDispatcherType calculatedFieldManagerDispatcherType;
+
+    @Value("${actors.system.cfe_dispatcher_type:FIXED}")
+    private TbActorDispatcherType calculatedFieldEntityDispatcherType;
+
+    @Value("${actors.system.virtual_dispatcher_max_concurrency:1000}")
+    private int virtualDispatcherMaxConcurrency;
+
+    @Value("${actors.system.fair_scheduling.enabled:false}")
+    private boolean fairSchedulingEnabled;
+
+    @Value("#{'${actors.system.fair_scheduling.dispatchers:device-dispatcher,rule-dispatcher,cf-entity-dispatcher}'.split(',')}")
+    private Set<String> fairSchedulingDispatchers;
+
+    @Value("${actors.system.fair_scheduling.default_weight:1}")
+    private int fairSchedulingDefaultWeight;
+
+    @Value("${actors.system.fair_scheduling.max_concurrency_per_tenant:0}")
+    private int fairSchedulingMaxConcurrencyPerTenant;
+
+    @Value("${actors.system.fair_scheduling.stats_print_interval_ms:60000}")
+    private long fairSchedulingStatsPrintIntervalMs;
+
+    private final Map<String, TbTenantFairScheduler> fairSchedulers = new HashMap<>();
+
 
     @PostConstruct
     public void initActorSystem() {
@@ -94,12 +144,16 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts);
         system = new DefaultTbActorSystem(settings);
 
-        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize));
-        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize));
-        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize));
-        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize));
-        system.createDispatcher(CF_MANAGER_DISPATCHER_NAME, initDispatcherExecutor(CF_MANAGER_DISPATCHER_NAME, calculatedFieldManagerDispatcherSize));
-        system.createDispatcher(CF_ENTITY_DISPATCHER_NAME, initDispatcherExecutor(CF_ENTITY_DISPATCHER_NAME, calculatedFieldEntityDispatcherSize));
+        createDispatcher(APP_DISPATCHER_NAME, appDispatcherType, appDispatcherSize);
+        createDispatcher(TENANT_DISPATCHER_NAME, tenantDispatcherType, tenantDispatcherSize);
+        createDispatcher(DEVICE_DISPATCHER_NAME, deviceDispatcherType, deviceDispatcherSize);
+        createDispatcher(RULE_DISPATCHER_NAME, ruleDispatcherType, ruleDispatcherSize);
+        createDispatcher(CF_MANAGER_DISPATCHER_NAME, calculatedFieldManagerDispatcherType, calculatedFieldManagerDispatcherSize);
+        createDispatcher(CF_ENTITY_DISPATCHER_NAME, calculatedFieldEntityDispatcherType, calculatedFieldEntityDispatcherSize);
+        if (!fairSchedulers.isEmpty()) {
+            system.getScheduler().scheduleWithFixedDelay(this::reportFairSchedulingStats,
+                    fairSchedulingStatsPrintIntervalMs, fairSchedulingStatsPrintIntervalMs, TimeUnit.MILLISECONDS);
+        }
 
         actorContext.setActorSystem(system);
 
@@ -112,10 +166,70 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         log.info("Actor system initialized.");
     }
 
-    private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
-        if (poolSize == 0) {
-            int cores = Runtime.getRuntime().availableProcessors();
-            poolSize = Math.max(1, cores / 2);
+    private void createDispatcher(String dispatcherName, TbActorDispatcherType type, int poolSize) {
+        ExecutorService executor = initDispatcherExecutor(dispatcherName, type, poolSize);
+        if (fairSchedulingEnabled && fairSchedulingDispatchers.contains(dispatcherName)) {
+            TbTenantFairScheduler fairScheduler = new TbTenantFairScheduler(executor, getDispatcherParallelism(type, poolSize),
+                    this::getTenantSchedulingWeight, this::getTenantMaxConcurrency);
+            fairSchedulers.put(dispatcherName, fairScheduler);
+            system.createDispatcher(dispatcherName, fairScheduler);
+        } else {
+            system.createDispatcher(dispatcherName, executor);
+        }
+    }
+
+    /*
+     * The virtual dispatcher falls back to the fixed pool when virtual threads are not supported
+     * */
+    int getDispatcherParallelism(TbActorDispatcherType type, int poolSize) {
+        if (type == TbActorDispatcherType.VIRTUAL && ThingsBoardExecutors.isVirtualThreadSupported()) {
+            return virtualDispatcherMaxConcurrency;
+        }
+        return getPoolSize(poolSize);
+    }
+
+    private int getTenantSchedulingWeight(TenantId tenantId) {
+        int weight = getTenantProfileConfiguration(tenantId).map(DefaultTenantProfileConfiguration::getActorSchedulingWeight).orElse(0);
+        return weight > 0 ? weight : fairSchedulingDefaultWeight;
+    }
+
+    private int getTenantMaxConcurrency(TenantId tenantId) {
+        int maxConcurrency = getTenantProfileConfiguration(tenantId).map(DefaultTenantProfileConfiguration::getMaxConcurrentActorMailboxes).orElse(0);
+        return maxConcurrency > 0 ? maxConcurrency : fairSchedulingMaxConcurrencyPerTenant;
+    }
+
+    private Optional<DefaultTenantProfileConfiguration> getTenantProfileConfiguration(TenantId tenantId) {
+        if (tenantId.isSysTenantId()) {
+            return Optional.empty();
+        }
+        TenantProfile tenantProfile = actorContext.getTenantProfileCache().get(tenantId);
+        return tenantProfile != null ? tenantProfile.getProfileConfiguration() : Optional.empty();
+    }
+
+    private void reportFairSchedulingStats() {
+        fairSchedulers.forEach((dispatcherName, fairScheduler) -> {
+            Map<TenantId, TbTenantFairScheduler.TenantStats> stats = fairScheduler.getAndResetStats();
+            if (stats.isEmpty()) {
+                return;
+            }
+            String statsStr = stats.entrySet().stream()
+                    .sorted(Comparator.comparingDouble((Map.Entry<TenantId, TbTenantFairScheduler.TenantStats> e) -> e.getValue().maxWaitMs()).reversed())
+                    .limit(10)
+                    .map(e -> e.getKey() + " queue [" + e.getValue().queueSize() + "] executed [" + e.getValue().executedCount() +
+                            "] avgWait [" + e.getValue().avgWaitMs() + " ms] maxWait [" + e.getValue().maxWaitMs() + " ms]")
+                    .collect(Collectors.joining(", "));
+            log.info("[{}] Fair scheduling stats for {} tenants, top by max wait: {}", dispatcherName, stats.size(), statsStr);
+        });
+    }
+
+    private ExecutorService initDispatcherExecutor(String dispatcherName, TbActorDispatcherType type, int poolSize) {
+        poolSize = getPoolSize(poolSize);
+        if (type == TbActorDispatcherType.VIRTUAL) {
+            if (ThingsBoardExecutors.isVirtualThreadSupported()) {
+                return ThingsBoardExecutors.newVirtualThreadPool(virtualDispatcherMaxConcurrency, dispatcherName);
+            }
+            log.warn("[{}] Virtual threads are not supported by the current Java runtime (Java 21+ is required), " +
+                    "falling back to the FIXED dispatcher with pool size {}", dispatcherName, poolSize);
         }
         if (poolSize == 1) {
             return Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(dispatcherName));
@@ -124,6 +238,14 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         }
     }
 
+    private static int getPoolSize(int poolSize) {
+        if (poolSize == 0) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return Math.max(1, cores / 2);
+        }
+        return poolSize;
+    }
+
     @AfterStartUp(order = AfterStartUp.ACTOR_SYSTEM)
     public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
         log.info("Received application ready event. Sending application init message to actor system");
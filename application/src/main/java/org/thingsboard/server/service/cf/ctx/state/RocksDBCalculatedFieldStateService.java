@@ -15,14 +15,23 @@
  */
 package org.thingsboard.server.service.cf.ctx.state;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.edqs.util.TbRocksDb;
 import org.thingsboard.server.gen.transport.TransportProtos.CalculatedFieldStateProto;
 import org.thingsboard.server.gen.transport.TransportProtos.ToCalculatedFieldMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.TsDoubleValProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TsRollingArgumentProto;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.queue.common.consumer.PartitionedQueueConsumerManager;
 import org.thingsboard.server.queue.common.state.DefaultQueueStateService;
@@ -31,16 +40,84 @@ import org.thingsboard.server.service.cf.AbstractCalculatedFieldStateService;
 import org.thingsboard.server.service.cf.CfRocksDb;
 import org.thingsboard.server.service.cf.ctx.CalculatedFieldEntityCtxId;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
+/**
+ * Stores CF states in the local RocksDB.
+ * <p>
+ * All state updates are queued and written by a single writer thread, which groups everything queued while
+ * the previous write was in progress into one {@link WriteBatch}, so that a pack of messages costs a few WAL syncs
+ * instead of one per state. Points of rolling arguments are stored as separate keys next to the state
+ * ({@code <state key>\0<argument>\0<ts>}), and only added, changed and evicted points are written on update.
+ * The writer computes the changed points against the points of the last successful write, so a failed batch
+ * doesn't corrupt the stored state.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnExpression("'${queue.type:null}'=='in-memory'")
 public class RocksDBCalculatedFieldStateService extends AbstractCalculatedFieldStateService {
 
+    static final char SEPARATOR = '\u0000';
+    private static final char SEPARATOR_END = '\u0001';
+    private static final String[] RESTORE_PREFIXES = "0123456789abcdef".split("");
+
     private final CfRocksDb cfRocksDb;
 
+    @Value("${queue.calculated_fields.rocks_db_write_batch_size:1000}")
+    private int writeBatchSize;
+    @Value("${queue.calculated_fields.rocks_db_rolling_delta_enabled:true}")
+    private boolean rollingDeltaEnabled;
+    @Value("${queue.calculated_fields.rocks_db_restore_parallelism:4}")
+    private int restoreParallelism;
+
+    private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+    // points of rolling arguments that are currently stored in RocksDB, by state key and argument name.
+    // Updated by the writer only after a successful write
+    private final Map<String, Map<String, RollingPoints>> persistedRollingArgs = new ConcurrentHashMap<>();
+
+    private ExecutorService writerExecutor;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void initWriter() {
+        writerExecutor = ThingsBoardExecutors.newSingleThreadScheduledExecutor("cf-rocksdb-writer");
+        writerExecutor.submit(this::writeLoop);
+    }
+
+    @PreDestroy
+    public void destroyWriter() {
+        stopped = true;
+        if (writerExecutor != null) {
+            writerExecutor.shutdownNow();
+            try {
+                writerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingWrite> writes = new ArrayList<>();
+        pendingWrites.drainTo(writes);
+        if (!writes.isEmpty()) {
+            write(writes);
+        }
+    }
+
     @Override
     public void init(PartitionedQueueConsumerManager<TbProtoQueueMsg<ToCalculatedFieldMsg>> eventConsumer) {
         super.stateService = new DefaultQueueStateService<>(eventConsumer);
@@ -48,39 +125,316 @@ public class RocksDBCalculatedFieldStateService extends AbstractCalculatedFieldS
 
     @Override
     protected void doPersist(CalculatedFieldEntityCtxId stateId, CalculatedFieldStateProto stateMsgProto, TbCallback callback) {
-        cfRocksDb.put(stateId.toKey(), stateMsgProto.toByteArray());
-        callback.onSuccess();
+        enqueue(stateId.toKey(), stateMsgProto, callback);
     }
 
     @Override
     protected void doRemove(CalculatedFieldEntityCtxId stateId, TbCallback callback) {
-        cfRocksDb.delete(stateId.toKey());
-        callback.onSuccess();
+        enqueue(stateId.toKey(), null, callback);
     }
 
     @Override
     public void restore(QueueKey queueKey, Set<TopicPartitionInfo> partitions) {
         if (stateService.getPartitions().isEmpty()) {
-            cfRocksDb.forEach((key, value) -> {
-                CalculatedFieldStateProto stateMsg;
+            restoreFromRocksDb();
+        }
+        super.restore(queueKey, partitions);
+    }
+
+    private void restoreFromRocksDb() {
+        long startTs = System.currentTimeMillis();
+        // state keys start with the CF id, so the key space is split by its first hex digit
+        ExecutorService restoreExecutor = ThingsBoardExecutors.newWorkStealingPool(Math.max(1, restoreParallelism), "cf-rocksdb-restore");
+        try {
+            List<Future<?>> futures = new ArrayList<>(RESTORE_PREFIXES.length);
+            for (String prefix : RESTORE_PREFIXES) {
+                futures.add(restoreExecutor.submit(() -> {
+                    RestoredStateReader reader = new RestoredStateReader();
+                    cfRocksDb.forEach(prefix, reader);
+                    reader.complete();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while restoring CF states", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to restore CF states", e);
+        } finally {
+            restoreExecutor.shutdownNow();
+        }
+        log.info("Restored CF states from RocksDB in {} ms", System.currentTimeMillis() - startTs);
+    }
+
+    private void enqueue(String key, CalculatedFieldStateProto stateMsgProto, TbCallback callback) {
+        if (stopped) {
+            callback.onFailure(new IllegalStateException("CF state service is stopped"));
+            return;
+        }
+        pendingWrites.add(new PendingWrite(key, stateMsgProto, callback));
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> writes = new ArrayList<>(writeBatchSize);
+        while (!stopped && !Thread.currentThread().isInterrupted()) {
+            try {
+                PendingWrite first = pendingWrites.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                writes.add(first);
+                pendingWrites.drainTo(writes, writeBatchSize - 1);
+                write(writes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("Unexpected error in CF state writer", t);
+            } finally {
+                writes.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> writes) {
+        // points of rolling arguments after this batch, null if the state no longer has them
+        Map<String, Map<String, RollingPoints>> written = new HashMap<>();
+        List<StateUpdate> updates = new ArrayList<>(writes.size());
+        try {
+            for (PendingWrite write : writes) {
+                updates.add(toUpdate(write, written));
+            }
+            cfRocksDb.write(batch -> {
+                for (StateUpdate update : updates) {
+                    update.write(batch);
+                }
+            });
+        } catch (Exception e) {
+            // the batch is atomic, so the stored points are still the ones of the last successful write
+            log.warn("Failed to write {} CF state updates to RocksDB", writes.size(), e);
+            for (PendingWrite write : writes) {
+                write.callback().onFailure(e);
+            }
+            return;
+        }
+        written.forEach((key, points) -> {
+            if (points != null) {
+                persistedRollingArgs.put(key, points);
+            } else {
+                persistedRollingArgs.remove(key);
+            }
+        });
+        for (PendingWrite write : writes) {
+            write.callback().onSuccess();
+        }
+    }
+
+    private StateUpdate toUpdate(PendingWrite write, Map<String, Map<String, RollingPoints>> written) {
+        String key = write.key();
+        CalculatedFieldStateProto stateMsgProto = write.state();
+        Map<String, RollingPoints> previous = written.containsKey(key) ? written.get(key) : persistedRollingArgs.get(key);
+        StateUpdate update = new StateUpdate();
+        if (stateMsgProto == null) {
+            update.delete(key);
+            update.deleteRange(key + SEPARATOR, key + SEPARATOR_END);
+            written.put(key, null);
+        } else if (!rollingDeltaEnabled || stateMsgProto.getRollingValueArgumentsCount() == 0) {
+            if (previous != null) {
+                update.deleteRange(key + SEPARATOR, key + SEPARATOR_END);
+            }
+            update.put(key, stateMsgProto.toByteArray());
+            written.put(key, null);
+        } else {
+            Map<String, RollingPoints> current = new HashMap<>();
+            CalculatedFieldStateProto.Builder base = stateMsgProto.toBuilder();
+            for (int i = 0; i < stateMsgProto.getRollingValueArgumentsCount(); i++) {
+                TsRollingArgumentProto argProto = stateMsgProto.getRollingValueArguments(i);
+                String argPrefix = key + SEPARATOR + argProto.getKey() + SEPARATOR;
+                RollingPoints points = RollingPoints.of(argProto.getTsValueList());
+                RollingPoints previousPoints = previous != null ? previous.get(argProto.getKey()) : null;
+                if (previousPoints == null) {
+                    // nothing is known about the stored points, e.g. the state is stored in the old format
+                    update.deleteRange(argPrefix, key + SEPARATOR + argProto.getKey() + SEPARATOR_END);
+                    previousPoints = RollingPoints.EMPTY;
+                }
+                writeDelta(argPrefix, previousPoints, points, update);
+                current.put(argProto.getKey(), points);
+                base.setRollingValueArguments(i, argProto.toBuilder().clearTsValue());
+            }
+            if (previous != null) {
+                previous.keySet().stream()
+                        .filter(argName -> !current.containsKey(argName))
+                        .forEach(argName -> update.deleteRange(key + SEPARATOR + argName + SEPARATOR, key + SEPARATOR + argName + SEPARATOR_END));
+            }
+            update.put(key, base.build().toByteArray());
+            written.put(key, current);
+        }
+        return update;
+    }
+
+    private static void writeDelta(String argPrefix, RollingPoints previous, RollingPoints current, StateUpdate update) {
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < current.size()) {
+            if (j >= current.size() || (i < previous.size() && previous.ts[i] < current.ts[j])) {
+                update.delete(argPrefix + previous.ts[i]);
+                i++;
+            } else if (i >= previous.size() || current.ts[j] < previous.ts[i]) {
+                update.put(argPrefix + current.ts[j], toBytes(current.values[j]));
+                j++;
+            } else {
+                if (Double.compare(previous.values[i], current.values[j]) != 0) {
+                    update.put(argPrefix + current.ts[j], toBytes(current.values[j]));
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static byte[] toBytes(double value) {
+        return ByteBuffer.allocate(Double.BYTES).putDouble(value).array();
+    }
+
+    private static byte[] toBytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private class RestoredStateReader implements BiConsumer<String, byte[]> {
+
+        private String stateKey;
+        private CalculatedFieldStateProto state;
+        private Map<String, List<TsDoubleValProto>> points;
+
+        @Override
+        public void accept(String key, byte[] value) {
+            int separatorIdx = key.indexOf(SEPARATOR);
+            if (separatorIdx < 0) {
+                complete();
+                stateKey = key;
+                points = new HashMap<>();
                 try {
-                    stateMsg = CalculatedFieldStateProto.parseFrom(value);
+                    state = CalculatedFieldStateProto.parseFrom(value);
                 } catch (Exception e) {
                     log.error("Failed to parse CalculatedFieldStateProto for key {}", key, e);
-                    return;
+                    state = null;
                 }
-                processRestoredState(stateMsg, null, new TbCallback() {
-                    @Override
-                    public void onSuccess() {}
+                return;
+            }
+            if (state == null || separatorIdx != stateKey.length() || !key.startsWith(stateKey)) {
+                log.debug("Skipping rolling argument point without state: {}", key);
+                return;
+            }
+            int tsSeparatorIdx = key.lastIndexOf(SEPARATOR);
+            String argName = key.substring(separatorIdx + 1, tsSeparatorIdx);
+            long ts = Long.parseLong(key.substring(tsSeparatorIdx + 1));
+            points.computeIfAbsent(argName, k -> new ArrayList<>())
+                    .add(TsDoubleValProto.newBuilder().setTs(ts).setValue(ByteBuffer.wrap(value).getDouble()).build());
+        }
 
-                    @Override
-                    public void onFailure(Throwable t) {
-                        log.error("Failed to process CF state message: {}", stateMsg, t);
+        void complete() {
+            if (state == null) {
+                return;
+            }
+            CalculatedFieldStateProto stateMsg = state;
+            if (!points.isEmpty()) {
+                CalculatedFieldStateProto.Builder builder = state.toBuilder();
+                for (int i = 0; i < builder.getRollingValueArgumentsCount(); i++) {
+                    TsRollingArgumentProto argProto = builder.getRollingValueArguments(i);
+                    List<TsDoubleValProto> argPoints = points.get(argProto.getKey());
+                    if (argPoints != null) {
+                        // keys are ordered by the string representation of ts
+                        argPoints.sort(Comparator.comparingLong(TsDoubleValProto::getTs));
+                        builder.setRollingValueArguments(i, argProto.toBuilder().clearTsValue().addAllTsValue(argPoints));
                     }
-                });
+                }
+                stateMsg = builder.build();
+                Map<String, RollingPoints> persisted = new HashMap<>();
+                points.forEach((argName, argPoints) -> persisted.put(argName, RollingPoints.of(argPoints)));
+                persistedRollingArgs.put(stateKey, persisted);
+            }
+            state = null;
+            CalculatedFieldStateProto restoredMsg = stateMsg;
+            processRestoredState(restoredMsg, null, new TbCallback() {
+                @Override
+                public void onSuccess() {}
+
+                @Override
+                public void onFailure(Throwable t) {
+                    log.error("Failed to process CF state message: {}", restoredMsg, t);
+                }
             });
         }
-        super.restore(queueKey, partitions);
+
+    }
+
+    // state is null when the state is removed
+    private record PendingWrite(String key, CalculatedFieldStateProto state, TbCallback callback) {}
+
+    private static class StateUpdate implements TbRocksDb.BatchWriter {
+
+        private final List<byte[]> puts = new ArrayList<>();
+        private final List<byte[]> deletes = new ArrayList<>();
+        private final List<byte[]> deleteRanges = new ArrayList<>();
+
+        void put(String key, byte[] value) {
+            puts.add(toBytes(key));
+            puts.add(value);
+        }
+
+        void delete(String key) {
+            deletes.add(toBytes(key));
+        }
+
+        void deleteRange(String fromKey, String toKey) {
+            deleteRanges.add(toBytes(fromKey));
+            deleteRanges.add(toBytes(toKey));
+        }
+
+        @Override
+        public void write(WriteBatch batch) throws RocksDBException {
+            for (int i = 0; i < deleteRanges.size(); i += 2) {
+                batch.deleteRange(deleteRanges.get(i), deleteRanges.get(i + 1));
+            }
+            for (byte[] key : deletes) {
+                batch.delete(key);
+            }
+            for (int i = 0; i < puts.size(); i += 2) {
+                batch.put(puts.get(i), puts.get(i + 1));
+            }
+        }
+
+    }
+
+    private static class RollingPoints {
+
+        static final RollingPoints EMPTY = new RollingPoints(new long[0], new double[0]);
+
+        final long[] ts;
+        final double[] values;
+
+        RollingPoints(long[] ts, double[] values) {
+            this.ts = ts;
+            this.values = values;
+        }
+
+        int size() {
+            return ts.length;
+        }
+
+        static RollingPoints of(List<TsDoubleValProto> tsValues) {
+            TsDoubleValProto[] sorted = tsValues.toArray(new TsDoubleValProto[0]);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.getTs(), b.getTs()));
+            long[] ts = new long[sorted.length];
+            double[] values = new double[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ts[i] = sorted[i].getTs();
+                values[i] = sorted[i].getValue();
+            }
+            return new RollingPoints(ts, values);
+        }
+
     }
 
 }
@@ -21,15 +21,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.script.api.tbel.TbelCfArg;
-import org.thingsboard.script.api.tbel.TbelCfTsDoubleVal;
-import org.thingsboard.script.api.tbel.TbelCfTsRollingArg;
+import org.thingsboard.script.api.tbel.TbelCfTsRollingBuffer;
 import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import static org.thingsboard.server.service.cf.ctx.state.BaseCalculatedFieldState.DEFAULT_LAST_UPDATE_TS;
 
@@ -41,7 +38,7 @@ public class TsRollingArgumentEntry implements ArgumentEntry, HasLatestTs {
 
     private Integer limit;
     private Long timeWindow;
-    private TreeMap<Long, Double> tsRecords = new TreeMap<>();
+    private TbelCfTsRollingBuffer tsRecords = new TbelCfTsRollingBuffer();
 
     private boolean forceResetPrevious;
 
@@ -51,22 +48,26 @@ public class TsRollingArgumentEntry implements ArgumentEntry, HasLatestTs {
         kvEntries.forEach(tsKvEntry -> addTsRecord(tsKvEntry.getTs(), tsKvEntry));
     }
 
-    public TsRollingArgumentEntry(TreeMap<Long, Double> tsRecords, int limit, long timeWindow) {
-        this.tsRecords = tsRecords;
+    public TsRollingArgumentEntry(Map<Long, Double> tsRecords, int limit, long timeWindow) {
+        setTsRecords(tsRecords);
         this.limit = limit;
         this.timeWindow = timeWindow;
     }
 
     public TsRollingArgumentEntry(int limit, long timeWindow) {
-        this.tsRecords = new TreeMap<>();
+        this.tsRecords = new TbelCfTsRollingBuffer();
         this.limit = limit;
         this.timeWindow = timeWindow;
     }
 
-    public TsRollingArgumentEntry(Integer limit, Long timeWindow, TreeMap<Long, Double> tsRecords) {
+    public TsRollingArgumentEntry(Integer limit, Long timeWindow, Map<Long, Double> tsRecords) {
         this.limit = limit;
         this.timeWindow = timeWindow;
-        this.tsRecords = tsRecords;
+        setTsRecords(tsRecords);
+    }
+
+    public void setTsRecords(Map<Long, Double> tsRecords) {
+        this.tsRecords = tsRecords instanceof TbelCfTsRollingBuffer buffer ? buffer : new TbelCfTsRollingBuffer(tsRecords);
     }
 
     @Override
@@ -86,17 +87,12 @@ public class TsRollingArgumentEntry implements ArgumentEntry, HasLatestTs {
     }
 
     public long getLatestTs() {
-        var lastEntry = tsRecords.lastEntry();
-        return (lastEntry != null) ? lastEntry.getKey() : DEFAULT_LAST_UPDATE_TS;
+        return !tsRecords.isEmpty() ? tsRecords.lastTs() : DEFAULT_LAST_UPDATE_TS;
     }
 
     @Override
     public TbelCfArg toTbelCfArg() {
-        List<TbelCfTsDoubleVal> values = new ArrayList<>(tsRecords.size());
-        for (var e : tsRecords.entrySet()) {
-            values.add(new TbelCfTsDoubleVal(e.getKey(), e.getValue()));
-        }
-        return new TbelCfTsRollingArg(timeWindow, values);
+        return tsRecords.toTbelCfArg(timeWindow);
     }
 
     @Override
@@ -112,8 +108,9 @@ public class TsRollingArgumentEntry implements ArgumentEntry, HasLatestTs {
     }
 
     private void updateTsRollingEntry(TsRollingArgumentEntry tsRollingEntry) {
-        for (Map.Entry<Long, Double> tsRecordEntry : tsRollingEntry.getTsRecords().entrySet()) {
-            addTsRecord(tsRecordEntry.getKey(), tsRecordEntry.getValue());
+        TbelCfTsRollingBuffer records = tsRollingEntry.getTsRecords();
+        for (int i = 0; i < records.size(); i++) {
+            addTsRecord(records.getTs(i), records.getValue(i));
         }
     }
 
@@ -121,24 +118,24 @@ public class TsRollingArgumentEntry implements ArgumentEntry, HasLatestTs {
         addTsRecord(singleValueEntry.getTs(), singleValueEntry.getKvEntryValue());
     }
 
-    private void addTsRecord(Long ts, KvEntry value) {
+    private void addTsRecord(long ts, KvEntry value) {
         Double recordValue = getValueForTsRecord(value);
         if (recordValue != null) {
-            tsRecords.put(ts, recordValue);
+            tsRecords.putValue(ts, recordValue);
         }
         cleanupExpiredRecords();
     }
 
-    private void addTsRecord(Long ts, double value) {
-        tsRecords.put(ts, value);
+    private void addTsRecord(long ts, double value) {
+        tsRecords.putValue(ts, value);
         cleanupExpiredRecords();
     }
 
     private void cleanupExpiredRecords() {
         if (tsRecords.size() > limit) {
-            tsRecords.pollFirstEntry();
+            tsRecords.removeFirst();
         }
-        tsRecords.entrySet().removeIf(tsRecord -> tsRecord.getKey() < System.currentTimeMillis() - timeWindow);
+        tsRecords.removeBefore(System.currentTimeMillis() - timeWindow);
     }
 
     public static Double getValueForTsRecord(KvEntry value) {
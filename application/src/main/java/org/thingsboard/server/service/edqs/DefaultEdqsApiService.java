@@ -22,6 +22,7 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.JacksonUtil;
@@ -30,6 +31,7 @@ import org.thingsboard.server.common.data.edqs.query.EdqsResponse;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.edqs.EdqsApiService;
+import org.thingsboard.server.common.util.EdqsProtoUtils;
 import org.thingsboard.server.edqs.state.EdqsPartitionService;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.gen.transport.TransportProtos.FromEdqsMsg;
@@ -38,7 +40,9 @@ import org.thingsboard.server.queue.TbQueueRequestTemplate;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.queue.provider.EdqsClientQueueFactory;
 
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
@@ -48,6 +52,12 @@ public class DefaultEdqsApiService implements EdqsApiService {
 
     private final EdqsPartitionService edqsPartitionService;
     private final EdqsClientQueueFactory queueFactory;
+
+    @Value("${queue.edqs.api.binary_encoding_enabled:true}")
+    private boolean binaryEncodingEnabled;
+
+    // partitions served by EDQS services that reported support of the binary encoding
+    private final Set<Integer> binaryEncodingPartitions = ConcurrentHashMap.newKeySet();
     private TbQueueRequestTemplate<TbProtoQueueMsg<ToEdqsMsg>, TbProtoQueueMsg<FromEdqsMsg>> requestTemplate;
 
     @PostConstruct
@@ -58,25 +68,52 @@ public class DefaultEdqsApiService implements EdqsApiService {
 
     @Override
     public ListenableFuture<EdqsResponse> processRequest(TenantId tenantId, CustomerId customerId, EdqsRequest request) {
+        UUID key = UUID.randomUUID();
+        Integer partition = edqsPartitionService.resolvePartition(tenantId, key);
+        int partitionKey = partition != null ? partition : -1;
+        boolean binary = binaryEncodingEnabled && binaryEncodingPartitions.contains(partitionKey);
+        return Futures.transformAsync(send(tenantId, customerId, request, key, partition, binary), responseMsg -> {
+            if (responseMsg.getEncodingVersion() >= EdqsProtoUtils.BINARY_ENCODING_VERSION) {
+                binaryEncodingPartitions.add(partitionKey);
+            } else {
+                binaryEncodingPartitions.remove(partitionKey);
+                if (binary) {
+                    // the request was handled by an EDQS service of the previous version, which does not support the binary encoding
+                    log.debug("[{}] EDQS service does not support binary encoding, resending request as JSON", partition);
+                    return Futures.transform(send(tenantId, customerId, request, key, partition, false),
+                            this::toResponse, MoreExecutors.directExecutor());
+                }
+            }
+            return Futures.immediateFuture(toResponse(responseMsg));
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<TransportProtos.EdqsResponseMsg> send(TenantId tenantId, CustomerId customerId, EdqsRequest request,
+                                                                   UUID key, Integer partition, boolean binary) {
+        TransportProtos.EdqsRequestMsg.Builder edqsRequestMsg = TransportProtos.EdqsRequestMsg.newBuilder();
+        if (binary) {
+            edqsRequestMsg.setQuery(EdqsProtoUtils.toProto(request));
+        } else {
+            edqsRequestMsg.setValue(JacksonUtil.toString(request));
+        }
         var requestMsg = ToEdqsMsg.newBuilder()
                 .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
                 .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
                 .setTs(System.currentTimeMillis())
-                .setRequestMsg(TransportProtos.EdqsRequestMsg.newBuilder()
-                        .setValue(JacksonUtil.toString(request))
-                        .build());
+                .setRequestMsg(edqsRequestMsg);
         if (customerId != null && !customerId.isNullUid()) {
             requestMsg.setCustomerIdMSB(customerId.getId().getMostSignificantBits());
             requestMsg.setCustomerIdLSB(customerId.getId().getLeastSignificantBits());
         }
-
-        UUID key = UUID.randomUUID();
-        Integer partition = edqsPartitionService.resolvePartition(tenantId, key);
         ListenableFuture<TbProtoQueueMsg<FromEdqsMsg>> resultFuture = requestTemplate.send(new TbProtoQueueMsg<>(key, requestMsg.build()), partition);
-        return Futures.transform(resultFuture, msg -> {
-            TransportProtos.EdqsResponseMsg responseMsg = msg.getValue().getResponseMsg();
-            return JacksonUtil.fromString(responseMsg.getValue(), EdqsResponse.class);
-        }, MoreExecutors.directExecutor());
+        return Futures.transform(resultFuture, msg -> msg.getValue().getResponseMsg(), MoreExecutors.directExecutor());
+    }
+
+    private EdqsResponse toResponse(TransportProtos.EdqsResponseMsg responseMsg) {
+        if (responseMsg.hasResult()) {
+            return EdqsProtoUtils.fromProto(responseMsg.getResult());
+        }
+        return JacksonUtil.fromString(responseMsg.getValue(), EdqsResponse.class);
     }
 
     @Override
@@ -235,6 +235,7 @@ public class EntityStateSourcingListener {
         switch (event.getActionType()) {
             case CREDENTIALS_UPDATED -> {
                 if (event.getEntityId().getEntityType() == EntityType.DEVICE && event.getEntity() instanceof DeviceCredentials deviceCredentials) {
+                    tbClusterService.onDeviceCredentialsUpdated(tenantId, (DeviceId) event.getEntityId(), TbQueueCallback.EMPTY);
                     tbClusterService.pushMsgToCore(new DeviceCredentialsUpdateNotificationMsg(tenantId,
                             (DeviceId) event.getEntityId(), deviceCredentials), null);
                 } else if (event.getEntityId().getEntityType() == EntityType.USER) {
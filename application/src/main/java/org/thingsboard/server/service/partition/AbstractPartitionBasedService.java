@@ -127,6 +127,7 @@ public abstract class AbstractPartitionBasedService<T extends EntityId> extends
             for (var partition : removedPartitions) {
                 Set<T> entities = partitionedEntities.remove(partition);
                 if (entities != null) {
+                    onPartitionRemoved(partition, entities);
                     entities.forEach(this::cleanupEntityOnPartitionRemoval);
                 }
                 List<ListenableFuture<?>> fetchTasks = partitionedFetchTasks.remove(partition);
@@ -178,6 +179,12 @@ public abstract class AbstractPartitionBasedService<T extends EntityId> extends
     protected void onRepartitionEvent() {
     }
 
+    /**
+     * Called before the entities of the removed partition are cleaned up
+     */
+    protected void onPartitionRemoved(TopicPartitionInfo partition, Set<T> entities) {
+    }
+
     private Set<TopicPartitionInfo> getLatestPartitions() {
         log.debug("getLatestPartitionsFromQueue, queue size {}", subscribeQueue.size());
         Set<TopicPartitionInfo> partitions = null;
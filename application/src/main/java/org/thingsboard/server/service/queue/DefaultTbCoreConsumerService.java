@@ -47,6 +47,7 @@ import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.edqs.EdqsService;
 import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
+import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponse;
@@ -98,6 +99,7 @@ import org.thingsboard.server.service.rpc.TbCoreDeviceRpcService;
 import org.thingsboard.server.service.ruleengine.RuleEngineCallService;
 import org.thingsboard.server.service.security.auth.jwt.settings.JwtSettingsService;
 import org.thingsboard.server.service.state.DeviceStateService;
+import org.thingsboard.server.service.subscription.DynamicQueryChangeTracker;
 import org.thingsboard.server.service.subscription.SubscriptionManagerService;
 import org.thingsboard.server.service.subscription.TbLocalSubscriptionService;
 import org.thingsboard.server.service.subscription.TbSubscriptionUtils;
@@ -149,6 +151,7 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
     private final TbImageService imageService;
     private final RuleEngineCallService ruleEngineCallService;
     private final EdqsService edqsService;
+    private final DynamicQueryChangeTracker dynamicQueryChangeTracker;
     private final TbCoreConsumerStats stats;
 
     private MainQueueConsumerManager<TbProtoQueueMsg<ToCoreMsg>, QueueConfig> mainConsumer;
@@ -180,7 +183,8 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
                                         TbResourceDataCache tbResourceDataCache,
                                         RuleEngineCallService ruleEngineCallService,
                                         CalculatedFieldCache calculatedFieldCache,
-                                        EdqsService edqsService) {
+                                        EdqsService edqsService,
+                                        DynamicQueryChangeTracker dynamicQueryChangeTracker) {
         super(actorContext, tenantProfileCache, deviceProfileCache, assetProfileCache, tbResourceDataCache, calculatedFieldCache, apiUsageStateService, partitionService,
                 eventPublisher, jwtSettingsService);
         this.stateService = stateService;
@@ -197,6 +201,7 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
         this.ruleEngineCallService = ruleEngineCallService;
         this.queueFactory = tbCoreQueueFactory;
         this.edqsService = edqsService;
+        this.dynamicQueryChangeTracker = dynamicQueryChangeTracker;
     }
 
     @PostConstruct
@@ -283,6 +288,9 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
                     } else if (toCoreMsg.hasDeviceStateServiceMsg()) {
                         log.trace("[{}] Forwarding message to device state service {}", id, toCoreMsg.getDeviceStateServiceMsg());
                         forwardToStateService(toCoreMsg.getDeviceStateServiceMsg(), callback);
+                    } else if (toCoreMsg.hasDeviceStateHandoffMsg()) {
+                        log.trace("[{}] Forwarding {} handed off states to device state service", id, toCoreMsg.getDeviceStateHandoffMsg().getStatesCount());
+                        forwardToStateService(toCoreMsg.getDeviceStateHandoffMsg(), callback);
                     } else if (toCoreMsg.hasDeviceConnectMsg()) {
                         log.trace("[{}] Forwarding message to device state service {}", id, toCoreMsg.getDeviceConnectMsg());
                         forwardToStateService(toCoreMsg.getDeviceConnectMsg(), callback);
@@ -378,7 +386,12 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
             log.trace("[{}] Forwarding message to RuleEngineCallService service {}", id, toCoreNotification.getRestApiCallResponseMsg());
             forwardToRuleEngineCallService(toCoreNotification.getRestApiCallResponseMsg(), callback);
         } else if (toCoreNotification.hasComponentLifecycle()) {
-            handleComponentLifecycleMsg(id, ProtoUtils.fromProto(toCoreNotification.getComponentLifecycle()));
+            ComponentLifecycleMsg componentLifecycleMsg = ProtoUtils.fromProto(toCoreNotification.getComponentLifecycle());
+            handleComponentLifecycleMsg(id, componentLifecycleMsg);
+            dynamicQueryChangeTracker.onComponentLifecycleMsg(componentLifecycleMsg);
+            callback.onSuccess();
+        } else if (toCoreNotification.hasDynamicQueryChangeMsg()) {
+            dynamicQueryChangeTracker.onQueueMsg(toCoreNotification.getDynamicQueryChangeMsg());
             callback.onSuccess();
         } else if (toCoreNotification.getQueueUpdateMsgsCount() > 0) {
             partitionService.updateQueues(toCoreNotification.getQueueUpdateMsgsList());
@@ -603,6 +616,13 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
         stateService.onQueueMsg(deviceStateServiceMsg, callback);
     }
 
+    void forwardToStateService(TransportProtos.DeviceStateHandoffMsgProto deviceStateHandoffMsg, TbCallback callback) {
+        if (statsEnabled) {
+            stats.log(deviceStateHandoffMsg);
+        }
+        stateService.onQueueMsg(deviceStateHandoffMsg, callback);
+    }
+
     void forwardToStateService(TransportProtos.DeviceConnectProto deviceConnectMsg, TbCallback callback) {
         if (statsEnabled) {
             stats.log(deviceConnectMsg);
@@ -146,6 +146,11 @@ public class TbCoreConsumerStats {
         deviceStateCounter.increment();
     }
 
+    public void log(TransportProtos.DeviceStateHandoffMsgProto msg) {
+        totalCounter.increment();
+        deviceStateCounter.increment();
+    }
+
     public void log(TransportProtos.DeviceConnectProto msg) {
         totalCounter.increment();
         deviceConnectsCounter.increment();
@@ -0,0 +1,276 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ruleengine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.RuleNodeStateId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.data.rule.RuleNodeState;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.stats.StatsCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.common.stats.StatsTimer;
+import org.thingsboard.server.common.stats.StatsType;
+import org.thingsboard.server.dao.rule.RuleNodeStateService;
+import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
+import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DefaultTbRuleNodeStateService extends TbApplicationEventListener<PartitionChangeEvent> implements TbRuleNodeStateService {
+
+    private final RuleNodeStateService ruleNodeStateService;
+    private final StatsFactory statsFactory;
+
+    @Value("${actors.rule.node.state.write_behind.enabled:false}")
+    private boolean writeBehindEnabled;
+    @Value("${actors.rule.node.state.write_behind.flush_interval_ms:1000}")
+    private long flushIntervalMs;
+    @Value("${actors.rule.node.state.write_behind.max_pending_states:100000}")
+    private int maxPendingStates;
+    @Value("${actors.rule.node.state.write_behind.stats_print_interval_ms:60000}")
+    private long statsPrintIntervalMs;
+
+    private final ConcurrentMap<StateKey, PendingState> pendingStates = new ConcurrentHashMap<>();
+    // ids of inserted states that were not handed over to the rule node yet. An evicted id only costs an update retry in the DAO
+    private Cache<StateKey, RuleNodeStateId> persistedIds;
+    private final Lock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+    private StatsCounter updatesCounter;
+    private StatsCounter writesCounter;
+    private StatsCounter failuresCounter;
+    private StatsTimer flushLagTimer;
+
+    @PostConstruct
+    public void init() {
+        if (!writeBehindEnabled) {
+            return;
+        }
+        String statsKey = StatsType.RULE_NODE_STATE.getName();
+        updatesCounter = statsFactory.createStatsCounter(statsKey, "updates");
+        writesCounter = statsFactory.createStatsCounter(statsKey, "writes");
+        failuresCounter = statsFactory.createStatsCounter(statsKey, "failures");
+        flushLagTimer = statsFactory.createStatsTimer(statsKey, "flushLag");
+        statsFactory.createGauge(statsKey, "pendingStates", pendingStates, Map::size);
+        persistedIds = Caffeine.newBuilder().maximumSize(maxPendingStates).build();
+
+        scheduler = ThingsBoardExecutors.newSingleThreadScheduledExecutor("rule-node-state-writer");
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::reportStats, statsPrintIntervalMs, statsPrintIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            flush();
+        }
+    }
+
+    @Override
+    public PageData<RuleNodeState> findByRuleNodeId(TenantId tenantId, RuleNodeId ruleNodeId, PageLink pageLink) {
+        if (writeBehindEnabled) {
+            flushIf(key -> key.ruleNodeId().equals(ruleNodeId));
+        }
+        return ruleNodeStateService.findByRuleNodeId(tenantId, ruleNodeId, pageLink);
+    }
+
+    @Override
+    public RuleNodeState findByRuleNodeIdAndEntityId(TenantId tenantId, RuleNodeId ruleNodeId, EntityId entityId) {
+        if (writeBehindEnabled) {
+            PendingState pending = pendingStates.get(new StateKey(ruleNodeId, entityId));
+            if (pending != null) {
+                return copyOf(pending.state());
+            }
+        }
+        return ruleNodeStateService.findByRuleNodeIdAndEntityId(tenantId, ruleNodeId, entityId);
+    }
+
+    @Override
+    public RuleNodeState save(TenantId tenantId, RuleNodeState ruleNodeState) {
+        if (!writeBehindEnabled) {
+            return ruleNodeStateService.save(tenantId, ruleNodeState);
+        }
+        StateKey key = new StateKey(ruleNodeState.getRuleNodeId(), ruleNodeState.getEntityId());
+        if (ruleNodeState.getId() == null) {
+            // the rule node keeps the id from now on
+            RuleNodeStateId id = persistedIds.asMap().remove(key);
+            if (id != null) {
+                ruleNodeState.setId(id);
+            }
+        }
+        // the caller keeps mutating its state object, so a snapshot is queued instead
+        RuleNodeState snapshot = copyOf(ruleNodeState);
+        long ts = System.currentTimeMillis();
+        pendingStates.compute(key, (k, previous) -> new PendingState(tenantId, snapshot, previous != null ? previous.firstUpdateTs() : ts));
+        updatesCounter.increment();
+        if (pendingStates.size() >= maxPendingStates && flushRequested.compareAndSet(false, true)) {
+            scheduler.submit(this::flush);
+        }
+        return ruleNodeState;
+    }
+
+    @Override
+    public void removeByRuleNodeId(TenantId tenantId, RuleNodeId ruleNodeId) {
+        if (!writeBehindEnabled) {
+            ruleNodeStateService.removeByRuleNodeId(tenantId, ruleNodeId);
+            return;
+        }
+        flushLock.lock();
+        try {
+            pendingStates.keySet().removeIf(key -> key.ruleNodeId().equals(ruleNodeId));
+            persistedIds.asMap().keySet().removeIf(key -> key.ruleNodeId().equals(ruleNodeId));
+            ruleNodeStateService.removeByRuleNodeId(tenantId, ruleNodeId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeByRuleNodeIdAndEntityId(TenantId tenantId, RuleNodeId ruleNodeId, EntityId entityId) {
+        if (!writeBehindEnabled) {
+            ruleNodeStateService.removeByRuleNodeIdAndEntityId(tenantId, ruleNodeId, entityId);
+            return;
+        }
+        StateKey key = new StateKey(ruleNodeId, entityId);
+        flushLock.lock();
+        try {
+            pendingStates.remove(key);
+            persistedIds.invalidate(key);
+            ruleNodeStateService.removeByRuleNodeIdAndEntityId(tenantId, ruleNodeId, entityId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        flushRequested.set(false);
+        flushIf(key -> true);
+    }
+
+    @Override
+    protected void onTbApplicationEvent(PartitionChangeEvent event) {
+        if (writeBehindEnabled) {
+            log.debug("Flushing {} pending rule node states due to partition change", pendingStates.size());
+            flush();
+        }
+    }
+
+    @Override
+    protected boolean filterTbApplicationEvent(PartitionChangeEvent event) {
+        return event.getServiceType() == ServiceType.TB_RULE_ENGINE;
+    }
+
+    private void flushIf(Predicate<StateKey> filter) {
+        if (pendingStates.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            long ts = System.currentTimeMillis();
+            for (Map.Entry<StateKey, PendingState> entry : pendingStates.entrySet()) {
+                StateKey key = entry.getKey();
+                if (!filter.test(key)) {
+                    continue;
+                }
+                PendingState pending = entry.getValue();
+                if (!persist(key, pending)) {
+                    // keep the entry, so that the state is retried on the next flush
+                    continue;
+                }
+                // keep the entry if it was updated while being persisted, so that reads never see a stale database row
+                pendingStates.remove(key, pending);
+                flushLagTimer.record(ts - pending.firstUpdateTs());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean persist(StateKey key, PendingState pending) {
+        RuleNodeState state = pending.state();
+        boolean inserted = state.getId() == null;
+        if (inserted) {
+            state.setId(persistedIds.getIfPresent(key));
+        }
+        try {
+            RuleNodeState saved = ruleNodeStateService.save(pending.tenantId(), state);
+            if (inserted) {
+                persistedIds.put(key, saved.getId());
+            }
+            writesCounter.increment();
+            return true;
+        } catch (Exception e) {
+            failuresCounter.increment();
+            log.warn("[{}][{}][{}] Failed to persist rule node state", pending.tenantId(), key.ruleNodeId(), key.entityId(), e);
+            return false;
+        }
+    }
+
+    private void reportStats() {
+        int updates = updatesCounter.get();
+        if (updates == 0) {
+            return;
+        }
+        int writes = writesCounter.get();
+        double coalescingRatio = writes > 0 ? (double) updates / writes : 0.0;
+        log.info("Rule node state stats: updates [{}] writes [{}] failures [{}] coalescingRatio [{}] avgFlushLag [{} ms] pending [{}]",
+                updates, writes, failuresCounter.get(), String.format("%.2f", coalescingRatio), flushLagTimer.getAvg(), pendingStates.size());
+        updatesCounter.clear();
+        writesCounter.clear();
+        failuresCounter.clear();
+        flushLagTimer.reset();
+    }
+
+    private static RuleNodeState copyOf(RuleNodeState state) {
+        RuleNodeState copy = new RuleNodeState(state);
+        copy.setRuleNodeId(state.getRuleNodeId());
+        copy.setEntityId(state.getEntityId());
+        copy.setStateData(state.getStateData());
+        return copy;
+    }
+
+    private record StateKey(RuleNodeId ruleNodeId, EntityId entityId) {}
+
+    private record PendingState(TenantId tenantId, RuleNodeState state, long firstUpdateTs) {}
+
+}
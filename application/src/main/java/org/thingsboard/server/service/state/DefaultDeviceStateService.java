@@ -23,13 +23,13 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.tuple.Pair;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -47,6 +47,7 @@ import org.thingsboard.server.common.data.DeviceIdInfo;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.exception.TenantNotFoundException;
+import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -75,6 +76,10 @@ import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.StatsCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.common.stats.StatsTimer;
+import org.thingsboard.server.common.stats.StatsType;
 import org.thingsboard.server.common.stats.TbApiUsageReportClient;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.device.DeviceService;
@@ -94,7 +99,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
@@ -165,6 +169,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     private final DbTypeInfoComponent dbTypeInfoComponent;
     private final TbApiUsageReportClient apiUsageReportClient;
     private final NotificationRuleProcessor notificationRuleProcessor;
+    private final StatsFactory statsFactory;
     @Autowired
     @Lazy
     private TelemetrySubscriptionService tsSubService;
@@ -175,6 +180,9 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     @Value("${state.defaultStateCheckIntervalInSec}")
     private int defaultStateCheckIntervalInSec;
 
+    @Value("${state.fullStateCheckIntervalInSec:3600}")
+    private int fullStateCheckIntervalInSec;
+
     @Value("${usage.stats.devices.report_interval:60}")
     private int defaultActivityStatsIntervalInSec;
 
@@ -187,14 +195,37 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     @Value("${state.telemetryTtl:0}")
     private int telemetryTtl;
 
+    @Value("${state.handoff.enabled:false}")
+    private boolean handoffEnabled;
+
+    @Value("${state.handoff.wait_ms:10000}")
+    private long handoffWaitMs;
+
+    @Value("${state.handoff.pack_size:1000}")
+    private int handoffPackSize;
+
     private ListeningExecutorService deviceStateExecutor;
     private ListeningExecutorService deviceStateCallbackExecutor;
 
     final ConcurrentMap<DeviceId, DeviceStateData> deviceStates = new ConcurrentHashMap<>();
+    final DeviceInactivityIndex inactivityIndex = new DeviceInactivityIndex();
+    final ConcurrentMap<TenantId, DeviceActivityStats> activityStats = new ConcurrentHashMap<>();
+    // completed when the previous owner of the partition has handed off all its device states
+    final ConcurrentMap<Integer, SettableFuture<Void>> partitionHandoffs = new ConcurrentHashMap<>();
+
+    private StatsTimer rebalanceTimer;
+    private StatsCounter handedOffStatesCounter;
+    private StatsCounter loadedStatesCounter;
+
+    private volatile long lastFullStateCheckTs;
 
     @PostConstruct
     public void init() {
         super.init();
+        String statsKey = StatsType.DEVICE_STATE.getName();
+        rebalanceTimer = statsFactory.createStatsTimer(statsKey, "rebalanceTime");
+        handedOffStatesCounter = statsFactory.createStatsCounter(statsKey, "handedOffStates");
+        loadedStatesCounter = statsFactory.createStatsCounter(statsKey, "loadedStates");
         deviceStateExecutor = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(
                 Math.max(4, Runtime.getRuntime().availableProcessors()), "device-state"));
         deviceStateCallbackExecutor = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(
@@ -205,6 +236,10 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     @PreDestroy
     public void stop() {
+        if (handoffEnabled && !partitionService.getOtherServices(ServiceType.TB_CORE).isEmpty()) {
+            // the partitions are taken over by other nodes once this node leaves the cluster
+            partitionedEntities.forEach(this::handOffStates);
+        }
         super.stop();
         if (deviceStateExecutor != null) {
             deviceStateExecutor.shutdownNow();
@@ -273,6 +308,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                 }
                 onDeviceActivityStatusChange(true, stateData);
             }
+            scheduleInactivityCheck(deviceId, stateData);
         } else {
             log.debug("updateActivityState - fetched state IS NULL for device {}, lastReportedActivity {}", deviceId, lastReportedActivity);
             cleanupEntity(deviceId);
@@ -397,6 +433,123 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
         }
     }
 
+    @Override
+    public void onQueueMsg(TransportProtos.DeviceStateHandoffMsgProto proto, TbCallback callback) {
+        try {
+            int applied = 0;
+            for (TransportProtos.DeviceStateSnapshotProto snapshot : proto.getStatesList()) {
+                DeviceStateData stateData = fromSnapshotProto(snapshot);
+                DeviceId deviceId = stateData.getDeviceId();
+                TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, stateData.getTenantId(), deviceId);
+                if (!tpi.isMyPartition()) {
+                    log.debug("[{}] Handed off device state belongs to external partition {}", deviceId, tpi.getFullTopicName());
+                    continue;
+                }
+                Set<DeviceId> deviceIds = partitionedEntities.get(tpi);
+                if (deviceIds != null) {
+                    deviceIds.add(deviceId);
+                }
+                // the state fetched on demand is more recent than the handed off one
+                if (putDeviceStateIfAbsent(stateData) == stateData) {
+                    checkAndUpdateState(deviceId, stateData);
+                    applied++;
+                }
+            }
+            handedOffStatesCounter.add(applied);
+            if (proto.getLast()) {
+                log.info("[{}] Device states of partition {} are handed off", getServiceName(), proto.getPartition());
+                partitionHandoffs.computeIfAbsent(proto.getPartition(), p -> SettableFuture.create()).set(null);
+            }
+            callback.onSuccess();
+        } catch (Exception e) {
+            log.warn("[{}] Failed to process handed off device states", proto.getPartition(), e);
+            callback.onFailure(e);
+        }
+    }
+
+    @Override
+    protected void onPartitionRemoved(TopicPartitionInfo partition, Set<DeviceId> deviceIds) {
+        partitionHandoffs.remove(partition.getPartition().orElse(0));
+        if (handoffEnabled) {
+            handOffStates(partition, deviceIds);
+        }
+    }
+
+    /*
+     * Pushes the device states of the partition to the partition itself, so that they are consumed by its next owner
+     * */
+    private void handOffStates(TopicPartitionInfo tpi, Set<DeviceId> deviceIds) {
+        try {
+            int partition = tpi.getPartition().orElse(0);
+            var builder = TransportProtos.DeviceStateHandoffMsgProto.newBuilder().setPartition(partition);
+            int count = 0;
+            for (DeviceId deviceId : deviceIds) {
+                DeviceStateData stateData = deviceStates.get(deviceId);
+                if (stateData == null || stateData.getState() == null) {
+                    continue;
+                }
+                builder.addStates(toSnapshotProto(stateData));
+                count++;
+                if (builder.getStatesCount() >= handoffPackSize) {
+                    pushHandoffMsg(tpi, builder.build());
+                    builder = TransportProtos.DeviceStateHandoffMsgProto.newBuilder().setPartition(partition);
+                }
+            }
+            pushHandoffMsg(tpi, builder.setLast(true).build());
+            log.info("[{}] Handed off {} device states", tpi.getFullTopicName(), count);
+        } catch (Exception e) {
+            log.warn("[{}] Failed to hand off device states", tpi.getFullTopicName(), e);
+        }
+    }
+
+    private void pushHandoffMsg(TopicPartitionInfo tpi, TransportProtos.DeviceStateHandoffMsgProto msg) {
+        clusterService.pushMsgToCore(tpi, UUID.randomUUID(), TransportProtos.ToCoreMsg.newBuilder().setDeviceStateHandoffMsg(msg).build(), null);
+    }
+
+    static TransportProtos.DeviceStateSnapshotProto toSnapshotProto(DeviceStateData stateData) {
+        DeviceState state = stateData.getState();
+        var builder = TransportProtos.DeviceStateSnapshotProto.newBuilder()
+                .setTenantIdMSB(stateData.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(stateData.getTenantId().getId().getLeastSignificantBits())
+                .setDeviceIdMSB(stateData.getDeviceId().getId().getMostSignificantBits())
+                .setDeviceIdLSB(stateData.getDeviceId().getId().getLeastSignificantBits())
+                .setDeviceCreationTime(stateData.getDeviceCreationTime())
+                .setActive(state.isActive())
+                .setLastConnectTime(state.getLastConnectTime())
+                .setLastActivityTime(state.getLastActivityTime())
+                .setLastDisconnectTime(state.getLastDisconnectTime())
+                .setLastInactivityAlarmTime(state.getLastInactivityAlarmTime())
+                .setInactivityTimeout(state.getInactivityTimeout());
+        if (stateData.getCustomerId() != null) {
+            builder.setCustomerIdMSB(stateData.getCustomerId().getId().getMostSignificantBits())
+                    .setCustomerIdLSB(stateData.getCustomerId().getId().getLeastSignificantBits());
+        }
+        if (stateData.getMetaData() != null) {
+            builder.putAllMetaData(stateData.getMetaData().getData());
+        }
+        return builder.build();
+    }
+
+    static DeviceStateData fromSnapshotProto(TransportProtos.DeviceStateSnapshotProto proto) {
+        CustomerId customerId = proto.getCustomerIdMSB() != 0 || proto.getCustomerIdLSB() != 0 ?
+                new CustomerId(new UUID(proto.getCustomerIdMSB(), proto.getCustomerIdLSB())) : null;
+        return DeviceStateData.builder()
+                .tenantId(TenantId.fromUUID(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())))
+                .customerId(customerId)
+                .deviceId(new DeviceId(new UUID(proto.getDeviceIdMSB(), proto.getDeviceIdLSB())))
+                .deviceCreationTime(proto.getDeviceCreationTime())
+                .metaData(new TbMsgMetaData(proto.getMetaDataMap()))
+                .state(DeviceState.builder()
+                        .active(proto.getActive())
+                        .lastConnectTime(proto.getLastConnectTime())
+                        .lastActivityTime(proto.getLastActivityTime())
+                        .lastDisconnectTime(proto.getLastDisconnectTime())
+                        .lastInactivityAlarmTime(proto.getLastInactivityAlarmTime())
+                        .inactivityTimeout(proto.getInactivityTimeout())
+                        .build())
+                .build();
+    }
+
     private void onDeviceDeleted(TenantId tenantId, DeviceId deviceId) {
         cleanupEntity(deviceId);
         TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenantId, deviceId);
@@ -407,13 +560,52 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     }
 
     private void initializeActivityState(DeviceId deviceId, DeviceStateData fetchedState) {
-        DeviceStateData cachedState = deviceStates.putIfAbsent(fetchedState.getDeviceId(), fetchedState);
-        boolean activityState = Objects.requireNonNullElse(cachedState, fetchedState).getState().isActive();
+        DeviceStateData cachedState = putDeviceStateIfAbsent(fetchedState);
+        boolean activityState = cachedState.getState().isActive();
         save(fetchedState.getTenantId(), deviceId, ACTIVITY_STATE, activityState);
     }
 
+    /*
+     * When the partitions are moved from another node, the device states are loaded from the DB only after the previous owner
+     * has handed them off or the handoff wait time has elapsed. The devices with handed off states are not reloaded.
+     * */
     @Override
     protected Map<TopicPartitionInfo, List<ListenableFuture<?>>> onAddedPartitions(Set<TopicPartitionInfo> addedPartitions) {
+        long startTs = System.currentTimeMillis();
+        if (!handoffEnabled || partitionService.getOtherServices(ServiceType.TB_CORE).isEmpty()) {
+            var result = loadPartitionStates(addedPartitions);
+            onPartitionStatesLoaded(Futures.allAsList(result.values().stream().flatMap(List::stream).toList()), addedPartitions, startTs);
+            return result;
+        }
+        List<ListenableFuture<Void>> handoffFutures = addedPartitions.stream()
+                .map(tpi -> Futures.nonCancellationPropagating(partitionHandoffs.computeIfAbsent(tpi.getPartition().orElse(0), p -> SettableFuture.create())))
+                .toList();
+        ListenableFuture<?> handoffFuture = Futures.catching(
+                Futures.withTimeout(Futures.allAsList(handoffFutures), handoffWaitMs, TimeUnit.MILLISECONDS, scheduledExecutor),
+                Exception.class, e -> {
+                    log.info("Device states of the added partitions {} were not handed off within {} ms", addedPartitions, handoffWaitMs);
+                    return null;
+                }, MoreExecutors.directExecutor());
+        ListenableFuture<?> loadFuture = Futures.transformAsync(handoffFuture,
+                v -> Futures.allAsList(loadPartitionStates(addedPartitions).values().stream().flatMap(List::stream).toList()), scheduledExecutor);
+        onPartitionStatesLoaded(loadFuture, addedPartitions, startTs);
+        // the load is shared by all added partitions, removal of one of them should not cancel it for the others
+        ListenableFuture<?> partitionFuture = Futures.nonCancellationPropagating(loadFuture);
+        var result = new HashMap<TopicPartitionInfo, List<ListenableFuture<?>>>();
+        addedPartitions.forEach(tpi -> result.put(tpi, List.of(partitionFuture)));
+        return result;
+    }
+
+    private void onPartitionStatesLoaded(ListenableFuture<?> future, Set<TopicPartitionInfo> addedPartitions, long startTs) {
+        future.addListener(() -> {
+            addedPartitions.forEach(tpi -> partitionHandoffs.remove(tpi.getPartition().orElse(0)));
+            long duration = System.currentTimeMillis() - startTs;
+            rebalanceTimer.record(duration);
+            log.info("[{}] Initialized device states of {} added partitions in {} ms", getServiceName(), addedPartitions.size(), duration);
+        }, MoreExecutors.directExecutor());
+    }
+
+    private Map<TopicPartitionInfo, List<ListenableFuture<?>>> loadPartitionStates(Set<TopicPartitionInfo> addedPartitions) {
         var result = new HashMap<TopicPartitionInfo, List<ListenableFuture<?>>>();
         PageDataIterable<DeviceIdInfo> deviceIdInfos = new PageDataIterable<>(deviceService::findDeviceIdInfos, initFetchPackSize);
         Map<TopicPartitionInfo, List<DeviceIdInfo>> tpiDeviceMap = new HashMap<>();
@@ -427,8 +619,16 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                         idInfo.getDeviceId(), idInfo.getTenantId(), idInfo.getCustomerId(), e.getMessage());
                 continue;
             }
-            if (addedPartitions.contains(tpi) && !deviceStates.containsKey(idInfo.getDeviceId())) {
-                tpiDeviceMap.computeIfAbsent(tpi, tmp -> new ArrayList<>()).add(idInfo);
+            if (addedPartitions.contains(tpi)) {
+                if (!deviceStates.containsKey(idInfo.getDeviceId())) {
+                    tpiDeviceMap.computeIfAbsent(tpi, tmp -> new ArrayList<>()).add(idInfo);
+                } else {
+                    // the state was handed off by the previous owner or fetched on demand
+                    Set<DeviceId> deviceIds = partitionedEntities.get(tpi);
+                    if (deviceIds != null) {
+                        deviceIds.add(idInfo.getDeviceId());
+                    }
+                }
             }
         }
 
@@ -453,12 +653,13 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                                 boolean isMyPartition = deviceIds != null;
                                 if (isMyPartition) {
                                     deviceIds.add(state.getDeviceId());
-                                    deviceStates.putIfAbsent(state.getDeviceId(), state);
+                                    putDeviceStateIfAbsent(state);
                                     checkAndUpdateState(state.getDeviceId(), state);
                                 } else {
                                     log.debug("[{}] Device belongs to external partition {}", state.getDeviceId(), tpi.getFullTopicName());
                                 }
                             }
+                            loadedStatesCounter.add(states.size());
                             log.info("[{}] Initialized {} out of {} device states", entry.getKey().getPartition().orElse(0), counter.addAndGet(states.size()), entry.getValue().size());
                         }
                     } catch (Throwable t) {
@@ -477,6 +678,14 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
         private volatile ListenableFuture<?> future;
     }
 
+    record DeviceActivityStats(int active, int inactive) {
+
+        DeviceActivityStats add(int activeDelta, int inactiveDelta) {
+            return new DeviceActivityStats(active + activeDelta, inactive + inactiveDelta);
+        }
+
+    }
+
     void checkAndUpdateState(@Nonnull DeviceId deviceId, @Nonnull DeviceStateData state) {
         var deviceState = state.getState();
         if (deviceState.isActive()) {
@@ -496,50 +705,77 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     void checkStates() {
         try {
             final long ts = getCurrentTimeMillis();
-            partitionedEntities.forEach((tpi, deviceIds) -> {
-                log.debug("Calculating state updates. tpi {} for {} devices", tpi.getFullTopicName(), deviceIds.size());
-                Set<DeviceId> idsFromRemovedTenant = new HashSet<>();
-                for (DeviceId deviceId : deviceIds) {
-                    DeviceStateData stateData;
-                    try {
-                        stateData = getOrFetchDeviceStateData(deviceId);
-                    } catch (Exception e) {
-                        log.error("[{}] Failed to get or fetch device state data", deviceId, e);
-                        continue;
-                    }
-                    try {
-                        updateInactivityStateIfExpired(ts, deviceId, stateData);
-                    } catch (Exception e) {
-                        if (e instanceof TenantNotFoundException) {
-                            idsFromRemovedTenant.add(deviceId);
-                        } else {
-                            log.warn("[{}] Failed to update inactivity state [{}]", deviceId, e.getMessage());
-                        }
-                    }
-                }
-                deviceIds.removeAll(idsFromRemovedTenant);
-            });
+            if (lastFullStateCheckTs == 0L || ts - lastFullStateCheckTs >= TimeUnit.SECONDS.toMillis(fullStateCheckIntervalInSec)) {
+                checkAllStates(ts);
+                lastFullStateCheckTs = ts;
+            } else {
+                checkExpiredStates(ts);
+            }
         } catch (Throwable t) {
             log.warn("Failed to check devices states", t);
         }
     }
 
-    private void reportActivityStats() {
-        try {
-            Map<TenantId, Pair<AtomicInteger, AtomicInteger>> stats = new HashMap<>();
-            for (DeviceStateData stateData : deviceStates.values()) {
-                Pair<AtomicInteger, AtomicInteger> tenantDevicesActivity = stats.computeIfAbsent(stateData.getTenantId(),
-                        tenantId -> Pair.of(new AtomicInteger(), new AtomicInteger()));
-                if (stateData.getState().isActive()) {
-                    tenantDevicesActivity.getLeft().incrementAndGet();
+    /*
+     * Processes only the devices whose inactivity deadline has passed.
+     * Devices that reported activity since the deadline was scheduled are re-scheduled by updateInactivityStateIfExpired.
+     * */
+    private void checkExpiredStates(long ts) {
+        List<DeviceId> expired = inactivityIndex.pollExpired(ts);
+        log.debug("Calculating state updates for {} devices with expired inactivity deadline", expired.size());
+        for (DeviceId deviceId : expired) {
+            DeviceStateData stateData = deviceStates.get(deviceId);
+            if (stateData == null) {
+                continue;
+            }
+            try {
+                updateInactivityStateIfExpired(ts, deviceId, stateData);
+            } catch (Exception e) {
+                if (e instanceof TenantNotFoundException) {
+                    partitionedEntities.values().forEach(deviceIds -> deviceIds.remove(deviceId));
+                    cleanupEntity(deviceId);
                 } else {
-                    tenantDevicesActivity.getRight().incrementAndGet();
+                    log.warn("[{}] Failed to update inactivity state [{}]", deviceId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /*
+     * Full scan over all devices of the owned partitions. Used on the first check and periodically afterwards
+     * to pick up devices that were added to the state map without being indexed.
+     * */
+    private void checkAllStates(long ts) {
+        partitionedEntities.forEach((tpi, deviceIds) -> {
+            log.debug("Calculating state updates. tpi {} for {} devices", tpi.getFullTopicName(), deviceIds.size());
+            Set<DeviceId> idsFromRemovedTenant = new HashSet<>();
+            for (DeviceId deviceId : deviceIds) {
+                DeviceStateData stateData;
+                try {
+                    stateData = getOrFetchDeviceStateData(deviceId);
+                } catch (Exception e) {
+                    log.error("[{}] Failed to get or fetch device state data", deviceId, e);
+                    continue;
+                }
+                try {
+                    updateInactivityStateIfExpired(ts, deviceId, stateData);
+                } catch (Exception e) {
+                    if (e instanceof TenantNotFoundException) {
+                        idsFromRemovedTenant.add(deviceId);
+                    } else {
+                        log.warn("[{}] Failed to update inactivity state [{}]", deviceId, e.getMessage());
+                    }
                 }
             }
+            deviceIds.removeAll(idsFromRemovedTenant);
+        });
+    }
 
-            stats.forEach((tenantId, tenantDevicesActivity) -> {
-                int active = tenantDevicesActivity.getLeft().get();
-                int inactive = tenantDevicesActivity.getRight().get();
+    void reportActivityStats() {
+        try {
+            activityStats.forEach((tenantId, tenantDevicesActivity) -> {
+                int active = tenantDevicesActivity.active();
+                int inactive = tenantDevicesActivity.inactive();
                 apiUsageReportClient.report(tenantId, null, ApiUsageRecordKey.ACTIVE_DEVICES, active);
                 apiUsageReportClient.report(tenantId, null, ApiUsageRecordKey.INACTIVE_DEVICES, inactive);
                 if (active > 0) {
@@ -563,6 +799,8 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                 } else {
                     cleanupEntity(deviceId);
                 }
+            } else {
+                scheduleInactivityCheck(deviceId, stateData);
             }
         } else {
             log.debug("[{}] Device that belongs to other server is detected and removed.", deviceId);
@@ -584,6 +822,8 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
             @Override
             public void onFailure(@NonNull Throwable t) {
                 log.error("[{}][{}] Failed to update device last inactivity alarm time to '{}'. Device state data: {}", tenantId, deviceId, ts, stateData, t);
+                // retry on the next state check
+                scheduleInactivityCheck(deviceId, stateData);
             }
         }, deviceStateCallbackExecutor);
     }
@@ -592,9 +832,51 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
         return ts < state.getLastActivityTime() + state.getInactivityTimeout();
     }
 
+    void scheduleInactivityCheck(DeviceId deviceId, DeviceStateData stateData) {
+        DeviceState state = stateData.getState();
+        if (state == null) {
+            return;
+        }
+        long lastInactivityAlarmTime = state.getLastInactivityAlarmTime();
+        if (lastInactivityAlarmTime != 0L && lastInactivityAlarmTime > state.getLastActivityTime()) {
+            // inactivity is already reported, the device is re-scheduled on the next activity
+            return;
+        }
+        long from = Math.max(state.getLastActivityTime(), stateData.getDeviceCreationTime());
+        long deadline = state.getInactivityTimeout() > Long.MAX_VALUE - from ? Long.MAX_VALUE : from + state.getInactivityTimeout();
+        inactivityIndex.schedule(deviceId, deadline);
+    }
+
     @Nonnull
     DeviceStateData getOrFetchDeviceStateData(DeviceId deviceId) {
-        return deviceStates.computeIfAbsent(deviceId, this::fetchDeviceStateDataUsingSeparateRequests);
+        return deviceStates.computeIfAbsent(deviceId, id -> {
+            DeviceStateData stateData = fetchDeviceStateDataUsingSeparateRequests(id);
+            onDeviceStateAdded(id, stateData);
+            return stateData;
+        });
+    }
+
+    private DeviceStateData putDeviceStateIfAbsent(DeviceStateData stateData) {
+        return deviceStates.computeIfAbsent(stateData.getDeviceId(), id -> {
+            onDeviceStateAdded(id, stateData);
+            return stateData;
+        });
+    }
+
+    private void onDeviceStateAdded(DeviceId deviceId, DeviceStateData stateData) {
+        if (stateData == null || stateData.getState() == null) {
+            return;
+        }
+        boolean active = stateData.getState().isActive();
+        updateActivityStats(stateData.getTenantId(), active ? 1 : 0, active ? 0 : 1);
+        scheduleInactivityCheck(deviceId, stateData);
+    }
+
+    private void updateActivityStats(TenantId tenantId, int activeDelta, int inactiveDelta) {
+        activityStats.compute(tenantId, (id, stats) -> {
+            DeviceActivityStats updated = stats != null ? stats.add(activeDelta, inactiveDelta) : new DeviceActivityStats(activeDelta, inactiveDelta);
+            return updated.active() <= 0 && updated.inactive() <= 0 ? null : updated;
+        });
     }
 
     DeviceStateData fetchDeviceStateDataUsingSeparateRequests(final DeviceId deviceId) {
@@ -618,7 +900,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
         Futures.addCallback(save(tenantId, deviceId, ACTIVITY_STATE, active), new FutureCallback<>() {
             @Override
             public void onSuccess(Void success) {
-                stateData.getState().setActive(active);
+                setActive(deviceId, stateData, active);
                 pushRuleEngineMessage(stateData, active ? TbMsgType.ACTIVITY_EVENT : TbMsgType.INACTIVITY_EVENT);
                 TbMsgMetaData metaData = stateData.getMetaData();
                 notificationRuleProcessor.process(DeviceActivityTrigger.builder()
@@ -639,6 +921,17 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
         }, deviceStateCallbackExecutor);
     }
 
+    private void setActive(DeviceId deviceId, DeviceStateData stateData, boolean active) {
+        // updated under the map lock to keep activity stats consistent with concurrent cleanup of the same device
+        deviceStates.computeIfPresent(deviceId, (id, current) -> {
+            if (current == stateData && current.getState().isActive() != active) {
+                updateActivityStats(current.getTenantId(), active ? 1 : -1, active ? -1 : 1);
+            }
+            return current;
+        });
+        stateData.getState().setActive(active);
+    }
+
     boolean cleanDeviceStateIfBelongsToExternalPartition(TenantId tenantId, final DeviceId deviceId) {
         TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenantId, deviceId);
         boolean cleanup = !partitionedEntities.containsKey(tpi);
@@ -655,7 +948,14 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     }
 
     private void cleanupEntity(DeviceId deviceId) {
-        deviceStates.remove(deviceId);
+        deviceStates.computeIfPresent(deviceId, (id, stateData) -> {
+            DeviceState state = stateData.getState();
+            if (state != null) {
+                updateActivityStats(stateData.getTenantId(), state.isActive() ? -1 : 0, state.isActive() ? 0 : -1);
+            }
+            return null;
+        });
+        inactivityIndex.remove(deviceId);
     }
 
     private ListenableFuture<DeviceStateData> fetchDeviceState(Device device) {
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.state;
+
+import org.thingsboard.server.common.data.id.DeviceId;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Deadline-ordered index of devices that may become inactive.
+ * <p>
+ * Each device has at most one scheduled deadline. A deadline is only moved to an earlier point in time:
+ * when the device reports activity, its entry is left in place and is re-scheduled to the actual deadline
+ * once it fires. This keeps the hot path (device activity) free of index updates.
+ */
+class DeviceInactivityIndex {
+
+    private static final Comparator<Deadline> DEADLINE_ORDER = Comparator.comparingLong(Deadline::ts)
+            .thenComparing(deadline -> deadline.deviceId().getId());
+
+    private final ConcurrentSkipListSet<Deadline> queue = new ConcurrentSkipListSet<>(DEADLINE_ORDER);
+    private final ConcurrentMap<DeviceId, Long> deadlines = new ConcurrentHashMap<>();
+
+    void schedule(DeviceId deviceId, long deadlineTs) {
+        deadlines.compute(deviceId, (id, current) -> {
+            if (current != null) {
+                if (current <= deadlineTs) {
+                    return current;
+                }
+                queue.remove(new Deadline(current, id));
+            }
+            queue.add(new Deadline(deadlineTs, id));
+            return deadlineTs;
+        });
+    }
+
+    void remove(DeviceId deviceId) {
+        deadlines.computeIfPresent(deviceId, (id, current) -> {
+            queue.remove(new Deadline(current, id));
+            return null;
+        });
+    }
+
+    /**
+     * Removes and returns the devices with deadline less than or equal to the given timestamp.
+     */
+    List<DeviceId> pollExpired(long ts) {
+        List<DeviceId> expired = new ArrayList<>();
+        Deadline head;
+        while ((head = queue.pollFirst()) != null) {
+            if (head.ts() > ts) {
+                queue.add(head);
+                break;
+            }
+            if (deadlines.remove(head.deviceId(), head.ts())) {
+                expired.add(head.deviceId());
+            }
+        }
+        return expired;
+    }
+
+    boolean isScheduled(DeviceId deviceId) {
+        return deadlines.containsKey(deviceId);
+    }
+
+    int size() {
+        return deadlines.size();
+    }
+
+    private record Deadline(long ts, DeviceId deviceId) {}
+
+}
@@ -47,4 +47,6 @@ public interface DeviceStateService extends ApplicationListener<PartitionChangeE
 
     void onQueueMsg(TransportProtos.DeviceStateServiceMsgProto proto, TbCallback bytes);
 
+    void onQueueMsg(TransportProtos.DeviceStateHandoffMsgProto proto, TbCallback callback);
+
 }
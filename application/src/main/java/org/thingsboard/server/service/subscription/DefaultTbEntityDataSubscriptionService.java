@@ -122,11 +122,15 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
     @Autowired
     private TbServiceInfoProvider serviceInfoProvider;
 
+    @Autowired
+    private DynamicQueryChangeTracker dynamicQueryChangeTracker;
+
     @Autowired
     @Getter
     private DbCallbackExecutorService dbCallbackExecutor;
 
     private ScheduledExecutorService scheduler;
+    private ScheduledExecutorService coalescingScheduler;
 
     @Value("${database.ts.type}")
     private String databaseTsType;
@@ -134,6 +138,10 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
     private long dynamicPageLinkRefreshInterval;
     @Value("${server.ws.dynamic_page_link.refresh_pool_size:1}")
     private int dynamicPageLinkRefreshPoolSize;
+    @Value("${server.ws.dynamic_page_link.change_tracking.enabled:false}")
+    private boolean dynamicPageLinkChangeTrackingEnabled;
+    @Value("${server.ws.dynamic_page_link.change_tracking.max_skipped_refreshes:10}")
+    private int dynamicPageLinkMaxSkippedRefreshes;
     @Value("${server.ws.max_entities_per_data_subscription:1000}")
     private int maxEntitiesPerDataSubscription;
     @Value("${server.ws.max_entities_per_alarm_subscription:1000}")
@@ -144,6 +152,12 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
     private int maxDatapointLimit;
     @Value("${server.ws.alarms_per_alarm_status_subscription_cache_size:10}")
     private int alarmsPerAlarmStatusSubscriptionCacheSize;
+    @Value("${server.ws.update_coalescing.enabled:true}")
+    private boolean updateCoalescingEnabled;
+    @Value("${server.ws.update_coalescing.min_interval_ms:50}")
+    private long minCoalesceInterval;
+    @Value("${server.ws.update_coalescing.max_interval_ms:5000}")
+    private long maxCoalesceInterval;
 
     private ExecutorService wsCallBackExecutor;
     private boolean tsInSqlDB;
@@ -160,6 +174,9 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         } else {
             scheduler = ThingsBoardExecutors.newScheduledThreadPool(dynamicPageLinkRefreshPoolSize, "ws-entity-sub-scheduler");
         }
+        if (updateCoalescingEnabled) {
+            coalescingScheduler = ThingsBoardExecutors.newSingleThreadScheduledExecutor("ws-entity-sub-coalescing");
+        }
     }
 
     @PreDestroy
@@ -170,6 +187,9 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
+        if (coalescingScheduler != null) {
+            coalescingScheduler.shutdownNow();
+        }
     }
 
     @Override
@@ -185,6 +205,7 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
             ctx = createSubCtx(session, cmd);
         }
         ctx.setCurrentCmd(cmd);
+        ctx.setUpdateCoalescing(coalescingScheduler, getCoalesceInterval(cmd));
 
         // Fetch entity list using entity data query
         if (cmd.getQuery() != null) {
@@ -203,6 +224,7 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
                     }
                 });
             }
+            ctx.setQueryVersion(getQueryVersion(ctx));
             long start = System.currentTimeMillis();
             ctx.fetchData();
             long end = System.currentTimeMillis();
@@ -268,6 +290,14 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         }
     }
 
+    private long getCoalesceInterval(EntityDataCmd cmd) {
+        Long requested = cmd.getCoalesceInterval();
+        if (!updateCoalescingEnabled || requested == null || requested <= 0) {
+            return 0;
+        }
+        return Math.min(Math.max(requested, minCoalesceInterval), maxCoalesceInterval);
+    }
+
     private void checkAndSendInitialData(@Nullable TbEntityDataSubCtx theCtx) {
         if (!theCtx.isInitialDataSent()) {
             EntityDataUpdate update = new EntityDataUpdate(theCtx.getCmdId(), theCtx.getData(), null, theCtx.getMaxEntitiesPerDataSubscription());
@@ -371,6 +401,7 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         TbEntityCountSubCtx ctx = getSubCtx(session.getSessionId(), cmd.getCmdId());
         if (ctx == null) {
             ctx = createSubCtx(session, cmd);
+            ctx.setQueryVersion(getQueryVersion(ctx));
             long start = System.currentTimeMillis();
             ctx.fetchData();
             long end = System.currentTimeMillis();
@@ -486,6 +517,11 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
     private void refreshDynamicQuery(TbAbstractEntityQuerySubCtx<?> finalCtx) {
         try {
             if (validate(finalCtx)) {
+                if (!finalCtx.isRefreshRequired(getQueryVersion(finalCtx), dynamicPageLinkMaxSkippedRefreshes)) {
+                    log.trace("[{}][{}] Skipping refresh of unchanged query: {}", finalCtx.getSessionId(), finalCtx.getCmdId(), finalCtx.getQuery());
+                    stats.getDynamicQuerySkippedCnt().incrementAndGet();
+                    return;
+                }
                 long start = System.currentTimeMillis();
                 finalCtx.update();
                 long end = System.currentTimeMillis();
@@ -500,6 +536,14 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         }
     }
 
+    private long getQueryVersion(TbAbstractEntityQuerySubCtx<?> ctx) {
+        if (!dynamicPageLinkChangeTrackingEnabled) {
+            return -1;
+        }
+        var scope = DynamicQueryChangeTracker.resolveScope(ctx.getQuery(), !ctx.getDynamicValues().isEmpty());
+        return dynamicQueryChangeTracker.getVersion(ctx.getTenantId(), scope);
+    }
+
     private void refreshAlarmQuery(TbAlarmDataSubCtx finalCtx) {
         if (validate(finalCtx)) {
             finalCtx.checkAndResetInvocationCounter();
@@ -516,13 +560,14 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         long regularQueryInvocationTimeValue = stats.getRegularQueryTimeSpent().getAndSet(0);
         int dynamicQueryInvocationCntValue = stats.getDynamicQueryInvocationCnt().getAndSet(0);
         long dynamicQueryInvocationTimeValue = stats.getDynamicQueryTimeSpent().getAndSet(0);
+        int dynamicQuerySkippedCntValue = stats.getDynamicQuerySkippedCnt().getAndSet(0);
         long dynamicQueryCnt = subscriptionsBySessionId.values().stream().mapToLong(m -> m.values().stream().filter(TbAbstractSubCtx::isDynamic).count()).sum();
         if (regularQueryInvocationCntValue > 0 || dynamicQueryInvocationCntValue > 0 || dynamicQueryCnt > 0 || alarmQueryInvocationCntValue > 0) {
             log.info("Stats: regularQueryInvocationCnt = [{}], regularQueryInvocationTime = [{}], " +
-                            "dynamicQueryCnt = [{}] dynamicQueryInvocationCnt = [{}], dynamicQueryInvocationTime = [{}], " +
+                            "dynamicQueryCnt = [{}] dynamicQueryInvocationCnt = [{}], dynamicQueryInvocationTime = [{}], dynamicQuerySkippedCnt = [{}], " +
                             "alarmQueryInvocationCnt = [{}], alarmQueryInvocationTime = [{}]",
                     regularQueryInvocationCntValue, regularQueryInvocationTimeValue,
-                    dynamicQueryCnt, dynamicQueryInvocationCntValue, dynamicQueryInvocationTimeValue,
+                    dynamicQueryCnt, dynamicQueryInvocationCntValue, dynamicQueryInvocationTimeValue, dynamicQuerySkippedCntValue,
                     alarmQueryInvocationCntValue, alarmQueryInvocationTimeValue);
         }
     }
@@ -0,0 +1,278 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
+import org.thingsboard.server.common.data.query.AbstractDataQuery;
+import org.thingsboard.server.common.data.query.AssetSearchQueryFilter;
+import org.thingsboard.server.common.data.query.DeviceSearchQueryFilter;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityFilter;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityListFilter;
+import org.thingsboard.server.common.data.query.EntityNameFilter;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.common.data.query.EntityViewSearchQueryFilter;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.SingleEntityFilter;
+import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
+import org.thingsboard.server.dao.eventsourcing.DeleteEntityEvent;
+import org.thingsboard.server.dao.eventsourcing.RelationActionEvent;
+import org.thingsboard.server.dao.eventsourcing.SaveEntityEvent;
+import org.thingsboard.server.gen.transport.TransportProtos.DynamicQueryChangeMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreNotificationMsg;
+import org.thingsboard.server.queue.util.TbCoreComponent;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps per-tenant version counters of the entities and relations that dynamic entity queries depend on.
+ * A dynamic query needs to be re-executed only if the version of its {@link ChangeScope} has changed since the last execution.
+ * <p>
+ * Most entity changes are delivered to every core node by the component lifecycle broadcast. Device and asset creations
+ * and deletions and relation changes of devices and assets are not, so they are collected on the core node where they were made
+ * and broadcast to all core nodes in batches.
+ */
+@Slf4j
+@Component
+@TbCoreComponent
+public class DynamicQueryChangeTracker {
+
+    static final Set<EntityType> TRACKED_ENTITY_TYPES = EnumSet.of(EntityType.DEVICE, EntityType.ASSET, EntityType.ENTITY_VIEW,
+            EntityType.CUSTOMER, EntityType.USER, EntityType.DEVICE_PROFILE, EntityType.ASSET_PROFILE);
+
+    private static final Set<EntityType> BROADCAST_ENTITY_TYPES = EnumSet.of(EntityType.DEVICE, EntityType.ASSET);
+
+    private final TbClusterService clusterService;
+    private final ConcurrentMap<TenantId, TenantVersions> versions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TenantId, PendingChanges> pendingBroadcasts = new ConcurrentHashMap<>();
+
+    @Value("${server.ws.dynamic_page_link.change_tracking.enabled:false}")
+    private boolean enabled;
+
+    public DynamicQueryChangeTracker(@Lazy TbClusterService clusterService) {
+        this.clusterService = clusterService;
+    }
+
+    public void onEntityChange(TenantId tenantId, EntityType entityType) {
+        if (TRACKED_ENTITY_TYPES.contains(entityType)) {
+            log.trace("[{}][{}] Entity change affects dynamic queries", tenantId, entityType);
+            getVersions(tenantId).onEntityChange(entityType);
+        }
+    }
+
+    public void onRelationChange(TenantId tenantId) {
+        getVersions(tenantId).relations.incrementAndGet();
+    }
+
+    public void onComponentLifecycleMsg(ComponentLifecycleMsg msg) {
+        EntityType entityType = msg.getEntityId().getEntityType();
+        if (EntityType.TENANT.equals(entityType) && ComponentLifecycleEvent.DELETED.equals(msg.getEvent())) {
+            removeTenant(msg.getTenantId());
+        } else if (ComponentLifecycleEvent.RELATION_UPDATED.equals(msg.getEvent()) || ComponentLifecycleEvent.RELATION_DELETED.equals(msg.getEvent())) {
+            onRelationChange(msg.getTenantId());
+        } else {
+            onEntityChange(msg.getTenantId(), entityType);
+        }
+    }
+
+    public void onQueueMsg(DynamicQueryChangeMsgProto msg) {
+        TenantId tenantId = TenantId.fromUUID(new UUID(msg.getTenantIdMSB(), msg.getTenantIdLSB()));
+        for (String entityType : msg.getEntityTypesList()) {
+            onEntityChange(tenantId, EntityType.valueOf(entityType));
+        }
+        if (msg.getRelations()) {
+            onRelationChange(tenantId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(SaveEntityEvent<?> event) {
+        if (Boolean.TRUE.equals(event.getCreated()) && event.getEntityId() != null) {
+            onLocalEntityChange(event.getTenantId(), event.getEntityId().getEntityType());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(DeleteEntityEvent<?> event) {
+        if (event.getEntityId() != null) {
+            onLocalEntityChange(event.getTenantId(), event.getEntityId().getEntityType());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(RelationActionEvent relationEvent) {
+        onRelationChange(relationEvent.getTenantId());
+        if (enabled) {
+            pendingBroadcasts.compute(relationEvent.getTenantId(), (id, changes) -> {
+                changes = changes != null ? changes : new PendingChanges();
+                changes.relations = true;
+                return changes;
+            });
+        }
+    }
+
+    private void onLocalEntityChange(TenantId tenantId, EntityType entityType) {
+        if (!BROADCAST_ENTITY_TYPES.contains(entityType)) {
+            return;
+        }
+        onEntityChange(tenantId, entityType);
+        if (enabled) {
+            pendingBroadcasts.compute(tenantId, (id, changes) -> {
+                changes = changes != null ? changes : new PendingChanges();
+                changes.entityTypes.add(entityType);
+                return changes;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${server.ws.dynamic_page_link.change_tracking.broadcast_interval_ms:1000}")
+    public void broadcastChanges() {
+        for (TenantId tenantId : pendingBroadcasts.keySet()) {
+            PendingChanges changes = pendingBroadcasts.remove(tenantId);
+            if (changes == null) {
+                continue;
+            }
+            DynamicQueryChangeMsgProto.Builder msg = DynamicQueryChangeMsgProto.newBuilder()
+                    .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                    .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
+                    .setRelations(changes.relations);
+            changes.entityTypes.forEach(entityType -> msg.addEntityTypes(entityType.name()));
+            try {
+                clusterService.broadcastToCore(ToCoreNotificationMsg.newBuilder().setDynamicQueryChangeMsg(msg).build());
+            } catch (Exception e) {
+                log.warn("[{}] Failed to broadcast dynamic query changes", tenantId, e);
+            }
+        }
+    }
+
+    public void removeTenant(TenantId tenantId) {
+        versions.remove(tenantId);
+        pendingBroadcasts.remove(tenantId);
+    }
+
+    /**
+     * @return the current version of the given scope, or -1 if the query result can't be tracked and must always be refreshed.
+     */
+    public long getVersion(TenantId tenantId, ChangeScope scope) {
+        if (scope == null) {
+            return -1;
+        }
+        TenantVersions tenantVersions = getVersions(tenantId);
+        long version = scope.relations() ? tenantVersions.relations.get() : 0;
+        if (scope.anyEntityType()) {
+            version += tenantVersions.total.get();
+        } else {
+            for (EntityType entityType : scope.entityTypes()) {
+                version += tenantVersions.byType.get(entityType.ordinal());
+            }
+        }
+        return version;
+    }
+
+    private TenantVersions getVersions(TenantId tenantId) {
+        return versions.computeIfAbsent(tenantId, id -> new TenantVersions());
+    }
+
+    /**
+     * Resolves the set of changes that may affect the result of the query.
+     * Queries that filter or sort by attributes and time series, use dynamic values or filter entities of untracked types
+     * can change without any entity event and are not trackable.
+     *
+     * @return the scope or null if the query must be refreshed on every interval.
+     */
+    public static ChangeScope resolveScope(EntityCountQuery query, boolean hasDynamicValues) {
+        if (query == null || query.getEntityFilter() == null || hasDynamicValues) {
+            return null;
+        }
+        if (query.getKeyFilters() != null) {
+            for (KeyFilter keyFilter : query.getKeyFilters()) {
+                if (keyFilter.getKey() == null || keyFilter.getKey().getType() != EntityKeyType.ENTITY_FIELD) {
+                    return null;
+                }
+            }
+        }
+        if (query instanceof AbstractDataQuery<?> dataQuery && dataQuery.getPageLink() != null) {
+            EntityDataSortOrder sortOrder = dataQuery.getPageLink().getSortOrder();
+            if (sortOrder != null && sortOrder.getKey() != null && sortOrder.getKey().getType() != EntityKeyType.ENTITY_FIELD) {
+                return null;
+            }
+        }
+        EntityFilter filter = query.getEntityFilter();
+        return switch (filter.getType()) {
+            case SINGLE_ENTITY -> {
+                SingleEntityFilter singleEntityFilter = (SingleEntityFilter) filter;
+                yield singleEntityFilter.getSingleEntity() != null ? ChangeScope.of(singleEntityFilter.getSingleEntity().getEntityType(), false) : null;
+            }
+            case ENTITY_LIST -> ChangeScope.of(((EntityListFilter) filter).getEntityType(), false);
+            case ENTITY_NAME -> ChangeScope.of(((EntityNameFilter) filter).getEntityType(), false);
+            case ENTITY_TYPE -> ChangeScope.of(((EntityTypeFilter) filter).getEntityType(), false);
+            case DEVICE_TYPE -> ChangeScope.of(EntityType.DEVICE, false);
+            case ASSET_TYPE -> ChangeScope.of(EntityType.ASSET, false);
+            case ENTITY_VIEW_TYPE -> ChangeScope.of(EntityType.ENTITY_VIEW, false);
+            case DEVICE_SEARCH_QUERY -> ((DeviceSearchQueryFilter) filter).getRootEntity() != null ? ChangeScope.of(EntityType.DEVICE, true) : null;
+            case ASSET_SEARCH_QUERY -> ((AssetSearchQueryFilter) filter).getRootEntity() != null ? ChangeScope.of(EntityType.ASSET, true) : null;
+            case ENTITY_VIEW_SEARCH_QUERY -> ((EntityViewSearchQueryFilter) filter).getRootEntity() != null ? ChangeScope.of(EntityType.ENTITY_VIEW, true) : null;
+            case RELATIONS_QUERY -> new ChangeScope(Set.of(), true, true);
+            default -> null;
+        };
+    }
+
+    public record ChangeScope(Set<EntityType> entityTypes, boolean anyEntityType, boolean relations) {
+
+        static ChangeScope of(EntityType entityType, boolean relations) {
+            return entityType != null && TRACKED_ENTITY_TYPES.contains(entityType) ? new ChangeScope(Set.of(entityType), false, relations) : null;
+        }
+
+    }
+
+    private static class PendingChanges {
+
+        private final Set<EntityType> entityTypes = EnumSet.noneOf(EntityType.class);
+        private boolean relations;
+
+    }
+
+    private static class TenantVersions {
+
+        private final AtomicLongArray byType = new AtomicLongArray(EntityType.values().length);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong relations = new AtomicLong();
+
+        void onEntityChange(EntityType entityType) {
+            byType.incrementAndGet(entityType.ordinal());
+            total.incrementAndGet();
+        }
+
+    }
+
+}
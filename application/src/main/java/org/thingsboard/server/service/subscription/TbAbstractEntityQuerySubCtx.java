@@ -68,6 +68,8 @@ public abstract class TbAbstractEntityQuerySubCtx<T extends EntityCountQuery> ex
     protected T query;
     @Setter
     protected volatile ScheduledFuture<?> refreshTask;
+    private volatile long queryVersion = -1;
+    private volatile int skippedRefreshes;
 
     public TbAbstractEntityQuerySubCtx(String serviceId, WebSocketService wsService, EntityService entityService, TbLocalSubscriptionService localSubscriptionService,
                                        AttributesService attributesService, SubscriptionServiceStatistics stats, WebSocketSessionRef sessionRef, int cmdId) {
@@ -282,6 +284,24 @@ public abstract class TbAbstractEntityQuerySubCtx<T extends EntityCountQuery> ex
         }
     }
 
+    public void setQueryVersion(long queryVersion) {
+        this.queryVersion = queryVersion;
+        this.skippedRefreshes = 0;
+    }
+
+    /**
+     * Checks whether the dynamic query has to be re-executed. Untracked queries (negative version) are always refreshed,
+     * tracked ones only when their version changed or when the refresh was skipped the maximum number of times in a row.
+     */
+    public boolean isRefreshRequired(long currentVersion, int maxSkippedRefreshes) {
+        if (currentVersion < 0 || currentVersion != queryVersion || skippedRefreshes >= maxSkippedRefreshes) {
+            setQueryVersion(currentVersion);
+            return true;
+        }
+        skippedRefreshes++;
+        return false;
+    }
+
     public void cancelTasks() {
         if (this.refreshTask != null) {
             log.trace("[{}][{}] Canceling old refresh task", sessionRef.getSessionId(), cmdId);
@@ -41,9 +41,14 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -58,6 +63,12 @@ public class TbEntityDataSubCtx extends TbAbstractDataSubCtx<EntityDataQuery> {
     private final int maxEntitiesPerDataSubscription;
     private Map<EntityId, Map<String, TsValue>> latestTsEntityData;
 
+    private ScheduledExecutorService flushScheduler;
+    @Getter
+    private volatile long coalesceInterval;
+    private final Map<EntityId, PendingUpdate> pendingUpdates = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushTask;
+
     public TbEntityDataSubCtx(String serviceId, WebSocketService wsService, EntityService entityService,
                               TbLocalSubscriptionService localSubscriptionService, AttributesService attributesService,
                               SubscriptionServiceStatistics stats, WebSocketSessionRef sessionRef, int cmdId, int maxEntitiesPerDataSubscription) {
@@ -121,9 +132,13 @@ public class TbEntityDataSubCtx extends TbAbstractDataSubCtx<EntityDataQuery> {
             latestCtxValues.putAll(latestUpdate);
         }
         if (!latestUpdate.isEmpty()) {
-            Map<EntityKeyType, Map<String, TsValue>> latestMap = Collections.singletonMap(keyType, latestUpdate);
-            entityData = new EntityData(entityId, latestMap, null);
-            sendWsMsg(new EntityDataUpdate(cmdId, null, Collections.singletonList(entityData), maxEntitiesPerDataSubscription));
+            if (coalesceInterval > 0) {
+                addPendingUpdate(entityId, pending -> pending.getLatest(keyType).putAll(latestUpdate));
+            } else {
+                Map<EntityKeyType, Map<String, TsValue>> latestMap = Collections.singletonMap(keyType, latestUpdate);
+                entityData = new EntityData(entityId, latestMap, null);
+                sendWsMsg(new EntityDataUpdate(cmdId, null, Collections.singletonList(entityData), maxEntitiesPerDataSubscription));
+            }
         }
     }
 
@@ -159,7 +174,10 @@ public class TbEntityDataSubCtx extends TbAbstractDataSubCtx<EntityDataQuery> {
                         .ifPresent(latest -> latestCtxValues.put(key, latest));
             });
         }
-        if (!tsUpdate.isEmpty()) {
+        if (!tsUpdate.isEmpty() && coalesceInterval > 0) {
+            addPendingUpdate(entityId, pending -> tsUpdate.forEach((key, values) ->
+                    pending.timeseries.computeIfAbsent(key, k -> new ArrayList<>()).addAll(values)));
+        } else if (!tsUpdate.isEmpty()) {
             Map<String, TsValue[]> tsMap = new HashMap<>();
             tsUpdate.forEach((key, values) -> tsMap.put(key, values.toArray(new TsValue[0])));
             EntityData entityData = new EntityData(entityId, null, tsMap);
@@ -230,9 +248,90 @@ public class TbEntityDataSubCtx extends TbAbstractDataSubCtx<EntityDataQuery> {
         latestValueCmd = cmd.getLatestCmd();
     }
 
+    /**
+     * Enables merging of subscription updates within the given window. Latest values are merged per entity and key,
+     * so only the most recent value of each key is delivered; time series values are appended in arrival order.
+     * A non-positive interval disables coalescing and flushes the updates buffered so far.
+     */
+    public void setUpdateCoalescing(ScheduledExecutorService scheduler, long interval) {
+        this.flushScheduler = scheduler;
+        this.coalesceInterval = scheduler != null ? Math.max(interval, 0) : 0;
+        if (this.coalesceInterval == 0) {
+            flushPendingUpdates();
+        }
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        synchronized (pendingUpdates) {
+            pendingUpdates.clear();
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+        }
+    }
+
+    private void addPendingUpdate(EntityId entityId, Consumer<PendingUpdate> merger) {
+        synchronized (pendingUpdates) {
+            merger.accept(pendingUpdates.computeIfAbsent(entityId, id -> new PendingUpdate()));
+            if (flushTask == null && !stopped) {
+                flushTask = flushScheduler.schedule(this::flushPendingUpdates, coalesceInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    void flushPendingUpdates() {
+        wsLock.lock();
+        try {
+            List<EntityData> update;
+            synchronized (pendingUpdates) {
+                flushTask = null;
+                if (pendingUpdates.isEmpty()) {
+                    return;
+                }
+                update = new ArrayList<>(pendingUpdates.size());
+                pendingUpdates.forEach((entityId, pending) -> update.add(pending.toEntityData(entityId)));
+                pendingUpdates.clear();
+            }
+            if (!stopped) {
+                log.trace("[{}][{}] Sending coalesced update for {} entities", sessionRef.getSessionId(), cmdId, update.size());
+                sendWsMsg(new EntityDataUpdate(cmdId, null, update, maxEntitiesPerDataSubscription));
+            }
+        } finally {
+            wsLock.unlock();
+        }
+    }
+
     @Override
     protected EntityDataQuery buildEntityDataQuery() {
         return query;
     }
 
+    private static class PendingUpdate {
+
+        private Map<EntityKeyType, Map<String, TsValue>> latest;
+        private final Map<String, List<TsValue>> timeseries = new HashMap<>();
+
+        Map<String, TsValue> getLatest(EntityKeyType keyType) {
+            if (latest == null) {
+                latest = new HashMap<>();
+            }
+            return latest.computeIfAbsent(keyType, __ -> new HashMap<>());
+        }
+
+        EntityData toEntityData(EntityId entityId) {
+            Map<String, TsValue[]> tsMap = null;
+            if (!timeseries.isEmpty()) {
+                tsMap = new HashMap<>();
+                for (Map.Entry<String, List<TsValue>> entry : timeseries.entrySet()) {
+                    tsMap.put(entry.getKey(), entry.getValue().toArray(new TsValue[0]));
+                }
+            }
+            return new EntityData(entityId, latest, tsMap);
+        }
+
+    }
+
 }
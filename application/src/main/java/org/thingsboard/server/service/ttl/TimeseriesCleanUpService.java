@@ -19,10 +19,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService;
 import org.thingsboard.server.dao.timeseries.TimeseriesService;
 import org.thingsboard.server.queue.discovery.PartitionService;
 import org.thingsboard.server.queue.util.TbCoreComponent;
 
+import java.util.Optional;
+
 @TbCoreComponent
 @Slf4j
 @Service
@@ -35,16 +38,20 @@ public class TimeseriesCleanUpService extends AbstractCleanUpService {
     private boolean ttlTaskExecutionEnabled;
 
     private final TimeseriesService timeseriesService;
+    private final Optional<SqlTsRollupService> rollupService;
 
-    public TimeseriesCleanUpService(PartitionService partitionService, TimeseriesService timeseriesService) {
+    public TimeseriesCleanUpService(PartitionService partitionService, TimeseriesService timeseriesService, Optional<SqlTsRollupService> rollupService) {
         super(partitionService);
         this.timeseriesService = timeseriesService;
+        this.rollupService = rollupService;
     }
 
     @Scheduled(initialDelayString = "${sql.ttl.ts.execution_interval_ms}", fixedDelayString = "${sql.ttl.ts.execution_interval_ms}")
     public void cleanUp() {
         if (ttlTaskExecutionEnabled && isSystemTenantPartitionMine()) {
             timeseriesService.cleanup(systemTtl);
+            // rollups have their own TTL per rollup interval and usually outlive the raw records
+            rollupService.ifPresent(SqlTsRollupService::cleanup);
         }
     }
 
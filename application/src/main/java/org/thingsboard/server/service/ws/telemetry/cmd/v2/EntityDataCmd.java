@@ -36,11 +36,22 @@ public class EntityDataCmd extends DataCmd {
     private final AggHistoryCmd aggHistoryCmd;
     @Getter
     private final AggTimeSeriesCmd aggTsCmd;
+    /**
+     * Optional flush window in milliseconds. When set, subscription updates are merged per entity and key
+     * and delivered as a single update per window instead of one update per telemetry change.
+     */
+    @Getter
+    private final Long coalesceInterval;
 
     public EntityDataCmd(int cmdId, EntityDataQuery query, EntityHistoryCmd historyCmd, LatestValueCmd latestCmd, TimeSeriesCmd tsCmd) {
         this(cmdId, query, historyCmd, latestCmd, tsCmd, null, null);
     }
 
+    public EntityDataCmd(int cmdId, EntityDataQuery query, EntityHistoryCmd historyCmd, LatestValueCmd latestCmd, TimeSeriesCmd tsCmd,
+                         AggHistoryCmd aggHistoryCmd, AggTimeSeriesCmd aggTsCmd) {
+        this(cmdId, query, historyCmd, latestCmd, tsCmd, aggHistoryCmd, aggTsCmd, null);
+    }
+
     @JsonCreator
     public EntityDataCmd(@JsonProperty("cmdId") int cmdId,
                          @JsonProperty("query") EntityDataQuery query,
@@ -48,7 +59,8 @@ public class EntityDataCmd extends DataCmd {
                          @JsonProperty("latestCmd") LatestValueCmd latestCmd,
                          @JsonProperty("tsCmd") TimeSeriesCmd tsCmd,
                          @JsonProperty("aggHistoryCmd") AggHistoryCmd aggHistoryCmd,
-                         @JsonProperty("aggTsCmd") AggTimeSeriesCmd aggTsCmd) {
+                         @JsonProperty("aggTsCmd") AggTimeSeriesCmd aggTsCmd,
+                         @JsonProperty("coalesceInterval") Long coalesceInterval) {
         super(cmdId);
         this.query = query;
         this.historyCmd = historyCmd;
@@ -56,6 +68,7 @@ public class EntityDataCmd extends DataCmd {
         this.tsCmd = tsCmd;
         this.aggHistoryCmd = aggHistoryCmd;
         this.aggTsCmd = aggTsCmd;
+        this.coalesceInterval = coalesceInterval;
     }
 
     @JsonIgnore
@@ -16,6 +16,7 @@
 package org.thingsboard.server.utils;
 
 import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.script.api.tbel.TbelCfTsRollingBuffer;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.alarm.AlarmSeverity;
 import org.thingsboard.server.common.data.cf.CalculatedFieldType;
@@ -65,7 +66,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.TreeMap;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -318,8 +318,8 @@ public class CalculatedFieldUtils {
     }
 
     public static TsRollingArgumentEntry fromRollingArgumentProto(TsRollingArgumentProto proto) {
-        TreeMap<Long, Double> tsRecords = new TreeMap<>();
-        proto.getTsValueList().forEach(tsValueProto -> tsRecords.put(tsValueProto.getTs(), tsValueProto.getValue()));
+        TbelCfTsRollingBuffer tsRecords = new TbelCfTsRollingBuffer(proto.getTsValueCount());
+        proto.getTsValueList().forEach(tsValueProto -> tsRecords.putValue(tsValueProto.getTs(), tsValueProto.getValue()));
         return new TsRollingArgumentEntry(tsRecords, proto.getLimit(), proto.getTimeWindow());
     }
 
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.actors.TbActorDispatcherType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mockStatic;
+
+public class DefaultActorServiceTest {
+
+    private DefaultActorService actorService;
+
+    @BeforeEach
+    public void setUp() {
+        actorService = new DefaultActorService();
+        ReflectionTestUtils.setField(actorService, "virtualDispatcherMaxConcurrency", 1000);
+    }
+
+    @Test
+    public void testVirtualDispatcherParallelism() {
+        try (MockedStatic<ThingsBoardExecutors> executors = mockStatic(ThingsBoardExecutors.class, CALLS_REAL_METHODS)) {
+            executors.when(ThingsBoardExecutors::isVirtualThreadSupported).thenReturn(true);
+
+            assertThat(actorService.getDispatcherParallelism(TbActorDispatcherType.VIRTUAL, 4)).isEqualTo(1000);
+        }
+    }
+
+    @Test
+    public void testVirtualDispatcherFallbackUsesPoolSizeAsParallelism() {
+        try (MockedStatic<ThingsBoardExecutors> executors = mockStatic(ThingsBoardExecutors.class, CALLS_REAL_METHODS)) {
+            executors.when(ThingsBoardExecutors::isVirtualThreadSupported).thenReturn(false);
+
+            assertThat(actorService.getDispatcherParallelism(TbActorDispatcherType.VIRTUAL, 4)).isEqualTo(4);
+            assertThat(actorService.getDispatcherParallelism(TbActorDispatcherType.VIRTUAL, 0))
+                    .isEqualTo(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        }
+    }
+
+    @Test
+    public void testFixedDispatcherParallelism() {
+        assertThat(actorService.getDispatcherParallelism(TbActorDispatcherType.FIXED, 8)).isEqualTo(8);
+    }
+
+}
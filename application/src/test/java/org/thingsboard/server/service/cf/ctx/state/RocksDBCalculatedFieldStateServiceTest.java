@@ -0,0 +1,214 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cf.ctx.state;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.CalculatedFieldId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TbCallback;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.gen.transport.TransportProtos.CalculatedFieldStateProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TsDoubleValProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TsRollingArgumentProto;
+import org.thingsboard.server.queue.common.state.QueueStateService;
+import org.thingsboard.server.queue.discovery.QueueKey;
+import org.thingsboard.server.service.cf.CfRocksDb;
+import org.thingsboard.server.service.cf.ctx.CalculatedFieldEntityCtxId;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.thingsboard.server.utils.CalculatedFieldUtils.toProto;
+
+public class RocksDBCalculatedFieldStateServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private CfRocksDb cfRocksDb;
+    private TestStateService service;
+
+    private final CalculatedFieldEntityCtxId stateId = new CalculatedFieldEntityCtxId(TenantId.fromUUID(UUID.randomUUID()),
+            new CalculatedFieldId(UUID.randomUUID()), new DeviceId(UUID.randomUUID()));
+
+    @BeforeEach
+    public void setUp() {
+        cfRocksDb = spy(new CfRocksDb(dir.resolve("cf_states").toString()));
+        cfRocksDb.init();
+        service = createService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroyWriter();
+        cfRocksDb.close();
+    }
+
+    @Test
+    public void testOnlyChangedRollingPointsAreStoredSeparately() throws Exception {
+        persist(state(0, 100, 1.0));
+        persist(state(1, 101, 1.0));
+        persist(state(1, 101, 2.0));
+
+        Map<String, byte[]> stored = readAll();
+        assertThat(stored).hasSize(101);
+        CalculatedFieldStateProto base = CalculatedFieldStateProto.parseFrom(stored.get(stateId.toKey()));
+        assertThat(base.getRollingValueArguments(0).getTsValueCount()).isZero();
+        assertThat(base.getRollingValueArguments(0).getLimit()).isEqualTo(100);
+
+        assertThat(restore()).containsExactly(state(1, 101, 2.0));
+    }
+
+    @Test
+    public void testStateStoredInOldFormatIsRestoredAndRewritten() throws Exception {
+        CalculatedFieldStateProto state = state(0, 10, 1.0);
+        cfRocksDb.put(stateId.toKey(), state.toByteArray());
+
+        assertThat(restore()).containsExactly(state);
+
+        persist(state(1, 11, 1.0));
+        assertThat(readAll()).hasSize(11);
+        assertThat(restore()).containsExactly(state(1, 11, 1.0));
+    }
+
+    @Test
+    public void testStateAndPointsAreRemoved() throws Exception {
+        persist(state(0, 10, 1.0));
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        service.doRemove(stateId, callback(future));
+        future.get(10, TimeUnit.SECONDS);
+
+        assertThat(readAll()).isEmpty();
+    }
+
+    @Test
+    public void testUpdateQueuedDuringFailedWriteIsStoredAgainstLastSuccessfulWrite() throws Exception {
+        persist(state(0, 100, 1.0));
+
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch failWrite = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writeStarted.countDown();
+            failWrite.await(10, TimeUnit.SECONDS);
+            throw new RuntimeException("Write failed");
+        }).doCallRealMethod().when(cfRocksDb).write(any());
+
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        service.doPersist(stateId, state(1, 101, 3.0), callback(failed));
+        assertThat(writeStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> succeeded = new CompletableFuture<>();
+        service.doPersist(stateId, state(2, 102, 3.0), callback(succeeded));
+        failWrite.countDown();
+
+        assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        succeeded.get(10, TimeUnit.SECONDS);
+        assertThat(readAll()).hasSize(101);
+        assertThat(restore()).containsExactly(state(2, 102, 3.0));
+    }
+
+    private CalculatedFieldStateProto state(long fromTs, long toTs, double value) {
+        TsRollingArgumentProto.Builder arg = TsRollingArgumentProto.newBuilder().setKey("temperature").setLimit(100).setTimeWindow(60000);
+        for (long ts = fromTs; ts < toTs; ts++) {
+            arg.addTsValue(TsDoubleValProto.newBuilder().setTs(ts).setValue(value).build());
+        }
+        return CalculatedFieldStateProto.newBuilder()
+                .setId(toProto(stateId))
+                .setType("SCRIPT")
+                .addRollingValueArguments(arg)
+                .build();
+    }
+
+    private void persist(CalculatedFieldStateProto state) throws Exception {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        service.doPersist(stateId, state, callback(future));
+        future.get(10, TimeUnit.SECONDS);
+    }
+
+    private List<CalculatedFieldStateProto> restore() {
+        service.destroyWriter();
+        service = createService();
+        service.restore(new QueueKey(ServiceType.TB_RULE_ENGINE), null);
+        return service.restored;
+    }
+
+    private Map<String, byte[]> readAll() {
+        Map<String, byte[]> result = new HashMap<>();
+        cfRocksDb.forEach(result::put);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private TestStateService createService() {
+        TestStateService service = new TestStateService(cfRocksDb);
+        ReflectionTestUtils.setField(service, "writeBatchSize", 1000);
+        ReflectionTestUtils.setField(service, "rollingDeltaEnabled", true);
+        ReflectionTestUtils.setField(service, "restoreParallelism", 2);
+        ReflectionTestUtils.setField(service, "stateService", mock(QueueStateService.class));
+        service.initWriter();
+        return service;
+    }
+
+    private static TbCallback callback(CompletableFuture<Void> future) {
+        return new TbCallback() {
+            @Override
+            public void onSuccess() {
+                future.complete(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+    }
+
+    private static class TestStateService extends RocksDBCalculatedFieldStateService {
+
+        private final List<CalculatedFieldStateProto> restored = new ArrayList<>();
+
+        TestStateService(CfRocksDb cfRocksDb) {
+            super(cfRocksDb);
+        }
+
+        @Override
+        protected synchronized void processRestoredState(CalculatedFieldStateProto stateMsg, TopicPartitionInfo partition, TbCallback callback) {
+            restored.add(stateMsg);
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ruleengine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.RuleNodeStateId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rule.RuleNodeState;
+import org.thingsboard.server.common.stats.DefaultStatsFactory;
+import org.thingsboard.server.dao.rule.RuleNodeStateService;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DefaultTbRuleNodeStateServiceTest {
+
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+    private static final RuleNodeId RULE_NODE_ID = new RuleNodeId(UUID.randomUUID());
+    private static final DeviceId DEVICE_ID = new DeviceId(UUID.randomUUID());
+
+    @Mock
+    private RuleNodeStateService ruleNodeStateService;
+
+    private DefaultTbRuleNodeStateService service;
+
+    @BeforeEach
+    public void setUp() {
+        DefaultStatsFactory statsFactory = new DefaultStatsFactory();
+        ReflectionTestUtils.setField(statsFactory, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statsFactory, "metricsEnabled", false);
+        service = new DefaultTbRuleNodeStateService(ruleNodeStateService, statsFactory);
+        ReflectionTestUtils.setField(service, "writeBehindEnabled", true);
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 60000L);
+        ReflectionTestUtils.setField(service, "maxPendingStates", 1000);
+        ReflectionTestUtils.setField(service, "statsPrintIntervalMs", 60000L);
+        service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void testUpdatesAreCoalescedUntilFlush() {
+        RuleNodeState state = newState();
+        for (int i = 0; i < 10; i++) {
+            state.setStateData("{\"value\":" + i + "}");
+            state = service.save(TENANT_ID, state);
+        }
+        verify(ruleNodeStateService, never()).save(any(), any());
+        assertThat(service.findByRuleNodeIdAndEntityId(TENANT_ID, RULE_NODE_ID, DEVICE_ID).getStateData()).isEqualTo("{\"value\":9}");
+
+        when(ruleNodeStateService.save(eq(TENANT_ID), any())).thenAnswer(invocation -> withId(invocation.getArgument(1)));
+        service.flush();
+
+        ArgumentCaptor<RuleNodeState> captor = ArgumentCaptor.forClass(RuleNodeState.class);
+        verify(ruleNodeStateService, times(1)).save(eq(TENANT_ID), captor.capture());
+        assertThat(captor.getValue().getStateData()).isEqualTo("{\"value\":9}");
+    }
+
+    @Test
+    public void testPendingStateIsSnapshotOfSavedState() {
+        RuleNodeState state = newState();
+        state.setStateData("{\"value\":1}");
+        service.save(TENANT_ID, state);
+        state.setStateData("{\"value\":2}");
+
+        assertThat(service.findByRuleNodeIdAndEntityId(TENANT_ID, RULE_NODE_ID, DEVICE_ID).getStateData()).isEqualTo("{\"value\":1}");
+    }
+
+    @Test
+    public void testPersistedIdIsReusedForNewState() {
+        RuleNodeStateId id = new RuleNodeStateId(UUID.randomUUID());
+        when(ruleNodeStateService.save(eq(TENANT_ID), any())).thenAnswer(invocation -> {
+            RuleNodeState saved = invocation.getArgument(1);
+            saved.setId(id);
+            return saved;
+        });
+        service.save(TENANT_ID, newState());
+        service.flush();
+
+        RuleNodeState state = newState();
+        service.save(TENANT_ID, state);
+        assertThat(state.getId()).isEqualTo(id);
+    }
+
+    @Test
+    public void testStateIsRetriedAfterFailedSave() {
+        when(ruleNodeStateService.save(eq(TENANT_ID), any()))
+                .thenThrow(new RuntimeException("Database is not available"))
+                .thenAnswer(invocation -> withId(invocation.getArgument(1)));
+        RuleNodeState state = newState();
+        state.setStateData("{\"value\":1}");
+        service.save(TENANT_ID, state);
+
+        service.flush();
+        assertThat(service.findByRuleNodeIdAndEntityId(TENANT_ID, RULE_NODE_ID, DEVICE_ID).getStateData()).isEqualTo("{\"value\":1}");
+
+        service.flush();
+        ArgumentCaptor<RuleNodeState> captor = ArgumentCaptor.forClass(RuleNodeState.class);
+        verify(ruleNodeStateService, times(2)).save(eq(TENANT_ID), captor.capture());
+        assertThat(captor.getValue().getStateData()).isEqualTo("{\"value\":1}");
+        verify(ruleNodeStateService, never()).findByRuleNodeIdAndEntityId(any(), any(), any());
+    }
+
+    @Test
+    public void testPersistedIdIsEvictedOnceHandedOver() {
+        RuleNodeStateId id = new RuleNodeStateId(UUID.randomUUID());
+        when(ruleNodeStateService.save(eq(TENANT_ID), any())).thenAnswer(invocation -> {
+            RuleNodeState saved = invocation.getArgument(1);
+            saved.setId(id);
+            return saved;
+        });
+        service.save(TENANT_ID, newState());
+        service.flush();
+
+        RuleNodeState state = service.save(TENANT_ID, newState());
+        assertThat(state.getId()).isEqualTo(id);
+        service.flush();
+        assertThat(service.save(TENANT_ID, newState()).getId()).isNull();
+    }
+
+    @Test
+    public void testRemovedStateIsNotPersisted() {
+        service.save(TENANT_ID, newState());
+        service.removeByRuleNodeIdAndEntityId(TENANT_ID, RULE_NODE_ID, DEVICE_ID);
+        service.flush();
+
+        verify(ruleNodeStateService, never()).save(any(), any());
+        verify(ruleNodeStateService).removeByRuleNodeIdAndEntityId(TENANT_ID, RULE_NODE_ID, DEVICE_ID);
+    }
+
+    @Test
+    public void testStatesAreFlushedOnShutdown() {
+        when(ruleNodeStateService.save(eq(TENANT_ID), any())).thenAnswer(invocation -> withId(invocation.getArgument(1)));
+        service.save(TENANT_ID, newState());
+        service.destroy();
+
+        verify(ruleNodeStateService).save(eq(TENANT_ID), any());
+    }
+
+    @Test
+    public void testSaveIsSynchronousWhenWriteBehindIsDisabled() {
+        ReflectionTestUtils.setField(service, "writeBehindEnabled", false);
+        RuleNodeState state = newState();
+        when(ruleNodeStateService.save(TENANT_ID, state)).thenReturn(state);
+
+        service.save(TENANT_ID, state);
+        verify(ruleNodeStateService).save(TENANT_ID, state);
+    }
+
+    private static RuleNodeState newState() {
+        RuleNodeState state = new RuleNodeState();
+        state.setRuleNodeId(RULE_NODE_ID);
+        state.setEntityId(DEVICE_ID);
+        state.setStateData("{}");
+        return state;
+    }
+
+    private static RuleNodeState withId(RuleNodeState state) {
+        if (state.getId() == null) {
+            state.setId(new RuleNodeStateId(UUID.randomUUID()));
+        }
+        return state;
+    }
+
+}
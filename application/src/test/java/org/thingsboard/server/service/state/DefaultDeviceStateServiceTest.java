@@ -32,6 +32,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.rule.engine.api.AttributesSaveRequest;
 import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.id.DeviceId;
@@ -47,6 +48,8 @@ import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.StatsCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.dao.sql.query.EntityQueryRepository;
@@ -83,6 +86,7 @@ import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -120,6 +124,8 @@ class DefaultDeviceStateServiceTest {
     NotificationRuleProcessor notificationRuleProcessor;
     @Mock
     DefaultTbApiUsageReportClient defaultTbApiUsageReportClient;
+    @Mock
+    StatsFactory statsFactory;
 
     long defaultInactivityTimeoutMs = Duration.ofMinutes(10L).toMillis();
 
@@ -135,7 +141,7 @@ class DefaultDeviceStateServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = spy(new DefaultDeviceStateService(deviceService, attributesService, tsService, clusterService, partitionService, entityQueryRepository, null, defaultTbApiUsageReportClient, notificationRuleProcessor));
+        service = spy(new DefaultDeviceStateService(deviceService, attributesService, tsService, clusterService, partitionService, entityQueryRepository, null, defaultTbApiUsageReportClient, notificationRuleProcessor, statsFactory));
         ReflectionTestUtils.setField(service, "tsSubService", telemetrySubscriptionService);
         ReflectionTestUtils.setField(service, "defaultInactivityTimeoutMs", defaultInactivityTimeoutMs);
         ReflectionTestUtils.setField(service, "defaultStateCheckIntervalInSec", 60);
@@ -954,6 +960,105 @@ class DefaultDeviceStateServiceTest {
         assertThat(deviceState.isActive()).isFalse();
     }
 
+    @Test
+    void givenFullStateCheckDone_whenCheckStates_thenOnlyDevicesWithExpiredDeadlineAreProcessed() {
+        // GIVEN
+        ReflectionTestUtils.setField(service, "fullStateCheckIntervalInSec", 3600);
+        DeviceId otherDeviceId = DeviceId.fromString("2ab9b4a6-6d3c-4cb1-9e5f-0b6a3a3b3f10");
+        lenient().when(partitionService.resolve(ServiceType.TB_CORE, tenantId, otherDeviceId)).thenReturn(tpi);
+
+        var expiringState = DeviceState.builder()
+                .active(true)
+                .lastActivityTime(100L)
+                .inactivityTimeout(50L)
+                .build();
+        var otherState = DeviceState.builder()
+                .active(true)
+                .lastActivityTime(100L)
+                .inactivityTimeout(1000L)
+                .build();
+
+        service.deviceStates.put(deviceId, DeviceStateData.builder()
+                .tenantId(tenantId)
+                .deviceId(deviceId)
+                .state(expiringState)
+                .metaData(new TbMsgMetaData())
+                .build());
+        service.deviceStates.put(otherDeviceId, DeviceStateData.builder()
+                .tenantId(tenantId)
+                .deviceId(otherDeviceId)
+                .state(otherState)
+                .metaData(new TbMsgMetaData())
+                .build());
+        service.getPartitionedEntities(tpi).add(deviceId);
+        service.getPartitionedEntities(tpi).add(otherDeviceId);
+
+        mockSuccessfulSaveAttributes();
+
+        // WHEN-THEN
+
+        // first check is a full scan that indexes both devices
+        doReturn(120L).when(service).getCurrentTimeMillis();
+        service.checkStates();
+        assertThat(service.inactivityIndex.isScheduled(deviceId)).isTrue();
+        assertThat(service.inactivityIndex.isScheduled(otherDeviceId)).isTrue();
+
+        // next check only processes the device with expired deadline
+        doReturn(200L).when(service).getCurrentTimeMillis();
+        service.checkStates();
+
+        assertThat(expiringState.isActive()).isFalse();
+        assertThat(expiringState.getLastInactivityAlarmTime()).isEqualTo(200L);
+        assertThat(otherState.isActive()).isTrue();
+        assertThat(service.inactivityIndex.isScheduled(deviceId)).isFalse();
+        assertThat(service.inactivityIndex.isScheduled(otherDeviceId)).isTrue();
+        verify(service, times(1)).getOrFetchDeviceStateData(otherDeviceId);
+        verify(service, never()).updateInactivityStateIfExpired(200L, otherDeviceId, service.deviceStates.get(otherDeviceId));
+
+        // new activity re-schedules the inactive device
+        service.onDeviceActivity(tenantId, deviceId, 190L);
+        assertThat(expiringState.isActive()).isTrue();
+        assertThat(service.inactivityIndex.isScheduled(deviceId)).isTrue();
+    }
+
+    @Test
+    void givenDeviceActivityStatusChanged_whenReportActivityStats_thenReportsIncrementallyUpdatedCounts() {
+        // GIVEN
+        var deviceState = DeviceState.builder()
+                .active(true)
+                .lastActivityTime(100L)
+                .inactivityTimeout(50L)
+                .build();
+        var deviceStateData = DeviceStateData.builder()
+                .tenantId(tenantId)
+                .deviceId(deviceId)
+                .state(deviceState)
+                .metaData(new TbMsgMetaData())
+                .build();
+        willReturn(deviceStateData).given(service).fetchDeviceStateDataUsingSeparateRequests(deviceId);
+        service.getOrFetchDeviceStateData(deviceId);
+        service.getPartitionedEntities(tpi).add(deviceId);
+
+        mockSuccessfulSaveAttributes();
+
+        // WHEN
+        service.reportActivityStats();
+
+        // THEN
+        then(defaultTbApiUsageReportClient).should().report(tenantId, null, ApiUsageRecordKey.ACTIVE_DEVICES, 1L);
+        then(defaultTbApiUsageReportClient).should().report(tenantId, null, ApiUsageRecordKey.INACTIVE_DEVICES, 0L);
+
+        // WHEN
+        doReturn(200L).when(service).getCurrentTimeMillis();
+        service.checkStates();
+        service.reportActivityStats();
+
+        // THEN
+        assertThat(deviceState.isActive()).isFalse();
+        then(defaultTbApiUsageReportClient).should().report(tenantId, null, ApiUsageRecordKey.ACTIVE_DEVICES, 0L);
+        then(defaultTbApiUsageReportClient).should().report(tenantId, null, ApiUsageRecordKey.INACTIVE_DEVICES, 1L);
+    }
+
     @Test
     void givenConcurrentAccess_whenGetOrFetchDeviceStateData_thenFetchDeviceStateDataInvokedOnce() {
         doAnswer(invocation -> {
@@ -1122,6 +1227,78 @@ class DefaultDeviceStateServiceTest {
         });
     }
 
+    @Test
+    void givenHandoffEnabled_whenPartitionRemoved_thenPushesDeviceStatesToPartition() {
+        // GIVEN
+        ReflectionTestUtils.setField(service, "handoffEnabled", true);
+        ReflectionTestUtils.setField(service, "handoffPackSize", 1);
+        DeviceId otherDeviceId = DeviceId.fromString("3f0c6e8a-42e6-11f0-9fe2-0242ac120002");
+        service.deviceStates.put(deviceId, handedOffStateData(deviceId));
+        service.deviceStates.put(otherDeviceId, handedOffStateData(otherDeviceId));
+
+        // WHEN
+        service.onPartitionRemoved(tpi, Set.of(deviceId, otherDeviceId));
+
+        // THEN
+        var msgCaptor = ArgumentCaptor.forClass(TransportProtos.ToCoreMsg.class);
+        then(clusterService).should(times(3)).pushMsgToCore(eq(tpi), any(UUID.class), msgCaptor.capture(), any());
+        List<TransportProtos.DeviceStateHandoffMsgProto> msgs = msgCaptor.getAllValues().stream()
+                .map(TransportProtos.ToCoreMsg::getDeviceStateHandoffMsg)
+                .toList();
+        assertThat(msgs).extracting(TransportProtos.DeviceStateHandoffMsgProto::getLast).containsExactly(false, false, true);
+        assertThat(msgs).flatExtracting(TransportProtos.DeviceStateHandoffMsgProto::getStatesList)
+                .extracting(DefaultDeviceStateService::fromSnapshotProto)
+                .containsExactlyInAnyOrder(service.deviceStates.get(deviceId), service.deviceStates.get(otherDeviceId));
+    }
+
+    @Test
+    void givenHandedOffStates_whenOnQueueMsg_thenAppliesMissingStatesAndCompletesHandoff() {
+        // GIVEN
+        ReflectionTestUtils.setField(service, "handedOffStatesCounter", mock(StatsCounter.class));
+        DeviceStateData handedOffState = handedOffStateData(deviceId);
+        var proto = TransportProtos.DeviceStateHandoffMsgProto.newBuilder()
+                .setPartition(0)
+                .addStates(DefaultDeviceStateService.toSnapshotProto(handedOffState))
+                .setLast(true)
+                .build();
+
+        // WHEN
+        service.onQueueMsg(proto, TbCallback.EMPTY);
+
+        // THEN
+        assertThat(service.deviceStates.get(deviceId)).isEqualTo(handedOffState);
+        assertThat(service.getPartitionedEntities(tpi)).containsExactly(deviceId);
+        assertThat(service.partitionHandoffs.get(0)).isDone();
+
+        // WHEN the state was already fetched on demand
+        DeviceStateData fetchedState = handedOffStateData(deviceId);
+        fetchedState.getState().setLastActivityTime(handedOffState.getState().getLastActivityTime() + 1);
+        service.deviceStates.put(deviceId, fetchedState);
+        service.onQueueMsg(proto, TbCallback.EMPTY);
+
+        // THEN
+        assertThat(service.deviceStates.get(deviceId)).isSameAs(fetchedState);
+    }
+
+    private DeviceStateData handedOffStateData(DeviceId deviceId) {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("deviceName", "Device " + deviceId);
+        metaData.putValue("deviceType", "default");
+        return DeviceStateData.builder()
+                .tenantId(tenantId)
+                .deviceId(deviceId)
+                .deviceCreationTime(1000L)
+                .metaData(metaData)
+                .state(DeviceState.builder()
+                        .lastConnectTime(2000L)
+                        .lastActivityTime(3000L)
+                        .lastDisconnectTime(4000L)
+                        .lastInactivityAlarmTime(5000L)
+                        .inactivityTimeout(defaultInactivityTimeoutMs)
+                        .build())
+                .build();
+    }
+
     private void mockSuccessfulSaveAttributes() {
         lenient().when(telemetrySubscriptionService.saveAttributesInternal(any())).thenAnswer(invocation -> {
             AttributesSaveRequest request = invocation.getArgument(0);
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.state;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceInactivityIndexTest {
+
+    private final DeviceInactivityIndex index = new DeviceInactivityIndex();
+
+    @Test
+    void givenScheduledDevices_whenPollExpired_thenReturnsOnlyExpiredInDeadlineOrder() {
+        DeviceId first = new DeviceId(UUID.randomUUID());
+        DeviceId second = new DeviceId(UUID.randomUUID());
+        DeviceId notExpired = new DeviceId(UUID.randomUUID());
+        index.schedule(second, 200L);
+        index.schedule(first, 100L);
+        index.schedule(notExpired, 300L);
+
+        assertThat(index.pollExpired(250L)).containsExactly(first, second);
+        assertThat(index.pollExpired(250L)).isEmpty();
+        assertThat(index.isScheduled(notExpired)).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void givenScheduledDevice_whenScheduleLaterDeadline_thenKeepsEarlierDeadline() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        index.schedule(deviceId, 100L);
+        index.schedule(deviceId, 500L);
+
+        assertThat(index.pollExpired(100L)).containsExactly(deviceId);
+        assertThat(index.isScheduled(deviceId)).isFalse();
+    }
+
+    @Test
+    void givenScheduledDevice_whenScheduleEarlierDeadline_thenMovesDeadline() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        index.schedule(deviceId, 500L);
+        index.schedule(deviceId, 100L);
+
+        assertThat(index.pollExpired(100L)).containsExactly(deviceId);
+        assertThat(index.pollExpired(500L)).isEmpty();
+    }
+
+    @Test
+    void givenScheduledDevice_whenRemove_thenIsNotPolled() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        index.schedule(deviceId, 100L);
+        index.remove(deviceId);
+
+        assertThat(index.isScheduled(deviceId)).isFalse();
+        assertThat(index.pollExpired(Long.MAX_VALUE)).isEmpty();
+    }
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.audit.ActionType;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
+import org.thingsboard.server.common.data.query.DeviceTypeFilter;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.RelationsQueryFilter;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
+import org.thingsboard.server.dao.eventsourcing.DeleteEntityEvent;
+import org.thingsboard.server.dao.eventsourcing.RelationActionEvent;
+import org.thingsboard.server.dao.eventsourcing.SaveEntityEvent;
+import org.thingsboard.server.gen.transport.TransportProtos.DynamicQueryChangeMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreNotificationMsg;
+import org.thingsboard.server.service.subscription.DynamicQueryChangeTracker.ChangeScope;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class DynamicQueryChangeTrackerTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final TbClusterService clusterService = mock(TbClusterService.class);
+    private final DynamicQueryChangeTracker tracker = new DynamicQueryChangeTracker(clusterService);
+
+    @Test
+    public void testVersionChangesOnlyForAffectedEntityTypes() {
+        ChangeScope deviceScope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(new DeviceTypeFilter()), false);
+        ChangeScope assetScope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(entityTypeFilter(EntityType.ASSET)), false);
+        long deviceVersion = tracker.getVersion(tenantId, deviceScope);
+        long assetVersion = tracker.getVersion(tenantId, assetScope);
+
+        tracker.onEntityChange(tenantId, EntityType.DEVICE);
+        tracker.onEntityChange(TenantId.fromUUID(UUID.randomUUID()), EntityType.ASSET);
+
+        assertThat(tracker.getVersion(tenantId, deviceScope)).isNotEqualTo(deviceVersion);
+        assertThat(tracker.getVersion(tenantId, assetScope)).isEqualTo(assetVersion);
+    }
+
+    @Test
+    public void testRelationQueryDependsOnRelationsAndAllEntities() {
+        RelationsQueryFilter filter = new RelationsQueryFilter();
+        ChangeScope scope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(filter), false);
+        assertThat(scope).isNotNull();
+
+        long version = tracker.getVersion(tenantId, scope);
+        tracker.onRelationChange(tenantId);
+        long afterRelation = tracker.getVersion(tenantId, scope);
+        assertThat(afterRelation).isNotEqualTo(version);
+        tracker.onEntityChange(tenantId, EntityType.CUSTOMER);
+        assertThat(tracker.getVersion(tenantId, scope)).isNotEqualTo(afterRelation);
+    }
+
+    @Test
+    public void testUntrackedQueries() {
+        assertThat(DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(entityTypeFilter(EntityType.DEVICE)), true)).isNull();
+        assertThat(DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(entityTypeFilter(EntityType.DASHBOARD)), false)).isNull();
+
+        KeyFilter tsFilter = new KeyFilter();
+        tsFilter.setKey(new EntityKey(EntityKeyType.TIME_SERIES, "temperature"));
+        assertThat(DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(entityTypeFilter(EntityType.DEVICE), List.of(tsFilter)), false)).isNull();
+
+        EntityDataSortOrder sortOrder = new EntityDataSortOrder(new EntityKey(EntityKeyType.ATTRIBUTE, "floor"));
+        EntityDataQuery sortedByAttribute = new EntityDataQuery(entityTypeFilter(EntityType.DEVICE), new EntityDataPageLink(10, 0, null, sortOrder),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        assertThat(DynamicQueryChangeTracker.resolveScope(sortedByAttribute, false)).isNull();
+        assertThat(tracker.getVersion(tenantId, null)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRefreshIsForcedAfterMaxSkippedRefreshes() {
+        TbEntityCountSubCtx ctx = new TbEntityCountSubCtx("serviceId", null, null, null, null, null, null, 1);
+        ctx.setQueryVersion(5);
+
+        assertThat(ctx.isRefreshRequired(5, 2)).isFalse();
+        assertThat(ctx.isRefreshRequired(5, 2)).isFalse();
+        assertThat(ctx.isRefreshRequired(5, 2)).isTrue();
+        assertThat(ctx.isRefreshRequired(6, 2)).isTrue();
+        assertThat(ctx.isRefreshRequired(6, 2)).isFalse();
+        assertThat(ctx.isRefreshRequired(-1, 2)).isTrue();
+        assertThat(ctx.isRefreshRequired(-1, 2)).isTrue();
+    }
+
+    @Test
+    public void testDeviceAndAssetCreationAndDeletionAreBroadcastToCoreNodes() {
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ChangeScope deviceScope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(new DeviceTypeFilter()), false);
+        ChangeScope assetScope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(entityTypeFilter(EntityType.ASSET)), false);
+        long deviceVersion = tracker.getVersion(tenantId, deviceScope);
+
+        tracker.handleEvent(SaveEntityEvent.builder().tenantId(tenantId).entityId(new DeviceId(UUID.randomUUID())).created(true).build());
+        tracker.handleEvent(DeleteEntityEvent.builder().tenantId(tenantId).entityId(new AssetId(UUID.randomUUID())).build());
+        assertThat(tracker.getVersion(tenantId, deviceScope)).isNotEqualTo(deviceVersion);
+
+        DynamicQueryChangeMsgProto msg = captureBroadcast();
+        assertThat(msg.getEntityTypesList()).containsExactlyInAnyOrder(EntityType.DEVICE.name(), EntityType.ASSET.name());
+        assertThat(msg.getRelations()).isFalse();
+
+        DynamicQueryChangeTracker otherNodeTracker = new DynamicQueryChangeTracker(clusterService);
+        long otherNodeDeviceVersion = otherNodeTracker.getVersion(tenantId, deviceScope);
+        long otherNodeAssetVersion = otherNodeTracker.getVersion(tenantId, assetScope);
+        otherNodeTracker.onQueueMsg(msg);
+        assertThat(otherNodeTracker.getVersion(tenantId, deviceScope)).isNotEqualTo(otherNodeDeviceVersion);
+        assertThat(otherNodeTracker.getVersion(tenantId, assetScope)).isNotEqualTo(otherNodeAssetVersion);
+    }
+
+    @Test
+    public void testDeviceUpdateIsNotBroadcast() {
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+
+        tracker.handleEvent(SaveEntityEvent.builder().tenantId(tenantId).entityId(new DeviceId(UUID.randomUUID())).created(false).build());
+        tracker.broadcastChanges();
+
+        verify(clusterService, never()).broadcastToCore(any());
+    }
+
+    @Test
+    public void testRelationChangesAreBroadcastToCoreNodes() {
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ChangeScope scope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(new RelationsQueryFilter()), false);
+        EntityRelation relation = new EntityRelation(new DeviceId(UUID.randomUUID()), new AssetId(UUID.randomUUID()), EntityRelation.CONTAINS_TYPE);
+
+        tracker.handleEvent(new RelationActionEvent(tenantId, relation, ActionType.RELATION_ADD_OR_UPDATE));
+        DynamicQueryChangeMsgProto msg = captureBroadcast();
+        assertThat(msg.getRelations()).isTrue();
+        assertThat(msg.getEntityTypesList()).isEmpty();
+
+        DynamicQueryChangeTracker otherNodeTracker = new DynamicQueryChangeTracker(clusterService);
+        long version = otherNodeTracker.getVersion(tenantId, scope);
+        otherNodeTracker.onQueueMsg(msg);
+        assertThat(otherNodeTracker.getVersion(tenantId, scope)).isNotEqualTo(version);
+    }
+
+    @Test
+    public void testRelationLifecycleMsgChangesRelationVersionOnly() {
+        ChangeScope relationScope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(new RelationsQueryFilter()), false);
+        ChangeScope customerScope = DynamicQueryChangeTracker.resolveScope(new EntityCountQuery(entityTypeFilter(EntityType.CUSTOMER)), false);
+        long relationVersion = tracker.getVersion(tenantId, relationScope);
+        long customerVersion = tracker.getVersion(tenantId, customerScope);
+
+        tracker.onComponentLifecycleMsg(new ComponentLifecycleMsg(tenantId, new CustomerId(UUID.randomUUID()),
+                ComponentLifecycleEvent.RELATION_UPDATED));
+
+        assertThat(tracker.getVersion(tenantId, relationScope)).isNotEqualTo(relationVersion);
+        assertThat(tracker.getVersion(tenantId, customerScope)).isEqualTo(customerVersion);
+
+        tracker.onComponentLifecycleMsg(new ComponentLifecycleMsg(tenantId, new CustomerId(UUID.randomUUID()),
+                ComponentLifecycleEvent.CREATED));
+        assertThat(tracker.getVersion(tenantId, customerScope)).isNotEqualTo(customerVersion);
+    }
+
+    private DynamicQueryChangeMsgProto captureBroadcast() {
+        tracker.broadcastChanges();
+        ArgumentCaptor<ToCoreNotificationMsg> captor = ArgumentCaptor.forClass(ToCoreNotificationMsg.class);
+        verify(clusterService).broadcastToCore(captor.capture());
+        return captor.getValue().getDynamicQueryChangeMsg();
+    }
+
+    private static EntityTypeFilter entityTypeFilter(EntityType entityType) {
+        EntityTypeFilter filter = new EntityTypeFilter();
+        filter.setEntityType(entityType);
+        return filter;
+    }
+
+}
@@ -43,11 +43,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -127,4 +135,59 @@ public class TbEntityDataSubCtxTest {
         assertThat(entityDataUpdate.getAllowedEntities()).isEqualTo(maxEntitiesPerDataSubscription);
     }
 
+    @Test
+    public void testCoalescedLatestWsMsg() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        subCtx.setUpdateCoalescing(scheduler, 100);
+
+        long ts = System.currentTimeMillis();
+        subCtx.sendWsMsg(sessionId, new TelemetrySubscriptionUpdate(subscriptionId,
+                List.of(new BasicTsKvEntry(ts - 20000, new LongDataEntry("key", 17L)))), EntityKeyType.TIME_SERIES, true);
+        subCtx.sendWsMsg(sessionId, new TelemetrySubscriptionUpdate(subscriptionId,
+                List.of(new BasicTsKvEntry(ts - 10000, new LongDataEntry("key", 18L)))), EntityKeyType.TIME_SERIES, true);
+
+        then(webSocketService).shouldHaveNoInteractions();
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+
+        subCtx.flushPendingUpdates();
+
+        ArgumentCaptor<CmdUpdate> cmdUpdateCaptor = ArgumentCaptor.forClass(CmdUpdate.class);
+        then(webSocketService).should().sendUpdate(eq(sessionId), cmdUpdateCaptor.capture());
+        EntityDataUpdate entityDataUpdate = (EntityDataUpdate) cmdUpdateCaptor.getValue();
+        assertThat(entityDataUpdate.getUpdate()).hasSize(1);
+        EntityData entityData = entityDataUpdate.getUpdate().get(0);
+        assertThat(entityData.getEntityId()).isEqualTo(deviceId);
+        assertThat(entityData.getLatest().get(EntityKeyType.TIME_SERIES)).containsExactly(Map.entry("key", new TsValue(ts - 10000, "18")));
+        assertThat(entityData.getTimeseries()).isNull();
+
+        subCtx.flushPendingUpdates();
+        then(webSocketService).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    public void testCoalescedTsWsMsg() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        subCtx.setUpdateCoalescing(scheduler, 100);
+        ReflectionTestUtils.setField(subCtx, "latestTsEntityData", new HashMap<>(Map.of(deviceId, new HashMap<>())));
+
+        long ts = System.currentTimeMillis();
+        subCtx.sendWsMsg(sessionId, new TelemetrySubscriptionUpdate(subscriptionId,
+                List.of(new BasicTsKvEntry(ts - 20000, new LongDataEntry("key", 17L)))), EntityKeyType.TIME_SERIES, false);
+        subCtx.sendWsMsg(sessionId, new TelemetrySubscriptionUpdate(subscriptionId,
+                List.of(new BasicTsKvEntry(ts - 10000, new LongDataEntry("key", 18L)))), EntityKeyType.TIME_SERIES, false);
+
+        then(webSocketService).shouldHaveNoInteractions();
+
+        subCtx.setUpdateCoalescing(null, 0);
+
+        ArgumentCaptor<CmdUpdate> cmdUpdateCaptor = ArgumentCaptor.forClass(CmdUpdate.class);
+        then(webSocketService).should().sendUpdate(eq(sessionId), cmdUpdateCaptor.capture());
+        EntityDataUpdate entityDataUpdate = (EntityDataUpdate) cmdUpdateCaptor.getValue();
+        assertThat(entityDataUpdate.getUpdate()).hasSize(1);
+        assertThat(entityDataUpdate.getUpdate().get(0).getTimeseries().get("key"))
+                .containsExactly(new TsValue(ts - 20000, "17"), new TsValue(ts - 10000, "18"));
+    }
+
 }
@@ -19,6 +19,8 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.TbActorMsg;
 
 import java.util.Collections;
@@ -61,6 +63,14 @@ public class DefaultTbActorSystem implements TbActorSystem {
         }
     }
 
+    @Override
+    public void createDispatcher(String dispatcherId, TbTenantFairScheduler fairScheduler) {
+        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, fairScheduler.getExecutor(), fairScheduler));
+        if (current != null) {
+            throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is already registered!");
+        }
+    }
+
     @Override
     public void destroyDispatcher(String dispatcherId) {
         Dispatcher dispatcher = dispatchers.remove(dispatcherId);
@@ -71,6 +81,15 @@ public class DefaultTbActorSystem implements TbActorSystem {
         }
     }
 
+    @Override
+    public void removeTenant(TenantId tenantId) {
+        dispatchers.values().forEach(dispatcher -> {
+            if (dispatcher.getFairScheduler() != null) {
+                dispatcher.getFairScheduler().removeTenant(tenantId);
+            }
+        });
+    }
+
     @Override
     public TbActorRef getActor(TbActorId actorId) {
         return actors.get(actorId);
@@ -105,14 +124,15 @@ public class DefaultTbActorSystem implements TbActorSystem {
                 if (actorMailbox == null) {
                     log.debug("Creating actor with id [{}]!", actorId);
                     TbActor actor = creator.createActor();
-                    TbActorRef parentRef = null;
+                    TbActorMailbox parentRef = null;
                     if (parent != null) {
-                        parentRef = getActor(parent);
+                        parentRef = actors.get(parent);
                         if (parentRef == null) {
                             throw new TbActorNotRegisteredException(parent, "Parent Actor with id [" + parent + "] is not registered!");
                         }
                     }
-                    TbActorMailbox mailbox = new TbActorMailbox(this, settings, actorId, parentRef, actor, dispatcher);
+                    TenantId tenantId = resolveTenantId(actorId, parentRef);
+                    TbActorMailbox mailbox = new TbActorMailbox(this, settings, actorId, parentRef, actor, dispatcher, tenantId);
                     actors.put(actorId, mailbox);
                     mailbox.initActor();
                     actorMailbox = mailbox;
@@ -130,6 +150,16 @@ public class DefaultTbActorSystem implements TbActorSystem {
         return actorMailbox;
     }
 
+    /*
+     * Tenant actors define the tenant of their whole subtree (devices, rule chains, calculated fields, etc.)
+     * */
+    private static TenantId resolveTenantId(TbActorId actorId, TbActorMailbox parent) {
+        if (actorId instanceof TbEntityActorId entityActorId && EntityType.TENANT.equals(entityActorId.getEntityType())) {
+            return TenantId.fromUUID(entityActorId.getEntityId().getId());
+        }
+        return parent != null ? parent.getTenantId() : null;
+    }
+
     @Override
     public void tellWithHighPriority(TbActorId target, TbActorMsg actorMsg) {
         tell(target, actorMsg, true);
@@ -17,6 +17,9 @@ package org.thingsboard.server.actors;
 
 import lombok.Data;
 
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 @Data
@@ -24,5 +27,20 @@ class Dispatcher {
 
     private final String dispatcherId;
     private final ExecutorService executor;
+    private final TbTenantFairScheduler fairScheduler;
+
+    Dispatcher(String dispatcherId, ExecutorService executor) {
+        this(dispatcherId, executor, null);
+    }
+
+    Dispatcher(String dispatcherId, ExecutorService executor, TbTenantFairScheduler fairScheduler) {
+        this.dispatcherId = dispatcherId;
+        this.executor = executor;
+        this.fairScheduler = fairScheduler;
+    }
+
+    Executor getExecutor(TenantId tenantId) {
+        return fairScheduler != null ? fairScheduler.forTenant(tenantId) : executor;
+    }
 
 }
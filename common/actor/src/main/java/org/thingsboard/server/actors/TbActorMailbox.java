@@ -16,9 +16,9 @@
 package org.thingsboard.server.actors;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.common.util.RecoveryAware;
 import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.TbActorMsg;
@@ -26,14 +26,16 @@ import org.thingsboard.server.common.msg.TbActorStopReason;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 @Slf4j
 @Getter
-@RequiredArgsConstructor
 public final class TbActorMailbox implements TbActorCtx {
 
     private static final boolean HIGH_PRIORITY = true;
@@ -51,15 +53,34 @@ public final class TbActorMailbox implements TbActorCtx {
     private final TbActorRef parentRef;
     private final TbActor actor;
     private final Dispatcher dispatcher;
+    private final TenantId tenantId;
+    private final Executor executor;
     private final ConcurrentLinkedQueue<TbActorMsg> highPriorityMsgs = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<TbActorMsg> normalPriorityMsgs = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean busy = new AtomicBoolean(FREE);
     private final AtomicBoolean ready = new AtomicBoolean(NOT_READY);
     private final AtomicBoolean destroyInProgress = new AtomicBoolean();
+    private final Lock reInitLock = new ReentrantLock();
     private volatile TbActorStopReason stopReason;
 
+    public TbActorMailbox(TbActorSystem system, TbActorSystemSettings settings, TbActorId selfId, TbActorRef parentRef, TbActor actor, Dispatcher dispatcher) {
+        this(system, settings, selfId, parentRef, actor, dispatcher, null);
+    }
+
+    public TbActorMailbox(TbActorSystem system, TbActorSystemSettings settings, TbActorId selfId, TbActorRef parentRef, TbActor actor,
+                          Dispatcher dispatcher, TenantId tenantId) {
+        this.system = system;
+        this.settings = settings;
+        this.selfId = selfId;
+        this.parentRef = parentRef;
+        this.actor = actor;
+        this.dispatcher = dispatcher;
+        this.tenantId = tenantId;
+        this.executor = dispatcher != null ? dispatcher.getExecutor(tenantId) : null;
+    }
+
     public void initActor() {
-        dispatcher.getExecutor().execute(() -> tryInit(1));
+        executor.execute(() -> tryInit(1));
     }
 
     private void tryInit(int attempt) {
@@ -88,11 +109,11 @@ public final class TbActorMailbox implements TbActorCtx {
             } else if (strategy.getRetryDelay() > 0) {
                 log.info("[{}] Failed to init actor, attempt {}, going to retry in attempts in {}ms", selfId, attempt, strategy.getRetryDelay());
                 log.debug("[{}] Error", selfId, t);
-                system.getScheduler().schedule(() -> dispatcher.getExecutor().execute(() -> tryInit(attemptIdx)), strategy.getRetryDelay(), TimeUnit.MILLISECONDS);
+                system.getScheduler().schedule(() -> executor.execute(() -> tryInit(attemptIdx)), strategy.getRetryDelay(), TimeUnit.MILLISECONDS);
             } else {
                 log.info("[{}] Failed to init actor, attempt {}, going to retry immediately", selfId, attempt);
                 log.debug("[{}] Error", selfId, t);
-                dispatcher.getExecutor().execute(() -> tryInit(attemptIdx));
+                executor.execute(() -> tryInit(attemptIdx));
             }
         }
     }
@@ -114,7 +135,9 @@ public final class TbActorMailbox implements TbActorCtx {
             tryProcessQueue(true);
         } else {
             if (highPriority && msg.getMsgType().equals(MsgType.RULE_NODE_UPDATED_MSG)) {
-                synchronized (this) {
+                // not a synchronized block, to avoid pinning the carrier thread when the dispatcher runs on virtual threads
+                reInitLock.lock();
+                try {
                     if (stopReason == TbActorStopReason.INIT_FAILED) {
                         destroyInProgress.set(false);
                         stopReason = null;
@@ -122,6 +145,8 @@ public final class TbActorMailbox implements TbActorCtx {
                     } else {
                         msg.onTbActorStopped(stopReason);
                     }
+                } finally {
+                    reInitLock.unlock();
                 }
             } else {
                 msg.onTbActorStopped(stopReason);
@@ -133,7 +158,7 @@ public final class TbActorMailbox implements TbActorCtx {
         if (ready.get() == READY) {
             if (newMsg || !highPriorityMsgs.isEmpty() || !normalPriorityMsgs.isEmpty()) {
                 if (busy.compareAndSet(FREE, BUSY)) {
-                    dispatcher.getExecutor().execute(this::processMailbox);
+                    executor.execute(this::processMailbox);
                 } else {
                     log.trace("[{}] MessageBox is busy, new msg: {}", selfId, newMsg);
                 }
@@ -173,9 +198,9 @@ public final class TbActorMailbox implements TbActorCtx {
         }
         if (noMoreElements) {
             busy.set(FREE);
-            dispatcher.getExecutor().execute(() -> tryProcessQueue(false));
+            executor.execute(() -> tryProcessQueue(false));
         } else {
-            dispatcher.getExecutor().execute(this::processMailbox);
+            executor.execute(this::processMailbox);
         }
     }
 
@@ -234,7 +259,7 @@ public final class TbActorMailbox implements TbActorCtx {
             stopReason = TbActorStopReason.STOPPED;
         }
         destroyInProgress.set(true);
-        dispatcher.getExecutor().execute(() -> {
+        executor.execute(() -> {
             try {
                 ready.set(NOT_READY);
                 actor.destroy(stopReason, cause);
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.actors;
 
+import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.TbActorMsg;
 
 import java.util.List;
@@ -28,8 +29,15 @@ public interface TbActorSystem {
 
     void createDispatcher(String dispatcherId, ExecutorService executor);
 
+    void createDispatcher(String dispatcherId, TbTenantFairScheduler fairScheduler);
+
     void destroyDispatcher(String dispatcherId);
 
+    /**
+     * Releases the per-tenant state of the dispatchers. Called once the actors of a deleted tenant are stopped.
+     */
+    void removeTenant(TenantId tenantId);
+
     TbActorRef getActor(TbActorId actorId);
 
     TbActorRef createRootActor(String dispatcherId, TbActorCreator creator);
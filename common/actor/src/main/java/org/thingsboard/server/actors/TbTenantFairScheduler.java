@@ -0,0 +1,253 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Fair-share scheduling layer on top of a dispatcher executor.
+ * Mailbox tasks are queued per tenant and executed by at most {@code parallelism} runners,
+ * which serve tenants in weighted round-robin order: on each turn a tenant may run up to its weight of tasks.
+ * A tenant may additionally be limited in the number of tasks running concurrently.
+ * Tasks of actors that do not belong to a tenant (e.g. the app actor) are queued under {@link TenantId#SYS_TENANT_ID}.
+ */
+@Slf4j
+public class TbTenantFairScheduler {
+
+    private static final long SETTINGS_REFRESH_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Getter
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final ToIntFunction<TenantId> weightProvider;
+    private final ToIntFunction<TenantId> maxConcurrencyProvider;
+
+    private final ConcurrentMap<TenantId, TenantQueue> tenantQueues = new ConcurrentHashMap<>();
+    private final Queue<TenantQueue> readyQueues = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeRunners = new AtomicInteger();
+
+    /**
+     * @param executor               executor that runs the scheduling loops
+     * @param parallelism            maximum number of tasks executed concurrently, usually the executor's pool size
+     * @param weightProvider         number of tasks a tenant may run per round-robin turn; values below 1 are treated as 1
+     * @param maxConcurrencyProvider maximum number of concurrently running tasks of a tenant; values below 1 mean no limit
+     */
+    public TbTenantFairScheduler(ExecutorService executor, int parallelism,
+                                 ToIntFunction<TenantId> weightProvider, ToIntFunction<TenantId> maxConcurrencyProvider) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.weightProvider = weightProvider;
+        this.maxConcurrencyProvider = maxConcurrencyProvider;
+    }
+
+    public Executor forTenant(TenantId tenantId) {
+        TenantId queueTenantId = tenantId != null ? tenantId : TenantId.SYS_TENANT_ID;
+        // the queue is resolved on every submit, since the executor is cached by mailboxes that may outlive the queue
+        return task -> submit(getTenantQueue(queueTenantId), task);
+    }
+
+    /**
+     * Releases the queue of a deleted tenant. Tasks that are already queued, e.g. destroy tasks of the stopped actors,
+     * are still executed, and the queue is released once they are done.
+     */
+    public void removeTenant(TenantId tenantId) {
+        TenantQueue queue = tenantQueues.get(tenantId);
+        if (queue != null) {
+            queue.removed = true;
+            removeIfIdle(queue);
+        }
+    }
+
+    private void removeIfIdle(TenantQueue queue) {
+        if (queue.removed && queue.size.get() == 0 && queue.running.get() == 0) {
+            tenantQueues.remove(queue.tenantId, queue);
+        }
+    }
+
+    /**
+     * Returns per-tenant queue depth and wait time statistics collected since the previous call and resets them.
+     */
+    public Map<TenantId, TenantStats> getAndResetStats() {
+        Map<TenantId, TenantStats> stats = new HashMap<>();
+        tenantQueues.forEach((tenantId, queue) -> {
+            long executed = queue.executedCount.getAndSet(0);
+            long totalWaitNanos = queue.totalWaitNanos.getAndSet(0);
+            long maxWaitNanos = queue.maxWaitNanos.getAndSet(0);
+            int queueSize = queue.size.get();
+            if (executed > 0 || queueSize > 0) {
+                stats.put(tenantId, new TenantStats(queueSize, executed,
+                        executed > 0 ? (double) TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / executed) / 1000 : 0.0,
+                        (double) TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) / 1000));
+            }
+        });
+        return stats;
+    }
+
+    private TenantQueue getTenantQueue(TenantId tenantId) {
+        return tenantQueues.computeIfAbsent(tenantId, TenantQueue::new);
+    }
+
+    private void submit(TenantQueue queue, Runnable task) {
+        queue.tasks.add(new QueuedTask(task, System.nanoTime()));
+        queue.size.incrementAndGet();
+        schedule(queue);
+    }
+
+    private void schedule(TenantQueue queue) {
+        if (queue.scheduled.compareAndSet(false, true)) {
+            readyQueues.add(queue);
+            tryStartRunner();
+        }
+    }
+
+    private void tryStartRunner() {
+        while (true) {
+            int active = activeRunners.get();
+            if (active >= parallelism) {
+                return;
+            }
+            if (activeRunners.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(this::runLoop);
+                } catch (Throwable t) {
+                    activeRunners.decrementAndGet();
+                    throw t;
+                }
+                return;
+            }
+        }
+    }
+
+    private void runLoop() {
+        try {
+            TenantQueue queue;
+            while ((queue = readyQueues.poll()) != null) {
+                queue.scheduled.set(false);
+                runTurn(queue);
+            }
+        } finally {
+            activeRunners.decrementAndGet();
+        }
+        // a queue might have been scheduled after the last poll, while this runner was still counted as active
+        if (!readyQueues.isEmpty()) {
+            tryStartRunner();
+        }
+    }
+
+    private void runTurn(TenantQueue queue) {
+        queue.refreshSettings();
+        int maxConcurrency = queue.maxConcurrency;
+        if (maxConcurrency > 0 && queue.running.incrementAndGet() > maxConcurrency) {
+            // the queue is scheduled again when one of its running tasks completes
+            queue.running.decrementAndGet();
+            return;
+        } else if (maxConcurrency <= 0) {
+            queue.running.incrementAndGet();
+        }
+        try {
+            // let other runners serve the same tenant concurrently, after the tenants that are already waiting
+            if (queue.size.get() > 1) {
+                schedule(queue);
+            }
+            for (int i = 0; i < queue.weight; i++) {
+                QueuedTask task = queue.tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                queue.size.decrementAndGet();
+                queue.recordWait(System.nanoTime() - task.enqueuedNanos());
+                try {
+                    task.task().run();
+                } catch (Throwable t) {
+                    log.warn("[{}] Failed to execute task", queue.tenantId, t);
+                }
+            }
+        } finally {
+            queue.running.decrementAndGet();
+        }
+        if (!queue.tasks.isEmpty()) {
+            schedule(queue);
+        } else {
+            removeIfIdle(queue);
+        }
+    }
+
+    public record TenantStats(int queueSize, long executedCount, double avgWaitMs, double maxWaitMs) {}
+
+    private record QueuedTask(Runnable task, long enqueuedNanos) {}
+
+    private class TenantQueue {
+
+        private final TenantId tenantId;
+        private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicLong executedCount = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private volatile boolean removed;
+        private volatile int weight;
+        private volatile int maxConcurrency;
+        private volatile long settingsRefreshNanos;
+
+        TenantQueue(TenantId tenantId) {
+            this.tenantId = tenantId;
+            this.settingsRefreshNanos = System.nanoTime() - SETTINGS_REFRESH_INTERVAL_NANOS;
+        }
+
+        void refreshSettings() {
+            long now = System.nanoTime();
+            if (now - settingsRefreshNanos < SETTINGS_REFRESH_INTERVAL_NANOS) {
+                return;
+            }
+            settingsRefreshNanos = now;
+            try {
+                weight = Math.max(1, weightProvider.applyAsInt(tenantId));
+                maxConcurrency = maxConcurrencyProvider.applyAsInt(tenantId);
+            } catch (Exception e) {
+                log.debug("[{}] Failed to resolve scheduling settings", tenantId, e);
+                weight = Math.max(1, weight);
+            }
+        }
+
+        void recordWait(long waitNanos) {
+            executedCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+    }
+
+}
@@ -27,8 +27,10 @@ import org.thingsboard.server.common.data.id.DeviceId;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -218,6 +220,40 @@ public class ActorSystemTest {
     }
 
 
+    @Test
+    public void testBlockingActorsOnFixedAndVirtualDispatchers() throws InterruptedException {
+        int actorsCount = 100;
+        int msgsPerActor = 10;
+        long blockMs = 5;
+
+        executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
+        runBlockingActors(executor, "fixed-dispatcher", actorsCount, msgsPerActor, blockMs);
+
+        ExecutorService virtualExecutor = ThingsBoardExecutors.newVirtualThreadPool(actorsCount, getClass().getSimpleName() + "-virtual");
+        try {
+            runBlockingActors(virtualExecutor, "virtual-dispatcher", actorsCount, msgsPerActor, blockMs);
+        } finally {
+            virtualExecutor.shutdownNow();
+        }
+    }
+
+    private void runBlockingActors(ExecutorService dispatcherExecutor, String dispatcherId, int actorsCount, int msgsPerActor, long blockMs) throws InterruptedException {
+        actorSystem.createDispatcher(dispatcherId, dispatcherExecutor);
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(actorsCount * msgsPerActor);
+        List<TbActorRef> actorRefs = new ArrayList<>();
+        for (int i = 0; i < actorsCount; i++) {
+            actorRefs.add(actorSystem.createRootActor(dispatcherId, new BlockingActor.BlockingActorCreator(
+                    new TbEntityActorId(new DeviceId(UUID.randomUUID())), blockMs, latencies, latch)));
+        }
+        for (int i = 0; i < msgsPerActor; i++) {
+            actorRefs.forEach(actorRef -> actorRef.tell(new BlockingActor.TimedTbActorMsg()));
+        }
+        Assertions.assertTrue(latch.await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        assertThat(latencies).hasSize(actorsCount * msgsPerActor);
+        actorRefs.forEach(actorRef -> actorSystem.stop(actorRef.getActorId()));
+    }
+
     public void testActorsAndMessages(int actorsCount, int msgNumber, int times) throws InterruptedException {
         Random random = new Random();
         int[] randomIntegers = new int[msgNumber];
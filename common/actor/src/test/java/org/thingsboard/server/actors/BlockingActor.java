@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import lombok.Getter;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+import org.thingsboard.server.common.msg.TbActorStopReason;
+
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Simulates a rule node that blocks on a remote call while processing each message.
+ */
+public class BlockingActor extends AbstractTbActor {
+
+    private final TbActorId actorId;
+    private final long blockMs;
+    private final Queue<Long> latencies;
+    private final CountDownLatch latch;
+
+    public BlockingActor(TbActorId actorId, long blockMs, Queue<Long> latencies, CountDownLatch latch) {
+        this.actorId = actorId;
+        this.blockMs = blockMs;
+        this.latencies = latencies;
+        this.latch = latch;
+    }
+
+    @Override
+    public boolean process(TbActorMsg msg) {
+        try {
+            Thread.sleep(blockMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        latencies.add(System.nanoTime() - ((TimedTbActorMsg) msg).getCreatedNanos());
+        latch.countDown();
+        return true;
+    }
+
+    @Override
+    public void destroy(TbActorStopReason stopReason, Throwable cause) {
+
+    }
+
+    public static class TimedTbActorMsg implements TbActorMsg {
+
+        @Getter
+        private final long createdNanos = System.nanoTime();
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+    }
+
+    public static class BlockingActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+        private final long blockMs;
+        private final Queue<Long> latencies;
+        private final CountDownLatch latch;
+
+        public BlockingActorCreator(TbActorId actorId, long blockMs, Queue<Long> latencies, CountDownLatch latch) {
+            this.actorId = actorId;
+            this.blockMs = blockMs;
+            this.latencies = latencies;
+            this.latch = latch;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new BlockingActor(actorId, blockMs, latencies, latch);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class TbTenantFairSchedulerTest {
+
+    private static final TenantId NOISY_TENANT = TenantId.fromUUID(UUID.randomUUID());
+    private static final TenantId QUIET_TENANT = TenantId.fromUUID(UUID.randomUUID());
+
+    private ExecutorService executor;
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQuietTenantIsNotDelayedByNoisyTenant() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        TbTenantFairScheduler scheduler = createScheduler(1, tenantId -> 1, tenantId -> 0);
+        List<TenantId> executionOrder = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1001);
+
+        scheduler.forTenant(NOISY_TENANT).execute(() -> awaitQuietly(start));
+        for (int i = 0; i < 1000; i++) {
+            scheduler.forTenant(NOISY_TENANT).execute(() -> {
+                executionOrder.add(NOISY_TENANT);
+                done.countDown();
+            });
+        }
+        scheduler.forTenant(QUIET_TENANT).execute(() -> {
+            executionOrder.add(QUIET_TENANT);
+            done.countDown();
+        });
+        start.countDown();
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(executionOrder.indexOf(QUIET_TENANT)).isLessThan(2);
+    }
+
+    @Test
+    public void testTenantsAreServedAccordingToWeights() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        TbTenantFairScheduler scheduler = createScheduler(1, tenantId -> tenantId.equals(NOISY_TENANT) ? 3 : 1, tenantId -> 0);
+        List<TenantId> executionOrder = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(80);
+
+        scheduler.forTenant(TenantId.SYS_TENANT_ID).execute(() -> awaitQuietly(start));
+        for (int i = 0; i < 40; i++) {
+            for (TenantId tenantId : List.of(NOISY_TENANT, QUIET_TENANT)) {
+                scheduler.forTenant(tenantId).execute(() -> {
+                    executionOrder.add(tenantId);
+                    done.countDown();
+                });
+            }
+        }
+        start.countDown();
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        List<TenantId> firstRounds = executionOrder.subList(0, 40);
+        assertThat(firstRounds.stream().filter(NOISY_TENANT::equals).count()).isEqualTo(30);
+    }
+
+    @Test
+    public void testTenantConcurrencyIsLimited() throws InterruptedException {
+        TbTenantFairScheduler scheduler = createScheduler(4, tenantId -> 1, tenantId -> 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.forTenant(NOISY_TENANT).execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleepQuietly(1);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStatsReportQueueDepthAndWaitTime() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        TbTenantFairScheduler scheduler = createScheduler(1, tenantId -> 1, tenantId -> 0);
+        CountDownLatch done = new CountDownLatch(10);
+
+        scheduler.forTenant(QUIET_TENANT).execute(() -> awaitQuietly(start));
+        for (int i = 0; i < 10; i++) {
+            scheduler.forTenant(NOISY_TENANT).execute(done::countDown);
+        }
+        Map<TenantId, TbTenantFairScheduler.TenantStats> stats = scheduler.getAndResetStats();
+        assertThat(stats.get(NOISY_TENANT).queueSize()).isEqualTo(10);
+
+        sleepQuietly(20);
+        start.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        stats = scheduler.getAndResetStats();
+        assertThat(stats.get(NOISY_TENANT).executedCount()).isEqualTo(10);
+        assertThat(stats.get(NOISY_TENANT).maxWaitMs()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    public void testRemovedTenantQueueIsReleasedAfterQueuedTasks() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        TbTenantFairScheduler scheduler = createScheduler(1, tenantId -> 1, tenantId -> 0);
+        Map<?, ?> tenantQueues = (Map<?, ?>) ReflectionTestUtils.getField(scheduler, "tenantQueues");
+        Executor tenantExecutor = scheduler.forTenant(NOISY_TENANT);
+        CountDownLatch done = new CountDownLatch(10);
+
+        tenantExecutor.execute(() -> awaitQuietly(start));
+        for (int i = 0; i < 10; i++) {
+            tenantExecutor.execute(done::countDown);
+        }
+        scheduler.removeTenant(NOISY_TENANT);
+        assertThat(tenantQueues).hasSize(1);
+
+        start.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        await().atMost(10, TimeUnit.SECONDS).until(tenantQueues::isEmpty);
+
+        CountDownLatch executed = new CountDownLatch(1);
+        tenantExecutor.execute(executed::countDown);
+        assertThat(executed.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private TbTenantFairScheduler createScheduler(int parallelism, ToIntFunction<TenantId> weights, ToIntFunction<TenantId> maxConcurrency) {
+        executor = Executors.newFixedThreadPool(parallelism, ThingsBoardThreadFactory.forName(getClass().getSimpleName()));
+        return new TbTenantFairScheduler(executor, parallelism, weights, maxConcurrency);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
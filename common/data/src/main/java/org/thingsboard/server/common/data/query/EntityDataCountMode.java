@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.data.query;
+
+/**
+ * Defines how the total number of elements is calculated for the entity data query.
+ */
+public enum EntityDataCountMode {
+
+    /**
+     * The total number of elements is counted for each page
+     */
+    EXACT,
+    /**
+     * The total number of elements is not counted. The page contains the lower bound of the total number of elements,
+     * 'hasNext' is still accurate
+     */
+    NONE,
+    /**
+     * The total number of elements is reused from a recent count of the same query
+     */
+    ESTIMATE
+
+}
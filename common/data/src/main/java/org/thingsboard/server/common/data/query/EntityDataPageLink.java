@@ -28,6 +28,8 @@ public class EntityDataPageLink {
     private String textSearch;
     private EntityDataSortOrder sortOrder;
     private boolean dynamic = false;
+    private EntityDataSortCursor sortCursor;
+    private EntityDataCountMode countMode;
 
     public EntityDataPageLink() {
     }
@@ -36,8 +38,12 @@ public class EntityDataPageLink {
         this(pageSize, page, textSearch, sortOrder, false);
     }
 
+    public EntityDataPageLink(int pageSize, int page, String textSearch, EntityDataSortOrder sortOrder, boolean dynamic) {
+        this(pageSize, page, textSearch, sortOrder, dynamic, null, null);
+    }
+
     @JsonIgnore
     public EntityDataPageLink nextPageLink() {
-        return new EntityDataPageLink(this.pageSize, this.page + 1, this.textSearch, this.sortOrder);
+        return new EntityDataPageLink(this.pageSize, this.page + 1, this.textSearch, this.sortOrder, false, null, this.countMode);
     }
 }
@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.data.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Position of the last entity of the previous page for the keyset pagination.
+ * Supported when the entity data is sorted by an entity field, 'sortValue' is the value of the sort key of the last entity.
+ * Queries with a cursor are served by the SQL query even when EDQS is enabled.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityDataSortCursor {
+
+    private String sortValue;
+    private UUID entityId;
+
+}
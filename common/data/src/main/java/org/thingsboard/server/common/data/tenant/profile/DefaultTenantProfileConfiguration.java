@@ -204,6 +204,11 @@ public class DefaultTenantProfileConfiguration implements TenantProfileConfigura
     @Schema(example = "60")
     private long alarmsReevaluationInterval = 60;
 
+    @Schema(description = "Number of actor mailbox turns the tenant gets per round of fair scheduling. 0 means the system default", example = "1")
+    private int actorSchedulingWeight;
+    @Schema(description = "Maximum number of the tenant's actor mailboxes processed concurrently on a dispatcher. 0 means the system default", example = "0")
+    private int maxConcurrentActorMailboxes;
+
     @Override
     public long getProfileThreshold(ApiUsageRecordKey key) {
         return switch (key) {
@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.edqs.data;
+
+import org.thingsboard.server.common.data.edqs.DataPoint;
+
+import java.util.Arrays;
+
+/**
+ * Compact map of data points keyed by {@link org.thingsboard.server.edqs.repo.KeyDictionary} ids.
+ * <p>
+ * Keys are kept in a sorted primitive array alongside the values. Reads are lock-free and work on an immutable
+ * snapshot, writes copy the arrays. An entity usually has a few dozen keys at most, and most updates only replace
+ * the value of an existing key, which shares the key array with the previous snapshot.
+ */
+public class DataPointMap {
+
+    private static final Entries EMPTY = new Entries(new int[0], new DataPoint[0]);
+
+    private volatile Entries entries = EMPTY;
+
+    public DataPoint get(int keyId) {
+        Entries current = entries;
+        int idx = Arrays.binarySearch(current.keys, keyId);
+        return idx >= 0 ? current.values[idx] : null;
+    }
+
+    /**
+     * @return true if there was no value for the key
+     */
+    public synchronized boolean put(int keyId, DataPoint value) {
+        Entries current = entries;
+        int idx = Arrays.binarySearch(current.keys, keyId);
+        if (idx >= 0) {
+            if (!value.equals(current.values[idx])) {
+                DataPoint[] values = current.values.clone();
+                values[idx] = value;
+                entries = new Entries(current.keys, values);
+            }
+            return false;
+        }
+        int insertAt = -idx - 1;
+        int size = current.keys.length;
+        int[] keys = new int[size + 1];
+        DataPoint[] values = new DataPoint[size + 1];
+        System.arraycopy(current.keys, 0, keys, 0, insertAt);
+        System.arraycopy(current.values, 0, values, 0, insertAt);
+        keys[insertAt] = keyId;
+        values[insertAt] = value;
+        System.arraycopy(current.keys, insertAt, keys, insertAt + 1, size - insertAt);
+        System.arraycopy(current.values, insertAt, values, insertAt + 1, size - insertAt);
+        entries = new Entries(keys, values);
+        return true;
+    }
+
+    /**
+     * @return true if there was a value for the key
+     */
+    public synchronized boolean remove(int keyId) {
+        Entries current = entries;
+        int idx = Arrays.binarySearch(current.keys, keyId);
+        if (idx < 0) {
+            return false;
+        }
+        int size = current.keys.length;
+        if (size == 1) {
+            entries = EMPTY;
+            return true;
+        }
+        int[] keys = new int[size - 1];
+        DataPoint[] values = new DataPoint[size - 1];
+        System.arraycopy(current.keys, 0, keys, 0, idx);
+        System.arraycopy(current.values, 0, values, 0, idx);
+        System.arraycopy(current.keys, idx + 1, keys, idx, size - idx - 1);
+        System.arraycopy(current.values, idx + 1, values, idx, size - idx - 1);
+        entries = new Entries(keys, values);
+        return true;
+    }
+
+    public int size() {
+        return entries.keys.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public String toString() {
+        Entries current = entries;
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < current.keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(current.keys[i]).append('=').append(current.values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    private record Entries(int[] keys, DataPoint[] values) {}
+
+}
@@ -23,20 +23,18 @@ import org.thingsboard.server.common.data.edqs.fields.DeviceFields;
 import org.thingsboard.server.common.data.query.EntityKeyType;
 import org.thingsboard.server.common.data.edqs.DataPoint;
 
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 @ToString(callSuper = true)
 public class DeviceData extends ProfileAwareData<DeviceFields> {
 
-    private final Map<Integer, DataPoint> clientAttrMap;
-    private final Map<Integer, DataPoint> sharedAttrMap;
+    private final DataPointMap clientAttrMap;
+    private final DataPointMap sharedAttrMap;
 
     public DeviceData(UUID entityId) {
         super(entityId);
-        this.clientAttrMap = new ConcurrentHashMap<>();
-        this.sharedAttrMap = new ConcurrentHashMap<>();
+        this.clientAttrMap = new DataPointMap();
+        this.sharedAttrMap = new DataPointMap();
     }
 
     @Override
@@ -58,18 +56,18 @@ public class DeviceData extends ProfileAwareData<DeviceFields> {
     @Override
     public boolean putAttr(Integer keyId, AttributeScope scope, DataPoint value) {
         return switch (scope) {
-            case SERVER_SCOPE -> serverAttrMap.put(keyId, value) == null;
-            case CLIENT_SCOPE -> clientAttrMap.put(keyId, value) == null;
-            case SHARED_SCOPE -> sharedAttrMap.put(keyId, value) == null;
+            case SERVER_SCOPE -> serverAttrMap.put(keyId, value);
+            case CLIENT_SCOPE -> clientAttrMap.put(keyId, value);
+            case SHARED_SCOPE -> sharedAttrMap.put(keyId, value);
         };
     }
 
     @Override
     public boolean removeAttr(Integer keyId, AttributeScope scope) {
         return switch (scope) {
-            case SERVER_SCOPE -> serverAttrMap.remove(keyId) != null;
-            case CLIENT_SCOPE -> clientAttrMap.remove(keyId) != null;
-            case SHARED_SCOPE -> sharedAttrMap.remove(keyId) != null;
+            case SERVER_SCOPE -> serverAttrMap.remove(keyId);
+            case CLIENT_SCOPE -> clientAttrMap.remove(keyId);
+            case SHARED_SCOPE -> sharedAttrMap.remove(keyId);
         };
     }
 
@@ -15,12 +15,14 @@
  */
 package org.thingsboard.server.edqs.data.dp;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.thingsboard.server.common.data.edqs.DataPoint;
 
 @RequiredArgsConstructor
+@EqualsAndHashCode
 public abstract class AbstractDataPoint implements DataPoint {
 
     @Getter
@@ -15,10 +15,12 @@
  */
 package org.thingsboard.server.edqs.data.dp;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.thingsboard.server.common.data.edqs.DataPoint;
 import org.thingsboard.server.common.data.kv.DataType;
 
+@EqualsAndHashCode(callSuper = true)
 public class BoolDataPoint extends AbstractDataPoint {
 
     @Getter
@@ -15,10 +15,12 @@
  */
 package org.thingsboard.server.edqs.data.dp;
 
+import lombok.EqualsAndHashCode;
 import org.thingsboard.server.common.data.kv.DataType;
 
 import java.util.function.Function;
 
+@EqualsAndHashCode(callSuper = true)
 public class CompressedJsonDataPoint extends CompressedStringDataPoint {
 
     public CompressedJsonDataPoint(long ts, byte[] compressedValue, Function<byte[], String> uncompressor) {
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.edqs.data.dp;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import org.thingsboard.common.util.TbBytePool;
@@ -22,11 +23,13 @@ import org.thingsboard.server.common.data.kv.DataType;
 
 import java.util.function.Function;
 
+@EqualsAndHashCode(callSuper = true)
 public class CompressedStringDataPoint extends AbstractDataPoint {
 
     @Getter
     private final byte[] compressedValue;
 
+    @EqualsAndHashCode.Exclude
     protected final Function<byte[], String> uncompressor;
 
     @SneakyThrows
@@ -15,10 +15,12 @@
  */
 package org.thingsboard.server.edqs.data.dp;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.thingsboard.server.common.data.kv.DataType;
 import org.thingsboard.common.util.TbStringPool;
 
+@EqualsAndHashCode(callSuper = true)
 public class StringDataPoint extends AbstractDataPoint {
 
     @Getter
@@ -42,6 +42,7 @@ import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.util.CollectionsUtil;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.util.EdqsProtoUtils;
 import org.thingsboard.server.edqs.repo.EdqsRepository;
 import org.thingsboard.server.edqs.state.EdqsPartitionService;
 import org.thingsboard.server.edqs.state.EdqsStateService;
@@ -185,8 +186,13 @@ public class EdqsProcessor implements TbQueueHandler<TbProtoQueueMsg<ToEdqsMsg>,
             EdqsRequest request;
             TenantId tenantId;
             CustomerId customerId;
+            boolean binary = toEdqsMsg.getRequestMsg().hasQuery();
             try {
-                request = Objects.requireNonNull(JacksonUtil.fromString(toEdqsMsg.getRequestMsg().getValue(), EdqsRequest.class));
+                if (binary) {
+                    request = EdqsProtoUtils.fromProto(toEdqsMsg.getRequestMsg().getQuery());
+                } else {
+                    request = Objects.requireNonNull(JacksonUtil.fromString(toEdqsMsg.getRequestMsg().getValue(), EdqsRequest.class));
+                }
                 tenantId = getTenantId(toEdqsMsg);
                 customerId = getCustomerId(toEdqsMsg);
             } catch (Exception e) {
@@ -196,13 +202,22 @@ public class EdqsProcessor implements TbQueueHandler<TbProtoQueueMsg<ToEdqsMsg>,
 
             EdqsResponse response = processRequest(tenantId, customerId, request);
             return new TbProtoQueueMsg<>(queueMsg.getKey(), FromEdqsMsg.newBuilder()
-                    .setResponseMsg(TransportProtos.EdqsResponseMsg.newBuilder()
-                            .setValue(JacksonUtil.toString(response))
-                            .build())
+                    .setResponseMsg(toResponseMsg(response, binary))
                     .build(), queueMsg.getHeaders());
         });
     }
 
+    private TransportProtos.EdqsResponseMsg toResponseMsg(EdqsResponse response, boolean binary) {
+        TransportProtos.EdqsResponseMsg.Builder responseMsg = TransportProtos.EdqsResponseMsg.newBuilder()
+                .setEncodingVersion(EdqsProtoUtils.BINARY_ENCODING_VERSION);
+        if (binary) {
+            responseMsg.setResult(EdqsProtoUtils.toProto(response));
+        } else {
+            responseMsg.setValue(JacksonUtil.toString(response));
+        }
+        return responseMsg.build();
+    }
+
     @Override
     public TbProtoQueueMsg<FromEdqsMsg> constructErrorResponseMsg(TbProtoQueueMsg<ToEdqsMsg> request, Throwable e) {
         EdqsResponse response = new EdqsResponse();
@@ -216,9 +231,7 @@ public class EdqsProcessor implements TbQueueHandler<TbProtoQueueMsg<ToEdqsMsg>,
         }
         response.setError(errorMessage);
         return new TbProtoQueueMsg<>(request.getKey(), FromEdqsMsg.newBuilder()
-                .setResponseMsg(TransportProtos.EdqsResponseMsg.newBuilder()
-                        .setValue(JacksonUtil.toString(response))
-                        .build())
+                .setResponseMsg(toResponseMsg(response, request.getValue().getRequestMsg().hasQuery()))
                 .build(), request.getHeaders());
     }
 
@@ -32,4 +32,8 @@ public class EntityTypeQueryProcessor extends AbstractSimpleQueryProcessor<Entit
         return super.matches(ed);
     }
 
+    public boolean matchesFilters(EntityData<?> ed) {
+        return matches(ed);
+    }
+
 }
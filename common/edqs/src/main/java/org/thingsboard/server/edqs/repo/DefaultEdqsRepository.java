@@ -15,9 +15,11 @@
  */
 package org.thingsboard.server.edqs.repo;
 
-import lombok.AllArgsConstructor;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.common.data.ObjectType;
 import org.thingsboard.server.common.data.edqs.EdqsEvent;
@@ -36,7 +38,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.function.Predicate;
 
 @EdqsComponent
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Service
 @Slf4j
 public class DefaultEdqsRepository implements EdqsRepository {
@@ -45,8 +47,26 @@ public class DefaultEdqsRepository implements EdqsRepository {
     private final static ConcurrentMap<TenantId, TenantRepo> repos = new ConcurrentHashMap<>();
     private final EdqsStatsService statsService;
 
+    @Value("${queue.edqs.sort_indexes.enabled:false}")
+    private boolean sortIndexesEnabled;
+    @Value("${queue.edqs.sort_indexes.min_entities:10000}")
+    private int sortIndexMinEntities;
+    @Value("${queue.edqs.sort_indexes.max_per_tenant:10}")
+    private int maxSortIndexesPerTenant;
+    @Value("${queue.edqs.sort_indexes.invalid_key_backoff_ms:60000}")
+    private long sortIndexInvalidKeyBackoffMs;
+
+    private EdqsSortIndexSettings sortIndexSettings = EdqsSortIndexSettings.DISABLED;
+
+    @PostConstruct
+    private void init() {
+        if (sortIndexesEnabled) {
+            sortIndexSettings = new EdqsSortIndexSettings(true, sortIndexMinEntities, maxSortIndexesPerTenant, sortIndexInvalidKeyBackoffMs);
+        }
+    }
+
     public TenantRepo get(TenantId tenantId) {
-        return repos.computeIfAbsent(tenantId, id -> new TenantRepo(id, statsService));
+        return repos.computeIfAbsent(tenantId, id -> new TenantRepo(id, statsService, sortIndexSettings));
     }
 
     @Override
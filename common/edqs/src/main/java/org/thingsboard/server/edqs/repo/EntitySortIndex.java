@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.edqs.repo;
+
+import lombok.Getter;
+import org.thingsboard.server.common.data.edqs.DataPoint;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.edqs.data.EntityData;
+import org.thingsboard.server.edqs.query.DataKey;
+import org.thingsboard.server.edqs.query.SortableEntityData;
+import org.thingsboard.server.edqs.util.RepositoryUtils;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Entities of one type ordered by the value of a single sort key, kept in the same order as {@link RepositoryUtils#SORT_ASC}.
+ * <p>
+ * The index is only consistent while all values of the key are mutually comparable with the same rules
+ * (numbers, booleans or strings). Once values of different kinds are observed the index is invalidated
+ * and the queries fall back to the full scan.
+ */
+class EntitySortIndex {
+
+    @Getter
+    private final DataKey sortKey;
+    private final ConcurrentSkipListSet<SortableEntityData> sorted = new ConcurrentSkipListSet<>(RepositoryUtils.SORT_ASC);
+    private final ConcurrentMap<UUID, SortableEntityData> entries = new ConcurrentHashMap<>();
+    private final AtomicReference<ValueKind> valueKind = new AtomicReference<>();
+
+    @Getter
+    private volatile boolean ready;
+    @Getter
+    private volatile boolean invalid;
+
+    EntitySortIndex(DataKey sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    void update(EntityData<?> entityData) {
+        if (invalid) {
+            return;
+        }
+        if (entityData.getFields() == null) {
+            remove(entityData.getId());
+            return;
+        }
+        entries.compute(entityData.getId(), (id, current) -> {
+            DataPoint value = RepositoryUtils.getSortValue(entityData, sortKey, null);
+            if (!checkValueKind(value)) {
+                invalid = true;
+                return current;
+            }
+            if (current != null) {
+                if (current.getEntityData() == entityData && compare(current.getSortValue(), value) == 0) {
+                    return current;
+                }
+                sorted.remove(current);
+            }
+            SortableEntityData entry = new SortableEntityData(entityData);
+            entry.setSortValue(value);
+            sorted.add(entry);
+            return entry;
+        });
+    }
+
+    void remove(UUID entityId) {
+        entries.computeIfPresent(entityId, (id, current) -> {
+            sorted.remove(current);
+            return null;
+        });
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    Iterator<SortableEntityData> iterator(boolean ascending) {
+        return ascending ? sorted.iterator() : sorted.descendingIterator();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean checkValueKind(DataPoint value) {
+        if (value == null) {
+            return true;
+        }
+        ValueKind kind = ValueKind.of(value.getType());
+        ValueKind existing = valueKind.compareAndExchange(null, kind);
+        return existing == null || existing == kind;
+    }
+
+    private static int compare(DataPoint a, DataPoint b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        return a.compareTo(b);
+    }
+
+    private enum ValueKind {
+        NUMBER, BOOLEAN, STRING;
+
+        static ValueKind of(DataType type) {
+            return switch (type) {
+                case LONG, DOUBLE -> NUMBER;
+                case BOOLEAN -> BOOLEAN;
+                case STRING, JSON -> STRING;
+            };
+        }
+    }
+
+}
@@ -50,17 +50,20 @@ import org.thingsboard.server.edqs.data.EntityProfileData;
 import org.thingsboard.server.edqs.data.GenericData;
 import org.thingsboard.server.edqs.data.RelationsRepo;
 import org.thingsboard.server.edqs.data.TenantData;
+import org.thingsboard.server.edqs.query.DataKey;
 import org.thingsboard.server.edqs.query.EdqsDataQuery;
 import org.thingsboard.server.edqs.query.EdqsQuery;
 import org.thingsboard.server.edqs.query.SortableEntityData;
 import org.thingsboard.server.edqs.query.processor.EntityQueryProcessor;
 import org.thingsboard.server.edqs.query.processor.EntityQueryProcessorFactory;
+import org.thingsboard.server.edqs.query.processor.EntityTypeQueryProcessor;
 import org.thingsboard.server.edqs.util.RepositoryUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -72,6 +75,7 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.edqs.util.RepositoryUtils.SORT_ASC;
@@ -85,6 +89,7 @@ public class TenantRepo {
     public static final Comparator<EntityData<?>> CREATED_TIME_AND_ID_COMPARATOR = CREATED_TIME_COMPARATOR
             .thenComparing(EntityData::getId);
     public static final Comparator<EntityData<?>> CREATED_TIME_AND_ID_DESC_COMPARATOR = CREATED_TIME_AND_ID_COMPARATOR.reversed();
+    private static final int MAX_INVALID_KEY_BACKOFF_FACTOR = 32;
 
     private final ConcurrentMap<EntityType, Set<EntityData<?>>> entitySetByType = new ConcurrentHashMap<>();
     private final ConcurrentMap<EntityType, ConcurrentMap<UUID, EntityData<?>>> entityMapByType = new ConcurrentHashMap<>();
@@ -92,12 +97,21 @@ public class TenantRepo {
 
     private final Lock entityUpdateLock = new ReentrantLock();
 
+    private final ConcurrentMap<EntityType, ConcurrentMap<DataKey, EntitySortIndex>> sortIndexes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<EntityType, ConcurrentMap<DataKey, InvalidSortKey>> invalidSortKeys = new ConcurrentHashMap<>();
+
     private final TenantId tenantId;
     private final EdqsStatsService edqsStatsService;
+    private final EdqsSortIndexSettings sortIndexSettings;
 
     public TenantRepo(TenantId tenantId, EdqsStatsService edqsStatsService) {
+        this(tenantId, edqsStatsService, EdqsSortIndexSettings.DISABLED);
+    }
+
+    public TenantRepo(TenantId tenantId, EdqsStatsService edqsStatsService, EdqsSortIndexSettings sortIndexSettings) {
         this.tenantId = tenantId;
         this.edqsStatsService = edqsStatsService;
+        this.sortIndexSettings = sortIndexSettings;
     }
 
     public void processEvent(EdqsEvent event) {
@@ -190,6 +204,7 @@ public class TenantRepo {
             if (oldFields == null) {
                 getEntitySet(entityType).add(entityData);
             }
+            updateSortIndexes(entityType, entityData, sortKey -> true);
 
             UUID newCustomerId = fields.getCustomerId();
             UUID oldCustomerId = entityData.getCustomerId();
@@ -221,6 +236,7 @@ public class TenantRepo {
                 if (removed.getFields() != null) {
                     getEntitySet(entityType).remove(removed);
                 }
+                removeFromSortIndexes(entityType, entityId);
                 edqsStatsService.reportRemoved(entity.type());
 
                 UUID customerId = removed.getCustomerId();
@@ -244,15 +260,18 @@ public class TenantRepo {
             if (added) {
                 edqsStatsService.reportAdded(ObjectType.ATTRIBUTE_KV);
             }
+            updateSortIndexes(attributeKv.getEntityId().getEntityType(), entityData, sortKey -> isAttributeKey(sortKey, keyId));
         }
     }
 
     private void removeAttribute(AttributeKv attributeKv) {
         var entityData = get(attributeKv.getEntityId());
         if (entityData != null) {
-            boolean removed = entityData.removeAttr(KeyDictionary.get(attributeKv.getKey()), attributeKv.getScope());
+            Integer keyId = KeyDictionary.get(attributeKv.getKey());
+            boolean removed = entityData.removeAttr(keyId, attributeKv.getScope());
             if (removed) {
                 edqsStatsService.reportRemoved(ObjectType.ATTRIBUTE_KV);
+                updateSortIndexes(attributeKv.getEntityId().getEntityType(), entityData, sortKey -> isAttributeKey(sortKey, keyId));
             }
         }
     }
@@ -265,15 +284,18 @@ public class TenantRepo {
             if (added) {
                 edqsStatsService.reportAdded(ObjectType.LATEST_TS_KV);
             }
+            updateSortIndexes(latestTsKv.getEntityId().getEntityType(), entityData, sortKey -> isTimeseriesKey(sortKey, keyId));
         }
     }
 
     private void removeLatestKv(LatestTsKv latestTsKv) {
         var entityData = get(latestTsKv.getEntityId());
         if (entityData != null) {
-            boolean removed = entityData.removeTs(KeyDictionary.get(latestTsKv.getKey()));
+            Integer keyId = KeyDictionary.get(latestTsKv.getKey());
+            boolean removed = entityData.removeTs(keyId);
             if (removed) {
                 edqsStatsService.reportRemoved(ObjectType.LATEST_TS_KV);
+                updateSortIndexes(latestTsKv.getEntityId().getEntityType(), entityData, sortKey -> isTimeseriesKey(sortKey, keyId));
             }
         }
     }
@@ -334,6 +356,12 @@ public class TenantRepo {
         EdqsDataQuery query = RepositoryUtils.toNewQuery(oldQuery);
         QueryContext ctx = buildContext(customerId, query.getEntityFilter(), ignorePermissionCheck);
         EntityQueryProcessor queryProcessor = EntityQueryProcessorFactory.create(this, ctx, query);
+        if (queryProcessor instanceof EntityTypeQueryProcessor entityTypeQueryProcessor) {
+            EntitySortIndex sortIndex = getSortIndex(query, ctx);
+            if (sortIndex != null) {
+                return findBySortIndex(query, entityTypeQueryProcessor, sortIndex, ctx);
+            }
+        }
         return sortAndConvert(query, queryProcessor.processQuery(), ctx);
     }
 
@@ -383,6 +411,154 @@ public class TenantRepo {
         }
     }
 
+    private PageData<QueryResult> findBySortIndex(EdqsDataQuery query, EntityTypeQueryProcessor queryProcessor, EntitySortIndex sortIndex, QueryContext ctx) {
+        boolean filtered = query.isHasKeyFilters() || query.isHasTextSearch();
+        int offset = query.getPage() * query.getPageSize();
+        List<SortableEntityData> result = new ArrayList<>(query.getPageSize());
+        int matched = 0;
+        Iterator<SortableEntityData> iterator = sortIndex.iterator(EntityDataSortOrder.Direction.ASC.equals(query.getSortDirection()));
+        while (iterator.hasNext()) {
+            SortableEntityData entry = iterator.next();
+            if (!queryProcessor.matchesFilters(entry.getEntityData())) {
+                continue;
+            }
+            if (matched >= offset) {
+                result.add(entry);
+            }
+            matched++;
+            if (result.size() == query.getPageSize()) {
+                if (!filtered) {
+                    break;
+                }
+                // the rest of the index is only walked to count the matching entities
+                while (iterator.hasNext()) {
+                    if (queryProcessor.matchesFilters(iterator.next().getEntityData())) {
+                        matched++;
+                    }
+                }
+            }
+        }
+        int totalSize = filtered || !iterator.hasNext() ? matched : Math.max(matched, sortIndex.size());
+        int totalPages = (int) Math.ceil((float) totalSize / query.getPageSize());
+        return new PageData<>(toQueryResult(result, query, ctx), totalPages, totalSize, totalSize > offset + query.getPageSize());
+    }
+
+    private EntitySortIndex getSortIndex(EdqsDataQuery query, QueryContext ctx) {
+        DataKey sortKey = query.getSortKey();
+        if (!sortIndexSettings.enabled() || query.isDefaultSort() || !ctx.isTenantUser() || !isIndexable(sortKey)) {
+            return null;
+        }
+        EntityType entityType = ctx.getEntityType();
+        if (getEntityMap(entityType).size() < sortIndexSettings.minEntities()) {
+            return null;
+        }
+        var indexes = sortIndexes.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>());
+        EntitySortIndex sortIndex = indexes.get(sortKey);
+        if (sortIndex != null && sortIndex.isInvalid()) {
+            // frees the slot, the index is built again once the backoff of the key expires
+            if (indexes.remove(sortKey, sortIndex)) {
+                markInvalid(entityType, sortKey);
+            }
+            sortIndex = null;
+        }
+        if (sortIndex == null && !isBackedOff(entityType, sortKey)) {
+            int indexesCount = sortIndexes.values().stream().mapToInt(Map::size).sum();
+            if (indexesCount < sortIndexSettings.maxIndexesPerTenant()) {
+                sortIndex = buildSortIndex(indexes, entityType, sortKey);
+            }
+        }
+        if (sortIndex != null && sortIndex.isReady() && !sortIndex.isInvalid()) {
+            edqsStatsService.reportSortIndexHit();
+            return sortIndex;
+        } else {
+            edqsStatsService.reportSortIndexMiss();
+            return null;
+        }
+    }
+
+    private EntitySortIndex buildSortIndex(ConcurrentMap<DataKey, EntitySortIndex> indexes, EntityType entityType, DataKey sortKey) {
+        EntitySortIndex sortIndex = new EntitySortIndex(sortKey);
+        EntitySortIndex existing = indexes.putIfAbsent(sortKey, sortIndex);
+        if (existing != null) {
+            return existing;
+        }
+        // registered before the initial fill, so concurrent updates are not lost
+        long startTs = System.nanoTime();
+        for (EntityData<?> entityData : getEntitySet(entityType)) {
+            sortIndex.update(entityData);
+        }
+        sortIndex.markReady();
+        if (sortIndex.isInvalid()) {
+            indexes.remove(sortKey, sortIndex);
+            markInvalid(entityType, sortKey);
+            log.debug("[{}] Dropped {} sort index by {}: the key has values of different kinds", tenantId, entityType, sortKey);
+            return sortIndex;
+        }
+        log.debug("[{}] Built {} sort index by {} for {} entities in {} ms", tenantId, entityType, sortKey, sortIndex.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTs));
+        return sortIndex;
+    }
+
+    /*
+     * Keys that keep mixing the kinds of values would otherwise rebuild and drop the index on every query
+     * */
+    private void markInvalid(EntityType entityType, DataKey sortKey) {
+        long now = System.currentTimeMillis();
+        long initialBackoffMs = sortIndexSettings.invalidKeyBackoffMs();
+        invalidSortKeys.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>()).compute(sortKey, (key, previous) -> {
+            // invalidated again soon after the previous backoff expired
+            boolean repeated = previous != null && now - previous.retryTs() < previous.backoffMs();
+            long backoffMs = repeated ? Math.min(previous.backoffMs() * 2, initialBackoffMs * MAX_INVALID_KEY_BACKOFF_FACTOR) : initialBackoffMs;
+            return new InvalidSortKey(now + backoffMs, backoffMs);
+        });
+    }
+
+    private boolean isBackedOff(EntityType entityType, DataKey sortKey) {
+        var invalidKeys = invalidSortKeys.get(entityType);
+        InvalidSortKey invalidKey = invalidKeys != null ? invalidKeys.get(sortKey) : null;
+        return invalidKey != null && System.currentTimeMillis() < invalidKey.retryTs();
+    }
+
+    private void updateSortIndexes(EntityType entityType, EntityData<?> entityData, Predicate<DataKey> affected) {
+        var indexes = sortIndexes.get(entityType);
+        if (indexes == null || indexes.isEmpty()) {
+            return;
+        }
+        for (EntitySortIndex sortIndex : indexes.values()) {
+            if (affected.test(sortIndex.getSortKey())) {
+                sortIndex.update(entityData);
+                if (sortIndex.isInvalid()) {
+                    indexes.remove(sortIndex.getSortKey(), sortIndex);
+                    log.debug("[{}] Dropped {} sort index by {}: the key has values of different kinds", tenantId, entityType, sortIndex.getSortKey());
+                }
+            }
+        }
+    }
+
+    private void removeFromSortIndexes(EntityType entityType, UUID entityId) {
+        var indexes = sortIndexes.get(entityType);
+        if (indexes != null) {
+            indexes.values().forEach(sortIndex -> sortIndex.remove(entityId));
+        }
+    }
+
+    private static boolean isIndexable(DataKey sortKey) {
+        return switch (sortKey.type()) {
+            case TIME_SERIES, ATTRIBUTE, SERVER_ATTRIBUTE, CLIENT_ATTRIBUTE, SHARED_ATTRIBUTE -> sortKey.keyId() != null;
+            // owner name and parent id depend on other entities and the query context
+            case ENTITY_FIELD -> !"ownerName".equals(sortKey.key()) && !"parentId".equals(sortKey.key());
+            default -> false;
+        };
+    }
+
+    private static boolean isAttributeKey(DataKey sortKey, Integer keyId) {
+        return sortKey.type() != EntityKeyType.TIME_SERIES && sortKey.type() != EntityKeyType.ENTITY_FIELD && keyId.equals(sortKey.keyId());
+    }
+
+    private static boolean isTimeseriesKey(DataKey sortKey, Integer keyId) {
+        return sortKey.type() == EntityKeyType.TIME_SERIES && keyId.equals(sortKey.keyId());
+    }
+
     private List<QueryResult> toQueryResult(List<SortableEntityData> data, EdqsDataQuery query, QueryContext ctx) {
         long ts = System.currentTimeMillis();
         List<QueryResult> results = new ArrayList<>(data.size());
@@ -428,4 +604,7 @@ public class TenantRepo {
         };
     }
 
+    private record InvalidSortKey(long retryTs, long backoffMs) {
+    }
+
 }
@@ -105,6 +105,16 @@ public class DefaultEdqsStatsService implements EdqsStatsService {
         getCounter("stringsUncompressed").increment();
     }
 
+    @Override
+    public void reportSortIndexHit() {
+        getCounter("sortIndexHits").increment();
+    }
+
+    @Override
+    public void reportSortIndexMiss() {
+        getCounter("sortIndexMisses").increment();
+    }
+
     private void checkTiming(TenantId tenantId, EntityCountQuery query, long timingNanos) {
         double timingMs = timingNanos / 1000_000.0;
         String queryType = query instanceof EntityDataQuery ? "data" : "count";
@@ -19,7 +19,9 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
 import java.nio.charset.StandardCharsets;
@@ -71,10 +73,53 @@ public class TbRocksDb {
         db.delete(writeOptions, key.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * Applies all updates added by the writer atomically, with a single write (and sync, if enabled) to the WAL.
+     */
+    @SneakyThrows
+    public void write(BatchWriter writer) {
+        try (WriteBatch batch = new WriteBatch()) {
+            writer.write(batch);
+            db.write(writeOptions, batch);
+        }
+    }
+
+    public void forEach(String prefix, BiConsumer<String, byte[]> processor) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        try (RocksIterator iterator = db.newIterator()) {
+            for (iterator.seek(prefixBytes); iterator.isValid(); iterator.next()) {
+                byte[] keyBytes = iterator.key();
+                if (!startsWith(keyBytes, prefixBytes)) {
+                    break;
+                }
+                processor.accept(new String(keyBytes, StandardCharsets.UTF_8), iterator.value());
+            }
+        }
+    }
+
     public void close() {
         if (db != null) {
             db.close();
         }
     }
 
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter {
+
+        void write(WriteBatch batch) throws RocksDBException;
+
+    }
+
 }
@@ -16,11 +16,15 @@
 package org.thingsboard.server.common.msg;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
@@ -35,6 +39,7 @@ import org.thingsboard.server.common.msg.gen.MsgProtos;
 import org.thingsboard.server.common.msg.gen.MsgProtos.TbMsgProto;
 import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
@@ -49,6 +54,8 @@ public final class TbMsg implements Serializable {
     public static final String EMPTY_JSON_ARRAY = "[]";
     public static final String EMPTY_STRING = "";
 
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
     private final String queueName;
     private final UUID id;
     private final long ts;
@@ -76,6 +83,18 @@ public final class TbMsg implements Serializable {
     @JsonIgnore
     transient private final TbMsgCallback callback;
 
+    @Getter(value = AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @JsonIgnore
+    transient private final JsonDataCache jsonDataCache;
+
+    @Getter(value = AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @JsonIgnore
+    transient private final ProtoSource protoSource;
+
     public static TbMsgBuilder newMsg() {
         return new TbMsgBuilder();
     }
@@ -115,7 +134,8 @@ public final class TbMsg implements Serializable {
     }
 
     private TbMsg(String queueName, UUID id, long ts, TbMsgType internalType, String type, EntityId originator, CustomerId customerId, TbMsgMetaData metaData, TbMsgDataType dataType, String data,
-                  RuleChainId ruleChainId, RuleNodeId ruleNodeId, UUID correlationId, Integer partition, List<CalculatedFieldId> previousCalculatedFieldIds, TbMsgProcessingCtx ctx, TbMsgCallback callback) {
+                  RuleChainId ruleChainId, RuleNodeId ruleNodeId, UUID correlationId, Integer partition, List<CalculatedFieldId> previousCalculatedFieldIds, TbMsgProcessingCtx ctx, TbMsgCallback callback,
+                  JsonDataCache jsonDataCache, ProtoSource protoSource) {
         this.id = id != null ? id : UUID.randomUUID();
         this.queueName = queueName;
         if (ts > 0) {
@@ -147,9 +167,15 @@ public final class TbMsg implements Serializable {
                 : new CopyOnWriteArrayList<>();
         this.ctx = ctx != null ? ctx : new TbMsgProcessingCtx();
         this.callback = Objects.requireNonNullElse(callback, TbMsgCallback.EMPTY);
+        this.jsonDataCache = jsonDataCache != null && jsonDataCache.data == data ? jsonDataCache : new JsonDataCache(data);
+        this.protoSource = protoSource;
     }
 
     public static TbMsgProto toProto(TbMsg msg) {
+        ProtoSource source = msg.protoSource;
+        if (source != null && source.isPatchable(msg)) {
+            return source.toProto(msg);
+        }
         TbMsgProto.Builder builder = TbMsgProto.newBuilder();
         builder.setId(msg.getId().toString());
         builder.setTs(msg.getTs());
@@ -173,8 +199,10 @@ public final class TbMsg implements Serializable {
             builder.setRuleNodeIdLSB(msg.getRuleNodeId().getId().getLeastSignificantBits());
         }
 
-        if (msg.getMetaData() != null) {
-            builder.setMetaData(MsgProtos.TbMsgMetaDataProto.newBuilder().putAllData(msg.getMetaData().getData()).build());
+        if (source != null && source.isMetaDataUnchanged(msg)) {
+            builder.setMetaData(source.proto.getMetaData());
+        } else if (msg.getMetaData() != null) {
+            builder.setMetaData(toMetaDataProto(msg.getMetaData()));
         }
 
         builder.setDataType(msg.getDataType().ordinal());
@@ -188,8 +216,21 @@ public final class TbMsg implements Serializable {
             builder.setPartition(msg.getPartition());
         }
 
-        if (msg.getPreviousCalculatedFieldIds() != null) {
-            for (CalculatedFieldId calculatedFieldId : msg.getPreviousCalculatedFieldIds()) {
+        addCalculatedFields(builder, msg.getPreviousCalculatedFieldIds());
+
+        builder.setCtx(msg.ctx.toProto());
+        return builder.build();
+    }
+
+    private static MsgProtos.TbMsgMetaDataProto toMetaDataProto(TbMsgMetaData metaData) {
+        MsgProtos.TbMsgMetaDataProto.Builder metaDataBuilder = MsgProtos.TbMsgMetaDataProto.newBuilder();
+        metaData.forEach(metaDataBuilder::putData);
+        return metaDataBuilder.build();
+    }
+
+    private static void addCalculatedFields(TbMsgProto.Builder builder, List<CalculatedFieldId> calculatedFieldIds) {
+        if (calculatedFieldIds != null) {
+            for (CalculatedFieldId calculatedFieldId : calculatedFieldIds) {
                 MsgProtos.CalculatedFieldIdProto calculatedFieldIdProto = MsgProtos.CalculatedFieldIdProto.newBuilder()
                         .setCalculatedFieldIdMSB(calculatedFieldId.getId().getMostSignificantBits())
                         .setCalculatedFieldIdLSB(calculatedFieldId.getId().getLeastSignificantBits())
@@ -197,9 +238,6 @@ public final class TbMsg implements Serializable {
                 builder.addCalculatedFields(calculatedFieldIdProto);
             }
         }
-
-        builder.setCtx(msg.ctx.toProto());
-        return builder.build();
     }
 
     @Deprecated(forRemoval = true, since = "4.1") // to be removed in 4.2
@@ -246,8 +284,25 @@ public final class TbMsg implements Serializable {
         }
         TbMsgProcessingCtx ctx = TbMsgProcessingCtx.fromProto(proto.getCtx());
         TbMsgDataType dataType = TbMsgDataType.values()[proto.getDataType()];
-        return new TbMsg(queueName, UUID.fromString(proto.getId()), proto.getTs(), null, proto.getType(), entityId, customerId,
-                metaData, dataType, proto.getData(), ruleChainId, ruleNodeId, correlationId, partition, calculatedFieldIds, ctx, callback);
+        UUID id = UUID.fromString(proto.getId());
+        ProtoSource protoSource = new ProtoSource(proto, id, entityId, customerId, ruleChainId, ruleNodeId, correlationId, partition,
+                dataType, metaData.entries(), calculatedFieldIds);
+        return new TbMsg(queueName, id, proto.getTs(), null, proto.getType(), entityId, customerId,
+                metaData, dataType, proto.getData(), ruleChainId, ruleNodeId, correlationId, partition, calculatedFieldIds, ctx, callback, null, protoSource);
+    }
+
+    /**
+     * Returns the message data parsed as JSON, or {@code null} if the data is empty.
+     * The data is parsed once and the result is shared by all messages derived from this one via
+     * {@link #transform()} or {@link #copy()} as long as their data is not changed,
+     * so the returned node must be treated as read-only; use {@link JsonNode#deepCopy()} to modify it.
+     *
+     * @throws IllegalArgumentException if the data is not a valid JSON
+     */
+    @JsonIgnore
+    public JsonNode getJsonData() {
+        // may be null in case of deserialization
+        return (jsonDataCache != null ? jsonDataCache : new JsonDataCache(data)).get();
     }
 
     public int getAndIncrementRuleNodeCounter() {
@@ -310,6 +365,125 @@ public final class TbMsg implements Serializable {
         return false;
     }
 
+    /*
+     * Holder of the parsed data, shared between messages with the same data instance.
+     * A concurrent first access may parse the data twice, which is harmless.
+     * */
+    static final class JsonDataCache {
+
+        private final String data;
+        private volatile JsonNode node;
+
+        JsonDataCache(String data) {
+            this.data = data;
+        }
+
+        JsonNode get() {
+            JsonNode result = node;
+            if (result == null && data != null && !data.isEmpty()) {
+                try {
+                    result = JSON_MAPPER.readTree(data);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(e);
+                }
+                node = result;
+            }
+            return result;
+        }
+
+    }
+
+    /*
+     * Proto the message was consumed from, shared by all messages derived from it via transform() or copy().
+     * toProto() re-uses it as is when the message was re-published unchanged and only re-encodes the changed parts otherwise,
+     * e.g. the new id and rule chain/node ids of a message re-enqueued to another queue.
+     * The metadata is compared by identity of its entries array, which is replaced on every modification.
+     * */
+    static final class ProtoSource {
+
+        private final TbMsgProto proto;
+        private final UUID id;
+        private final EntityId originator;
+        private final CustomerId customerId;
+        private final RuleChainId ruleChainId;
+        private final RuleNodeId ruleNodeId;
+        private final UUID correlationId;
+        private final Integer partition;
+        private final TbMsgDataType dataType;
+        private final String[] metaDataEntries;
+        private final List<CalculatedFieldId> calculatedFieldIds;
+
+        ProtoSource(TbMsgProto proto, UUID id, EntityId originator, CustomerId customerId, RuleChainId ruleChainId, RuleNodeId ruleNodeId,
+                    UUID correlationId, Integer partition, TbMsgDataType dataType, String[] metaDataEntries, List<CalculatedFieldId> calculatedFieldIds) {
+            this.proto = proto;
+            this.id = id;
+            this.originator = originator;
+            this.customerId = customerId;
+            this.ruleChainId = ruleChainId;
+            this.ruleNodeId = ruleNodeId;
+            this.correlationId = correlationId;
+            this.partition = partition;
+            this.dataType = dataType;
+            this.metaDataEntries = metaDataEntries;
+            this.calculatedFieldIds = calculatedFieldIds;
+        }
+
+        boolean isPatchable(TbMsg msg) {
+            return proto.getTs() == msg.ts && proto.getType().equals(msg.type)
+                    && originator.equals(msg.originator) && Objects.equals(customerId, msg.customerId)
+                    && Objects.equals(correlationId, msg.correlationId) && Objects.equals(partition, msg.partition)
+                    && dataType == msg.dataType;
+        }
+
+        boolean isMetaDataUnchanged(TbMsg msg) {
+            return msg.metaData != null && msg.metaData.entries() == metaDataEntries;
+        }
+
+        TbMsgProto toProto(TbMsg msg) {
+            boolean metaDataUnchanged = isMetaDataUnchanged(msg);
+            boolean dataUnchanged = proto.getData().equals(msg.data);
+            boolean calculatedFieldsUnchanged = calculatedFieldIds.equals(msg.previousCalculatedFieldIds);
+            boolean idsUnchanged = id.equals(msg.id) && Objects.equals(ruleChainId, msg.ruleChainId) && Objects.equals(ruleNodeId, msg.ruleNodeId);
+            MsgProtos.TbMsgProcessingCtxProto ctxProto = msg.ctx.toProto();
+            if (idsUnchanged && metaDataUnchanged && dataUnchanged && calculatedFieldsUnchanged && ctxProto.equals(proto.getCtx())) {
+                return proto;
+            }
+            TbMsgProto.Builder builder = proto.toBuilder();
+            if (!idsUnchanged) {
+                builder.setId(msg.id.toString());
+                if (msg.ruleChainId != null) {
+                    builder.setRuleChainIdMSB(msg.ruleChainId.getId().getMostSignificantBits());
+                    builder.setRuleChainIdLSB(msg.ruleChainId.getId().getLeastSignificantBits());
+                } else {
+                    builder.clearRuleChainIdMSB().clearRuleChainIdLSB();
+                }
+                if (msg.ruleNodeId != null) {
+                    builder.setRuleNodeIdMSB(msg.ruleNodeId.getId().getMostSignificantBits());
+                    builder.setRuleNodeIdLSB(msg.ruleNodeId.getId().getLeastSignificantBits());
+                } else {
+                    builder.clearRuleNodeIdMSB().clearRuleNodeIdLSB();
+                }
+            }
+            if (!metaDataUnchanged) {
+                if (msg.metaData != null) {
+                    builder.setMetaData(toMetaDataProto(msg.metaData));
+                } else {
+                    builder.clearMetaData();
+                }
+            }
+            if (!dataUnchanged) {
+                builder.setData(msg.data);
+            }
+            if (!calculatedFieldsUnchanged) {
+                builder.clearCalculatedFields();
+                addCalculatedFields(builder, msg.previousCalculatedFieldIds);
+            }
+            builder.setCtx(ctxProto);
+            return builder.build();
+        }
+
+    }
+
     public static class TbMsgTransformer extends TbMsgBuilder {
 
         TbMsgTransformer(TbMsg tbMsg) {
@@ -367,6 +541,8 @@ public final class TbMsg implements Serializable {
         protected List<CalculatedFieldId> previousCalculatedFieldIds;
         protected TbMsgProcessingCtx ctx;
         protected TbMsgCallback callback;
+        protected JsonDataCache jsonDataCache;
+        protected ProtoSource protoSource;
 
         TbMsgBuilder() {}
 
@@ -388,6 +564,8 @@ public final class TbMsg implements Serializable {
             this.previousCalculatedFieldIds = tbMsg.previousCalculatedFieldIds;
             this.ctx = tbMsg.ctx;
             this.callback = tbMsg.callback;
+            this.jsonDataCache = tbMsg.jsonDataCache;
+            this.protoSource = tbMsg.protoSource;
         }
 
         public TbMsgBuilder queueName(String queueName) {
@@ -492,7 +670,7 @@ public final class TbMsg implements Serializable {
         }
 
         public TbMsg build() {
-            return new TbMsg(queueName, id, ts, internalType, type, originator, customerId, metaData, dataType, data, ruleChainId, ruleNodeId, correlationId, partition, previousCalculatedFieldIds, ctx, callback);
+            return new TbMsg(queueName, id, ts, internalType, type, originator, customerId, metaData, dataType, data, ruleChainId, ruleNodeId, correlationId, partition, previousCalculatedFieldIds, ctx, callback, jsonDataCache, protoSource);
         }
 
         public String toString() {
@@ -16,58 +16,253 @@
 package org.thingsboard.server.common.msg;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.io.Serializable;
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
 
-@Data
+/**
+ * Message metadata stored as a compact array of alternating keys and values.
+ * The array is never modified once published: every change replaces it, so {@link #copy()} shares the array
+ * with the source until one of them is changed, and readers never need to lock.
+ */
 public final class TbMsgMetaData implements Serializable {
 
     public static final TbMsgMetaData EMPTY = new TbMsgMetaData(0);
 
-    private final Map<String, String> data;
+    private static final String[] NO_ENTRIES = new String[0];
+    private static final int MAX_INTERNED_KEYS = 10000;
+    private static final ConcurrentMap<String, String> INTERNED_KEYS = new ConcurrentHashMap<>();
+    private static final AtomicReferenceFieldUpdater<TbMsgMetaData, String[]> ENTRIES_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(TbMsgMetaData.class, String[].class, "entries");
+
+    private volatile String[] entries;
+    private final boolean immutable;
 
     public TbMsgMetaData() {
-        data = new ConcurrentHashMap<>();
+        this.entries = NO_ENTRIES;
+        this.immutable = false;
     }
 
     public TbMsgMetaData(Map<String, String> data) {
-        this.data = new ConcurrentHashMap<>();
-        data.forEach(this::putValue);
+        String[] entries = new String[data.size() * 2];
+        int size = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                entries[size++] = internKey(entry.getKey());
+                entries[size++] = entry.getValue();
+            }
+        }
+        this.entries = size == entries.length ? entries : Arrays.copyOf(entries, size);
+        this.immutable = false;
+    }
+
+    private TbMsgMetaData(String[] entries) {
+        this.entries = entries;
+        this.immutable = false;
     }
 
     /**
      * Internal constructor to create immutable TbMsgMetaData.EMPTY
      * */
     private TbMsgMetaData(int ignored) {
-        data = Collections.emptyMap();
+        this.entries = NO_ENTRIES;
+        this.immutable = true;
     }
 
     public String getValue(String key) {
-        return data.get(key);
+        String[] entries = this.entries;
+        int idx = indexOf(entries, key);
+        return idx >= 0 ? entries[idx + 1] : null;
     }
 
     public void putValue(String key, String value) {
-        if (key != null && value != null) {
-            data.put(key, value);
+        if (key == null || value == null) {
+            return;
+        }
+        if (immutable) {
+            throw new UnsupportedOperationException();
         }
+        while (true) {
+            String[] current = entries;
+            int idx = indexOf(current, key);
+            String[] updated;
+            if (idx >= 0) {
+                if (value.equals(current[idx + 1])) {
+                    return;
+                }
+                updated = current.clone();
+                updated[idx + 1] = value;
+            } else {
+                updated = Arrays.copyOf(current, current.length + 2);
+                updated[current.length] = internKey(key);
+                updated[current.length + 1] = value;
+            }
+            if (ENTRIES_UPDATER.compareAndSet(this, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    public void forEach(BiConsumer<String, String> consumer) {
+        String[] entries = this.entries;
+        for (int i = 0; i < entries.length; i += 2) {
+            consumer.accept(entries[i], entries[i + 1]);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the metadata at the moment of the call.
+     */
+    public Map<String, String> getData() {
+        return new ArrayMapView(entries);
+    }
+
+    @JsonProperty("data")
+    private void setData(Map<String, String> data) {
+        this.entries = new TbMsgMetaData(data).entries;
     }
 
     public Map<String, String> values() {
-        return new HashMap<>(data);
+        String[] entries = this.entries;
+        Map<String, String> values = new HashMap<>(entries.length);
+        for (int i = 0; i < entries.length; i += 2) {
+            values.put(entries[i], entries[i + 1]);
+        }
+        return values;
     }
 
     public TbMsgMetaData copy() {
-        return new TbMsgMetaData(data);
+        return new TbMsgMetaData(entries);
+    }
+
+    /*
+     * Exposed for identity checks only, the returned array must not be modified.
+     * */
+    String[] entries() {
+        return entries;
     }
 
     @JsonIgnore
     public boolean isEmpty() {
-        return data == null || data.isEmpty();
+        return entries.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return getData().equals(((TbMsgMetaData) o).getData());
+    }
+
+    @Override
+    public int hashCode() {
+        return getData().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TbMsgMetaData(data=" + getData() + ")";
+    }
+
+    private static int indexOf(String[] entries, String key) {
+        if (key != null) {
+            for (int i = 0; i < entries.length; i += 2) {
+                String entryKey = entries[i];
+                if (entryKey == key || entryKey.equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * metadata keys are repeated in every message, so they are shared instead of being kept per message.
+     * The pool is bounded in case of keys generated from data
+     * */
+    private static String internKey(String key) {
+        String interned = INTERNED_KEYS.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED_KEYS.size() < MAX_INTERNED_KEYS) {
+            interned = INTERNED_KEYS.putIfAbsent(key, key);
+            return interned != null ? interned : key;
+        }
+        return key;
+    }
+
+    private static final class ArrayMapView extends AbstractMap<String, String> {
+
+        private final String[] entries;
+
+        ArrayMapView(String[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public String get(Object key) {
+            if (!(key instanceof String strKey)) {
+                return null;
+            }
+            int idx = indexOf(entries, strKey);
+            return idx >= 0 ? entries[idx + 1] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String strKey && indexOf(entries, strKey) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return entries.length / 2;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int idx;
+
+                        @Override
+                        public boolean hasNext() {
+                            return idx < entries.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (idx >= entries.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, String> entry = new SimpleImmutableEntry<>(entries[idx], entries[idx + 1]);
+                            idx += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.length / 2;
+                }
+            };
+        }
+
     }
 
 }
@@ -0,0 +1,77 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TbMsgJsonDataTest {
+
+    private static final String DATA = "{\"temperature\":42.5,\"humidity\":73,\"status\":\"ok\",\"location\":{\"lat\":50.45,\"lon\":30.52}}";
+
+    @Test
+    public void testJsonDataIsParsedOnceAndSharedWhileDataIsUnchanged() {
+        TbMsg msg = newMsg(DATA);
+        JsonNode jsonData = msg.getJsonData();
+
+        assertThat(jsonData.get("temperature").asDouble()).isEqualTo(42.5);
+        assertThat(msg.getJsonData()).isSameAs(jsonData);
+        assertThat(msg.copy().build().getJsonData()).isSameAs(jsonData);
+        assertThat(msg.transform().metaData(new TbMsgMetaData()).build().getJsonData()).isSameAs(jsonData);
+        assertThat(msg.copyWithNewCtx().getJsonData()).isSameAs(jsonData);
+    }
+
+    @Test
+    public void testJsonDataIsSharedWhenDerivedMessageIsParsedFirst() {
+        TbMsg msg = newMsg(DATA);
+        TbMsg transformed = msg.transform().queueName("HighPriority").build();
+
+        assertThat(msg.getJsonData()).isSameAs(transformed.getJsonData());
+    }
+
+    @Test
+    public void testJsonDataIsReparsedWhenDataChanges() {
+        TbMsg msg = newMsg(DATA);
+        JsonNode jsonData = msg.getJsonData();
+        TbMsg transformed = msg.transform().data("{\"temperature\":10}").build();
+
+        assertThat(transformed.getJsonData()).isNotSameAs(jsonData);
+        assertThat(transformed.getJsonData().get("temperature").asInt()).isEqualTo(10);
+    }
+
+    @Test
+    public void testEmptyAndInvalidData() {
+        assertThat(newMsg(TbMsg.EMPTY_STRING).getJsonData()).isNull();
+        assertThatThrownBy(() -> newMsg("{invalid").getJsonData()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TbMsg newMsg(String data) {
+        return TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .metaData(new TbMsgMetaData())
+                .data(data)
+                .build();
+    }
+
+}
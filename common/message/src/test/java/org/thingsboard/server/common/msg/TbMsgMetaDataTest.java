@@ -20,10 +20,16 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 
 import java.util.Map;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TbMsgMetaDataTest {
 
@@ -53,4 +59,64 @@ public class TbMsgMetaDataTest {
         Map<String, String> dataActual = tbMsgMetaData.copy().getData();
         assertEquals(metadataExpected.size() - 1, dataActual.size());
     }
+
+    @Test
+    public void testCopyIsIndependentFromSource() {
+        TbMsgMetaData source = new TbMsgMetaData(metadataExpected);
+        TbMsgMetaData copy = source.copy();
+        copy.putValue("deviceName", "Other Device");
+        copy.putValue("newKey", "newValue");
+        source.putValue("sourceKey", "sourceValue");
+
+        assertEquals("Test Device", source.getValue("deviceName"));
+        assertNull(source.getValue("newKey"));
+        assertEquals("Other Device", copy.getValue("deviceName"));
+        assertEquals("newValue", copy.getValue("newKey"));
+        assertNull(copy.getValue("sourceKey"));
+        assertEquals(metadataExpected, new TbMsgMetaData(metadataExpected).copy().getData());
+    }
+
+    @Test
+    public void testPutValueReplacesExistingValue() {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("key", "value1");
+        metaData.putValue("key", "value2");
+        metaData.putValue("key", null);
+
+        assertEquals(Map.of("key", "value2"), metaData.values());
+        assertEquals(1, metaData.getData().size());
+    }
+
+    @Test
+    public void testDataViewIsReadOnlySnapshot() {
+        TbMsgMetaData metaData = new TbMsgMetaData(metadataExpected);
+        Map<String, String> data = metaData.getData();
+        metaData.putValue("newKey", "newValue");
+
+        assertEquals(metadataExpected, data);
+        assertThrows(UnsupportedOperationException.class, () -> data.put("key", "value"));
+        assertThrows(UnsupportedOperationException.class, () -> TbMsgMetaData.EMPTY.putValue("key", "value"));
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        TbMsgMetaData metaData = new TbMsgMetaData(metadataExpected);
+        String json = objectMapper.writeValueAsString(metaData);
+
+        assertEquals(metaData, objectMapper.readValue(json, TbMsgMetaData.class));
+    }
+
+    @Test
+    public void testProtoRoundTrip() {
+        TbMsgMetaData metaData = new TbMsgMetaData(metadataExpected);
+        TbMsg msg = TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .metaData(metaData)
+                .data(TbMsg.EMPTY_JSON_OBJECT)
+                .build();
+
+        TbMsg restored = TbMsg.fromProto(null, TbMsg.toProto(msg), TbMsgCallback.EMPTY);
+        assertEquals(metaData, restored.getMetaData());
+    }
 }
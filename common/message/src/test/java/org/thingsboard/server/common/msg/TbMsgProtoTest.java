@@ -0,0 +1,150 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.CalculatedFieldId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.gen.MsgProtos.TbMsgProto;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbMsgProtoTest {
+
+    private static final String DATA = "{\"temperature\":42.5,\"humidity\":73,\"status\":\"ok\",\"location\":{\"lat\":50.45,\"lon\":30.52}}";
+
+    @Test
+    public void testUnchangedMessageReusesSourceProto() {
+        TbMsgProto source = TbMsg.toProto(newMsg());
+        TbMsg msg = TbMsg.fromProto("Main", source, TbMsgCallback.EMPTY);
+
+        assertThat(TbMsg.toProto(msg)).isSameAs(source);
+        assertThat(TbMsg.toProto(msg.copy().callback(TbMsgCallback.EMPTY).build())).isSameAs(source);
+        assertThat(TbMsg.toProto(msg.transform().queueName("HighPriority").build())).isSameAs(source);
+    }
+
+    @Test
+    public void testChangedPartsAreReencoded() {
+        TbMsgProto source = TbMsg.toProto(newMsg());
+        TbMsg msg = TbMsg.fromProto("Main", source, TbMsgCallback.EMPTY);
+
+        TbMsg pushed = msg.copyWithNewCtx();
+        pushed.pushToStack(new RuleChainId(UUID.randomUUID()), new RuleNodeId(UUID.randomUUID()));
+        TbMsgProto pushedProto = TbMsg.toProto(pushed);
+        assertThat(pushedProto).isNotSameAs(source);
+        assertThat(pushedProto.getMetaData()).isSameAs(source.getMetaData());
+        assertThat(pushedProto.getCtx().getStackCount()).isEqualTo(1);
+        assertThat(pushedProto).isEqualTo(TbMsg.toProto(rebuild(pushed)));
+
+        TbMsg withMetaData = msg.transform().metaData(msg.getMetaData()).build();
+        withMetaData.getMetaData().putValue("newKey", "newValue");
+        TbMsgProto withMetaDataProto = TbMsg.toProto(withMetaData);
+        assertThat(withMetaDataProto.getMetaData().getDataMap()).containsEntry("newKey", "newValue").containsEntry("deviceName", "Thermostat");
+        assertThat(TbMsg.toProto(msg).getMetaData().getDataMap()).doesNotContainKey("newKey");
+        assertThat(withMetaDataProto).isEqualTo(TbMsg.toProto(rebuild(withMetaData)));
+
+        TbMsg withData = msg.transform().data("{\"temperature\":10}").build();
+        assertThat(TbMsg.toProto(withData).getData()).isEqualTo("{\"temperature\":10}");
+        assertThat(TbMsg.toProto(withData).getMetaData()).isSameAs(source.getMetaData());
+
+        TbMsg withCalculatedFields = msg.copy().previousCalculatedFieldIds(List.of(new CalculatedFieldId(UUID.randomUUID()))).build();
+        assertThat(TbMsg.toProto(withCalculatedFields)).isEqualTo(TbMsg.toProto(rebuild(withCalculatedFields)));
+    }
+
+    @Test
+    public void testReenqueuedMessagePatchesIds() {
+        TbMsgProto source = TbMsg.toProto(newMsg());
+        TbMsg msg = TbMsg.fromProto("Main", source, TbMsgCallback.EMPTY);
+
+        TbMsg reenqueued = TbMsg.newMsg(msg, "HighPriority", new RuleChainId(UUID.randomUUID()), new RuleNodeId(UUID.randomUUID()));
+        TbMsgProto reenqueuedProto = TbMsg.toProto(reenqueued);
+        assertThat(reenqueuedProto.getId()).isEqualTo(reenqueued.getId().toString());
+        assertThat(reenqueuedProto.getMetaData()).isSameAs(source.getMetaData());
+        assertThat(reenqueuedProto).isEqualTo(TbMsg.toProto(rebuild(reenqueued)));
+
+        TbMsg transformed = msg.transform("HighPriority");
+        TbMsgProto transformedProto = TbMsg.toProto(transformed);
+        assertThat(transformedProto.getRuleNodeIdMSB()).isZero();
+        assertThat(transformedProto.getRuleNodeIdLSB()).isZero();
+        assertThat(transformedProto).isEqualTo(TbMsg.toProto(rebuild(transformed)));
+    }
+
+    @Test
+    public void testChangedHeaderFallsBackToFullEncoding() {
+        TbMsgProto source = TbMsg.toProto(newMsg());
+        TbMsg msg = TbMsg.fromProto("Main", source, TbMsgCallback.EMPTY);
+
+        TbMsg transformed = msg.transform()
+                .type(TbMsgType.POST_ATTRIBUTES_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .build();
+        TbMsgProto transformedProto = TbMsg.toProto(transformed);
+        assertThat(transformedProto.getType()).isEqualTo(TbMsgType.POST_ATTRIBUTES_REQUEST.name());
+        assertThat(transformedProto).isEqualTo(TbMsg.toProto(rebuild(transformed)));
+        assertThat(transformedProto.getMetaData()).isSameAs(source.getMetaData());
+    }
+
+    /*
+     * Builds an equal message that has no source proto, so it is always encoded from scratch
+     * */
+    private static TbMsg rebuild(TbMsg msg) {
+        return TbMsg.newMsg()
+                .queueName(msg.getQueueName())
+                .id(msg.getId())
+                .ts(msg.getTs())
+                .type(msg.getInternalType())
+                .originator(msg.getOriginator())
+                .customerId(msg.getCustomerId())
+                .metaData(msg.getMetaData().copy())
+                .dataType(msg.getDataType())
+                .data(msg.getData())
+                .ruleChainId(msg.getRuleChainId())
+                .ruleNodeId(msg.getRuleNodeId())
+                .correlationId(msg.getCorrelationId())
+                .partition(msg.getPartition())
+                .previousCalculatedFieldIds(msg.getPreviousCalculatedFieldIds())
+                .ctx(TbMsgProcessingCtx.fromProto(TbMsg.toProto(msg).getCtx()))
+                .build();
+    }
+
+    private static TbMsg newMsg() {
+        Map<String, String> metaData = new HashMap<>();
+        metaData.put("deviceName", "Thermostat");
+        metaData.put("deviceType", "default");
+        metaData.put("ts", "1700000000000");
+        return TbMsg.newMsg()
+                .queueName("Main")
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .customerId(new CustomerId(UUID.randomUUID()))
+                .metaData(new TbMsgMetaData(metaData))
+                .data(DATA)
+                .ruleChainId(new RuleChainId(UUID.randomUUID()))
+                .ruleNodeId(new RuleNodeId(UUID.randomUUID()))
+                .build();
+    }
+
+}
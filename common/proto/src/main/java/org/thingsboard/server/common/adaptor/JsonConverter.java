@@ -65,7 +65,7 @@ import java.util.function.Consumer;
 public class JsonConverter {
 
     private static final Gson GSON = new Gson();
-    private static final String CAN_T_PARSE_VALUE = "Can't parse value: ";
+    static final String CAN_T_PARSE_VALUE = "Can't parse value: ";
     private static final String DEVICE_PROPERTY = "device";
 
     private static boolean isTypeCastEnabled = true;
@@ -96,15 +96,7 @@ public class JsonConverter {
                         if (metadataResult == null) {
                             metadataResult = new ArrayList<>();
                         }
-                        if (metadataElem.isJsonObject()) {
-                            JsonObject metadataObj = metadataElem.getAsJsonObject();
-                            var connector = getAndValidateMetadataElement(metadataObj, "connector").getAsString();
-                            var receivedTs = getAndValidateMetadataElement(metadataObj, "receivedTs").getAsLong();
-                            var publishedTs = getAndValidateMetadataElement(metadataObj, "publishedTs").getAsLong();
-                            metadataResult.add(new GatewayMetadata(connector, receivedTs, publishedTs));
-                        } else {
-                            throw new JsonSyntaxException("Can't parse gateway metadata: " + metadataElem);
-                        }
+                        metadataResult.add(toGatewayMetadata(metadataElem));
                     }
                     parseObject(systemTs, null, builder, jo);
                 } else {
@@ -117,6 +109,18 @@ public class JsonConverter {
         return TbPair.of(builder.build(), metadataResult);
     }
 
+    static GatewayMetadata toGatewayMetadata(JsonElement metadataElem) {
+        if (metadataElem.isJsonObject()) {
+            JsonObject metadataObj = metadataElem.getAsJsonObject();
+            var connector = getAndValidateMetadataElement(metadataObj, "connector").getAsString();
+            var receivedTs = getAndValidateMetadataElement(metadataObj, "receivedTs").getAsLong();
+            var publishedTs = getAndValidateMetadataElement(metadataObj, "publishedTs").getAsLong();
+            return new GatewayMetadata(connector, receivedTs, publishedTs);
+        } else {
+            throw new JsonSyntaxException("Can't parse gateway metadata: " + metadataElem);
+        }
+    }
+
     private static JsonElement getAndValidateMetadataElement(JsonObject metadata, String elementName) {
         var element = metadata.get(elementName);
         if (element == null || element.isJsonNull()) {
@@ -227,47 +231,62 @@ public class JsonConverter {
         request.addTsKvList(builder.build());
     }
 
-    private static List<KeyValueProto> parseProtoValues(JsonObject valuesObject) {
+    static List<KeyValueProto> parseProtoValues(JsonObject valuesObject) {
         List<KeyValueProto> result = new ArrayList<>();
         for (Entry<String, JsonElement> valueEntry : valuesObject.entrySet()) {
-            JsonElement element = valueEntry.getValue();
-            if (element.isJsonPrimitive()) {
-                JsonPrimitive value = element.getAsJsonPrimitive();
-                if (value.isString()) {
-                    if (maxStringValueLength > 0 && value.getAsString().length() > maxStringValueLength) {
-                        String message = String.format("String value length [%d] for key [%s] is greater than maximum allowed [%d]", value.getAsString().length(), valueEntry.getKey(), maxStringValueLength);
-                        throw new JsonSyntaxException(message);
-                    }
-                    if (isTypeCastEnabled && NumberUtils.isParsable(value.getAsString())) {
-                        try {
-                            result.add(buildNumericKeyValueProto(value, valueEntry.getKey()));
-                        } catch (RuntimeException th) {
-                            result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.STRING_V)
-                                    .setStringV(value.getAsString()).build());
-                        }
-                    } else {
-                        result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.STRING_V)
-                                .setStringV(value.getAsString()).build());
-                    }
-                } else if (value.isBoolean()) {
-                    result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.BOOLEAN_V)
-                            .setBoolV(value.getAsBoolean()).build());
-                } else if (value.isNumber()) {
-                    result.add(buildNumericKeyValueProto(value, valueEntry.getKey()));
-                } else if (!value.isJsonNull()) {
-                    throw new JsonSyntaxException(CAN_T_PARSE_VALUE + value);
-                }
-            } else if (element.isJsonObject() || element.isJsonArray()) {
-                result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.JSON_V).setJsonV(element.toString()).build());
-            } else if (!element.isJsonNull()) {
-                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + element);
+            KeyValueProto keyValueProto = toKeyValueProto(valueEntry.getKey(), valueEntry.getValue());
+            if (keyValueProto != null) {
+                result.add(keyValueProto);
             }
         }
         return result;
     }
 
-    private static KeyValueProto buildNumericKeyValueProto(JsonPrimitive value, String key) {
-        String valueAsString = value.getAsString();
+    static KeyValueProto toKeyValueProto(String key, JsonElement element) {
+        if (element.isJsonPrimitive()) {
+            JsonPrimitive value = element.getAsJsonPrimitive();
+            if (value.isString()) {
+                return toStringKeyValueProto(key, value.getAsString());
+            } else if (value.isBoolean()) {
+                return toBooleanKeyValueProto(key, value.getAsBoolean());
+            } else if (value.isNumber()) {
+                return buildNumericKeyValueProto(value.getAsString(), key);
+            } else if (!value.isJsonNull()) {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + value);
+            }
+        } else if (element.isJsonObject() || element.isJsonArray()) {
+            return toJsonKeyValueProto(key, element.toString());
+        } else if (!element.isJsonNull()) {
+            throw new JsonSyntaxException(CAN_T_PARSE_VALUE + element);
+        }
+        return null;
+    }
+
+    static KeyValueProto toStringKeyValueProto(String key, String value) {
+        if (maxStringValueLength > 0 && value.length() > maxStringValueLength) {
+            String message = String.format("String value length [%d] for key [%s] is greater than maximum allowed [%d]", value.length(), key, maxStringValueLength);
+            throw new JsonSyntaxException(message);
+        }
+        if (isTypeCastEnabled && NumberUtils.isParsable(value)) {
+            try {
+                return buildNumericKeyValueProto(value, key);
+            } catch (RuntimeException th) {
+                return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.STRING_V).setStringV(value).build();
+            }
+        } else {
+            return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.STRING_V).setStringV(value).build();
+        }
+    }
+
+    static KeyValueProto toBooleanKeyValueProto(String key, boolean value) {
+        return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.BOOLEAN_V).setBoolV(value).build();
+    }
+
+    static KeyValueProto toJsonKeyValueProto(String key, String json) {
+        return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.JSON_V).setJsonV(json).build();
+    }
+
+    static KeyValueProto buildNumericKeyValueProto(String valueAsString, String key) {
         KeyValueProto.Builder builder = KeyValueProto.newBuilder().setKey(key);
         var bd = new BigDecimal(valueAsString);
         if (bd.stripTrailingZeros().scale() <= 0 && !isSimpleDouble(valueAsString)) {
@@ -0,0 +1,326 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.adaptor;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.thingsboard.server.common.msg.gateway.metrics.GatewayMetadata;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueProto;
+import org.thingsboard.server.gen.transport.TransportProtos.PostAttributeMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.PostTelemetryMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.TsKvListProto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.thingsboard.server.common.adaptor.JsonConverter.CAN_T_PARSE_VALUE;
+
+/**
+ * Streaming counterpart of the {@link JsonConverter} telemetry and attributes conversion.
+ * <p>
+ * Key-value pairs are read from the JSON tokens straight into proto messages, without building a {@link JsonElement}
+ * tree for the whole payload first. Only nested JSON values, "ts" and gateway "metadata" are read as small trees.
+ * Results match the tree based conversion of the same payload: the same "ts"/"values" detection, type casting,
+ * string length limits and duplicate keys handling (the last value wins, in the position of the first one).
+ */
+public final class JsonTelemetryReader {
+
+    private static final String TS = "ts";
+    private static final String VALUES = "values";
+    private static final String METADATA = "metadata";
+
+    private JsonTelemetryReader() {
+    }
+
+    public static PostTelemetryMsg readTelemetry(String json, long systemTs) throws JsonSyntaxException {
+        return readTelemetry(new StringReader(json), systemTs);
+    }
+
+    public static PostTelemetryMsg readTelemetry(Reader reader, long systemTs) throws JsonSyntaxException {
+        return read(reader, in -> {
+            PostTelemetryMsg.Builder builder = PostTelemetryMsg.newBuilder();
+            JsonToken token = in.peek();
+            if (token == JsonToken.BEGIN_OBJECT) {
+                readTelemetryObject(in, false).addTo(builder, systemTs, null);
+            } else if (token == JsonToken.BEGIN_ARRAY) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                        throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+                    }
+                    readTelemetryObject(in, false).addTo(builder, systemTs, null);
+                }
+                in.endArray();
+            } else {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+            }
+            return builder.build();
+        });
+    }
+
+    public static PostAttributeMsg readAttributes(String json) throws JsonSyntaxException {
+        return readAttributes(new StringReader(json));
+    }
+
+    public static PostAttributeMsg readAttributes(Reader reader) throws JsonSyntaxException {
+        return read(reader, in -> {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+            }
+            return PostAttributeMsg.newBuilder().addAllKv(readValues(in).build()).build();
+        });
+    }
+
+    /**
+     * Reads the gateway telemetry payload: an object with device names as keys and arrays of telemetry objects as values.
+     * Conversion errors are reported per device, so that a single malformed device entry does not fail the others.
+     */
+    public static Map<String, GatewayDeviceTelemetry> readGatewayTelemetry(Reader reader, long systemTs) throws JsonSyntaxException {
+        return read(reader, in -> {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+            }
+            Map<String, GatewayDeviceTelemetry> result = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String deviceName = in.nextName();
+                if (in.peek() == JsonToken.BEGIN_ARRAY) {
+                    result.put(deviceName, readGatewayDeviceTelemetry(in, systemTs));
+                } else {
+                    result.put(deviceName, GatewayDeviceTelemetry.invalid(JsonParser.parseReader(in)));
+                }
+            }
+            in.endObject();
+            return result;
+        });
+    }
+
+    private static GatewayDeviceTelemetry readGatewayDeviceTelemetry(JsonReader in, long systemTs) throws IOException {
+        PostTelemetryMsg.Builder builder = PostTelemetryMsg.newBuilder();
+        List<GatewayMetadata> metadata = new ArrayList<>();
+        RuntimeException error = null;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (error != null) {
+                in.skipValue();
+            } else if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                error = new JsonSyntaxException(CAN_T_PARSE_VALUE + JsonParser.parseReader(in));
+            } else {
+                TelemetryObject object = readTelemetryObject(in, true);
+                try {
+                    object.addTo(builder, systemTs, metadata);
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+        }
+        in.endArray();
+        if (error != null) {
+            return new GatewayDeviceTelemetry(null, null, error, null);
+        }
+        return new GatewayDeviceTelemetry(builder.build(), metadata.isEmpty() ? null : metadata, null, null);
+    }
+
+    private static TelemetryObject readTelemetryObject(JsonReader in, boolean gateway) throws IOException {
+        TelemetryObject object = new TelemetryObject();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (gateway && METADATA.equals(name)) {
+                object.metadata = JsonParser.parseReader(in);
+            } else if (TS.equals(name)) {
+                object.ts = JsonParser.parseReader(in);
+                object.plain.putDeferred(name, object.ts);
+            } else if (VALUES.equals(name)) {
+                object.hasValues = true;
+                if (object.ts != null && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    // the most common layout: "ts" goes first, so "values" can be read without building a tree
+                    object.streamedValues = readValues(in);
+                    object.valuesTree = null;
+                } else {
+                    object.valuesTree = JsonParser.parseReader(in);
+                    object.streamedValues = null;
+                    object.plain.putDeferred(name, object.valuesTree);
+                }
+            } else if (object.ts != null && object.hasValues) {
+                in.skipValue();
+            } else {
+                object.plain.put(in, name);
+            }
+        }
+        in.endObject();
+        return object;
+    }
+
+    private static KeyValueSlots readValues(JsonReader in) throws IOException {
+        KeyValueSlots values = new KeyValueSlots();
+        in.beginObject();
+        while (in.hasNext()) {
+            values.put(in, in.nextName());
+        }
+        in.endObject();
+        return values;
+    }
+
+    private static <T> T read(Reader reader, JsonReaderFunction<T> function) {
+        JsonReader in = new JsonReader(reader);
+        // the same strictness as JsonParser.parseString, used by the tree based conversion
+        in.setStrictness(Strictness.LENIENT);
+        try {
+            T result = function.apply(in);
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+            return result;
+        } catch (MalformedJsonException | EOFException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonReaderFunction<T> {
+
+        T apply(JsonReader in) throws IOException;
+
+    }
+
+    /**
+     * Telemetry object as read from the stream. Conversion happens in {@link #addTo}, after the object is consumed
+     * completely, which allows the gateway reader to report the error and continue with the next device.
+     */
+    private static final class TelemetryObject {
+
+        private final KeyValueSlots plain = new KeyValueSlots();
+        private JsonElement ts;
+        private boolean hasValues;
+        private JsonElement valuesTree;
+        private KeyValueSlots streamedValues;
+        private JsonElement metadata;
+
+        void addTo(PostTelemetryMsg.Builder builder, long systemTs, List<GatewayMetadata> metadataResult) {
+            if (metadata != null) {
+                metadataResult.add(JsonConverter.toGatewayMetadata(metadata));
+            }
+            TsKvListProto.Builder tsKvList = TsKvListProto.newBuilder();
+            if (ts != null && hasValues) {
+                tsKvList.setTs(ts.getAsLong());
+                tsKvList.addAllKv(valuesTree != null ? JsonConverter.parseProtoValues(valuesTree.getAsJsonObject()) : streamedValues.build());
+            } else {
+                tsKvList.setTs(systemTs);
+                tsKvList.addAllKv(plain.build());
+            }
+            builder.addTsKvList(tsKvList.build());
+        }
+
+    }
+
+    /**
+     * Key-value pairs of a JSON object in the order of their first appearance.
+     * Conversion errors are kept in place and thrown on {@link #build()}, so that an overwritten duplicate
+     * or an ignored key does not fail the whole message.
+     */
+    private static final class KeyValueSlots {
+
+        private final List<String> keys = new ArrayList<>();
+        private final List<Object> slots = new ArrayList<>();
+        private final Map<String, Integer> positions = new HashMap<>();
+
+        void put(JsonReader in, String key) throws IOException {
+            Object slot;
+            switch (in.peek()) {
+                case STRING -> slot = convert(key, in.nextString(), false);
+                case NUMBER -> slot = convert(key, in.nextString(), true);
+                case BOOLEAN -> slot = JsonConverter.toBooleanKeyValueProto(key, in.nextBoolean());
+                case NULL -> {
+                    in.nextNull();
+                    slot = null;
+                }
+                default -> slot = JsonConverter.toJsonKeyValueProto(key, JsonParser.parseReader(in).toString());
+            }
+            set(key, slot);
+        }
+
+        void putDeferred(String key, JsonElement element) {
+            set(key, element);
+        }
+
+        List<KeyValueProto> build() {
+            List<KeyValueProto> result = new ArrayList<>(slots.size());
+            for (int i = 0; i < slots.size(); i++) {
+                Object slot = slots.get(i);
+                if (slot instanceof KeyValueProto keyValueProto) {
+                    result.add(keyValueProto);
+                } else if (slot instanceof JsonElement element) {
+                    KeyValueProto keyValueProto = JsonConverter.toKeyValueProto(keys.get(i), element);
+                    if (keyValueProto != null) {
+                        result.add(keyValueProto);
+                    }
+                } else if (slot instanceof RuntimeException e) {
+                    throw e;
+                }
+            }
+            return result;
+        }
+
+        private static Object convert(String key, String value, boolean number) {
+            try {
+                return number ? JsonConverter.buildNumericKeyValueProto(value, key) : JsonConverter.toStringKeyValueProto(key, value);
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }
+
+        private void set(String key, Object slot) {
+            Integer position = positions.putIfAbsent(key, slots.size());
+            if (position == null) {
+                keys.add(key);
+                slots.add(slot);
+            } else {
+                slots.set(position, slot);
+            }
+        }
+
+    }
+
+    public record GatewayDeviceTelemetry(PostTelemetryMsg telemetry, List<GatewayMetadata> metadata,
+                                         RuntimeException error, JsonElement invalidValue) {
+
+        static GatewayDeviceTelemetry invalid(JsonElement value) {
+            return new GatewayDeviceTelemetry(null, null, null, value);
+        }
+
+        public boolean isValid() {
+            return invalidValue == null;
+        }
+
+    }
+
+}
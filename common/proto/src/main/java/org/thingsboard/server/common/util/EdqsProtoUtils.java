@@ -0,0 +1,288 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.protobuf.ByteString;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.edqs.query.EdqsRequest;
+import org.thingsboard.server.common.data.edqs.query.EdqsResponse;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.ComparisonTsValue;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityFilter;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsComparisonTsValueProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsEntityCountQueryProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsEntityDataPageLinkProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsEntityDataPageProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsEntityDataProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsEntityDataQueryProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsEntityKeyProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsLatestValuesProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsQueryProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsQueryResultProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsTsValueProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsTsValuesProto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of EDQS requests and responses.
+ * Entity filters and key filters are kept JSON encoded, since these are the polymorphic trees of the public API.
+ */
+public class EdqsProtoUtils {
+
+    public static final int JSON_ENCODING_VERSION = 0;
+    public static final int BINARY_ENCODING_VERSION = 1;
+
+    private static final TypeReference<List<KeyFilter>> KEY_FILTERS_TYPE = new TypeReference<>() {};
+
+    private EdqsProtoUtils() {
+    }
+
+    public static EdqsQueryProto toProto(EdqsRequest request) {
+        EdqsQueryProto.Builder builder = EdqsQueryProto.newBuilder();
+        if (request.getEntityDataQuery() != null) {
+            EntityDataQuery query = request.getEntityDataQuery();
+            EdqsEntityDataQueryProto.Builder queryProto = EdqsEntityDataQueryProto.newBuilder()
+                    .setEntityFilter(toJsonBytes(query.getEntityFilter()))
+                    .setKeyFilters(toJsonBytes(query.getKeyFilters()));
+            if (query.getPageLink() != null) {
+                queryProto.setPageLink(toProto(query.getPageLink()));
+            }
+            if (query.getEntityFields() != null) {
+                query.getEntityFields().forEach(key -> queryProto.addEntityFields(toProto(key)));
+            }
+            if (query.getLatestValues() != null) {
+                query.getLatestValues().forEach(key -> queryProto.addLatestValues(toProto(key)));
+            }
+            builder.setEntityDataQuery(queryProto);
+        } else if (request.getEntityCountQuery() != null) {
+            EntityCountQuery query = request.getEntityCountQuery();
+            builder.setEntityCountQuery(EdqsEntityCountQueryProto.newBuilder()
+                    .setEntityFilter(toJsonBytes(query.getEntityFilter()))
+                    .setKeyFilters(toJsonBytes(query.getKeyFilters())));
+        }
+        return builder.build();
+    }
+
+    public static EdqsRequest fromProto(EdqsQueryProto proto) {
+        EdqsRequest request = new EdqsRequest();
+        if (proto.hasEntityDataQuery()) {
+            EdqsEntityDataQueryProto queryProto = proto.getEntityDataQuery();
+            request.setEntityDataQuery(new EntityDataQuery(
+                    fromJsonBytes(queryProto.getEntityFilter(), EntityFilter.class),
+                    queryProto.hasPageLink() ? fromProto(queryProto.getPageLink()) : null,
+                    fromProto(queryProto.getEntityFieldsList()),
+                    fromProto(queryProto.getLatestValuesList()),
+                    fromKeyFiltersJsonBytes(queryProto.getKeyFilters())));
+        } else if (proto.hasEntityCountQuery()) {
+            EdqsEntityCountQueryProto queryProto = proto.getEntityCountQuery();
+            request.setEntityCountQuery(new EntityCountQuery(
+                    fromJsonBytes(queryProto.getEntityFilter(), EntityFilter.class),
+                    fromKeyFiltersJsonBytes(queryProto.getKeyFilters())));
+        }
+        return request;
+    }
+
+    public static EdqsQueryResultProto toProto(EdqsResponse response) {
+        EdqsQueryResultProto.Builder builder = EdqsQueryResultProto.newBuilder();
+        if (response.getEntityDataQueryResult() != null) {
+            PageData<EntityData> pageData = response.getEntityDataQueryResult();
+            EdqsEntityDataPageProto.Builder pageProto = EdqsEntityDataPageProto.newBuilder()
+                    .setTotalPages(pageData.getTotalPages())
+                    .setTotalElements(pageData.getTotalElements())
+                    .setHasNext(pageData.hasNext());
+            for (EntityData entityData : pageData.getData()) {
+                pageProto.addData(toProto(entityData));
+            }
+            builder.setEntityDataQueryResult(pageProto);
+        } else if (response.getEntityCountQueryResult() != null) {
+            builder.setEntityCountQueryResult(response.getEntityCountQueryResult());
+        }
+        if (response.getError() != null) {
+            builder.setError(response.getError());
+        }
+        return builder.build();
+    }
+
+    public static EdqsResponse fromProto(EdqsQueryResultProto proto) {
+        EdqsResponse response = new EdqsResponse();
+        if (proto.hasEntityDataQueryResult()) {
+            EdqsEntityDataPageProto pageProto = proto.getEntityDataQueryResult();
+            List<EntityData> data = new ArrayList<>(pageProto.getDataCount());
+            for (EdqsEntityDataProto entityDataProto : pageProto.getDataList()) {
+                data.add(fromProto(entityDataProto));
+            }
+            response.setEntityDataQueryResult(new PageData<>(data, pageProto.getTotalPages(), pageProto.getTotalElements(), pageProto.getHasNext()));
+        } else if (proto.hasEntityCountQueryResult()) {
+            response.setEntityCountQueryResult(proto.getEntityCountQueryResult());
+        }
+        if (proto.hasError()) {
+            response.setError(proto.getError());
+        }
+        return response;
+    }
+
+    private static EdqsEntityDataProto toProto(EntityData entityData) {
+        EdqsEntityDataProto.Builder builder = EdqsEntityDataProto.newBuilder()
+                .setEntityId(ProtoUtils.toProto(entityData.getEntityId()));
+        if (entityData.getLatest() != null) {
+            entityData.getLatest().forEach((keyType, values) -> {
+                EdqsLatestValuesProto.Builder latestProto = EdqsLatestValuesProto.newBuilder().setKeyType(keyType.name());
+                values.forEach((key, tsValue) -> latestProto.putValues(key, toProto(tsValue)));
+                builder.addLatest(latestProto);
+            });
+        }
+        if (entityData.getTimeseries() != null) {
+            entityData.getTimeseries().forEach((key, tsValues) -> {
+                EdqsTsValuesProto.Builder tsValuesProto = EdqsTsValuesProto.newBuilder();
+                for (TsValue tsValue : tsValues) {
+                    tsValuesProto.addValues(toProto(tsValue));
+                }
+                builder.putTimeseries(key, tsValuesProto.build());
+            });
+        }
+        if (entityData.getAggLatest() != null) {
+            entityData.getAggLatest().forEach((id, value) -> {
+                EdqsComparisonTsValueProto.Builder valueProto = EdqsComparisonTsValueProto.newBuilder();
+                if (value.getCurrent() != null) {
+                    valueProto.setCurrent(toProto(value.getCurrent()));
+                }
+                if (value.getPrevious() != null) {
+                    valueProto.setPrevious(toProto(value.getPrevious()));
+                }
+                builder.putAggLatest(id, valueProto.build());
+            });
+        }
+        return builder.build();
+    }
+
+    private static EntityData fromProto(EdqsEntityDataProto proto) {
+        Map<EntityKeyType, Map<String, TsValue>> latest = new EnumMap<>(EntityKeyType.class);
+        for (EdqsLatestValuesProto latestProto : proto.getLatestList()) {
+            Map<String, TsValue> values = new HashMap<>(latestProto.getValuesCount() * 2);
+            latestProto.getValuesMap().forEach((key, tsValueProto) -> values.put(key, fromProto(tsValueProto)));
+            latest.put(EntityKeyType.valueOf(latestProto.getKeyType()), values);
+        }
+        Map<String, TsValue[]> timeseries = new HashMap<>();
+        proto.getTimeseriesMap().forEach((key, tsValuesProto) -> timeseries.put(key, tsValuesProto.getValuesList().stream()
+                .map(EdqsProtoUtils::fromProto)
+                .toArray(TsValue[]::new)));
+        Map<Integer, ComparisonTsValue> aggLatest = new HashMap<>();
+        proto.getAggLatestMap().forEach((id, valueProto) -> aggLatest.put(id, new ComparisonTsValue(
+                valueProto.hasCurrent() ? fromProto(valueProto.getCurrent()) : null,
+                valueProto.hasPrevious() ? fromProto(valueProto.getPrevious()) : null)));
+        return new EntityData(ProtoUtils.fromProto(proto.getEntityId()), latest, timeseries, aggLatest);
+    }
+
+    private static EdqsTsValueProto toProto(TsValue tsValue) {
+        EdqsTsValueProto.Builder builder = EdqsTsValueProto.newBuilder().setTs(tsValue.getTs());
+        if (tsValue.getValue() != null) {
+            builder.setValue(tsValue.getValue());
+        }
+        if (tsValue.getCount() != null) {
+            builder.setCount(tsValue.getCount());
+        }
+        return builder.build();
+    }
+
+    private static TsValue fromProto(EdqsTsValueProto proto) {
+        return new TsValue(proto.getTs(), proto.hasValue() ? proto.getValue() : null, proto.hasCount() ? proto.getCount() : null);
+    }
+
+    /*
+     * The sort cursor and the count mode are not sent: queries with a cursor are not routed to EDQS,
+     * and EDQS counts are always exact
+     * */
+    private static EdqsEntityDataPageLinkProto toProto(EntityDataPageLink pageLink) {
+        EdqsEntityDataPageLinkProto.Builder builder = EdqsEntityDataPageLinkProto.newBuilder()
+                .setPageSize(pageLink.getPageSize())
+                .setPage(pageLink.getPage())
+                .setDynamic(pageLink.isDynamic());
+        if (pageLink.getTextSearch() != null) {
+            builder.setTextSearch(pageLink.getTextSearch());
+        }
+        EntityDataSortOrder sortOrder = pageLink.getSortOrder();
+        if (sortOrder != null) {
+            if (sortOrder.getKey() != null) {
+                builder.setSortKey(toProto(sortOrder.getKey()));
+            }
+            if (sortOrder.getDirection() != null) {
+                builder.setSortDirection(sortOrder.getDirection().name());
+            }
+        }
+        return builder.build();
+    }
+
+    private static EntityDataPageLink fromProto(EdqsEntityDataPageLinkProto proto) {
+        EntityDataSortOrder sortOrder = null;
+        if (proto.hasSortKey() || proto.hasSortDirection()) {
+            sortOrder = new EntityDataSortOrder(proto.hasSortKey() ? fromProto(proto.getSortKey()) : null,
+                    proto.hasSortDirection() ? EntityDataSortOrder.Direction.valueOf(proto.getSortDirection()) : null);
+        }
+        return new EntityDataPageLink(proto.getPageSize(), proto.getPage(),
+                proto.hasTextSearch() ? proto.getTextSearch() : null, sortOrder, proto.getDynamic());
+    }
+
+    private static EdqsEntityKeyProto toProto(EntityKey key) {
+        return EdqsEntityKeyProto.newBuilder()
+                .setType(key.getType().name())
+                .setKey(key.getKey())
+                .build();
+    }
+
+    private static EntityKey fromProto(EdqsEntityKeyProto proto) {
+        return new EntityKey(EntityKeyType.valueOf(proto.getType()), proto.getKey());
+    }
+
+    private static List<EntityKey> fromProto(List<EdqsEntityKeyProto> protos) {
+        if (protos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<EntityKey> keys = new ArrayList<>(protos.size());
+        for (EdqsEntityKeyProto proto : protos) {
+            keys.add(fromProto(proto));
+        }
+        return keys;
+    }
+
+    private static ByteString toJsonBytes(Object value) {
+        return value != null ? ByteString.copyFrom(JacksonUtil.writeValueAsBytes(value)) : ByteString.EMPTY;
+    }
+
+    private static <T> T fromJsonBytes(ByteString bytes, Class<T> clazz) {
+        return !bytes.isEmpty() ? JacksonUtil.fromBytes(bytes.toByteArray(), clazz) : null;
+    }
+
+    private static List<KeyFilter> fromKeyFiltersJsonBytes(ByteString bytes) {
+        return !bytes.isEmpty() ? JacksonUtil.fromBytes(bytes.toByteArray(), KEY_FILTERS_TYPE) : null;
+    }
+
+}
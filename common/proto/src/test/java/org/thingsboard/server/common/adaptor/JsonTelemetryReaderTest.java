@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.adaptor;
+
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thingsboard.server.common.adaptor.JsonTelemetryReader.GatewayDeviceTelemetry;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueType;
+import org.thingsboard.server.gen.transport.TransportProtos.PostTelemetryMsg;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Isolated("JsonConverter static settings being modified")
+public class JsonTelemetryReaderTest {
+
+    private static final long SYSTEM_TS = 1700000000000L;
+
+    @BeforeEach
+    public void before() {
+        JsonConverter.setTypeCastEnabled(true);
+    }
+
+    @AfterEach
+    public void after() {
+        JsonConverter.setTypeCastEnabled(true);
+        JsonConverter.setMaxStringValueLength(0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"temperature\": 42, \"humidity\": 73.5, \"active\": true, \"name\": \"sensor\", \"nothing\": null}",
+            "{\"ts\": 1451649600512, \"values\": {\"key1\": \"value1\", \"key2\": 2}}",
+            "{\"values\": {\"key1\": \"value1\"}, \"ts\": \"1451649600512\"}",
+            "{\"ts\": 1451649600512, \"other\": 1, \"values\": {\"key1\": 1}, \"ignored\": {\"a\": 1}}",
+            "{\"ts\": 1451649600512, \"temperature\": 42}",
+            "{\"values\": {\"key1\": 1}, \"temperature\": 42}",
+            "[{\"ts\": 1451649600512, \"values\": {\"a\": 1}}, {\"ts\": 1451649600513, \"values\": {\"a\": 2}}, {\"b\": 3}]",
+            "{\"json\": {\"a\": [1, 2, {\"b\": \"c\"}]}, \"array\": [1, 2, 3]}",
+            "{\"str\": \"42\", \"strDouble\": \"1.5\", \"big\": 99701010061400066001, \"exp\": 1E+1, \"double\": 42.0, \"precise\": 0.12345678901234567890}",
+            "{\"a\": 1, \"b\": 2, \"a\": \"x\"}",
+            "{\"a\": 1, \"a\": null}",
+            "{unquoted: 'single quoted', \"nan\": NaN}",
+            "{\"metadata\": {\"connector\": \"c\"}, \"a\": 1}",
+            "{}",
+            "[]"
+    })
+    public void givenTelemetryPayload_whenReadWithStreaming_thenResultMatchesTreeConversion(String json) {
+        PostTelemetryMsg expected = JsonConverter.convertToTelemetryProto(JsonParser.parseString(json), SYSTEM_TS);
+
+        assertThat(JsonTelemetryReader.readTelemetry(json, SYSTEM_TS)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"temperature\": 42, \"humidity\": 73.5, \"active\": true, \"name\": \"sensor\", \"nothing\": null}",
+            "{\"ts\": 1451649600512, \"values\": {\"key1\": \"value1\"}}",
+            "{\"json\": {\"a\": [1, 2]}, \"a\": 1, \"a\": 2}"
+    })
+    public void givenAttributesPayload_whenReadWithStreaming_thenResultMatchesTreeConversion(String json) {
+        assertThat(JsonTelemetryReader.readAttributes(json)).isEqualTo(JsonConverter.convertToAttributesProto(JsonParser.parseString(json)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"42", "\"str\"", "[1, 2]", "[{\"a\": 1}, 5]", "{\"a\": 1} {\"b\": 2}", "{\"a\": ", "{\"a\": 1,, }"})
+    public void givenInvalidTelemetryPayload_whenReadWithStreaming_thenJsonSyntaxExceptionIsThrown(String json) {
+        assertThatThrownBy(() -> JsonTelemetryReader.readTelemetry(json, SYSTEM_TS)).isInstanceOf(JsonSyntaxException.class);
+    }
+
+    @Test
+    public void givenValuesNotAnObject_whenReadWithStreaming_thenSameErrorAsTreeConversion() {
+        String json = "{\"ts\": 1451649600512, \"values\": [1, 2]}";
+
+        Assertions.assertThrows(IllegalStateException.class, () -> JsonConverter.convertToTelemetryProto(JsonParser.parseString(json), SYSTEM_TS));
+        Assertions.assertThrows(IllegalStateException.class, () -> JsonTelemetryReader.readTelemetry(json, SYSTEM_TS));
+    }
+
+    @Test
+    public void givenBigIntegerInIgnoredKey_whenTypeCastDisabled_thenOnlyUsedValuesAreValidated() {
+        JsonConverter.setTypeCastEnabled(false);
+
+        PostTelemetryMsg msg = JsonTelemetryReader.readTelemetry("{\"big\": 89701010051400054084, \"ts\": 1, \"values\": {\"a\": 1}}", SYSTEM_TS);
+        assertThat(msg.getTsKvList(0).getTs()).isEqualTo(1L);
+        assertThat(msg.getTsKvList(0).getKvList()).hasSize(1);
+
+        assertThatThrownBy(() -> JsonTelemetryReader.readTelemetry("{\"big\": 89701010051400054084}", SYSTEM_TS))
+                .isInstanceOf(JsonSyntaxException.class);
+    }
+
+    @Test
+    public void givenTooLongString_whenReadWithStreaming_thenJsonSyntaxExceptionIsThrown() {
+        JsonConverter.setMaxStringValueLength(3);
+
+        assertThatThrownBy(() -> JsonTelemetryReader.readTelemetry("{\"name\": \"sensor\"}", SYSTEM_TS))
+                .isInstanceOf(JsonSyntaxException.class)
+                .hasMessageContaining("name");
+    }
+
+    @Test
+    public void givenGatewayPayload_whenReadWithStreaming_thenEachDeviceMatchesTreeConversion() {
+        String deviceA = "[{\"ts\": 1451649600512, \"values\": {\"temperature\": 42}, " +
+                "\"metadata\": {\"connector\": \"modbus\", \"receivedTs\": 1451649600000, \"publishedTs\": 1451649600100}}, {\"humidity\": 73}]";
+        String deviceB = "[{\"ts\": 1451649600512, \"values\": {\"temperature\": 43}}]";
+        String json = "{\"Device A\": " + deviceA + ", \"Device B\": " + deviceB + ", \"Device C\": 5, \"Device D\": [1]}";
+
+        Map<String, GatewayDeviceTelemetry> result = JsonTelemetryReader.readGatewayTelemetry(new StringReader(json), SYSTEM_TS);
+
+        assertThat(result).containsOnlyKeys("Device A", "Device B", "Device C", "Device D");
+        var expectedA = JsonConverter.convertToGatewayTelemetry(JsonParser.parseString(deviceA), SYSTEM_TS);
+        assertThat(result.get("Device A").telemetry()).isEqualTo(expectedA.getFirst());
+        assertThat(result.get("Device A").metadata()).isEqualTo(expectedA.getSecond());
+        var expectedB = JsonConverter.convertToGatewayTelemetry(JsonParser.parseString(deviceB), SYSTEM_TS);
+        assertThat(result.get("Device B").telemetry()).isEqualTo(expectedB.getFirst());
+        assertThat(result.get("Device B").metadata()).isNull();
+
+        assertThat(result.get("Device C").isValid()).isFalse();
+        assertThat(result.get("Device C").invalidValue().getAsInt()).isEqualTo(5);
+        assertThat(result.get("Device D").isValid()).isTrue();
+        assertThat(result.get("Device D").error()).isInstanceOf(JsonSyntaxException.class);
+    }
+
+    @Test
+    public void givenGatewayDeviceWithInvalidMetadata_whenReadWithStreaming_thenOnlyThatDeviceFails() {
+        String json = "{\"Device A\": [{\"metadata\": {\"connector\": \"modbus\"}, \"a\": 1}, {\"b\": 2}], \"Device B\": [{\"c\": 3}]}";
+
+        Map<String, GatewayDeviceTelemetry> result = JsonTelemetryReader.readGatewayTelemetry(new StringReader(json), SYSTEM_TS);
+
+        assertThat(result.get("Device A").error()).isInstanceOf(JsonSyntaxException.class).hasMessageContaining("connector");
+        assertThat(result.get("Device B").error()).isNull();
+        assertThat(result.get("Device B").telemetry().getTsKvList(0).getKv(0).getType()).isEqualTo(KeyValueType.LONG_V);
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.util;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.edqs.query.EdqsRequest;
+import org.thingsboard.server.common.data.edqs.query.EdqsResponse;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityKeyValueType;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.common.data.query.FilterPredicateValue;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.StringFilterPredicate;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsQueryProto;
+import org.thingsboard.server.gen.transport.TransportProtos.EdqsQueryResultProto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdqsProtoUtilsTest {
+
+    @Test
+    void testEntityDataQueryRoundTrip() throws Exception {
+        EntityTypeFilter filter = new EntityTypeFilter();
+        filter.setEntityType(EntityType.DEVICE);
+        KeyFilter keyFilter = new KeyFilter();
+        keyFilter.setKey(new EntityKey(EntityKeyType.ENTITY_FIELD, "name"));
+        keyFilter.setValueType(EntityKeyValueType.STRING);
+        StringFilterPredicate predicate = new StringFilterPredicate();
+        predicate.setOperation(StringFilterPredicate.StringOperation.STARTS_WITH);
+        predicate.setValue(new FilterPredicateValue<>("LoRa"));
+        predicate.setIgnoreCase(true);
+        keyFilter.setPredicate(predicate);
+        EntityDataPageLink pageLink = new EntityDataPageLink(20, 1, "search",
+                new EntityDataSortOrder(new EntityKey(EntityKeyType.TIME_SERIES, "temperature"), EntityDataSortOrder.Direction.DESC), true);
+        EdqsRequest request = EdqsRequest.builder()
+                .entityDataQuery(new EntityDataQuery(filter, pageLink,
+                        List.of(new EntityKey(EntityKeyType.ENTITY_FIELD, "name")),
+                        List.of(new EntityKey(EntityKeyType.TIME_SERIES, "temperature"), new EntityKey(EntityKeyType.SERVER_ATTRIBUTE, "active")),
+                        List.of(keyFilter)))
+                .build();
+
+        EdqsRequest decoded = EdqsProtoUtils.fromProto(EdqsQueryProto.parseFrom(EdqsProtoUtils.toProto(request).toByteArray()));
+
+        assertThat(JacksonUtil.valueToTree(decoded)).isEqualTo(JacksonUtil.valueToTree(request));
+    }
+
+    @Test
+    void testEntityCountQueryRoundTrip() throws Exception {
+        EntityTypeFilter filter = new EntityTypeFilter();
+        filter.setEntityType(EntityType.ASSET);
+        EdqsRequest request = EdqsRequest.builder().entityCountQuery(new EntityCountQuery(filter)).build();
+
+        EdqsRequest decoded = EdqsProtoUtils.fromProto(EdqsQueryProto.parseFrom(EdqsProtoUtils.toProto(request).toByteArray()));
+
+        assertThat(decoded.getEntityDataQuery()).isNull();
+        assertThat(JacksonUtil.valueToTree(decoded)).isEqualTo(JacksonUtil.valueToTree(request));
+    }
+
+    @Test
+    void testResponseRoundTrip() throws Exception {
+        EdqsResponse response = new EdqsResponse(createPage(100), null, null);
+        assertThat(roundTrip(response)).isEqualTo(response);
+
+        response = new EdqsResponse(null, 42L, null);
+        assertThat(roundTrip(response)).isEqualTo(response);
+
+        response = new EdqsResponse(null, null, "Result set is too large");
+        assertThat(roundTrip(response)).isEqualTo(response);
+    }
+
+    @Test
+    void testLargePageIsSmallerThanJson() throws Exception {
+        EdqsResponse response = new EdqsResponse(createPage(1000), null, null);
+
+        byte[] bytes = EdqsProtoUtils.toProto(response).toByteArray();
+
+        assertThat(bytes.length).isLessThan(JacksonUtil.toString(response).length());
+        assertThat(EdqsProtoUtils.fromProto(EdqsQueryResultProto.parseFrom(bytes))).isEqualTo(response);
+    }
+
+    private static EdqsResponse roundTrip(EdqsResponse response) throws Exception {
+        return EdqsProtoUtils.fromProto(EdqsQueryResultProto.parseFrom(EdqsProtoUtils.toProto(response).toByteArray()));
+    }
+
+    private static PageData<EntityData> createPage(int size) {
+        List<EntityData> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<EntityKeyType, Map<String, TsValue>> latest = new HashMap<>();
+            latest.put(EntityKeyType.ENTITY_FIELD, Map.of(
+                    "name", new TsValue(0, "Device " + i),
+                    "type", new TsValue(0, "thermostat"),
+                    "createdTime", new TsValue(0, String.valueOf(1700000000000L + i))));
+            latest.put(EntityKeyType.TIME_SERIES, Map.of(
+                    "temperature", new TsValue(1700000000000L + i, String.valueOf(20.0 + i % 10)),
+                    "humidity", new TsValue(1700000000000L + i, String.valueOf(40 + i % 30), 5L)));
+            data.add(new EntityData(new DeviceId(UUID.randomUUID()), latest, Collections.emptyMap(), Collections.emptyMap()));
+        }
+        return new PageData<>(data, 10, size * 10L, true);
+    }
+
+}
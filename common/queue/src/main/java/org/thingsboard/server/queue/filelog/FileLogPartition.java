@@ -0,0 +1,289 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.filelog;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of a single topic partition, split into memory-mapped segments named after their base offset.
+ * Committed offsets of every consumer group are stored next to the segments, and segments that are fully consumed
+ * by all the groups are deleted by {@link #cleanUp()}. A group without subscribed consumers that didn't commit within
+ * the group TTL is expired, so that a consumer that is gone for good doesn't hold the segments forever.
+ */
+@Slf4j
+class FileLogPartition {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OFFSET_SUFFIX = ".offset";
+
+    @Getter
+    private final String topic;
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long groupTtlMs;
+    private final List<FileLogSegment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> committedOffsets = new ConcurrentHashMap<>();
+    private final Map<String, FileChannel> offsetFiles = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastActivity = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+
+    FileLogPartition(String topic, Path dir, int segmentSize, int maxSegments, long groupTtlMs) throws IOException {
+        this.topic = topic;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.groupTtlMs = groupTtlMs;
+        Files.createDirectories(dir);
+        List<Long> baseOffsets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    baseOffsets.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } else if (name.endsWith(OFFSET_SUFFIX)) {
+                    String group = name.substring(0, name.length() - OFFSET_SUFFIX.length());
+                    committedOffsets.put(group, readOffset(file));
+                    lastActivity.put(group, Files.getLastModifiedTime(file).toMillis());
+                }
+            }
+        }
+        baseOffsets.sort(Long::compare);
+        for (Long baseOffset : baseOffsets) {
+            segments.add(new FileLogSegment(segmentFile(baseOffset), baseOffset, segmentSize));
+        }
+        if (segments.isEmpty()) {
+            segments.add(new FileLogSegment(segmentFile(0), 0, segmentSize));
+        }
+        log.debug("[{}] Opened log with {} segments, end offset {}", topic, segments.size(), getEndOffset());
+    }
+
+    /**
+     * @return the offset of the appended record.
+     */
+    synchronized long append(byte[] payload) throws IOException {
+        FileLogSegment active = segments.get(segments.size() - 1);
+        if (!active.fits(payload.length)) {
+            throw new IOException("Message of " + payload.length + " bytes exceeds the segment size " + segmentSize);
+        }
+        if (!active.append(payload)) {
+            if (segments.size() >= maxSegments) {
+                throw new IOException("Log of topic " + topic + " is full: " + segments.size() + " segments are not consumed yet");
+            }
+            active.flush();
+            active = new FileLogSegment(segmentFile(active.getEndOffset()), active.getEndOffset(), segmentSize);
+            segments.add(active);
+            active.append(payload);
+        }
+        listeners.forEach(Runnable::run);
+        return active.getEndOffset() - 1;
+    }
+
+    /**
+     * Reads up to maxRecords starting from the cursor and moves the cursor after the last returned record.
+     */
+    List<byte[]> read(Cursor cursor, int maxRecords) {
+        List<byte[]> result = new ArrayList<>();
+        while (result.size() < maxRecords) {
+            FileLogSegment segment = cursor.segment;
+            if (segment == null || !segments.contains(segment)) {
+                seek(cursor, cursor.offset);
+                segment = cursor.segment;
+            }
+            byte[] payload = segment.read(cursor.position);
+            if (payload != null) {
+                result.add(payload);
+                cursor.position = FileLogSegment.nextPosition(cursor.position, payload);
+                cursor.offset++;
+            } else if (cursor.offset >= segment.getEndOffset() && isSealed(segment)) {
+                cursor.segment = null; // continue with the next segment
+            } else {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a cursor at the committed offset of the group. The group doesn't expire until the cursor is released.
+     */
+    Cursor cursor(String group) {
+        subscribers.merge(group, 1, Integer::sum);
+        lastActivity.put(group, System.currentTimeMillis());
+        Cursor cursor = new Cursor();
+        long offset = Math.max(committedOffsets.getOrDefault(group, 0L), getStartOffset());
+        seek(cursor, offset);
+        return cursor;
+    }
+
+    void release(String group) {
+        subscribers.computeIfPresent(group, (g, count) -> count > 1 ? count - 1 : null);
+        lastActivity.put(group, System.currentTimeMillis());
+    }
+
+    private void seek(Cursor cursor, long offset) {
+        FileLogSegment target = segments.get(0);
+        for (FileLogSegment segment : segments) {
+            if (segment.getBaseOffset() <= offset) {
+                target = segment;
+            }
+        }
+        offset = Math.min(Math.max(offset, target.getBaseOffset()), target.getEndOffset());
+        cursor.segment = target;
+        cursor.offset = offset;
+        cursor.position = target.positionOf(offset);
+    }
+
+    private boolean isSealed(FileLogSegment segment) {
+        return segments.get(segments.size() - 1) != segment;
+    }
+
+    void commit(String group, long offset) throws IOException {
+        lastActivity.put(group, System.currentTimeMillis());
+        Long previous = committedOffsets.put(group, offset);
+        if (previous == null || previous != offset) {
+            FileChannel channel = offsetFiles.get(group);
+            if (channel == null) {
+                channel = FileChannel.open(dir.resolve(group + OFFSET_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                offsetFiles.put(group, channel);
+            }
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, offset), 0);
+        }
+    }
+
+    /**
+     * Expires the stale consumer groups and deletes the sealed segments that are fully consumed by every remaining group.
+     */
+    synchronized void cleanUp() {
+        expireGroups();
+        if (committedOffsets.isEmpty()) {
+            return;
+        }
+        long minCommitted = committedOffsets.values().stream().mapToLong(Long::longValue).min().orElse(0L);
+        while (segments.size() > 1 && segments.get(0).getEndOffset() <= minCommitted) {
+            FileLogSegment segment = segments.remove(0);
+            log.debug("[{}] Deleting consumed segment {}", topic, segment.getFile());
+            segment.delete();
+        }
+    }
+
+    private void expireGroups() {
+        if (groupTtlMs <= 0) {
+            return;
+        }
+        long expirationTs = System.currentTimeMillis() - groupTtlMs;
+        for (String group : new ArrayList<>(committedOffsets.keySet())) {
+            if (subscribers.containsKey(group) || lastActivity.getOrDefault(group, 0L) >= expirationTs) {
+                continue;
+            }
+            log.info("[{}] Expiring consumer group [{}] that didn't commit within {} ms, committed offset {}, end offset {}",
+                    topic, group, groupTtlMs, committedOffsets.get(group), getEndOffset());
+            committedOffsets.remove(group);
+            lastActivity.remove(group);
+            FileChannel channel = offsetFiles.remove(group);
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(dir.resolve(group + OFFSET_SUFFIX));
+            } catch (IOException e) {
+                log.warn("[{}] Failed to delete offset file of group [{}]", topic, group, e);
+            }
+        }
+    }
+
+    void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    long getStartOffset() {
+        return segments.get(0).getBaseOffset();
+    }
+
+    long getEndOffset() {
+        return segments.get(segments.size() - 1).getEndOffset();
+    }
+
+    long getLag(String group) {
+        return getEndOffset() - Math.max(committedOffsets.getOrDefault(group, 0L), getStartOffset());
+    }
+
+    long getMaxLag() {
+        long endOffset = getEndOffset();
+        long minCommitted = committedOffsets.values().stream().mapToLong(Long::longValue).min().orElse(getStartOffset());
+        return endOffset - Math.max(minCommitted, getStartOffset());
+    }
+
+    void flush() {
+        segments.get(segments.size() - 1).flush();
+    }
+
+    void close() {
+        segments.forEach(segment -> {
+            segment.flush();
+            segment.close();
+        });
+        offsetFiles.values().forEach(channel -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("[{}] Failed to close offset file", topic, e);
+            }
+        });
+    }
+
+    private Path segmentFile(long baseOffset) {
+        return dir.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    }
+
+    private static long readOffset(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0L;
+    }
+
+    /**
+     * Read position of a consumer within the partition.
+     */
+    static class Cursor {
+
+        private FileLogSegment segment;
+        private int position;
+        @Getter
+        private long offset;
+
+    }
+
+}
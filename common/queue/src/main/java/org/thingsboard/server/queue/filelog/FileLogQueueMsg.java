@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.filelog;
+
+import lombok.Getter;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Queue message read from the file log. The binary layout is
+ * [key msb:long][key lsb:long][headers count:int]([name length:int][name][value length:int][value])*[data length:int][data].
+ */
+public class FileLogQueueMsg implements TbQueueMsg {
+
+    @Getter
+    private final UUID key;
+    @Getter
+    private final TbQueueMsgHeaders headers;
+    @Getter
+    private final byte[] data;
+    @Getter
+    private final long offset;
+
+    private FileLogQueueMsg(UUID key, TbQueueMsgHeaders headers, byte[] data, long offset) {
+        this.key = key;
+        this.headers = headers;
+        this.data = data;
+        this.offset = offset;
+    }
+
+    static byte[] encode(TbQueueMsg msg) {
+        Map<String, byte[]> headers = msg.getHeaders().getData();
+        byte[][] names = new byte[headers.size()][];
+        int size = 2 * Long.BYTES + Integer.BYTES * 2 + msg.getData().length;
+        int i = 0;
+        for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+            names[i] = header.getKey().getBytes(StandardCharsets.UTF_8);
+            size += 2 * Integer.BYTES + names[i].length + header.getValue().length;
+            i++;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(msg.getKey().getMostSignificantBits());
+        buffer.putLong(msg.getKey().getLeastSignificantBits());
+        buffer.putInt(headers.size());
+        i = 0;
+        for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+            buffer.putInt(names[i].length).put(names[i]);
+            buffer.putInt(header.getValue().length).put(header.getValue());
+            i++;
+        }
+        buffer.putInt(msg.getData().length).put(msg.getData());
+        return buffer.array();
+    }
+
+    static FileLogQueueMsg decode(byte[] payload, long offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        UUID key = new UUID(buffer.getLong(), buffer.getLong());
+        int headersCount = buffer.getInt();
+        DefaultTbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        for (int i = 0; i < headersCount; i++) {
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(value);
+            headers.put(new String(name, StandardCharsets.UTF_8), value);
+        }
+        byte[] data = new byte[buffer.getInt()];
+        buffer.get(data);
+        return new FileLogQueueMsg(key, headers, data, offset);
+    }
+
+}
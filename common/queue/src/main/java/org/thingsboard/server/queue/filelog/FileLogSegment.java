@@ -0,0 +1,173 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.filelog;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed size, memory-mapped, append-only file that holds a contiguous range of log records.
+ * Each record is stored as [length:int][crc32c:int][payload] and a zero length marks the end of the written data.
+ * On open, the segment is scanned and the write position is recovered at the first missing or corrupted record,
+ * so a record that was only partially written before a crash is dropped.
+ */
+@Slf4j
+class FileLogSegment {
+
+    static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    @Getter
+    private final Path file;
+    @Getter
+    private final long baseOffset;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private volatile int writePosition;
+    private volatile int recordCount;
+
+    FileLogSegment(Path file, long baseOffset, int capacity) throws IOException {
+        this.file = file;
+        this.baseOffset = baseOffset;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        recover();
+    }
+
+    private void recover() {
+        int position = 0;
+        int count = 0;
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity) {
+                break;
+            }
+            int crc = buffer.getInt(position + Integer.BYTES);
+            if (crc != checksum(buffer, position + RECORD_HEADER_SIZE, length)) {
+                log.warn("[{}] Corrupted record at position {}, truncating segment", file, position);
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+        if (position + Integer.BYTES <= capacity) {
+            buffer.putInt(position, 0);
+        }
+        this.writePosition = position;
+        this.recordCount = count;
+    }
+
+    /**
+     * Appends the record. Must be called by a single writer at a time.
+     *
+     * @return false if there is not enough space left in the segment.
+     */
+    boolean append(byte[] payload) {
+        int position = writePosition;
+        int next = position + RECORD_HEADER_SIZE + payload.length;
+        if (next > capacity) {
+            return false;
+        }
+        if (next + Integer.BYTES <= capacity) {
+            buffer.putInt(next, 0);
+        }
+        buffer.put(position + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(position + Integer.BYTES, checksum(ByteBuffer.wrap(payload), 0, payload.length));
+        buffer.putInt(position, payload.length);
+        recordCount++;
+        writePosition = next; // publishes the record to the readers
+        return true;
+    }
+
+    /**
+     * @return the payload of the record at the given position, or null if no record is written there yet.
+     */
+    byte[] read(int position) {
+        if (position >= writePosition) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        byte[] payload = new byte[length];
+        buffer.get(position + RECORD_HEADER_SIZE, payload);
+        return payload;
+    }
+
+    static int nextPosition(int position, byte[] payload) {
+        return position + RECORD_HEADER_SIZE + payload.length;
+    }
+
+    /**
+     * @return the position of the record with the given offset, scanning the segment from the beginning.
+     */
+    int positionOf(long offset) {
+        int position = 0;
+        for (long current = baseOffset; current < offset && position < writePosition; current++) {
+            position += RECORD_HEADER_SIZE + buffer.getInt(position);
+        }
+        return position;
+    }
+
+    long getEndOffset() {
+        return baseOffset + recordCount;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    boolean fits(int payloadLength) {
+        return RECORD_HEADER_SIZE + payloadLength <= capacity;
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("[{}] Failed to close segment", file, e);
+        }
+    }
+
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("[{}] Failed to delete segment", file, e);
+        }
+    }
+
+    private static int checksum(ByteBuffer source, int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(source.slice(position, length));
+        return (int) crc.getValue();
+    }
+
+}
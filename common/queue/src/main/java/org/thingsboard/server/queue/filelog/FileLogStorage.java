@@ -0,0 +1,120 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.filelog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable storage for the in-memory queue: every topic partition is an append-only log of memory-mapped segment files
+ * with committed offsets per consumer group. Messages survive restarts and are kept off-heap, so bursts are bounded by
+ * the disk quota ({@code segment_size * max_segments_per_partition}) instead of the JVM heap.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='in-memory' && '${queue.in_memory.file_log.enabled:false}'=='true'")
+public class FileLogStorage {
+
+    @Value("${queue.in_memory.file_log.path:${user.home}/.tb/queue_log}")
+    private String path;
+    @Value("${queue.in_memory.file_log.segment_size:16777216}")
+    private int segmentSize;
+    @Value("${queue.in_memory.file_log.max_segments_per_partition:64}")
+    private int maxSegmentsPerPartition;
+    @Getter
+    @Value("${queue.in_memory.file_log.max_poll_records:1000}")
+    private int maxPollRecords;
+    @Value("${queue.in_memory.file_log.flush_interval_ms:1000}")
+    private long flushIntervalMs;
+    @Value("${queue.in_memory.file_log.group_ttl_ms:3600000}")
+    private long groupTtlMs;
+
+    private final ConcurrentMap<String, FileLogPartition> partitions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        log.info("Using file log queue storage at {}", path);
+        scheduler = ThingsBoardExecutors.newSingleThreadScheduledExecutor("file-log-queue-storage");
+        scheduler.scheduleWithFixedDelay(this::flushAndCleanUp, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        partitions.values().forEach(FileLogPartition::close);
+        partitions.clear();
+    }
+
+    FileLogPartition getPartition(String topic) {
+        return partitions.computeIfAbsent(topic, t -> {
+            try {
+                return new FileLogPartition(t, getTopicDir(t), segmentSize, maxSegmentsPerPartition, groupTtlMs);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open file log for topic " + t, e);
+            }
+        });
+    }
+
+    public long getLag(String topic, String group) {
+        FileLogPartition partition = partitions.get(topic);
+        return partition != null ? partition.getLag(group) : 0;
+    }
+
+    public void printStats() {
+        if (log.isDebugEnabled()) {
+            partitions.forEach((topic, partition) -> {
+                long lag = partition.getMaxLag();
+                if (lag > 0) {
+                    log.debug("[{}] Queue Size [{}]", topic, lag);
+                }
+            });
+        }
+    }
+
+    private void flushAndCleanUp() {
+        partitions.values().forEach(partition -> {
+            try {
+                partition.flush();
+                partition.cleanUp();
+            } catch (Exception e) {
+                log.warn("[{}] Failed to flush file log", partition.getTopic(), e);
+            }
+        });
+    }
+
+    private Path getTopicDir(String topic) {
+        return Paths.get(path, topic.replaceAll("[^a-zA-Z0-9._-]", "_"));
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.filelog;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer of the {@link FileLogStorage}. Follows the Kafka consumer semantics: polling advances the read position,
+ * {@link #commit()} persists it for the consumer group, and messages that were polled but not committed before
+ * a restart are delivered again. Instead of sleeping, an empty poll waits until a producer appends to one of the
+ * subscribed partitions.
+ */
+@Slf4j
+public class TbFileLogQueueConsumer<T extends TbQueueMsg> extends AbstractTbQueueConsumerTemplate<FileLogQueueMsg, T> {
+
+    private final FileLogStorage storage;
+    private final TbFileLogDecoder<T> decoder;
+    @Getter
+    private final String groupId;
+    private final Map<FileLogPartition, FileLogPartition.Cursor> cursors = new LinkedHashMap<>();
+    private final Object signal = new Object();
+    private final Runnable listener = this::onAppend;
+    private boolean dataAvailable;
+    private int nextPartitionIdx;
+
+    public TbFileLogQueueConsumer(FileLogStorage storage, String topic, String groupId, TbFileLogDecoder<T> decoder) {
+        super(topic);
+        this.storage = storage;
+        this.groupId = groupId.replaceAll("[^a-zA-Z0-9._-]", "_");
+        this.decoder = decoder;
+    }
+
+    @Override
+    protected void doSubscribe(Set<TopicPartitionInfo> partitions) {
+        doUnsubscribe();
+        for (TopicPartitionInfo tpi : partitions) {
+            FileLogPartition partition = storage.getPartition(tpi.getFullTopicName());
+            cursors.put(partition, partition.cursor(groupId));
+            partition.addListener(listener);
+        }
+        log.debug("[{}][{}] Subscribed to {} partitions", getTopic(), groupId, cursors.size());
+    }
+
+    @Override
+    protected List<FileLogQueueMsg> doPoll(long durationInMillis) {
+        List<FileLogQueueMsg> records = read();
+        if (records.isEmpty() && durationInMillis > 0) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationInMillis);
+            synchronized (signal) {
+                long waitMs;
+                while (!dataAvailable && !stopped && (waitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                    try {
+                        signal.wait(waitMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return Collections.emptyList();
+                    }
+                }
+            }
+            records = read();
+        }
+        return records;
+    }
+
+    private List<FileLogQueueMsg> read() {
+        synchronized (signal) {
+            dataAvailable = false;
+        }
+        int maxRecords = storage.getMaxPollRecords();
+        List<FileLogQueueMsg> records = new ArrayList<>();
+        if (cursors.isEmpty()) {
+            return records;
+        }
+        // start from a different partition on every poll so that a backlog in one partition doesn't starve the others
+        List<Map.Entry<FileLogPartition, FileLogPartition.Cursor>> entries = new ArrayList<>(cursors.entrySet());
+        int startIdx = Math.floorMod(nextPartitionIdx++, entries.size());
+        for (int i = 0; i < entries.size() && records.size() < maxRecords; i++) {
+            Map.Entry<FileLogPartition, FileLogPartition.Cursor> entry = entries.get((startIdx + i) % entries.size());
+            FileLogPartition.Cursor cursor = entry.getValue();
+            long offset = cursor.getOffset();
+            for (byte[] payload : entry.getKey().read(cursor, maxRecords - records.size())) {
+                records.add(FileLogQueueMsg.decode(payload, offset++));
+            }
+        }
+        return records;
+    }
+
+    private void onAppend() {
+        synchronized (signal) {
+            dataAvailable = true;
+            signal.notifyAll();
+        }
+    }
+
+    @Override
+    protected T decode(FileLogQueueMsg msg) throws IOException {
+        return decoder.decode(msg);
+    }
+
+    @Override
+    protected void doCommit() {
+        cursors.forEach((partition, cursor) -> {
+            try {
+                partition.commit(groupId, cursor.getOffset());
+            } catch (IOException e) {
+                log.warn("[{}][{}] Failed to commit offset {}", partition.getTopic(), groupId, cursor.getOffset(), e);
+            }
+        });
+    }
+
+    @Override
+    protected void doUnsubscribe() {
+        cursors.keySet().forEach(partition -> {
+            partition.removeListener(listener);
+            partition.release(groupId);
+        });
+        cursors.clear();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        onAppend();
+    }
+
+    @Override
+    protected boolean isLongPollingSupported() {
+        return true;
+    }
+
+}
@@ -39,6 +39,9 @@ import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
 import org.thingsboard.server.queue.discovery.TopicService;
 import org.thingsboard.server.queue.edqs.EdqsConfig;
+import org.thingsboard.server.queue.filelog.FileLogStorage;
+import org.thingsboard.server.queue.filelog.TbFileLogQueueConsumer;
+import org.thingsboard.server.queue.filelog.TbFileLogQueueProducer;
 import org.thingsboard.server.queue.memory.InMemoryStorage;
 import org.thingsboard.server.queue.memory.InMemoryTbQueueConsumer;
 import org.thingsboard.server.queue.memory.InMemoryTbQueueProducer;
@@ -51,6 +54,8 @@ import org.thingsboard.server.queue.settings.TbQueueTransportApiSettings;
 import org.thingsboard.server.queue.settings.TbQueueTransportNotificationSettings;
 import org.thingsboard.server.queue.settings.TbQueueVersionControlSettings;
 
+import java.util.Optional;
+
 @Slf4j
 @Component
 @ConditionalOnExpression("'${queue.type:null}'=='in-memory' && '${service.type:null}'=='monolith'")
@@ -70,6 +75,7 @@ public class InMemoryMonolithQueueFactory implements TbCoreQueueFactory, TbRuleE
     private final EdqsConfig edqsConfig;
     private final TasksQueueConfig tasksQueueConfig;
     private final InMemoryStorage storage;
+    private final Optional<FileLogStorage> fileLogStorage;
 
     @Override
     public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToTransportMsg>> createTransportNotificationsMsgProducer() {
@@ -78,7 +84,11 @@ public class InMemoryMonolithQueueFactory implements TbCoreQueueFactory, TbRuleE
 
     @Override
     public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> createRuleEngineMsgProducer() {
-        return new InMemoryTbQueueProducer<>(storage, topicService.buildTopicName(ruleEngineSettings.getTopic()));
+        String topic = topicService.buildTopicName(ruleEngineSettings.getTopic());
+        if (fileLogStorage.isPresent()) {
+            return new TbFileLogQueueProducer<>(fileLogStorage.get(), topic);
+        }
+        return new InMemoryTbQueueProducer<>(storage, topic);
     }
 
     @Override
@@ -88,7 +98,11 @@ public class InMemoryMonolithQueueFactory implements TbCoreQueueFactory, TbRuleE
 
     @Override
     public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToCoreMsg>> createTbCoreMsgProducer() {
-        return new InMemoryTbQueueProducer<>(storage, topicService.buildTopicName(coreSettings.getTopic()));
+        String topic = topicService.buildTopicName(coreSettings.getTopic());
+        if (fileLogStorage.isPresent()) {
+            return new TbFileLogQueueProducer<>(fileLogStorage.get(), topic);
+        }
+        return new InMemoryTbQueueProducer<>(storage, topic);
     }
 
     @Override
@@ -103,7 +117,12 @@ public class InMemoryMonolithQueueFactory implements TbCoreQueueFactory, TbRuleE
 
     @Override
     public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> createToRuleEngineMsgConsumer(Queue configuration) {
-        return new InMemoryTbQueueConsumer<>(storage, topicService.buildTopicName(configuration.getTopic()));
+        String topic = topicService.buildTopicName(configuration.getTopic());
+        if (fileLogStorage.isPresent()) {
+            return new TbFileLogQueueConsumer<>(fileLogStorage.get(), topic, "re-" + configuration.getName(),
+                    msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToRuleEngineMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        }
+        return new InMemoryTbQueueConsumer<>(storage, topic);
     }
 
     @Override
@@ -113,7 +132,12 @@ public class InMemoryMonolithQueueFactory implements TbCoreQueueFactory, TbRuleE
 
     @Override
     public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToCoreMsg>> createToCoreMsgConsumer() {
-        return new InMemoryTbQueueConsumer<>(storage, topicService.buildTopicName(coreSettings.getTopic()));
+        String topic = topicService.buildTopicName(coreSettings.getTopic());
+        if (fileLogStorage.isPresent()) {
+            return new TbFileLogQueueConsumer<>(fileLogStorage.get(), topic, "core",
+                    msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToCoreMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        }
+        return new InMemoryTbQueueConsumer<>(storage, topic);
     }
 
     @Override
@@ -269,5 +293,6 @@ public class InMemoryMonolithQueueFactory implements TbCoreQueueFactory, TbRuleE
     @Scheduled(fixedRateString = "${queue.in_memory.stats.print-interval-ms:60000}")
     private void printInMemoryStats() {
         storage.printStats();
+        fileLogStorage.ifPresent(FileLogStorage::printStats);
     }
 }
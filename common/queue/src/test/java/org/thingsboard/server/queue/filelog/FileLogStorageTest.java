@@ -0,0 +1,228 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.filelog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueProto;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueType;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class FileLogStorageTest {
+
+    private static final String TOPIC = "tb_rule_engine.main";
+    private static final TopicPartitionInfo TPI = new TopicPartitionInfo(TOPIC, null, null, true);
+
+    @TempDir
+    Path dir;
+
+    private FileLogStorage storage;
+
+    @BeforeEach
+    public void setUp() {
+        storage = createStorage(1024 * 1024);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        storage.destroy();
+    }
+
+    @Test
+    public void testCommittedMessagesAreNotRedeliveredAfterRestart() {
+        TbFileLogQueueProducer<TbProtoQueueMsg<KeyValueProto>> producer = new TbFileLogQueueProducer<>(storage, TOPIC);
+        send(producer, 0, 10);
+
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> consumer = createConsumer();
+        assertThat(values(consumer.poll(100))).containsExactlyElementsOf(range(0, 10));
+        consumer.commit();
+        consumer.unsubscribe();
+
+        restart();
+        producer = new TbFileLogQueueProducer<>(storage, TOPIC);
+        send(producer, 10, 15);
+
+        consumer = createConsumer();
+        assertThat(values(consumer.poll(100))).containsExactlyElementsOf(range(10, 15));
+    }
+
+    @Test
+    public void testUncommittedMessagesAreRedeliveredAfterRestart() {
+        send(new TbFileLogQueueProducer<>(storage, TOPIC), 0, 10);
+
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> consumer = createConsumer();
+        assertThat(consumer.poll(100)).hasSize(10);
+        consumer.unsubscribe();
+
+        restart();
+        consumer = createConsumer();
+        List<TbProtoQueueMsg<KeyValueProto>> msgs = consumer.poll(100);
+        assertThat(values(msgs)).containsExactlyElementsOf(range(0, 10));
+        assertThat(new String(msgs.get(0).getHeaders().get("header"), StandardCharsets.UTF_8)).isEqualTo("value-0");
+    }
+
+    @Test
+    public void testSegmentsRollAndConsumedSegmentsAreDeleted() throws Exception {
+        storage.destroy();
+        storage = createStorage(512);
+        TbFileLogQueueProducer<TbProtoQueueMsg<KeyValueProto>> producer = new TbFileLogQueueProducer<>(storage, TOPIC);
+        send(producer, 0, 100);
+        assertThat(countSegments()).isGreaterThan(2);
+
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> consumer = createConsumer();
+        List<Long> received = new ArrayList<>();
+        List<TbProtoQueueMsg<KeyValueProto>> msgs;
+        while (!(msgs = consumer.poll(10)).isEmpty()) {
+            received.addAll(values(msgs));
+        }
+        assertThat(received).containsExactlyElementsOf(range(0, 100));
+        consumer.commit();
+
+        storage.getPartition(TOPIC).cleanUp();
+        assertThat(countSegments()).isEqualTo(1);
+        assertThat(storage.getLag(TOPIC, "test")).isZero();
+    }
+
+    @Test
+    public void testStaleGroupIsExpiredAndDoesNotBlockCleanUp() throws Exception {
+        storage.destroy();
+        storage = createStorage(512);
+        ReflectionTestUtils.setField(storage, "groupTtlMs", 200L);
+        send(new TbFileLogQueueProducer<>(storage, TOPIC), 0, 100);
+
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> staleConsumer = createConsumer("stale");
+        assertThat(staleConsumer.poll(10)).isNotEmpty();
+        staleConsumer.commit();
+        staleConsumer.unsubscribe();
+
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> consumer = createConsumer("test");
+        while (!consumer.poll(10).isEmpty()) {
+            consumer.commit();
+        }
+        long segments = countSegments();
+        storage.getPartition(TOPIC).cleanUp();
+        assertThat(countSegments()).isEqualTo(segments).isGreaterThan(1);
+
+        Thread.sleep(300);
+        storage.getPartition(TOPIC).cleanUp();
+        assertThat(countSegments()).isEqualTo(1);
+        assertThat(dir.resolve(TOPIC).resolve("stale.offset")).doesNotExist();
+        // the subscribed group is kept even though it didn't commit within the TTL
+        assertThat(dir.resolve(TOPIC).resolve("test.offset")).exists();
+        assertThat(storage.getLag(TOPIC, "test")).isZero();
+    }
+
+    @Test
+    public void testPollIsWokenUpByAppend() throws Exception {
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> consumer = createConsumer();
+        assertThat(consumer.poll(1)).isEmpty();
+
+        long start = System.nanoTime();
+        CompletableFuture<List<TbProtoQueueMsg<KeyValueProto>>> poll = CompletableFuture.supplyAsync(() -> consumer.poll(10000));
+        Thread.sleep(100);
+        send(new TbFileLogQueueProducer<>(storage, TOPIC), 0, 1);
+
+        assertThat(values(poll.get(5, TimeUnit.SECONDS))).containsExactly(0L);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+    }
+
+    @Test
+    public void testMessageLargerThanSegmentIsRejected() {
+        storage.destroy();
+        storage = createStorage(64);
+        TbQueueCallback callback = mock(TbQueueCallback.class);
+        KeyValueProto value = KeyValueProto.newBuilder().setKey("key").setType(KeyValueType.STRING_V).setStringV("x".repeat(100)).build();
+        new TbFileLogQueueProducer<TbProtoQueueMsg<KeyValueProto>>(storage, TOPIC).send(TPI, new TbProtoQueueMsg<>(UUID.randomUUID(), value), callback);
+        verify(callback).onFailure(org.mockito.ArgumentMatchers.any());
+    }
+
+    private FileLogStorage createStorage(int segmentSize) {
+        FileLogStorage storage = new FileLogStorage();
+        ReflectionTestUtils.setField(storage, "path", dir.toString());
+        ReflectionTestUtils.setField(storage, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(storage, "maxSegmentsPerPartition", 1000);
+        ReflectionTestUtils.setField(storage, "maxPollRecords", 1000);
+        ReflectionTestUtils.setField(storage, "flushIntervalMs", 60000L);
+        ReflectionTestUtils.setField(storage, "groupTtlMs", 3600000L);
+        storage.init();
+        return storage;
+    }
+
+    private void restart() {
+        storage.destroy();
+        storage = createStorage(1024 * 1024);
+    }
+
+    private TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> createConsumer() {
+        return createConsumer("test");
+    }
+
+    private TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> createConsumer(String group) {
+        TbFileLogQueueConsumer<TbProtoQueueMsg<KeyValueProto>> consumer = new TbFileLogQueueConsumer<>(storage, TOPIC, group,
+                msg -> new TbProtoQueueMsg<>(msg.getKey(), KeyValueProto.parseFrom(msg.getData()), msg.getHeaders()));
+        consumer.subscribe(Set.of(TPI));
+        return consumer;
+    }
+
+    private static void send(TbFileLogQueueProducer<TbProtoQueueMsg<KeyValueProto>> producer, long from, long to) {
+        for (long i = from; i < to; i++) {
+            DefaultTbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+            headers.put("header", ("value-" + i).getBytes(StandardCharsets.UTF_8));
+            KeyValueProto value = KeyValueProto.newBuilder().setKey("key").setType(KeyValueType.LONG_V).setLongV(i).build();
+            producer.send(TPI, new TbProtoQueueMsg<>(UUID.randomUUID(), value, headers), null);
+        }
+    }
+
+    private static List<Long> values(List<TbProtoQueueMsg<KeyValueProto>> msgs) {
+        return msgs.stream().map(msg -> msg.getValue().getLongV()).toList();
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> result = new ArrayList<>();
+        for (long i = from; i < to; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    private long countSegments() throws Exception {
+        try (Stream<Path> files = Files.list(dir.resolve(TOPIC))) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+
+}
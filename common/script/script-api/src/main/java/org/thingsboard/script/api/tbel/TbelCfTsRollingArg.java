@@ -38,6 +38,8 @@ public class TbelCfTsRollingArg implements TbelCfArg, Iterable<TbelCfTsDoubleVal
     private final TbTimeWindow timeWindow;
     @Getter
     private final List<TbelCfTsDoubleVal> values;
+    // precalculated by the rolling buffer, null if the argument is created from a plain list of values
+    private final TbelCfTsRollingBuffer.Aggregates aggregates;
 
     @JsonCreator
     public TbelCfTsRollingArg(
@@ -46,12 +48,18 @@ public class TbelCfTsRollingArg implements TbelCfArg, Iterable<TbelCfTsDoubleVal
     ) {
         this.timeWindow = timeWindow;
         this.values = Collections.unmodifiableList(values);
+        this.aggregates = null;
     }
 
     public TbelCfTsRollingArg(long timeWindow, List<TbelCfTsDoubleVal> values) {
+        this(timeWindow, values, null);
+    }
+
+    TbelCfTsRollingArg(long timeWindow, List<TbelCfTsDoubleVal> values, TbelCfTsRollingBuffer.Aggregates aggregates) {
         long ts = System.currentTimeMillis();
         this.timeWindow = new TbTimeWindow(ts - timeWindow, ts);
         this.values = Collections.unmodifiableList(values);
+        this.aggregates = aggregates;
     }
 
     @Override
@@ -72,6 +80,13 @@ public class TbelCfTsRollingArg implements TbelCfArg, Iterable<TbelCfTsDoubleVal
         if (values.isEmpty()) {
             throw new IllegalArgumentException("Rolling argument values are empty.");
         }
+        if (aggregates != null) {
+            if (!ignoreNaN && aggregates.nanCount() > 0) {
+                return Double.NaN;
+            }
+            // same result as the scan below, which starts from Double.MIN_VALUE
+            return aggregates.count() > 0 ? Math.max(aggregates.max(), Double.MIN_VALUE) : Double.MIN_VALUE;
+        }
 
         double max = Double.MIN_VALUE;
         for (TbelCfTsDoubleVal value : values) {
@@ -94,6 +109,12 @@ public class TbelCfTsRollingArg implements TbelCfArg, Iterable<TbelCfTsDoubleVal
         if (values.isEmpty()) {
             throw new IllegalArgumentException("Rolling argument values are empty.");
         }
+        if (aggregates != null) {
+            if (!ignoreNaN && aggregates.nanCount() > 0) {
+                return Double.NaN;
+            }
+            return aggregates.count() > 0 ? aggregates.min() : Double.MAX_VALUE;
+        }
 
         double min = Double.MAX_VALUE;
         for (TbelCfTsDoubleVal value : values) {
@@ -189,6 +210,9 @@ public class TbelCfTsRollingArg implements TbelCfArg, Iterable<TbelCfTsDoubleVal
     }
 
     public int count(boolean ignoreNaN) {
+        if (aggregates != null) {
+            return ignoreNaN ? aggregates.count() : values.size();
+        }
         int count = 0;
         if (ignoreNaN) {
             for (TbelCfTsDoubleVal value : values) {
@@ -253,6 +277,9 @@ public class TbelCfTsRollingArg implements TbelCfArg, Iterable<TbelCfTsDoubleVal
         if (values.isEmpty()) {
             throw new IllegalArgumentException("Rolling argument values are empty.");
         }
+        if (aggregates != null) {
+            return !ignoreNaN && aggregates.nanCount() > 0 ? Double.NaN : aggregates.sum();
+        }
 
         double sum = 0;
         for (TbelCfTsDoubleVal value : values) {
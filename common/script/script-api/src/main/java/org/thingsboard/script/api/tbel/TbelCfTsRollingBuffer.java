@@ -0,0 +1,496 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.script.api.tbel;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Time-ordered series of double values stored in parallel primitive arrays used as a ring buffer.
+ * <p>
+ * Appending a newer value and evicting the oldest ones are O(1); out-of-order values are inserted in place.
+ * Sum, count and min/max (via monotonic deques) are maintained incrementally, so that the common rolling
+ * aggregates do not need a full scan of the window. The buffer is also exposed as a {@code Map<Long, Double>}
+ * ordered by ts, and is not thread-safe: use {@link #toTbelCfArg(long)} to pass a snapshot to a script.
+ */
+public class TbelCfTsRollingBuffer extends AbstractMap<Long, Double> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private long[] ts;
+    private double[] values;
+    private int head;
+    private int size;
+
+    private double sum;
+    private int nanCount;
+    private int removalsSinceSumRecalculation;
+
+    private final MonotonicDeque minDeque = new MonotonicDeque(false);
+    private final MonotonicDeque maxDeque = new MonotonicDeque(true);
+    // deques are valid only while values are appended in ts order
+    private boolean dequesValid = true;
+
+    public TbelCfTsRollingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TbelCfTsRollingBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.ts = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    public TbelCfTsRollingBuffer(Map<Long, Double> records) {
+        this(records.size());
+        records.forEach((ts, value) -> putValue(ts.longValue(), value.doubleValue()));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTs(int idx) {
+        return ts[physical(idx)];
+    }
+
+    public double getValue(int idx) {
+        return values[physical(idx)];
+    }
+
+    public long firstTs() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return ts[head];
+    }
+
+    public long lastTs() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return ts[physical(size - 1)];
+    }
+
+    /**
+     * Adds the value or replaces the value with the same ts.
+     */
+    public void putValue(long ts, double value) {
+        if (size == 0 || ts > lastTs()) {
+            ensureCapacity();
+            int idx = physical(size);
+            this.ts[idx] = ts;
+            this.values[idx] = value;
+            size++;
+            onAdded(value);
+            if (dequesValid) {
+                minDeque.add(ts, value);
+                maxDeque.add(ts, value);
+            }
+            return;
+        }
+        int pos = indexOf(ts);
+        if (pos >= 0) {
+            int idx = physical(pos);
+            onRemoved(this.values[idx]);
+            this.values[idx] = value;
+            onAdded(value);
+        } else {
+            insert(-(pos + 1), ts, value);
+            onAdded(value);
+        }
+        dequesValid = false;
+    }
+
+    @Override
+    public Double put(Long ts, Double value) {
+        Double previous = get(ts);
+        putValue(ts.longValue(), value.doubleValue());
+        return previous;
+    }
+
+    @Override
+    public Double get(Object key) {
+        if (key instanceof Long ts) {
+            int pos = indexOf(ts);
+            return pos >= 0 ? values[physical(pos)] : null;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long ts && indexOf(ts) >= 0;
+    }
+
+    @Override
+    public Double remove(Object key) {
+        if (key instanceof Long ts) {
+            int pos = indexOf(ts);
+            if (pos >= 0) {
+                double value = values[physical(pos)];
+                removeAt(pos);
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public void removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long removedTs = ts[head];
+        double removedValue = values[head];
+        head = (head + 1) % ts.length;
+        size--;
+        onEvicted(removedTs, removedValue);
+    }
+
+    /**
+     * Evicts all values with ts less than the given one.
+     */
+    public void removeBefore(long minTs) {
+        while (size > 0 && ts[head] < minTs) {
+            removeFirst();
+        }
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        size = 0;
+        sum = 0;
+        nanCount = 0;
+        removalsSinceSumRecalculation = 0;
+        minDeque.clear();
+        maxDeque.clear();
+        dequesValid = true;
+    }
+
+    /**
+     * Sum of the values that are not NaN.
+     */
+    public double sum() {
+        return sum;
+    }
+
+    public int nanCount() {
+        return nanCount;
+    }
+
+    /**
+     * Minimum of the values that are not NaN, or {@code Double.NaN} if there are no such values.
+     */
+    public double min() {
+        validateDeques();
+        return minDeque.isEmpty() ? Double.NaN : minDeque.first();
+    }
+
+    /**
+     * Maximum of the values that are not NaN, or {@code Double.NaN} if there are no such values.
+     */
+    public double max() {
+        validateDeques();
+        return maxDeque.isEmpty() ? Double.NaN : maxDeque.first();
+    }
+
+    public TbelCfTsRollingArg toTbelCfArg(long timeWindow) {
+        long[] tsCopy = new long[size];
+        double[] valuesCopy = new double[size];
+        copyTo(tsCopy, valuesCopy);
+        Aggregates aggregates = new Aggregates(sum, size - nanCount, nanCount, min(), max());
+        return new TbelCfTsRollingArg(timeWindow, new TsDoubleValList(tsCopy, valuesCopy), aggregates);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Long, ? super Double> action) {
+        for (int i = 0; i < size; i++) {
+            int idx = physical(i);
+            action.accept(ts[idx], values[idx]);
+        }
+    }
+
+    @Override
+    public Set<Entry<Long, Double>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Long, Double>> iterator() {
+                return new Iterator<>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < size;
+                    }
+
+                    @Override
+                    public Entry<Long, Double> next() {
+                        if (i >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        int idx = physical(i++);
+                        return new SimpleImmutableEntry<>(ts[idx], values[idx]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int physical(int idx) {
+        int physical = head + idx;
+        return physical < ts.length ? physical : physical - ts.length;
+    }
+
+    /**
+     * Binary search over the logical positions, same contract as {@link Arrays#binarySearch(long[], long)}.
+     */
+    private int indexOf(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midTs = ts[physical(mid)];
+            if (midTs < key) {
+                low = mid + 1;
+            } else if (midTs > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insert(int pos, long ts, double value) {
+        ensureCapacity();
+        for (int i = size; i > pos; i--) {
+            int to = physical(i);
+            int from = physical(i - 1);
+            this.ts[to] = this.ts[from];
+            this.values[to] = this.values[from];
+        }
+        int idx = physical(pos);
+        this.ts[idx] = ts;
+        this.values[idx] = value;
+        size++;
+    }
+
+    private void removeAt(int pos) {
+        double removedValue = values[physical(pos)];
+        for (int i = pos; i < size - 1; i++) {
+            int to = physical(i);
+            int from = physical(i + 1);
+            ts[to] = ts[from];
+            values[to] = values[from];
+        }
+        size--;
+        onRemoved(removedValue);
+        removalsSinceSumRecalculation++;
+        dequesValid = false;
+    }
+
+    private void ensureCapacity() {
+        if (size < ts.length) {
+            return;
+        }
+        int newCapacity = ts.length * 2;
+        long[] newTs = new long[newCapacity];
+        double[] newValues = new double[newCapacity];
+        copyTo(newTs, newValues);
+        ts = newTs;
+        values = newValues;
+        head = 0;
+    }
+
+    private void copyTo(long[] tsTarget, double[] valuesTarget) {
+        int firstPart = Math.min(size, ts.length - head);
+        System.arraycopy(ts, head, tsTarget, 0, firstPart);
+        System.arraycopy(values, head, valuesTarget, 0, firstPart);
+        System.arraycopy(ts, 0, tsTarget, firstPart, size - firstPart);
+        System.arraycopy(values, 0, valuesTarget, firstPart, size - firstPart);
+    }
+
+    private void onAdded(double value) {
+        if (Double.isNaN(value)) {
+            nanCount++;
+        } else {
+            sum += value;
+        }
+    }
+
+    private void onRemoved(double value) {
+        if (Double.isNaN(value)) {
+            nanCount--;
+        } else {
+            sum -= value;
+        }
+    }
+
+    private void onEvicted(long ts, double value) {
+        onRemoved(value);
+        if (dequesValid) {
+            minDeque.evict(ts);
+            maxDeque.evict(ts);
+        }
+        // subtraction accumulates rounding errors, so the sum is recalculated after the whole window was replaced
+        if (++removalsSinceSumRecalculation > size) {
+            recalculateSum();
+        }
+    }
+
+    private void recalculateSum() {
+        double newSum = 0;
+        for (int i = 0; i < size; i++) {
+            double value = values[physical(i)];
+            if (!Double.isNaN(value)) {
+                newSum += value;
+            }
+        }
+        sum = newSum;
+        removalsSinceSumRecalculation = 0;
+    }
+
+    private void validateDeques() {
+        if (dequesValid) {
+            return;
+        }
+        minDeque.clear();
+        maxDeque.clear();
+        for (int i = 0; i < size; i++) {
+            int idx = physical(i);
+            minDeque.add(ts[idx], values[idx]);
+            maxDeque.add(ts[idx], values[idx]);
+        }
+        dequesValid = true;
+    }
+
+    /**
+     * Aggregates of a buffer snapshot; min and max are NaN when all values are NaN.
+     */
+    public record Aggregates(double sum, int count, int nanCount, double min, double max) {}
+
+    private static class MonotonicDeque {
+
+        private final boolean max;
+        private long[] ts = new long[DEFAULT_CAPACITY];
+        private double[] values = new double[DEFAULT_CAPACITY];
+        private int head;
+        private int size;
+
+        MonotonicDeque(boolean max) {
+            this.max = max;
+        }
+
+        void add(long ts, double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            while (size > 0 && dominates(value, values[physical(size - 1)])) {
+                size--;
+            }
+            if (size == this.ts.length) {
+                grow();
+            }
+            int idx = physical(size);
+            this.ts[idx] = ts;
+            this.values[idx] = value;
+            size++;
+        }
+
+        void evict(long ts) {
+            if (size > 0 && this.ts[head] == ts) {
+                head = (head + 1) % this.ts.length;
+                size--;
+            }
+        }
+
+        double first() {
+            return values[head];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private boolean dominates(double value, double other) {
+            return max ? value >= other : value <= other;
+        }
+
+        private int physical(int idx) {
+            return (head + idx) % ts.length;
+        }
+
+        private void grow() {
+            long[] newTs = new long[ts.length * 2];
+            double[] newValues = new double[ts.length * 2];
+            for (int i = 0; i < size; i++) {
+                newTs[i] = ts[physical(i)];
+                newValues[i] = values[physical(i)];
+            }
+            ts = newTs;
+            values = newValues;
+            head = 0;
+        }
+
+    }
+
+    private static class TsDoubleValList extends AbstractList<TbelCfTsDoubleVal> {
+
+        private final long[] ts;
+        private final double[] values;
+
+        TsDoubleValList(long[] ts, double[] values) {
+            this.ts = ts;
+            this.values = values;
+        }
+
+        @Override
+        public TbelCfTsDoubleVal get(int index) {
+            return new TbelCfTsDoubleVal(ts[index], values[index]);
+        }
+
+        @Override
+        public int size() {
+            return ts.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.script.api.tbel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TbelCfTsRollingBufferTest {
+
+    @Test
+    void testAppendAndEvictAcrossRingBoundary() {
+        TbelCfTsRollingBuffer buffer = new TbelCfTsRollingBuffer(4);
+        for (long ts = 1; ts <= 10; ts++) {
+            buffer.putValue(ts, ts * 10);
+            if (buffer.size() > 4) {
+                buffer.removeFirst();
+            }
+        }
+
+        assertThat(buffer).isEqualTo(Map.of(7L, 70.0, 8L, 80.0, 9L, 90.0, 10L, 100.0));
+        assertThat(buffer.firstTs()).isEqualTo(7L);
+        assertThat(buffer.lastTs()).isEqualTo(10L);
+        assertThat(buffer.sum()).isEqualTo(340.0);
+        assertThat(buffer.min()).isEqualTo(70.0);
+        assertThat(buffer.max()).isEqualTo(100.0);
+
+        buffer.removeBefore(9);
+        assertThat(buffer.keySet()).containsExactly(9L, 10L);
+        assertThat(buffer.min()).isEqualTo(90.0);
+    }
+
+    @Test
+    void testOutOfOrderInsertAndReplace() {
+        TbelCfTsRollingBuffer buffer = new TbelCfTsRollingBuffer(2);
+        buffer.putValue(10, 1.0);
+        buffer.putValue(30, 3.0);
+        buffer.putValue(20, 5.0);
+        buffer.putValue(5, Double.NaN);
+        buffer.putValue(30, -1.0);
+
+        assertThat(buffer.keySet()).containsExactly(5L, 10L, 20L, 30L);
+        assertThat(buffer.get(30L)).isEqualTo(-1.0);
+        assertThat(buffer.get(5L)).isNaN();
+        assertThat(buffer.nanCount()).isEqualTo(1);
+        assertThat(buffer.sum()).isEqualTo(5.0);
+        assertThat(buffer.min()).isEqualTo(-1.0);
+        assertThat(buffer.max()).isEqualTo(5.0);
+
+        buffer.removeFirst();
+        assertThat(buffer.nanCount()).isZero();
+        assertThat(buffer.remove(20L)).isEqualTo(5.0);
+        assertThat(buffer.max()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testAggregatesMatchFullScan() {
+        Random random = new Random(42);
+        TbelCfTsRollingBuffer buffer = new TbelCfTsRollingBuffer();
+        TreeMap<Long, Double> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            long ts = i * 10L + (random.nextInt(10) == 0 ? -random.nextInt(100) : 0);
+            double value = random.nextInt(20) == 0 ? Double.NaN : random.nextGaussian() * 100;
+            buffer.putValue(ts, value);
+            expected.put(ts, value);
+            while (expected.size() > 50) {
+                expected.pollFirstEntry();
+                buffer.removeFirst();
+            }
+
+            TbelCfTsRollingArg actualArg = buffer.toTbelCfArg(60000);
+            TbelCfTsRollingArg expectedArg = toArg(expected);
+            assertThat(actualArg.getValues()).isEqualTo(expectedArg.getValues());
+            assertThat(actualArg.count()).isEqualTo(expectedArg.count());
+            assertThat(actualArg.count(false)).isEqualTo(expectedArg.count(false));
+            assertThat(actualArg.sum()).isCloseTo(expectedArg.sum(), within(1e-6));
+            assertThat(actualArg.min()).isEqualTo(expectedArg.min());
+            assertThat(actualArg.max()).isEqualTo(expectedArg.max());
+            assertThat(actualArg.max(false)).isEqualTo(expectedArg.max(false));
+            assertThat(actualArg.sum(false)).isEqualTo(expectedArg.sum(false));
+        }
+    }
+
+    private static TbelCfTsRollingArg toArg(TreeMap<Long, Double> records) {
+        List<TbelCfTsDoubleVal> values = new ArrayList<>();
+        records.forEach((ts, value) -> values.add(new TbelCfTsDoubleVal(ts, value)));
+        return new TbelCfTsRollingArg(60000, values);
+    }
+
+}
@@ -50,4 +50,10 @@ public class DummyEdqsStatsService implements EdqsStatsService {
     @Override
     public void reportStringUncompressed() {}
 
+    @Override
+    public void reportSortIndexHit() {}
+
+    @Override
+    public void reportSortIndexMiss() {}
+
 }
@@ -38,4 +38,8 @@ public interface EdqsStatsService {
 
     void reportStringUncompressed();
 
+    void reportSortIndexHit();
+
+    void reportSortIndexMiss();
+
 }
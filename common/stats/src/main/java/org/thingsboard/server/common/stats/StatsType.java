@@ -24,7 +24,9 @@ public enum StatsType {
     RATE_EXECUTOR("rateExecutor"),
     HOUSEKEEPER("housekeeper"),
     EDGE("edge"),
-    EDQS("edqs");
+    EDQS("edqs"),
+    RULE_NODE_STATE("ruleNodeState"),
+    DEVICE_STATE("deviceState");
 
     private final String name;
 
@@ -34,6 +34,7 @@ import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsRes
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.transport.coap.callback.CoapDeviceAuthCallback;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -115,13 +116,12 @@ public class OtaPackageTransportResource extends AbstractCoapTransportResource {
             String title = exchange.getQueryParameter("title");
             String version = exchange.getQueryParameter("version");
             if (msg.getResponseStatus().equals(TransportProtos.ResponseStatus.SUCCESS)) {
-                String firmwareId = new UUID(msg.getOtaPackageIdMSB(), msg.getOtaPackageIdLSB()).toString();
                 if ((title == null || msg.getTitle().equals(title)) && (version == null || msg.getVersion().equals(version))) {
                     String strChunkSize = exchange.getQueryParameter("size");
                     String strChunk = exchange.getQueryParameter("chunk");
                     int chunkSize = StringUtils.isEmpty(strChunkSize) ? 0 : Integer.parseInt(strChunkSize);
                     int chunk = StringUtils.isEmpty(strChunk) ? 0 : Integer.parseInt(strChunk);
-                    respondOtaPackage(exchange, transportContext.getOtaPackageDataCache().get(firmwareId, chunkSize, chunk));
+                    respondOtaPackage(exchange, transportContext.getOtaPackageBlobStore().get(msg, chunkSize, chunk));
                 } else {
                     exchange.respond(CoAP.ResponseCode.BAD_REQUEST);
                 }
@@ -137,9 +137,16 @@ public class OtaPackageTransportResource extends AbstractCoapTransportResource {
         }
     }
 
-    private void respondOtaPackage(CoapExchange exchange, byte[] data) {
+    private void respondOtaPackage(CoapExchange exchange, ByteBuffer chunkData) {
+        if (chunkData == null) {
+            exchange.respond(CoAP.ResponseCode.SERVICE_UNAVAILABLE);
+            return;
+        }
         Response response = new Response(CoAP.ResponseCode.CONTENT);
-        if (data != null && data.length > 0) {
+        if (chunkData.hasRemaining()) {
+            // the CoAP payload is a byte array, so only the requested chunk is copied from the store
+            byte[] data = new byte[chunkData.remaining()];
+            chunkData.get(data);
             response.setPayload(data);
             if (exchange.getRequestOptions().getBlock2() != null) {
                 int chunkSize = exchange.getRequestOptions().getBlock2().getSzx();
@@ -44,13 +44,13 @@ import org.springframework.util.ConcurrentReferenceHashMap;
 import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.server.common.adaptor.AdaptorException;
 import org.thingsboard.server.common.adaptor.JsonConverter;
+import org.thingsboard.server.common.adaptor.JsonTelemetryReader.GatewayDeviceTelemetry;
 import org.thingsboard.server.common.adaptor.ProtoConverter;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.DeviceProfile;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.DeviceId;
-import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.msg.gateway.metrics.GatewayMetadata;
 import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
 import org.thingsboard.server.common.transport.TransportService;
@@ -406,16 +406,16 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
     }
 
     protected void onDeviceTelemetryJson(int msgId, ByteBuf payload) throws AdaptorException {
-        JsonElement json = JsonMqttAdaptor.validateJsonPayload(sessionId, payload);
-        validateJsonObject(json);
+        long systemTs = System.currentTimeMillis();
+        Map<String, GatewayDeviceTelemetry> telemetry = JsonMqttAdaptor.readGatewayTelemetry(sessionId, payload, systemTs);
 
-        List<Map.Entry<String, JsonElement>> deviceEntries = json.getAsJsonObject().entrySet().stream()
+        List<Map.Entry<String, GatewayDeviceTelemetry>> deviceEntries = telemetry.entrySet().stream()
                 .filter(entry -> {
-                    final boolean isArray = entry.getValue().isJsonArray();
-                    if (!isArray) {
-                        log.warn("{} device='{}' value={}", CAN_T_PARSE_VALUE, entry.getKey(), entry.getValue());
+                    final boolean isValid = entry.getValue().isValid();
+                    if (!isValid) {
+                        log.warn("{} device='{}' value={}", CAN_T_PARSE_VALUE, entry.getKey(), entry.getValue().invalidValue());
                     }
-                    return isArray;
+                    return isValid;
                 })
                 .toList();
 
@@ -427,26 +427,27 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         AtomicInteger remaining = new AtomicInteger(deviceEntries.size());
         AtomicBoolean ackSent = new AtomicBoolean(false);
 
-        for (Map.Entry<String, JsonElement> deviceEntry : deviceEntries) {
+        for (Map.Entry<String, GatewayDeviceTelemetry> deviceEntry : deviceEntries) {
             String deviceName = deviceEntry.getKey();
-            process(deviceName, deviceCtx -> processPostTelemetryMsg(deviceCtx, deviceEntry.getValue(), deviceName, msgId,
+            process(deviceName, deviceCtx -> processPostTelemetryMsg(deviceCtx, deviceEntry.getValue(), systemTs, deviceName, msgId,
                             remaining, ackSent),
                     t -> processFailure(msgId, deviceName, TELEMETRY, ackSent, t));
         }
     }
 
-    private void processPostTelemetryMsg(T deviceCtx, JsonElement msg, String deviceName, int msgId, AtomicInteger remaining, AtomicBoolean ackSent) {
+    private void processPostTelemetryMsg(T deviceCtx, GatewayDeviceTelemetry msg, long systemTs, String deviceName, int msgId, AtomicInteger remaining, AtomicBoolean ackSent) {
         try {
-            long systemTs = System.currentTimeMillis();
-            TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> gatewayPayloadPair = JsonConverter.convertToGatewayTelemetry(msg.getAsJsonArray(), systemTs);
-            TransportProtos.PostTelemetryMsg postTelemetryMsg = gatewayPayloadPair.getFirst();
-            List<GatewayMetadata> metadata = gatewayPayloadPair.getSecond();
+            if (msg.error() != null) {
+                throw msg.error();
+            }
+            TransportProtos.PostTelemetryMsg postTelemetryMsg = msg.telemetry();
+            List<GatewayMetadata> metadata = msg.metadata();
             if (!CollectionUtils.isEmpty(metadata)) {
                 gatewayMetricsService.process(deviceSessionCtx.getSessionInfo(), gateway.getDeviceId(), metadata, systemTs);
             }
             transportService.process(deviceCtx.getSessionInfo(), postTelemetryMsg, getAggregatePubAckCallback(channel, msgId, deviceName, postTelemetryMsg, remaining, ackSent));
         } catch (Throwable e) {
-            log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, msg, e);
+            log.warn("[{}][{}][{}] Failed to convert telemetry", gateway.getTenantId(), gateway.getDeviceId(), deviceName, e);
             ackOrClose(msgId, ackSent);
         }
     }
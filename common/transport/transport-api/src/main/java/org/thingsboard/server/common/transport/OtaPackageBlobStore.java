@@ -0,0 +1,30 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport;
+
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+
+import java.nio.ByteBuffer;
+
+public interface OtaPackageBlobStore {
+
+    /**
+     * Returns a read-only view of the requested chunk of the OTA package data, or of the whole package if the chunk size is less than 1.
+     * The returned buffer is empty if the chunk is out of range and null if the package data is not available or does not match the checksum.
+     */
+    ByteBuffer get(GetOtaPackageResponseMsg otaPackage, int chunkSize, int chunk);
+
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.ota.ChecksumAlgorithm;
+import org.thingsboard.server.common.transport.OtaPackageBlobStore;
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+import org.thingsboard.server.queue.util.TbTransportComponent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Materializes each OTA package from the {@link OtaPackageDataCache} into a local file once and serves the chunks
+ * as slices of the memory-mapped file, so the chunk requests do not copy the package data on the heap.
+ * The files are evicted in the least recently used order when the total size exceeds the configured limit.
+ * Packages that do not fit into the store are served from the cache, and packages that failed the checksum
+ * verification are not fetched again until the negative cache entry expires.
+ */
+@Slf4j
+@Component
+@TbTransportComponent
+@RequiredArgsConstructor
+public class DefaultOtaPackageBlobStore implements OtaPackageBlobStore {
+
+    private static final String FILE_EXTENSION = ".bin";
+    private static final String TMP_FILE_EXTENSION = ".tmp";
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final OtaPackageDataCache otaPackageDataCache;
+
+    @Value("${transport.ota.blob_store.enabled:false}")
+    private boolean enabled;
+    @Value("${transport.ota.blob_store.path:${java.io.tmpdir}/tb-ota-packages}")
+    private String path;
+    @Value("${transport.ota.blob_store.max_size_mb:1024}")
+    private long maxSizeMb;
+    @Value("${transport.ota.blob_store.expire_after_access_sec:3600}")
+    private long expireAfterAccessSec;
+    @Value("${transport.ota.blob_store.negative_cache_ttl_sec:60}")
+    private long negativeCacheTtlSec;
+
+    private Path directory;
+    private long maxSizeBytes;
+    private Cache<String, OtaPackageBlob> blobs;
+    private Cache<String, SkipReason> skipped;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(path);
+        Files.createDirectories(directory);
+        // files left after the previous run are not tracked by the cache
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(DefaultOtaPackageBlobStore::isStoreFile).forEach(DefaultOtaPackageBlobStore::delete);
+        }
+        maxSizeBytes = maxSizeMb * 1024 * 1024;
+        blobs = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String key, OtaPackageBlob blob) -> blob.data().capacity())
+                .expireAfterAccess(expireAfterAccessSec, TimeUnit.SECONDS)
+                .executor(Runnable::run)
+                // mapped buffers that are still in use stay readable after the file is deleted
+                .removalListener((String key, OtaPackageBlob blob, RemovalCause cause) -> {
+                    if (blob != null) {
+                        delete(blob.file());
+                    }
+                })
+                .build();
+        skipped = Caffeine.newBuilder()
+                .expireAfterWrite(negativeCacheTtlSec, TimeUnit.SECONDS)
+                .build();
+        log.info("OTA package blob store is enabled, path: {}, max size: {} MB", directory, maxSizeMb);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (blobs != null) {
+            blobs.invalidateAll();
+            blobs.cleanUp();
+        }
+    }
+
+    @Override
+    public ByteBuffer get(GetOtaPackageResponseMsg otaPackage, int chunkSize, int chunk) {
+        String otaPackageId = new UUID(otaPackage.getOtaPackageIdMSB(), otaPackage.getOtaPackageIdLSB()).toString();
+        if (!enabled || otaPackage.getDataSize() > maxSizeBytes) {
+            return getFromCache(otaPackageId, chunkSize, chunk);
+        }
+        SkipReason skipReason = skipped.getIfPresent(otaPackageId);
+        if (skipReason != null) {
+            return skipReason == SkipReason.OVERSIZED ? getFromCache(otaPackageId, chunkSize, chunk) : null;
+        }
+        OtaPackageBlob blob;
+        try {
+            blob = blobs.get(otaPackageId, key -> materialize(key, otaPackage.getChecksumAlgorithm(), otaPackage.getChecksum()));
+        } catch (UncheckedIOException e) {
+            log.warn("[{}] Failed to store OTA package data in the file, falling back to the cache", otaPackageId, e);
+            return getFromCache(otaPackageId, chunkSize, chunk);
+        }
+        if (blob == null) {
+            return skipped.getIfPresent(otaPackageId) == SkipReason.OVERSIZED ? getFromCache(otaPackageId, chunkSize, chunk) : null;
+        }
+        return slice(blob.data(), chunkSize, chunk);
+    }
+
+    private ByteBuffer getFromCache(String otaPackageId, int chunkSize, int chunk) {
+        byte[] data = otaPackageDataCache.get(otaPackageId, chunkSize, chunk);
+        return data != null ? ByteBuffer.wrap(data).asReadOnlyBuffer() : null;
+    }
+
+    private OtaPackageBlob materialize(String otaPackageId, String checksumAlgorithm, String checksum) {
+        byte[] data = otaPackageDataCache.get(otaPackageId);
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (!verifyChecksum(data, checksumAlgorithm, checksum)) {
+            log.warn("[{}] OTA package data does not match the {} checksum, skipping it", otaPackageId, checksumAlgorithm);
+            skipped.put(otaPackageId, SkipReason.INVALID);
+            return null;
+        }
+        if (data.length > maxSizeBytes) {
+            log.debug("[{}] OTA package data exceeds the store size ({} bytes), serving it from the cache", otaPackageId, data.length);
+            skipped.put(otaPackageId, SkipReason.OVERSIZED);
+            return null;
+        }
+        Path file = directory.resolve(otaPackageId + FILE_EXTENSION);
+        try {
+            Path tmpFile = Files.createTempFile(directory, otaPackageId, TMP_FILE_EXTENSION);
+            try {
+                Files.write(tmpFile, data);
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                log.debug("[{}] Stored OTA package data in the file {} ({} bytes)", otaPackageId, file, data.length);
+                return new OtaPackageBlob(file, mapped);
+            }
+        } catch (IOException e) {
+            delete(file);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static ByteBuffer slice(ByteBuffer data, int chunkSize, int chunk) {
+        if (chunkSize < 1) {
+            return data.duplicate();
+        }
+        long startIndex = (long) chunkSize * chunk;
+        if (startIndex >= data.capacity()) {
+            return EMPTY;
+        }
+        int size = (int) Math.min(data.capacity() - startIndex, chunkSize);
+        return data.slice((int) startIndex, size);
+    }
+
+    static boolean verifyChecksum(byte[] data, String checksumAlgorithm, String checksum) {
+        if (StringUtils.isEmpty(checksumAlgorithm) || StringUtils.isEmpty(checksum)) {
+            return true;
+        }
+        return getHashFunction(ChecksumAlgorithm.valueOf(checksumAlgorithm)).hashBytes(data).toString().equalsIgnoreCase(checksum);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static HashFunction getHashFunction(ChecksumAlgorithm checksumAlgorithm) {
+        return switch (checksumAlgorithm) {
+            case MD5 -> Hashing.md5();
+            case SHA256 -> Hashing.sha256();
+            case SHA384 -> Hashing.sha384();
+            case SHA512 -> Hashing.sha512();
+            case CRC32 -> Hashing.crc32();
+            case MURMUR3_32 -> Hashing.murmur3_32();
+            case MURMUR3_128 -> Hashing.murmur3_128();
+        };
+    }
+
+    private static boolean isStoreFile(Path file) {
+        String fileName = file.getFileName().toString();
+        return Files.isRegularFile(file) && (fileName.endsWith(FILE_EXTENSION) || fileName.endsWith(TMP_FILE_EXTENSION));
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete OTA package file {}", file, e);
+        }
+    }
+
+    private record OtaPackageBlob(Path file, ByteBuffer data) {
+    }
+
+    private enum SkipReason {
+        INVALID, OVERSIZED
+    }
+
+}
@@ -21,6 +21,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.protobuf.Message;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -125,6 +126,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -156,6 +158,10 @@ public class DefaultTransportService extends TransportActivityManager implements
     private int notificationsPollDuration;
     @Value("${transport.stats.enabled:false}")
     private boolean statsEnabled;
+    @Value("${cache.transportCredentials.timeToLiveInMinutes:5}")
+    private int credentialsCacheTtl;
+    @Value("${cache.transportCredentials.maxSize:100000}")
+    private int credentialsCacheMaxSize;
 
     @Autowired
     @Lazy
@@ -195,6 +201,8 @@ public class DefaultTransportService extends TransportActivityManager implements
 
     private final Map<String, RpcRequestMetadata> toServerRpcPendingMap = new ConcurrentHashMap<>();
 
+    private TransportCredentialsCache credentialsCache;
+
     @PostConstruct
     public void init() {
         super.init();
@@ -202,6 +210,12 @@ public class DefaultTransportService extends TransportActivityManager implements
         this.tbCoreProducerStats = statsFactory.createMessagesStats(StatsType.CORE.getName() + ".producer");
         this.transportApiStats = statsFactory.createMessagesStats(StatsType.TRANSPORT.getName() + ".producer");
         this.transportCallbackExecutor = ThingsBoardExecutors.newWorkStealingPool(20, getClass());
+        this.credentialsCache = new TransportCredentialsCache(TimeUnit.MINUTES.toMillis(credentialsCacheTtl), credentialsCacheMaxSize);
+        if (credentialsCache.isEnabled()) {
+            createGaugeStats("credentialsCacheHits", credentialsCache.getHits());
+            createGaugeStats("credentialsCacheMisses", credentialsCache.getMisses());
+            createGaugeStats("credentialsCacheCollapsed", credentialsCache.getCollapsed());
+        }
         this.scheduler.scheduleAtFixedRate(this::invalidateRateLimits, new Random().nextInt((int) sessionReportTimeout), sessionReportTimeout, TimeUnit.MILLISECONDS);
         transportApiRequestTemplate = queueProvider.createTransportApiRequestTemplate();
         transportApiRequestTemplate.setMessagesStats(transportApiStats);
@@ -353,18 +367,14 @@ public class DefaultTransportService extends TransportActivityManager implements
     public void process(DeviceTransportType transportType, TransportProtos.ValidateDeviceTokenRequestMsg msg,
                         TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
         log.trace("Processing msg: {}", msg);
-        TbProtoQueueMsg<TransportApiRequestMsg> protoMsg = new TbProtoQueueMsg<>(UUID.randomUUID(),
-                TransportApiRequestMsg.newBuilder().setValidateTokenRequestMsg(msg).build());
-        doProcess(transportType, protoMsg, callback);
+        doProcessCached(transportType, msg, () -> TransportApiRequestMsg.newBuilder().setValidateTokenRequestMsg(msg).build(), callback);
     }
 
     @Override
     public void process(DeviceTransportType transportType, TransportProtos.ValidateBasicMqttCredRequestMsg msg,
                         TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
         log.trace("Processing msg: {}", msg);
-        TbProtoQueueMsg<TransportApiRequestMsg> protoMsg = new TbProtoQueueMsg<>(UUID.randomUUID(),
-                TransportApiRequestMsg.newBuilder().setValidateBasicMqttCredRequestMsg(msg).build());
-        doProcess(transportType, protoMsg, callback);
+        doProcessCached(transportType, msg, () -> TransportApiRequestMsg.newBuilder().setValidateBasicMqttCredRequestMsg(msg).build(), callback);
     }
 
     @Override
@@ -391,8 +401,7 @@ public class DefaultTransportService extends TransportActivityManager implements
     @Override
     public void process(DeviceTransportType transportType, TransportProtos.ValidateDeviceX509CertRequestMsg msg, TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
         log.trace("Processing msg: {}", msg);
-        TbProtoQueueMsg<TransportApiRequestMsg> protoMsg = new TbProtoQueueMsg<>(UUID.randomUUID(), TransportApiRequestMsg.newBuilder().setValidateX509CertRequestMsg(msg).build());
-        doProcess(transportType, protoMsg, callback);
+        doProcessCached(transportType, msg, () -> TransportApiRequestMsg.newBuilder().setValidateX509CertRequestMsg(msg).build(), callback);
     }
 
     @Override
@@ -402,10 +411,25 @@ public class DefaultTransportService extends TransportActivityManager implements
         doProcess(transportType, protoMsg, callback);
     }
 
+    private void doProcessCached(DeviceTransportType transportType, Message request, Supplier<TransportApiRequestMsg> apiRequestSupplier,
+                                 TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
+        ListenableFuture<TransportProtos.ValidateDeviceCredentialsResponseMsg> responseMsg = credentialsCache.get(request,
+                () -> sendValidateCredentialsRequest(new TbProtoQueueMsg<>(UUID.randomUUID(), apiRequestSupplier.get())));
+        doProcess(transportType, responseMsg, callback);
+    }
+
     private void doProcess(DeviceTransportType transportType, TbProtoQueueMsg<TransportApiRequestMsg> protoMsg,
                            TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
-        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
-            TransportProtos.ValidateDeviceCredentialsResponseMsg msg = tmp.getValue().getValidateCredResponseMsg();
+        doProcess(transportType, sendValidateCredentialsRequest(protoMsg), callback);
+    }
+
+    private ListenableFuture<TransportProtos.ValidateDeviceCredentialsResponseMsg> sendValidateCredentialsRequest(TbProtoQueueMsg<TransportApiRequestMsg> protoMsg) {
+        return Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> tmp.getValue().getValidateCredResponseMsg(), MoreExecutors.directExecutor());
+    }
+
+    private void doProcess(DeviceTransportType transportType, ListenableFuture<TransportProtos.ValidateDeviceCredentialsResponseMsg> responseMsg,
+                           TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
+        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(responseMsg, msg -> {
             ValidateDeviceCredentialsResponse.ValidateDeviceCredentialsResponseBuilder result = ValidateDeviceCredentialsResponse.builder();
             if (msg.hasDeviceInfo()) {
                 result.credentials(msg.getCredentialsBody());
@@ -925,16 +949,22 @@ public class DefaultTransportService extends TransportActivityManager implements
                 UUID entityUuid = new UUID(msg.getEntityIdMSB(), msg.getEntityIdLSB());
                 if (EntityType.DEVICE_PROFILE.equals(entityType)) {
                     deviceProfileCache.evict(new DeviceProfileId(new UUID(msg.getEntityIdMSB(), msg.getEntityIdLSB())));
+                    credentialsCache.evictByDeviceProfile(entityUuid);
                 } else if (EntityType.TENANT_PROFILE.equals(entityType)) {
                     tenantProfileCache.remove(new TenantProfileId(entityUuid));
                 } else if (EntityType.TENANT.equals(entityType)) {
                     TenantId tenantId = TenantId.fromUUID(entityUuid);
                     rateLimitService.remove(tenantId);
                     partitionService.removeTenant(tenantId);
+                    credentialsCache.evictByTenant(entityUuid);
                 } else if (EntityType.DEVICE.equals(entityType)) {
                     rateLimitService.remove(new DeviceId(entityUuid));
+                    credentialsCache.evictByDevice(entityUuid);
                     onDeviceDeleted(new DeviceId(entityUuid));
                 }
+            } else if (toSessionMsg.hasDeviceCredentialsUpdateMsg()) {
+                TransportProtos.DeviceCredentialsUpdateMsg msg = toSessionMsg.getDeviceCredentialsUpdateMsg();
+                credentialsCache.evictByDevice(new UUID(msg.getDeviceIdMSB(), msg.getDeviceIdLSB()));
             } else if (toSessionMsg.hasResourceUpdateMsg()) {
                 TransportProtos.ResourceUpdateMsg msg = toSessionMsg.getResourceUpdateMsg();
                 TenantId tenantId = TenantId.fromUUID(new UUID(msg.getTenantIdMSB(), msg.getTenantIdLSB()));
@@ -993,6 +1023,7 @@ public class DefaultTransportService extends TransportActivityManager implements
             case DEVICEPROFILE:
                 DeviceProfile deviceProfile = deviceProfileCache.put(msg.getDeviceProfile());
                 log.debug("On device profile update: {}", deviceProfile);
+                credentialsCache.evictByDeviceProfile(deviceProfile.getId().getId());
                 onProfileUpdate(deviceProfile);
                 break;
             case TENANTPROFILE:
@@ -1020,6 +1051,7 @@ public class DefaultTransportService extends TransportActivityManager implements
     }
 
     private void onDeviceUpdate(Device device) {
+        credentialsCache.evictByDevice(device.getId().getId());
         long deviceIdMSB = device.getId().getId().getMostSignificantBits();
         long deviceIdLSB = device.getId().getId().getLeastSignificantBits();
         long deviceProfileIdMSB = device.getDeviceProfileId().getId().getMostSignificantBits();
@@ -0,0 +1,199 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.protobuf.Message;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceInfoProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches successful device credentials validation responses on the transport side
+ * and collapses concurrent validations of the same credentials into a single request to the core.
+ * <p>
+ * Entries are keyed by the hash of the validation request, so raw secrets are never kept as keys.
+ * Only responses that resolved to a device are cached: an unknown token may become valid at any moment.
+ * Responses are stored as immutable proto messages, so every hit produces its own response object.
+ */
+@Slf4j
+class TransportCredentialsCache {
+
+    private final Cache<String, ValidateDeviceCredentialsResponseMsg> cache;
+    private final ConcurrentMap<UUID, Set<String>> keysByDevice = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ListenableFuture<ValidateDeviceCredentialsResponseMsg>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Getter
+    private final AtomicInteger hits = new AtomicInteger();
+    @Getter
+    private final AtomicInteger misses = new AtomicInteger();
+    @Getter
+    private final AtomicInteger collapsed = new AtomicInteger();
+
+    TransportCredentialsCache(long ttlMs, int maxSize) {
+        if (ttlMs > 0 && maxSize > 0) {
+            cache = Caffeine.newBuilder()
+                    .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                    .maximumSize(maxSize)
+                    .executor(MoreExecutors.directExecutor())
+                    .removalListener((String key, ValidateDeviceCredentialsResponseMsg value, RemovalCause cause) -> {
+                        // a replaced key stays in the cache and is linked to the device of the new value
+                        if (key != null && value != null && cause != RemovalCause.REPLACED) {
+                            unlink(key, value.getDeviceInfo());
+                        }
+                    })
+                    .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    boolean isEnabled() {
+        return cache != null;
+    }
+
+    static String toKey(Message request) {
+        return request.getDescriptorForType().getName() + ":" + Hashing.sha256().hashBytes(request.toByteArray());
+    }
+
+    ListenableFuture<ValidateDeviceCredentialsResponseMsg> get(Message request, Supplier<ListenableFuture<ValidateDeviceCredentialsResponseMsg>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        String key = toKey(request);
+        ValidateDeviceCredentialsResponseMsg cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Futures.immediateFuture(cached);
+        }
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> result = SettableFuture.create();
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            collapsed.incrementAndGet();
+            return existing;
+        }
+        misses.incrementAndGet();
+        long generation = invalidations.get();
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> response;
+        try {
+            response = loader.get();
+        } catch (Throwable e) {
+            inFlight.remove(key, result);
+            result.setException(e);
+            return result;
+        }
+        Futures.addCallback(response, new FutureCallback<>() {
+            @Override
+            public void onSuccess(ValidateDeviceCredentialsResponseMsg msg) {
+                // a response that raced with an invalidation may already be stale, so it is only passed through
+                if (msg != null && msg.hasDeviceInfo() && generation == invalidations.get()) {
+                    // the key is linked before the put, so an eviction either finds the key or changes the generation
+                    link(key, msg.getDeviceInfo());
+                    cache.put(key, msg);
+                    if (generation != invalidations.get()) {
+                        cache.invalidate(key);
+                    }
+                }
+                inFlight.remove(key, result);
+                result.set(msg);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                inFlight.remove(key, result);
+                result.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    void evictByDevice(UUID deviceId) {
+        if (cache == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        Set<String> keys = keysByDevice.remove(deviceId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    void evictByDeviceProfile(UUID deviceProfileId) {
+        evictIf(info -> info.getDeviceProfileIdMSB() == deviceProfileId.getMostSignificantBits()
+                && info.getDeviceProfileIdLSB() == deviceProfileId.getLeastSignificantBits());
+    }
+
+    void evictByTenant(UUID tenantId) {
+        evictIf(info -> info.getTenantIdMSB() == tenantId.getMostSignificantBits()
+                && info.getTenantIdLSB() == tenantId.getLeastSignificantBits());
+    }
+
+    void evictAll() {
+        if (cache == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    long size() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private void evictIf(Predicate<DeviceInfoProto> predicate) {
+        if (cache == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> predicate.test(entry.getValue().getDeviceInfo()));
+    }
+
+    void link(String key, DeviceInfoProto deviceInfo) {
+        keysByDevice.computeIfAbsent(toDeviceId(deviceInfo), id -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private void unlink(String key, DeviceInfoProto deviceInfo) {
+        keysByDevice.computeIfPresent(toDeviceId(deviceInfo), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static UUID toDeviceId(DeviceInfoProto deviceInfo) {
+        return new UUID(deviceInfo.getDeviceIdMSB(), deviceInfo.getDeviceIdLSB());
+    }
+
+}
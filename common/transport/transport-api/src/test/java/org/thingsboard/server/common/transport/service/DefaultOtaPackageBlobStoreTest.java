@@ -0,0 +1,179 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.data.ota.ChecksumAlgorithm;
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DefaultOtaPackageBlobStoreTest {
+
+    private final UUID otaPackageId = UUID.randomUUID();
+    private final byte[] data = new byte[100];
+
+    @Mock
+    private OtaPackageDataCache otaPackageDataCache;
+
+    @TempDir
+    Path dir;
+
+    private DefaultOtaPackageBlobStore store;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        store = new DefaultOtaPackageBlobStore(otaPackageDataCache);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "path", dir.toString());
+        ReflectionTestUtils.setField(store, "maxSizeMb", 1L);
+        ReflectionTestUtils.setField(store, "expireAfterAccessSec", 3600L);
+        ReflectionTestUtils.setField(store, "negativeCacheTtlSec", 60L);
+        store.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void testChunksAreServedFromFileMaterializedOnce() throws Exception {
+        when(otaPackageDataCache.get(otaPackageId.toString())).thenReturn(data);
+        GetOtaPackageResponseMsg otaPackage = otaPackage(ChecksumAlgorithm.SHA256, Hashing.sha256().hashBytes(data).toString());
+
+        assertThat(toArray(store.get(otaPackage, 30, 0))).containsExactly(slice(0, 30));
+        assertThat(toArray(store.get(otaPackage, 30, 3))).containsExactly(slice(90, 100));
+        assertThat(store.get(otaPackage, 30, 4).remaining()).isZero();
+        assertThat(toArray(store.get(otaPackage, 0, 0))).containsExactly(data);
+
+        verify(otaPackageDataCache, times(1)).get(otaPackageId.toString());
+        verify(otaPackageDataCache, never()).get(anyString(), anyInt(), anyInt());
+        assertThat(Files.readAllBytes(dir.resolve(otaPackageId + ".bin"))).containsExactly(data);
+    }
+
+    @Test
+    public void testPackageWithWrongChecksumIsNotServed() throws Exception {
+        when(otaPackageDataCache.get(otaPackageId.toString())).thenReturn(data);
+        GetOtaPackageResponseMsg otaPackage = otaPackage(ChecksumAlgorithm.MD5, "0123456789abcdef0123456789abcdef");
+
+        assertThat(store.get(otaPackage, 30, 0)).isNull();
+        assertThat(store.get(otaPackage, 30, 1)).isNull();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+        verify(otaPackageDataCache, times(1)).get(otaPackageId.toString());
+    }
+
+    @Test
+    public void testPackageLargerThanStoreIsServedFromCache() throws Exception {
+        byte[] largeData = new byte[1024 * 1024 + 1];
+        when(otaPackageDataCache.get(otaPackageId.toString())).thenReturn(largeData);
+        when(otaPackageDataCache.get(otaPackageId.toString(), 30, 0)).thenReturn(slice(0, 30));
+        when(otaPackageDataCache.get(otaPackageId.toString(), 30, 1)).thenReturn(slice(30, 60));
+        GetOtaPackageResponseMsg otaPackage = otaPackage(ChecksumAlgorithm.SHA256, Hashing.sha256().hashBytes(largeData).toString());
+
+        assertThat(toArray(store.get(otaPackage, 30, 0))).containsExactly(slice(0, 30));
+        assertThat(toArray(store.get(otaPackage, 30, 1))).containsExactly(slice(30, 60));
+
+        verify(otaPackageDataCache, times(1)).get(otaPackageId.toString());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    public void testPackageWithKnownLargeSizeIsNotMaterialized() {
+        when(otaPackageDataCache.get(otaPackageId.toString(), 30, 0)).thenReturn(slice(0, 30));
+        GetOtaPackageResponseMsg otaPackage = otaPackage(ChecksumAlgorithm.SHA256, "").toBuilder()
+                .setDataSize(1024 * 1024 + 1)
+                .build();
+
+        assertThat(toArray(store.get(otaPackage, 30, 0))).containsExactly(slice(0, 30));
+
+        verify(otaPackageDataCache, never()).get(otaPackageId.toString());
+    }
+
+    @Test
+    public void testOnlyStoreFilesAreDeletedOnStartup() throws Exception {
+        store.destroy();
+        Files.write(dir.resolve("left.bin"), data);
+        Files.write(dir.resolve("left123.tmp"), data);
+        Files.write(dir.resolve("other.txt"), data);
+
+        store.init();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).containsExactly(dir.resolve("other.txt"));
+        }
+    }
+
+    @Test
+    public void testCacheIsUsedWhenStoreIsDisabled() {
+        store.destroy();
+        store = new DefaultOtaPackageBlobStore(otaPackageDataCache);
+        when(otaPackageDataCache.get(otaPackageId.toString(), 30, 1)).thenReturn(slice(30, 60));
+
+        assertThat(toArray(store.get(otaPackage(ChecksumAlgorithm.SHA256, ""), 30, 1))).containsExactly(slice(30, 60));
+    }
+
+    private GetOtaPackageResponseMsg otaPackage(ChecksumAlgorithm checksumAlgorithm, String checksum) {
+        return GetOtaPackageResponseMsg.newBuilder()
+                .setOtaPackageIdMSB(otaPackageId.getMostSignificantBits())
+                .setOtaPackageIdLSB(otaPackageId.getLeastSignificantBits())
+                .setChecksumAlgorithm(checksumAlgorithm.name())
+                .setChecksum(checksum)
+                .build();
+    }
+
+    private byte[] slice(int from, int to) {
+        byte[] result = new byte[to - from];
+        System.arraycopy(data, from, result, 0, result.length);
+        return result;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.duplicate().get(result);
+        return result;
+    }
+
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceInfoProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TransportCredentialsCacheTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID deviceId = UUID.randomUUID();
+    private final UUID deviceProfileId = UUID.randomUUID();
+
+    private TransportCredentialsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new TransportCredentialsCache(TimeUnit.MINUTES.toMillis(5), 1000);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void givenSuccessfulValidation_whenValidatingAgain_thenServedFromCache() throws Exception {
+        ValidateDeviceCredentialsResponseMsg response = deviceResponse(deviceId);
+
+        assertThat(cache.get(token("t1"), () -> load(response)).get()).isEqualTo(response);
+        assertThat(cache.get(token("t1"), () -> load(response)).get()).isEqualTo(response);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getHits().get()).isEqualTo(1);
+        assertThat(cache.getMisses().get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenConcurrentValidations_whenFirstIsInFlight_thenSingleRequestIsSent() throws Exception {
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> pending = SettableFuture.create();
+
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> first = cache.get(token("t1"), () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> second = cache.get(token("t1"), () -> load(deviceResponse(deviceId)));
+        assertThat(second.isDone()).isFalse();
+
+        ValidateDeviceCredentialsResponseMsg response = deviceResponse(deviceId);
+        pending.set(response);
+
+        assertThat(first.get()).isEqualTo(response);
+        assertThat(second.get()).isEqualTo(response);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getCollapsed().get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenUnknownCredentials_whenValidating_thenResponseIsNotCached() throws Exception {
+        ValidateDeviceCredentialsResponseMsg empty = ValidateDeviceCredentialsResponseMsg.getDefaultInstance();
+
+        cache.get(token("unknown"), () -> load(empty)).get();
+        cache.get(token("unknown"), () -> load(empty)).get();
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void givenFailedValidation_whenValidatingAgain_thenRequestIsRepeated() {
+        assertThatThrownBy(() -> cache.get(token("t1"), () -> {
+            loads.incrementAndGet();
+            return Futures.immediateFailedFuture(new RuntimeException("timeout"));
+        }).get()).isInstanceOf(ExecutionException.class);
+
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId)));
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenDeviceEvictedWhileResponseIsStored_whenValidatingAgain_thenRequestIsRepeated() throws Exception {
+        cache = new TransportCredentialsCache(TimeUnit.MINUTES.toMillis(5), 1000) {
+            @Override
+            void link(String key, DeviceInfoProto deviceInfo) {
+                super.link(key, deviceInfo);
+                evictByDevice(deviceId);
+            }
+        };
+
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+
+        assertThat(cache.size()).isZero();
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenCachedCredentials_whenDeviceIsEvicted_thenOnlyItsEntriesAreRemoved() throws Exception {
+        UUID otherDeviceId = UUID.randomUUID();
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        cache.get(token("t2"), () -> load(deviceResponse(deviceId))).get();
+        cache.get(token("t3"), () -> load(deviceResponse(otherDeviceId))).get();
+
+        cache.evictByDevice(deviceId);
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        cache.get(token("t3"), () -> load(deviceResponse(otherDeviceId))).get();
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenCachedCredentials_whenProfileOrTenantIsEvicted_thenEntriesAreRemoved() throws Exception {
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        cache.evictByDeviceProfile(deviceProfileId);
+        assertThat(cache.size()).isZero();
+
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        cache.evictByTenant(UUID.randomUUID());
+        assertThat(cache.size()).isEqualTo(1);
+        cache.evictByTenant(tenantId);
+        assertThat(cache.size()).isZero();
+
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        cache.evictByDevice(deviceId);
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenInvalidationDuringValidation_whenResponseArrives_thenItIsNotCached() throws Exception {
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> pending = SettableFuture.create();
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> result = cache.get(token("t1"), () -> pending);
+
+        cache.evictByDevice(deviceId);
+        pending.set(deviceResponse(deviceId));
+
+        assertThat(result.get().hasDeviceInfo()).isTrue();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void givenDisabledCache_whenValidating_thenEveryRequestIsSent() throws Exception {
+        cache = new TransportCredentialsCache(TimeUnit.MINUTES.toMillis(5), 0);
+
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+        cache.get(token("t1"), () -> load(deviceResponse(deviceId))).get();
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private ListenableFuture<ValidateDeviceCredentialsResponseMsg> load(ValidateDeviceCredentialsResponseMsg response) {
+        loads.incrementAndGet();
+        return Futures.immediateFuture(response);
+    }
+
+    private static ValidateDeviceTokenRequestMsg token(String token) {
+        return ValidateDeviceTokenRequestMsg.newBuilder().setToken(token).build();
+    }
+
+    private ValidateDeviceCredentialsResponseMsg deviceResponse(UUID deviceId) {
+        return ValidateDeviceCredentialsResponseMsg.newBuilder()
+                .setDeviceInfo(DeviceInfoProto.newBuilder()
+                        .setTenantIdMSB(tenantId.getMostSignificantBits())
+                        .setTenantIdLSB(tenantId.getLeastSignificantBits())
+                        .setDeviceIdMSB(deviceId.getMostSignificantBits())
+                        .setDeviceIdLSB(deviceId.getLeastSignificantBits())
+                        .setDeviceProfileIdMSB(deviceProfileId.getMostSignificantBits())
+                        .setDeviceProfileIdLSB(deviceProfileId.getLeastSignificantBits())
+                        .build())
+                .build();
+    }
+
+}
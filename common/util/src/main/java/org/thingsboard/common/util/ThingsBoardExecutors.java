@@ -15,14 +15,18 @@
  */
 package org.thingsboard.common.util;
 
+import lombok.extern.slf4j.Slf4j;
+
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 public class ThingsBoardExecutors {
 
     /** Cannot instantiate. */
@@ -68,6 +72,50 @@ public class ThingsBoardExecutors {
         return executor;
     }
 
+    /**
+     * Creates an executor that runs at most {@code maxConcurrency} tasks at once, each on a virtual thread.
+     * Suited for tasks that block on I/O: a blocked task releases its carrier thread instead of occupying a pool thread.
+     * Idle virtual threads are discarded after a short keep-alive.
+     * Falls back to at most one platform thread per available processor when the runtime does not support
+     * virtual threads (Java versions before 21), since a platform thread per concurrent task is too expensive.
+     *
+     * @param maxConcurrency the maximum number of tasks executed concurrently
+     * @param name used to define thread name
+     * @return the newly created executor
+     */
+    public static ExecutorService newVirtualThreadPool(int maxConcurrency, String name) {
+        ThreadFactory threadFactory = virtualThreadFactory(name);
+        if (threadFactory == null) {
+            int poolSize = Math.min(maxConcurrency, Runtime.getRuntime().availableProcessors());
+            log.warn("[{}] Virtual threads are not supported by the current Java runtime, using {} platform threads instead of {} virtual threads",
+                    name, poolSize, maxConcurrency);
+            threadFactory = ThingsBoardThreadFactory.forName(name);
+            maxConcurrency = poolSize;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return virtualThreadFactory("virtual-thread-check") != null;
+    }
+
+    /*
+     * Thread.ofVirtual() is resolved reflectively, since the project is compiled for Java 17
+     * */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
     public static ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
         return Executors.unconfigurableScheduledExecutorService(new ThingsBoardScheduledThreadPoolExecutor(1, ThingsBoardThreadFactory.forName(name)));
     }
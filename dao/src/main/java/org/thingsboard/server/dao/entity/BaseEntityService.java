@@ -135,7 +135,14 @@ public class BaseEntityService extends AbstractEntityService implements EntitySe
 
         long startNs = System.nanoTime();
         PageData<EntityData> result;
-        if (edqsService.isApiEnabled() && validForEdqs(query) && !tenantId.isSysTenantId()) {
+        boolean useEdqs = edqsService.isApiEnabled() && validForEdqs(query) && !tenantId.isSysTenantId();
+        if (useEdqs && query.getPageLink().getSortCursor() != null) {
+            // EDQS pages by offset only, so the keyset page is served by the SQL query. EDQS counts are always exact,
+            // which satisfies every count mode
+            log.debug("[{}] Keyset pagination is not supported by EDQS, using SQL query: {}", tenantId, query);
+            useEdqs = false;
+        }
+        if (useEdqs) {
             EdqsRequest request = EdqsRequest.builder()
                     .entityDataQuery(query)
                     .build();
@@ -59,19 +59,20 @@ import org.thingsboard.server.dao.usagerecord.ApiLimitService;
 import org.thingsboard.server.exception.DataValidationException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static org.thingsboard.server.dao.service.Validator.validateId;
@@ -460,10 +461,38 @@ class BaseRelationService implements RelationService {
             }
         };
 
-        return Futures.transform(findByQuery(tenantId, query),
-                relations -> relations.stream()
-                        .map(relation -> fetchRelationInfo(tenantId, relation, entityIdGetter, entityNameSetter))
-                        .toList(), directExecutor());
+        return Futures.transform(findByQuery(tenantId, query), relations -> {
+            Map<EntityId, String> names = fetchEntityNames(tenantId, relations.stream().map(entityIdGetter).collect(Collectors.toSet()));
+            return relations.stream()
+                    .map(relation -> {
+                        var relationInfo = new EntityRelationInfo(relation);
+                        entityNameSetter.accept(relationInfo, names.getOrDefault(entityIdGetter.apply(relation), "N/A"));
+                        return relationInfo;
+                    })
+                    .toList();
+        }, directExecutor());
+    }
+
+    /*
+     * Resolves names with one entity query per entity type. Entities that can't be resolved this way
+     * (e.g. entity types not supported by the entity query) fall back to the single entity lookup.
+     */
+    private Map<EntityId, String> fetchEntityNames(TenantId tenantId, Set<EntityId> entityIds) {
+        Map<EntityId, String> names = new HashMap<>();
+        if (entityIds.isEmpty()) {
+            return names;
+        }
+        try {
+            entityService.fetchEntityInfos(tenantId, null, entityIds).forEach((id, info) -> names.put(id, info.getName()));
+        } catch (Exception e) {
+            log.debug("[{}] Failed to fetch entity names in batch, falling back to per entity lookup", tenantId, e);
+        }
+        for (EntityId entityId : entityIds) {
+            if (!names.containsKey(entityId)) {
+                entityService.fetchEntityName(tenantId, entityId).ifPresent(name -> names.put(entityId, name));
+            }
+        }
+        return names;
     }
 
     private EntityRelationInfo fetchRelationInfo(TenantId tenantId, EntityRelation relation,
@@ -635,7 +664,6 @@ class BaseRelationService implements RelationService {
 
         final SettableFuture<Set<EntityRelation>> future = SettableFuture.create();
         final Set<EntityRelation> result = ConcurrentHashMap.newKeySet();
-        final Queue<RelationTask> tasks = new ConcurrentLinkedQueue<>();
 
         final TenantId tenantId;
         final EntitySearchDirection direction;
@@ -646,43 +674,48 @@ class BaseRelationService implements RelationService {
 
     }
 
-    private record RelationTask(int currentLvl, EntityId root, List<EntityRelation> prevRelations) {}
-
-    private void processQueue(RelationQueueCtx ctx) {
-        RelationTask task = ctx.tasks.poll();
-        while (task != null) {
-            List<EntityRelation> relations = findRelations(ctx.tenantId, task.root, ctx.direction, ctx.relationTypeGroup);
-            Map<EntityId, List<EntityRelation>> newChildrenRelations = new HashMap<>();
-            for (EntityRelation childRelation : relations) {
-                log.trace("Found Relation: {}", childRelation);
-                EntityId childId = ctx.direction == EntitySearchDirection.FROM ? childRelation.getTo() : childRelation.getFrom();
-                if (ctx.uniqueMap.putIfAbsent(childId, Boolean.TRUE) == null) {
-                    log.trace("Adding Relation: {}", childId);
-                    newChildrenRelations.put(childId, new ArrayList<>());
+    /*
+     * Breadth-first traversal that expands the whole frontier of each level with one batched query
+     * instead of one query per visited entity. Frontier maps each entity to the relations that led to it.
+     */
+    private void processLevels(RelationQueueCtx ctx, EntityId rootId) {
+        Map<EntityId, List<EntityRelation>> frontier = new LinkedHashMap<>();
+        frontier.put(rootId, Collections.emptyList());
+        int currentLvl = 1;
+        while (!frontier.isEmpty() && !ctx.future.isDone()) {
+            Map<EntityId, List<EntityRelation>> relationsByEntity = findRelations(ctx.tenantId, frontier.keySet(), ctx.direction, ctx.relationTypeGroup);
+            Map<EntityId, List<EntityRelation>> nextFrontier = new LinkedHashMap<>();
+            for (Map.Entry<EntityId, List<EntityRelation>> entry : frontier.entrySet()) {
+                List<EntityRelation> relations = relationsByEntity.getOrDefault(entry.getKey(), Collections.emptyList());
+                for (EntityRelation childRelation : relations) {
+                    log.trace("Found Relation: {}", childRelation);
+                    EntityId childId = ctx.direction == EntitySearchDirection.FROM ? childRelation.getTo() : childRelation.getFrom();
+                    if (ctx.uniqueMap.putIfAbsent(childId, Boolean.TRUE) == null) {
+                        log.trace("Adding Relation: {}", childId);
+                        nextFrontier.put(childId, new ArrayList<>());
+                    }
+                    if (ctx.fetchLastLevelOnly) {
+                        var list = nextFrontier.get(childId);
+                        if (list != null) {
+                            list.add(childRelation);
+                        }
+                    }
                 }
                 if (ctx.fetchLastLevelOnly) {
-                    var list = newChildrenRelations.get(childId);
-                    if (list != null) {
-                        list.add(childRelation);
+                    if (relations.isEmpty()) {
+                        ctx.result.addAll(entry.getValue());
+                    } else if (currentLvl == ctx.maxLvl) {
+                        ctx.result.addAll(relations);
                     }
-                }
-            }
-            if (ctx.fetchLastLevelOnly) {
-                if (relations.isEmpty()) {
-                    ctx.result.addAll(task.prevRelations);
-                } else if (task.currentLvl == ctx.maxLvl) {
+                } else {
                     ctx.result.addAll(relations);
                 }
-            } else {
-                ctx.result.addAll(relations);
             }
-            var finalTask = task;
-            newChildrenRelations.forEach((child, childRelations) -> {
-                var newLvl = finalTask.currentLvl + 1;
-                if (newLvl <= ctx.maxLvl)
-                    ctx.tasks.add(new RelationTask(newLvl, child, childRelations));
-            });
-            task = ctx.tasks.poll();
+            if (currentLvl == ctx.maxLvl) {
+                break;
+            }
+            frontier = nextFrontier;
+            currentLvl++;
         }
         ctx.future.set(ctx.result);
     }
@@ -694,23 +727,44 @@ class BaseRelationService implements RelationService {
             return Futures.immediateFuture(Collections.emptySet());
         }
         var relationQueueCtx = new RelationQueueCtx(tenantId, direction, relationTypeGroup, fetchLastLevelOnly, lvl, uniqueMap);
-        relationQueueCtx.tasks.add(new RelationTask(1, rootId, Collections.emptyList()));
-        relationsExecutor.submit(() -> processQueue(relationQueueCtx));
+        relationsExecutor.submit(() -> {
+            try {
+                processLevels(relationQueueCtx, rootId);
+            } catch (Throwable t) {
+                relationQueueCtx.future.setException(t);
+            }
+        });
         return Futures.withTimeout(relationQueueCtx.future, relationQueryTimeout, TimeUnit.SECONDS, timeoutExecutorService);
     }
 
-
-    private List<EntityRelation> findRelations(final TenantId tenantId, final EntityId rootId, final EntitySearchDirection direction, RelationTypeGroup relationTypeGroup) {
-        List<EntityRelation> relations;
+    /*
+     * A single entity is looked up through the relation cache, same as findByFrom/findByTo,
+     * while wider levels go to the database in batches.
+     */
+    private Map<EntityId, List<EntityRelation>> findRelations(final TenantId tenantId, final Collection<EntityId> entityIds, final EntitySearchDirection direction, RelationTypeGroup relationTypeGroup) {
         if (relationTypeGroup == null) {
             relationTypeGroup = RelationTypeGroup.COMMON;
         }
+        if (entityIds.size() == 1) {
+            EntityId entityId = entityIds.iterator().next();
+            List<EntityRelation> relations = direction == EntitySearchDirection.FROM ?
+                    findByFrom(tenantId, entityId, relationTypeGroup) : findByTo(tenantId, entityId, relationTypeGroup);
+            return Collections.singletonMap(entityId, relations);
+        }
+        List<EntityRelation> relations;
+        Function<EntityRelation, EntityId> entityIdGetter;
         if (direction == EntitySearchDirection.FROM) {
-            relations = findByFrom(tenantId, rootId, relationTypeGroup);
+            relations = relationDao.findAllByFrom(tenantId, entityIds, relationTypeGroup);
+            entityIdGetter = EntityRelation::getFrom;
         } else {
-            relations = findByTo(tenantId, rootId, relationTypeGroup);
+            relations = relationDao.findAllByTo(tenantId, entityIds, relationTypeGroup);
+            entityIdGetter = EntityRelation::getTo;
+        }
+        Map<EntityId, List<EntityRelation>> relationsByEntity = new HashMap<>();
+        for (EntityRelation relation : relations) {
+            relationsByEntity.computeIfAbsent(entityIdGetter.apply(relation), id -> new ArrayList<>()).add(relation);
         }
-        return relations;
+        return relationsByEntity;
     }
 
     private void publishEvictEvent(EntityRelationEvent event) {
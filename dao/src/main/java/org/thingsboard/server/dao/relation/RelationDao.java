@@ -23,6 +23,7 @@ import org.thingsboard.server.common.data.relation.EntityRelationPathQuery;
 import org.thingsboard.server.common.data.relation.RelationTypeGroup;
 import org.thingsboard.server.common.data.rule.RuleChainType;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -34,12 +35,16 @@ public interface RelationDao {
 
     List<EntityRelation> findAllByFrom(TenantId tenantId, EntityId from);
 
+    List<EntityRelation> findAllByFrom(TenantId tenantId, Collection<EntityId> from, RelationTypeGroup typeGroup);
+
     List<EntityRelation> findAllByFromAndType(TenantId tenantId, EntityId from, String relationType, RelationTypeGroup typeGroup);
 
     List<EntityRelation> findAllByTo(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup);
 
     List<EntityRelation> findAllByTo(TenantId tenantId, EntityId to);
 
+    List<EntityRelation> findAllByTo(TenantId tenantId, Collection<EntityId> to, RelationTypeGroup typeGroup);
+
     List<EntityRelation> findAllByToAndType(TenantId tenantId, EntityId to, String relationType, RelationTypeGroup typeGroup);
 
     ListenableFuture<Boolean> checkRelationAsync(TenantId tenantId, EntityId from, EntityId to, String relationType, RelationTypeGroup typeGroup);
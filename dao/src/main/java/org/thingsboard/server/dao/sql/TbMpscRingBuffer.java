@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer single-consumer ring buffer.
+ * Each slot carries a sequence number that tells producers and the consumer whether the slot is free or published,
+ * so neither side takes a lock. {@link #poll()} and {@link #drainTo(Collection, int)} must be called from a single thread.
+ */
+public class TbMpscRingBuffer<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    public TbMpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be greater than 1");
+        }
+        this.capacity = requestedCapacity > (1 << 30) ? 1 << 30 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) (index & mask);
+            long diff = sequences.get(slot) - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    buffer.lazySet(slot, element);
+                    sequences.set(slot, index + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    public T poll() {
+        long index = consumerIndex;
+        int slot = (int) (index & mask);
+        if (sequences.get(slot) != index + 1) {
+            return null;
+        }
+        T element = buffer.get(slot);
+        buffer.lazySet(slot, null);
+        sequences.set(slot, index + capacity);
+        consumerIndex = index + 1;
+        return element;
+    }
+
+    public int drainTo(Collection<? super T> target, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            T element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int size() {
+        long size = producerIndex.get() - consumerIndex;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        long index = consumerIndex;
+        return sequences.get((int) (index & mask)) != index + 1;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.stats.MessagesStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Alternative to {@link TbSqlBlockingQueue} that:
+ * <ul>
+ * <li>stores pending elements in a bounded lock-free {@link TbMpscRingBuffer} and parks the consumer thread while it is empty,
+ * so a batch is committed as soon as elements arrive instead of after a fixed delay;</li>
+ * <li>adapts the batch size to the observed commit latency: grows while full batches commit faster than the target latency
+ * and shrinks when commits become slower than the target;</li>
+ * <li>applies back-pressure: producers wait for free space up to the configured time and get a failed future afterwards.</li>
+ * </ul>
+ * Under load elements accumulate while the previous batch is being committed, so batching happens naturally.
+ */
+@Slf4j
+public class TbSqlAdaptiveQueue<E, R> implements TbSqlQueue<E, R> {
+
+    private static final long PRODUCER_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final TbSqlBlockingQueueParams params;
+    private final TbSqlQueueSettings settings;
+    private final MessagesStats stats;
+    private final Timer commitLatencyTimer;
+    private final Timer enqueueToCommitTimer;
+    private final TbMpscRingBuffer<TbSqlQueueElement<E, R>> buffer;
+
+    private ExecutorService executor;
+    private volatile Thread consumerThread;
+    private volatile boolean consumerWaiting;
+    private volatile int currentBatchSize;
+
+    public TbSqlAdaptiveQueue(TbSqlBlockingQueueParams params, TbSqlQueueSettings settings, MessagesStats stats,
+                              Timer commitLatencyTimer, Timer enqueueToCommitTimer) {
+        this.params = params;
+        this.settings = settings;
+        this.stats = stats;
+        this.commitLatencyTimer = commitLatencyTimer;
+        this.enqueueToCommitTimer = enqueueToCommitTimer;
+        this.buffer = new TbMpscRingBuffer<>(Math.max(settings.getCapacity(), params.getBatchSize()));
+        this.currentBatchSize = Math.min(getMinBatchSize(), params.getBatchSize());
+    }
+
+    @Override
+    public void init(ScheduledLogExecutorComponent logExecutor, Function<List<E>, List<R>> saveFunction, Comparator<E> batchUpdateComparator, Function<List<TbSqlQueueElement<E, R>>, List<TbSqlQueueElement<E, R>>> filter, int index) {
+        TbSqlQueueBatchSaver<E, R> batchSaver = new TbSqlQueueBatchSaver<>(params, saveFunction, batchUpdateComparator, filter);
+        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("sql-queue-" + index + "-" + params.getLogName().toLowerCase()));
+        executor.submit(() -> {
+            consumerThread = Thread.currentThread();
+            String logName = params.getLogName();
+            final List<TbSqlQueueElement<E, R>> entities = new ArrayList<>(params.getBatchSize());
+            while (!Thread.interrupted()) {
+                try {
+                    int batchSize = currentBatchSize;
+                    if (buffer.drainTo(entities, batchSize) == 0) {
+                        awaitElements();
+                        continue;
+                    }
+                    long startTs = System.nanoTime();
+                    batchSaver.save(entities);
+                    long commitTs = System.nanoTime();
+                    stats.incrementSuccessful(entities.size());
+                    commitLatencyTimer.record(commitTs - startTs, TimeUnit.NANOSECONDS);
+                    for (TbSqlQueueElement<E, R> entity : entities) {
+                        enqueueToCommitTimer.record(commitTs - entity.getEnqueueNanos(), TimeUnit.NANOSECONDS);
+                    }
+                    adjustBatchSize(entities.size() == batchSize, commitTs - startTs);
+                } catch (Throwable t) {
+                    if (t instanceof InterruptedException) {
+                        log.info("[{}] Queue polling was interrupted", logName);
+                        break;
+                    } else {
+                        stats.incrementFailed(entities.size());
+                        batchSaver.fail(entities, t);
+                        currentBatchSize = getMinBatchSize();
+                    }
+                } finally {
+                    entities.clear();
+                }
+            }
+            log.info("[{}] Queue polling completed", logName);
+        });
+
+        logExecutor.scheduleAtFixedRate(() -> {
+            if (!buffer.isEmpty() || stats.getTotal() > 0 || stats.getSuccessful() > 0 || stats.getFailed() > 0) {
+                log.info("Queue-{} [{}] queueSize [{}] batchSize [{}] totalAdded [{}] totalSaved [{}] totalFailed [{}]", index,
+                        params.getLogName(), buffer.size(), currentBatchSize, stats.getTotal(), stats.getSuccessful(), stats.getFailed());
+                stats.reset();
+            }
+        }, params.getStatsPrintIntervalMs(), params.getStatsPrintIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ListenableFuture<R> add(E element) {
+        SettableFuture<R> future = SettableFuture.create();
+        TbSqlQueueElement<E, R> queueElement = new TbSqlQueueElement<>(future, element);
+        stats.incrementTotal();
+        if (!buffer.offer(queueElement)) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getMaxEnqueueWaitMs());
+            do {
+                if (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted()) {
+                    stats.incrementFailed();
+                    future.setException(new RejectedExecutionException("[" + params.getLogName() + "] Queue is full: " + buffer.capacity() + " elements"));
+                    return future;
+                }
+                LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+            } while (!buffer.offer(queueElement));
+        }
+        if (consumerWaiting) {
+            LockSupport.unpark(consumerThread);
+        }
+        return future;
+    }
+
+    /*
+     * The consumer publishes its intention to park before the final emptiness check,
+     * while producers check the flag after publishing an element, so a wake-up can't be missed.
+     */
+    private void awaitElements() throws InterruptedException {
+        consumerWaiting = true;
+        try {
+            if (buffer.isEmpty()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(params.getMaxDelay()));
+            }
+        } finally {
+            consumerWaiting = false;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private void adjustBatchSize(boolean fullBatch, long commitLatencyNanos) {
+        long targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(settings.getTargetCommitLatencyMs());
+        int batchSize = currentBatchSize;
+        if (commitLatencyNanos > targetLatencyNanos) {
+            batchSize = Math.max(getMinBatchSize(), batchSize - batchSize / 4);
+        } else if (fullBatch) {
+            batchSize = Math.min(params.getBatchSize(), batchSize + Math.max(1, batchSize / 4));
+        }
+        currentBatchSize = batchSize;
+    }
+
+    private int getMinBatchSize() {
+        return Math.max(1, Math.min(settings.getMinBatchSize(), params.getBatchSize()));
+    }
+
+}
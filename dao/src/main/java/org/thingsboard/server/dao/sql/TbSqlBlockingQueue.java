@@ -19,7 +19,6 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
-import org.thingsboard.server.common.data.util.CollectionsUtil;
 import org.thingsboard.server.common.stats.MessagesStats;
 
 import java.util.ArrayList;
@@ -31,7 +30,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
@@ -49,6 +47,7 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
 
     @Override
     public void init(ScheduledLogExecutorComponent logExecutor, Function<List<E>, List<R>> saveFunction, Comparator<E> batchUpdateComparator, Function<List<TbSqlQueueElement<E, R>>, List<TbSqlQueueElement<E, R>>> filter, int index) {
+        TbSqlQueueBatchSaver<E, R> batchSaver = new TbSqlQueueBatchSaver<>(params, saveFunction, batchUpdateComparator, filter);
         executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("sql-queue-" + index + "-" + params.getLogName().toLowerCase()));
         executor.submit(() -> {
             String logName = params.getLogName();
@@ -66,31 +65,7 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
                     }
                     queue.drainTo(entities, batchSize - 1);
                     boolean fullPack = entities.size() == batchSize;
-                    if (log.isDebugEnabled()) {
-                        log.debug("[{}] Going to save {} entities", logName, entities.size());
-                        log.trace("[{}] Going to save entities: {}", logName, entities);
-                    }
-
-                    List<TbSqlQueueElement<E, R>> entitiesToSave = filter.apply(entities);
-
-                    if (params.isBatchSortEnabled()) {
-                        entitiesToSave = entitiesToSave.stream().sorted((o1, o2) -> batchUpdateComparator.compare(o1.getEntity(), o2.getEntity())).toList();
-                    }
-
-                    List<R> result = saveFunction.apply(entitiesToSave.stream().map(TbSqlQueueElement::getEntity).collect(Collectors.toList()));
-
-                    if (params.isWithResponse()) {
-                        for (int i = 0; i < entitiesToSave.size(); i++) {
-                            entitiesToSave.get(i).getFuture().set(result.get(i));
-                        }
-
-                        if (entities.size() > entitiesToSave.size()) {
-                            CollectionsUtil.diffLists(entitiesToSave, entities).forEach(v -> v.getFuture().set(null));
-                        }
-                    } else {
-                        entities.forEach(v -> v.getFuture().set(null));
-                    }
-
+                    batchSaver.save(entities);
                     stats.incrementSuccessful(entities.size());
                     if (!fullPack) {
                         long remainingDelay = maxDelay - (System.currentTimeMillis() - currentTs);
@@ -103,13 +78,8 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
                         log.info("[{}] Queue polling was interrupted", logName);
                         break;
                     } else {
-                        log.error("[{}] Failed to save {} entities", logName, entities.size(), t);
-                        try {
-                            stats.incrementFailed(entities.size());
-                            entities.forEach(entityFutureWrapper -> entityFutureWrapper.getFuture().setException(t));
-                        } catch (Throwable th) {
-                            log.error("[{}] Failed to set future exception", logName, th);
-                        }
+                        stats.incrementFailed(entities.size());
+                        batchSaver.fail(entities, t);
                     }
                 } finally {
                     entities.clear();
@@ -30,14 +30,15 @@ import java.util.function.Function;
 @Slf4j
 @Data
 public class TbSqlBlockingQueueWrapper<E, R> {
-    private final CopyOnWriteArrayList<TbSqlBlockingQueue<E, R>> queues = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<TbSqlQueue<E, R>> queues = new CopyOnWriteArrayList<>();
     private final TbSqlBlockingQueueParams params;
     private final Function<E, Integer> hashCodeFunction;
     private final int maxThreads;
     private final StatsFactory statsFactory;
+    private final TbSqlQueueSettings queueSettings;
 
     /**
-     * Starts TbSqlBlockingQueues.
+     * Starts TbSqlBlockingQueues or TbSqlAdaptiveQueues, depending on the configured queue type.
      *
      * @param  logExecutor  executor that will be printing logs and statistics
      * @param  saveFunction function to save entities in database
@@ -51,18 +52,28 @@ public class TbSqlBlockingQueueWrapper<E, R> {
     public void init(ScheduledLogExecutorComponent logExecutor, Function<List<E>, List<R>> saveFunction, Comparator<E> batchUpdateComparator, Function<List<TbSqlQueueElement<E, R>>, List<TbSqlQueueElement<E, R>>> filter) {
         for (int i = 0; i < maxThreads; i++) {
             MessagesStats stats = statsFactory.createMessagesStats(params.getStatsNamePrefix() + ".queue." + i);
-            TbSqlBlockingQueue<E, R> queue = new TbSqlBlockingQueue<>(params, stats);
+            TbSqlQueue<E, R> queue = createQueue(stats, i);
             queues.add(queue);
             queue.init(logExecutor, saveFunction, batchUpdateComparator, filter, i);
         }
     }
 
+    private TbSqlQueue<E, R> createQueue(MessagesStats stats, int index) {
+        if (queueSettings != null && queueSettings.getType() == TbSqlQueueType.ADAPTIVE) {
+            String queueName = params.getStatsNamePrefix() + ".queue." + index;
+            return new TbSqlAdaptiveQueue<>(params, queueSettings, stats,
+                    statsFactory.createTimer("sqlQueueCommitLatency", "queue", queueName),
+                    statsFactory.createTimer("sqlQueueEnqueueToCommitLatency", "queue", queueName));
+        }
+        return new TbSqlBlockingQueue<>(params, stats);
+    }
+
     public ListenableFuture<R> add(E element) {
         int queueIndex = element != null ? (hashCodeFunction.apply(element) & 0x7FFFFFFF) % maxThreads : 0;
         return queues.get(queueIndex).add(element);
     }
 
     public void destroy() {
-        queues.forEach(TbSqlBlockingQueue::destroy);
+        queues.forEach(TbSqlQueue::destroy);
     }
 }
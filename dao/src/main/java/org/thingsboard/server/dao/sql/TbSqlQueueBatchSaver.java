@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.util.CollectionsUtil;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+class TbSqlQueueBatchSaver<E, R> {
+
+    private final TbSqlBlockingQueueParams params;
+    private final Function<List<E>, List<R>> saveFunction;
+    private final Comparator<E> batchUpdateComparator;
+    private final Function<List<TbSqlQueueElement<E, R>>, List<TbSqlQueueElement<E, R>>> filter;
+
+    void save(List<TbSqlQueueElement<E, R>> entities) {
+        String logName = params.getLogName();
+        if (log.isDebugEnabled()) {
+            log.debug("[{}] Going to save {} entities", logName, entities.size());
+            log.trace("[{}] Going to save entities: {}", logName, entities);
+        }
+
+        List<TbSqlQueueElement<E, R>> entitiesToSave = filter.apply(entities);
+
+        if (params.isBatchSortEnabled()) {
+            entitiesToSave = entitiesToSave.stream().sorted((o1, o2) -> batchUpdateComparator.compare(o1.getEntity(), o2.getEntity())).toList();
+        }
+
+        List<R> result = saveFunction.apply(entitiesToSave.stream().map(TbSqlQueueElement::getEntity).collect(Collectors.toList()));
+
+        if (params.isWithResponse()) {
+            for (int i = 0; i < entitiesToSave.size(); i++) {
+                entitiesToSave.get(i).getFuture().set(result.get(i));
+            }
+
+            if (entities.size() > entitiesToSave.size()) {
+                CollectionsUtil.diffLists(entitiesToSave, entities).forEach(v -> v.getFuture().set(null));
+            }
+        } else {
+            entities.forEach(v -> v.getFuture().set(null));
+        }
+    }
+
+    void fail(List<TbSqlQueueElement<E, R>> entities, Throwable t) {
+        String logName = params.getLogName();
+        log.error("[{}] Failed to save {} entities", logName, entities.size(), t);
+        try {
+            entities.forEach(entityFutureWrapper -> entityFutureWrapper.getFuture().setException(t));
+        } catch (Throwable th) {
+            log.error("[{}] Failed to set future exception", logName, th);
+        }
+    }
+
+}
@@ -25,10 +25,13 @@ public final class TbSqlQueueElement<E, R> {
     private final SettableFuture<R> future;
     @Getter
     private final E entity;
+    @Getter
+    private final long enqueueNanos;
 
     public TbSqlQueueElement(SettableFuture<R> future, E entity) {
         this.future = future;
         this.entity = entity;
+        this.enqueueNanos = System.nanoTime();
     }
 }
 
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+public class TbSqlQueueSettings {
+
+    @Value("${sql.queue.type:BLOCKING}")
+    private TbSqlQueueType type = TbSqlQueueType.BLOCKING;
+
+    @Value("${sql.queue.adaptive.capacity:65536}")
+    private int capacity = 65536;
+
+    @Value("${sql.queue.adaptive.min_batch_size:16}")
+    private int minBatchSize = 16;
+
+    @Value("${sql.queue.adaptive.target_commit_latency_ms:50}")
+    private long targetCommitLatencyMs = 50;
+
+    @Value("${sql.queue.adaptive.max_enqueue_wait_ms:1000}")
+    private long maxEnqueueWaitMs = 1000;
+
+}
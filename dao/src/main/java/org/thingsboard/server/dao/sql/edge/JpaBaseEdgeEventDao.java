@@ -41,6 +41,7 @@ import org.thingsboard.server.dao.sql.JpaPartitionedAbstractDao;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlQueueSettings;
 import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
 import org.thingsboard.server.dao.util.SqlDao;
 
@@ -66,6 +67,8 @@ public class JpaBaseEdgeEventDao extends JpaPartitionedAbstractDao<EdgeEventEnti
 
     private final StatsFactory statsFactory;
 
+    private final TbSqlQueueSettings sqlQueueSettings;
+
     private final EdgeEventRepository edgeEventRepository;
 
     private final EdgeEventInsertRepository edgeEventInsertRepository;
@@ -117,7 +120,7 @@ public class JpaBaseEdgeEventDao extends JpaPartitionedAbstractDao<EdgeEventEnti
                 return NULL_UUID.hashCode();
             }
         };
-        queue = new TbSqlBlockingQueueWrapper<>(params, hashcodeFunction, 1, statsFactory);
+        queue = new TbSqlBlockingQueueWrapper<>(params, hashcodeFunction, 1, statsFactory, sqlQueueSettings);
         queue.init(logExecutor, edgeEventInsertRepository::save,
                 Comparator.comparing(EdgeEventEntity::getTs)
         );
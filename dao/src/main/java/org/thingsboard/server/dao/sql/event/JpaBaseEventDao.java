@@ -45,6 +45,7 @@ import org.thingsboard.server.dao.model.sql.EventEntity;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlQueueSettings;
 import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
 import org.thingsboard.server.dao.util.SqlDao;
 
@@ -73,6 +74,7 @@ public class JpaBaseEventDao implements EventDao {
     private final RuleChainDebugEventRepository ruleChainDebugEventRepository;
     private final ScheduledLogExecutorComponent logExecutor;
     private final StatsFactory statsFactory;
+    private final TbSqlQueueSettings sqlQueueSettings;
     private final CalculatedFieldDebugEventRepository calculatedFieldDebugEventRepository;
 
     @Value("${sql.events.batch_size:10000}")
@@ -105,7 +107,7 @@ public class JpaBaseEventDao implements EventDao {
                 .batchSortEnabled(batchSortEnabled)
                 .build();
         Function<Event, Integer> hashcodeFunction = entity -> Objects.hash(super.hashCode(), entity.getTenantId(), entity.getEntityId());
-        queue = new TbSqlBlockingQueueWrapper<>(params, hashcodeFunction, batchThreads, statsFactory);
+        queue = new TbSqlBlockingQueueWrapper<>(params, hashcodeFunction, batchThreads, statsFactory, sqlQueueSettings);
         queue.init(logExecutor, v -> eventInsertRepository.save(v), Comparator.comparing(Event::getCreatedTime));
         repositories.put(EventType.LC_EVENT, lcEventRepository);
         repositories.put(EventType.STATS, statsEventRepository);
@@ -15,12 +15,17 @@
  */
 package org.thingsboard.server.dao.sql.query;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.CustomerId;
@@ -36,9 +41,11 @@ import org.thingsboard.server.common.data.query.DeviceTypeFilter;
 import org.thingsboard.server.common.data.query.EdgeSearchQueryFilter;
 import org.thingsboard.server.common.data.query.EdgeTypeFilter;
 import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityDataCountMode;
 import org.thingsboard.server.common.data.query.EntityData;
 import org.thingsboard.server.common.data.query.EntityDataPageLink;
 import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortCursor;
 import org.thingsboard.server.common.data.query.EntityDataSortOrder;
 import org.thingsboard.server.common.data.query.EntityFilter;
 import org.thingsboard.server.common.data.query.EntityFilterType;
@@ -61,6 +68,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Repository
@@ -322,16 +330,41 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
     @Value("${sql.relations.max_level:50}")
     int maxLevelAllowed; //This value has to be reasonable small to prevent infinite recursion as early as possible
 
+    @Value("${sql.entity_data_query.compiled_cache_max_size:1000}")
+    private int compiledCacheMaxSize;
+
+    @Value("${sql.entity_data_query.count_cache_ttl_ms:5000}")
+    private long countCacheTtlMs;
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final TransactionTemplate transactionTemplate;
     private final DefaultQueryLogComponent queryLog;
 
+    private Cache<CompiledQueryKey, CompiledEntityDataQuery> compiledQueries;
+    private Cache<CompiledQueryKey, Integer> estimatedCounts;
+
     public DefaultEntityQueryRepository(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, DefaultQueryLogComponent queryLog) {
         this.jdbcTemplate = jdbcTemplate;
         this.transactionTemplate = transactionTemplate;
         this.queryLog = queryLog;
     }
 
+    @PostConstruct
+    public void init() {
+        if (compiledCacheMaxSize > 0) {
+            compiledQueries = Caffeine.newBuilder()
+                    .maximumSize(compiledCacheMaxSize)
+                    .expireAfterAccess(10, TimeUnit.MINUTES)
+                    .build();
+        }
+        if (countCacheTtlMs > 0) {
+            estimatedCounts = Caffeine.newBuilder()
+                    .maximumSize(Math.max(compiledCacheMaxSize, 1000))
+                    .expireAfterWrite(countCacheTtlMs, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
     @Override
     public long countEntitiesByQuery(TenantId tenantId, CustomerId customerId, EntityCountQuery query) {
         EntityType entityType = resolveEntityType(query.getEntityFilter());
@@ -416,115 +449,201 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
 
     public PageData<EntityData> findEntityDataByQuery(TenantId tenantId, CustomerId customerId, EntityDataQuery query, boolean ignorePermissionCheck) {
         return transactionTemplate.execute(status -> {
-            EntityType entityType = resolveEntityType(query.getEntityFilter());
-            SqlQueryContext ctx = new SqlQueryContext(new QueryContext(tenantId, customerId, entityType, ignorePermissionCheck));
+            CompiledQueryKey key = compiledQueries != null || estimatedCounts != null ?
+                    new CompiledQueryKey(tenantId, customerId, ignorePermissionCheck, toQueryShape(query)) : null;
+            CompiledEntityDataQuery compiled = compiledQueries != null ?
+                    compiledQueries.get(key, k -> compile(tenantId, customerId, query, ignorePermissionCheck)) :
+                    compile(tenantId, customerId, query, ignorePermissionCheck);
+            // the cached query is shared, the page parameters are bound to a copy of its context
+            SqlQueryContext ctx = new SqlQueryContext(compiled.ctx());
             EntityDataPageLink pageLink = query.getPageLink();
-
-            List<EntityKeyMapping> mappings = EntityKeyMapping.prepareKeyMapping(entityType, query);
-
-            List<EntityKeyMapping> selectionMapping = mappings.stream().filter(EntityKeyMapping::isSelection)
-                    .collect(Collectors.toList());
-            List<EntityKeyMapping> entityFieldsSelectionMapping = selectionMapping.stream().filter(mapping -> !mapping.isLatest())
-                    .collect(Collectors.toList());
-            List<EntityKeyMapping> latestSelectionMapping = selectionMapping.stream().filter(EntityKeyMapping::isLatest)
-                    .collect(Collectors.toList());
-
-            List<EntityKeyMapping> filterMapping = mappings.stream().filter(EntityKeyMapping::hasFilter)
-                    .collect(Collectors.toList());
-            List<EntityKeyMapping> entityFieldsFiltersMapping = filterMapping.stream().filter(mapping -> !mapping.isLatest() && mapping.getEntityKeyColumn() != null)
-                    .collect(Collectors.toList());
-
-            List<EntityKeyMapping> allLatestMappings = mappings.stream().filter(EntityKeyMapping::isLatest)
-                    .collect(Collectors.toList());
-
-
-            String entityWhereClause = DefaultEntityQueryRepository.this.buildEntityWhere(ctx, query.getEntityFilter(), entityFieldsFiltersMapping);
-            String latestJoinsCnt = EntityKeyMapping.buildLatestJoins(ctx, query.getEntityFilter(), entityType, allLatestMappings, true);
-            String latestJoinsData = EntityKeyMapping.buildLatestJoins(ctx, query.getEntityFilter(), entityType, allLatestMappings, false);
-            String aliasWhereQuery = DefaultEntityQueryRepository.this.buildAliasWhereQuery(ctx, query.getEntityFilter(), selectionMapping, pageLink.getTextSearch());
-            String entityFieldsSelection = EntityKeyMapping.buildSelections(entityFieldsSelectionMapping, query.getEntityFilter().getType(), entityType);
-            String entityTypeStr;
-            if (query.getEntityFilter().getType().equals(EntityFilterType.RELATIONS_QUERY)) {
-                entityTypeStr = "e.entity_type";
-            } else {
-                entityTypeStr = "'" + entityType.name() + "'";
+            EntityDataCountMode countMode = pageLink.getCountMode() != null ? pageLink.getCountMode() : EntityDataCountMode.EXACT;
+            if (countMode == EntityDataCountMode.ESTIMATE && estimatedCounts == null) {
+                countMode = EntityDataCountMode.EXACT;
             }
 
-            if (!StringUtils.isEmpty(entityFieldsSelection)) {
-                entityFieldsSelection = String.format("e.id id, %s entity_type, %s", entityTypeStr, entityFieldsSelection);
-            } else {
-                entityFieldsSelection = String.format("e.id id, %s entity_type", entityTypeStr);
-            }
-            String latestSelection = EntityKeyMapping.buildSelections(latestSelectionMapping, query.getEntityFilter().getType(), entityType);
-            String topSelection = "entities.*";
-            if (!StringUtils.isEmpty(latestSelection)) {
-                topSelection = topSelection + ", " + latestSelection;
-            }
-
-            String fromClauseCount = String.format("from (select %s from (select %s from %s e where %s) entities %s ) result %s",
-                    "entities.*",
-                    entityFieldsSelection,
-                    addEntityTableQuery(ctx, query.getEntityFilter()),
-                    entityWhereClause,
-                    latestJoinsCnt,
-                    aliasWhereQuery);
-
-            String fromClauseData = String.format("from (select %s from (select %s from %s e where %s) entities %s ) result %s",
-                    topSelection,
-                    entityFieldsSelection,
-                    addEntityTableQuery(ctx, query.getEntityFilter()),
-                    entityWhereClause,
-                    latestJoinsData,
-                    aliasWhereQuery);
-
-            if (!StringUtils.isEmpty(pageLink.getTextSearch())) {
-                //Unfortunately, we need to sacrifice performance in case of full text search, because it is applied to all joined records.
-                fromClauseCount = fromClauseData;
-            }
-            String countQuery = String.format("select count(id) %s", fromClauseCount);
-
-            long startTs = System.currentTimeMillis();
-            int totalElements;
-            try {
-                totalElements = jdbcTemplate.queryForObject(countQuery, ctx, Integer.class);
-            } finally {
-                queryLog.logQuery(ctx, countQuery, System.currentTimeMillis() - startTs);
+            Integer totalElements = null;
+            if (countMode == EntityDataCountMode.EXACT) {
+                totalElements = count(ctx, compiled.countQuery());
+                if (totalElements == 0) {
+                    return new PageData<>();
+                }
+            } else if (countMode == EntityDataCountMode.ESTIMATE) {
+                totalElements = estimatedCounts.get(key, k -> count(ctx, compiled.countQuery()));
             }
 
-            if (totalElements == 0) {
-                return new PageData<>();
-            }
-            String dataQuery = String.format("select * %s", fromClauseData);
-
-            EntityDataSortOrder sortOrder = pageLink.getSortOrder();
-            if (sortOrder != null) {
-                Optional<EntityKeyMapping> sortOrderMappingOpt = mappings.stream().filter(EntityKeyMapping::isSortOrder).findFirst();
-                if (sortOrderMappingOpt.isPresent()) {
-                    EntityKeyMapping sortOrderMapping = sortOrderMappingOpt.get();
-                    String direction = sortOrder.getDirection() == EntityDataSortOrder.Direction.ASC ? "asc" : "desc";
-                    if (sortOrderMapping.getEntityKey().getType() == EntityKeyType.ENTITY_FIELD) {
-                        dataQuery = String.format("%s order by %s %s, result.id %s", dataQuery, sortOrderMapping.getValueAlias(), direction, direction);
-                    } else {
-                        dataQuery = String.format("%s order by %s %s, %s %s, result.id %s", dataQuery,
-                                sortOrderMapping.getSortOrderNumAlias(), direction, sortOrderMapping.getSortOrderStrAlias(), direction, direction);
-                    }
-                }
+            String dataQuery = compiled.dataQuery();
+            EntityKeyMapping sortOrderMapping = compiled.sortOrderMapping();
+            EntityDataSortCursor cursor = pageLink.getSortCursor();
+            boolean keyset = cursor != null && cursor.getEntityId() != null && pageLink.getPageSize() > 0 &&
+                    sortOrderMapping != null && sortOrderMapping.getEntityKey().getType() == EntityKeyType.ENTITY_FIELD;
+            if (keyset) {
+                String valueAlias = sortOrderMapping.getValueAlias();
+                boolean asc = pageLink.getSortOrder().getDirection() == EntityDataSortOrder.Direction.ASC;
+                ctx.addStringParameter("page_cursor_sort_value", cursor.getSortValue() != null ? cursor.getSortValue() : "");
+                ctx.addUuidParameter("page_cursor_entity_id", cursor.getEntityId());
+                // the entity data returns null values as empty strings, so whether the value of the cursor entity is null
+                // or empty is looked up by its id
+                String cursorIsNull = StringUtils.isEmpty(cursor.getSortValue()) ?
+                        String.format("exists (select 1 from (%s) page_cursor where page_cursor.id = :page_cursor_entity_id and page_cursor.%s is null)",
+                                dataQuery, valueAlias) : "false";
+                // nulls go last in the ascending order and first in the descending one, the same as in the offset pages
+                dataQuery = String.format("select * from (%s) result where (result.%s is null, coalesce(result.%s, ''), result.id) %s " +
+                                "(%s, :page_cursor_sort_value, :page_cursor_entity_id)%s",
+                        dataQuery, valueAlias, valueAlias, asc ? ">" : "<", cursorIsNull, compiled.orderBy());
+            } else {
+                dataQuery = dataQuery + compiled.orderBy();
             }
+            // one more row is fetched to find out whether there is a next page without the exact total number of elements
+            boolean fetchNext = pageLink.getPageSize() > 0 && (keyset || countMode != EntityDataCountMode.EXACT);
             int startIndex = pageLink.getPageSize() * pageLink.getPage();
             if (pageLink.getPageSize() > 0) {
-                dataQuery = String.format("%s limit %s offset %s", dataQuery, pageLink.getPageSize(), startIndex);
+                ctx.addLongParameter("page_limit", fetchNext ? pageLink.getPageSize() + 1 : pageLink.getPageSize());
+                dataQuery = dataQuery + " limit :page_limit";
+                if (!keyset) {
+                    ctx.addLongParameter("page_offset", startIndex);
+                    dataQuery = dataQuery + " offset :page_offset";
+                }
             }
-            startTs = System.currentTimeMillis();
+            long startTs = System.currentTimeMillis();
             List<Map<String, Object>> rows;
             try {
                 rows = jdbcTemplate.queryForList(dataQuery, ctx);
             } finally {
                 queryLog.logQuery(ctx, dataQuery, System.currentTimeMillis() - startTs);
             }
-            return EntityDataAdapter.createEntityData(pageLink, selectionMapping, rows, totalElements);
+            if (!fetchNext) {
+                return EntityDataAdapter.createEntityData(pageLink, compiled.selectionMapping(), rows, totalElements);
+            }
+            boolean hasNext = rows.size() > pageLink.getPageSize();
+            if (hasNext) {
+                rows = rows.subList(0, pageLink.getPageSize());
+            }
+            long fetchedElements = (keyset ? 0 : startIndex) + rows.size();
+            long total = totalElements != null ? Math.max(totalElements, fetchedElements) : fetchedElements;
+            return EntityDataAdapter.createEntityData(pageLink, compiled.selectionMapping(), rows, total, hasNext);
         });
     }
 
+    private int count(SqlQueryContext ctx, String countQuery) {
+        long startTs = System.currentTimeMillis();
+        try {
+            return jdbcTemplate.queryForObject(countQuery, ctx, Integer.class);
+        } finally {
+            queryLog.logQuery(ctx, countQuery, System.currentTimeMillis() - startTs);
+        }
+    }
+
+    /*
+     * Builds the count and data queries without the page parameters. The result depends only on the security context
+     * and the query without the page number, page size, cursor and count mode, so it is cached by them.
+     * */
+    private CompiledEntityDataQuery compile(TenantId tenantId, CustomerId customerId, EntityDataQuery query, boolean ignorePermissionCheck) {
+        EntityType entityType = resolveEntityType(query.getEntityFilter());
+        SqlQueryContext ctx = new SqlQueryContext(new QueryContext(tenantId, customerId, entityType, ignorePermissionCheck));
+        EntityDataPageLink pageLink = query.getPageLink();
+
+        List<EntityKeyMapping> mappings = EntityKeyMapping.prepareKeyMapping(entityType, query);
+
+        List<EntityKeyMapping> selectionMapping = mappings.stream().filter(EntityKeyMapping::isSelection)
+                .collect(Collectors.toList());
+        List<EntityKeyMapping> entityFieldsSelectionMapping = selectionMapping.stream().filter(mapping -> !mapping.isLatest())
+                .collect(Collectors.toList());
+        List<EntityKeyMapping> latestSelectionMapping = selectionMapping.stream().filter(EntityKeyMapping::isLatest)
+                .collect(Collectors.toList());
+
+        List<EntityKeyMapping> filterMapping = mappings.stream().filter(EntityKeyMapping::hasFilter)
+                .collect(Collectors.toList());
+        List<EntityKeyMapping> entityFieldsFiltersMapping = filterMapping.stream().filter(mapping -> !mapping.isLatest() && mapping.getEntityKeyColumn() != null)
+                .collect(Collectors.toList());
+
+        List<EntityKeyMapping> allLatestMappings = mappings.stream().filter(EntityKeyMapping::isLatest)
+                .collect(Collectors.toList());
+
+
+        String entityWhereClause = DefaultEntityQueryRepository.this.buildEntityWhere(ctx, query.getEntityFilter(), entityFieldsFiltersMapping);
+        String latestJoinsCnt = EntityKeyMapping.buildLatestJoins(ctx, query.getEntityFilter(), entityType, allLatestMappings, true);
+        String latestJoinsData = EntityKeyMapping.buildLatestJoins(ctx, query.getEntityFilter(), entityType, allLatestMappings, false);
+        String aliasWhereQuery = DefaultEntityQueryRepository.this.buildAliasWhereQuery(ctx, query.getEntityFilter(), selectionMapping, pageLink.getTextSearch());
+        String entityFieldsSelection = EntityKeyMapping.buildSelections(entityFieldsSelectionMapping, query.getEntityFilter().getType(), entityType);
+        String entityTypeStr;
+        if (query.getEntityFilter().getType().equals(EntityFilterType.RELATIONS_QUERY)) {
+            entityTypeStr = "e.entity_type";
+        } else {
+            entityTypeStr = "'" + entityType.name() + "'";
+        }
+
+        if (!StringUtils.isEmpty(entityFieldsSelection)) {
+            entityFieldsSelection = String.format("e.id id, %s entity_type, %s", entityTypeStr, entityFieldsSelection);
+        } else {
+            entityFieldsSelection = String.format("e.id id, %s entity_type", entityTypeStr);
+        }
+        String latestSelection = EntityKeyMapping.buildSelections(latestSelectionMapping, query.getEntityFilter().getType(), entityType);
+        String topSelection = "entities.*";
+        if (!StringUtils.isEmpty(latestSelection)) {
+            topSelection = topSelection + ", " + latestSelection;
+        }
+
+        String fromClauseCount = String.format("from (select %s from (select %s from %s e where %s) entities %s ) result %s",
+                "entities.*",
+                entityFieldsSelection,
+                addEntityTableQuery(ctx, query.getEntityFilter()),
+                entityWhereClause,
+                latestJoinsCnt,
+                aliasWhereQuery);
+
+        String fromClauseData = String.format("from (select %s from (select %s from %s e where %s) entities %s ) result %s",
+                topSelection,
+                entityFieldsSelection,
+                addEntityTableQuery(ctx, query.getEntityFilter()),
+                entityWhereClause,
+                latestJoinsData,
+                aliasWhereQuery);
+
+        if (!StringUtils.isEmpty(pageLink.getTextSearch())) {
+            //Unfortunately, we need to sacrifice performance in case of full text search, because it is applied to all joined records.
+            fromClauseCount = fromClauseData;
+        }
+        String countQuery = String.format("select count(id) %s", fromClauseCount);
+        String dataQuery = String.format("select * %s", fromClauseData);
+
+        String orderBy = "";
+        EntityKeyMapping sortOrderMapping = null;
+        EntityDataSortOrder sortOrder = pageLink.getSortOrder();
+        if (sortOrder != null) {
+            Optional<EntityKeyMapping> sortOrderMappingOpt = mappings.stream().filter(EntityKeyMapping::isSortOrder).findFirst();
+            if (sortOrderMappingOpt.isPresent()) {
+                sortOrderMapping = sortOrderMappingOpt.get();
+                String direction = sortOrder.getDirection() == EntityDataSortOrder.Direction.ASC ? "asc" : "desc";
+                if (sortOrderMapping.getEntityKey().getType() == EntityKeyType.ENTITY_FIELD) {
+                    orderBy = String.format(" order by %s %s, result.id %s", sortOrderMapping.getValueAlias(), direction, direction);
+                } else {
+                    orderBy = String.format(" order by %s %s, %s %s, result.id %s",
+                            sortOrderMapping.getSortOrderNumAlias(), direction, sortOrderMapping.getSortOrderStrAlias(), direction, direction);
+                }
+            }
+        }
+        return new CompiledEntityDataQuery(ctx, countQuery, dataQuery, orderBy, selectionMapping, sortOrderMapping);
+    }
+
+    /*
+     * Serialized query without the page parameters that are bound separately
+     * */
+    private static String toQueryShape(EntityDataQuery query) {
+        ObjectNode node = (ObjectNode) JacksonUtil.valueToTree(query);
+        if (node.get("pageLink") instanceof ObjectNode pageLinkNode) {
+            pageLinkNode.remove(List.of("page", "pageSize", "sortCursor", "countMode"));
+        }
+        return node.toString();
+    }
+
+    private record CompiledQueryKey(TenantId tenantId, CustomerId customerId, boolean ignorePermissionCheck, String query) {
+    }
+
+    private record CompiledEntityDataQuery(SqlQueryContext ctx, String countQuery, String dataQuery, String orderBy,
+                                           List<EntityKeyMapping> selectionMapping, EntityKeyMapping sortOrderMapping) {
+    }
+
     private String buildEntityWhere(SqlQueryContext ctx, EntityFilter entityFilter, List<EntityKeyMapping> entityFieldsFilters) {
         String permissionQuery = this.buildPermissionQuery(ctx, entityFilter);
         String entityFilterQuery = this.buildEntityFilterQuery(ctx, entityFilter);
@@ -46,6 +46,25 @@ public class EntityDataAdapter {
         return new PageData<>(entitiesData, totalPages, totalElements, hasNext);
     }
 
+    /*
+     * Used when the rows are fetched with the keyset pagination or without the exact total number of elements,
+     * so 'hasNext' is known from the fetched rows
+     * */
+    public static PageData<EntityData> createEntityData(EntityDataPageLink pageLink,
+                                                        List<EntityKeyMapping> selectionMapping,
+                                                        List<Map<String, Object>> rows,
+                                                        long totalElements,
+                                                        boolean hasNext) {
+        int totalPages;
+        if (pageLink.getPageSize() > 0) {
+            totalPages = Math.max((int) Math.ceil((double) totalElements / pageLink.getPageSize()), hasNext ? pageLink.getPage() + 2 : pageLink.getPage() + 1);
+        } else {
+            totalPages = 1;
+        }
+        List<EntityData> entitiesData = convertListToEntityData(rows, selectionMapping);
+        return new PageData<>(entitiesData, totalPages, totalElements, hasNext);
+    }
+
     private static List<EntityData> convertListToEntityData(List<Map<String, Object>> result, List<EntityKeyMapping> selectionMapping) {
         return result.stream().map(row -> toEntityData(row, selectionMapping)).collect(Collectors.toList());
     }
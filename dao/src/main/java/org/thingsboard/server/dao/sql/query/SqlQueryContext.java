@@ -43,6 +43,15 @@ public class SqlQueryContext implements SqlParameterSource {
         params = new HashMap<>();
     }
 
+    /**
+     * Creates a context with the parameters of the given one, e.g. to bind the page parameters to a cached query
+     */
+    public SqlQueryContext(SqlQueryContext other) {
+        this.securityCtx = other.securityCtx;
+        query = new StringBuilder();
+        params = new HashMap<>(other.params);
+    }
+
     void addParameter(String name, Object value, int type, String typeName) {
         Parameter newParam = new Parameter(value, type, typeName);
         Parameter oldParam = params.put(name, newParam);
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.sql.relation;
 
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListenableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,9 +40,13 @@ import org.thingsboard.server.dao.util.SqlDao;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.dao.model.ModelConstants.RELATION_FROM_ID_PROPERTY;
@@ -59,6 +64,7 @@ import static org.thingsboard.server.dao.model.ModelConstants.VERSION_COLUMN;
 public class JpaRelationDao extends JpaAbstractDaoListeningExecutorService implements RelationDao {
 
     private static final List<String> ALL_TYPE_GROUP_NAMES = new ArrayList<>();
+    private static final int MAX_IDS_PER_QUERY = 1000;
     private static final String RETURNING = "RETURNING from_id, from_type, to_id, to_type, relation_type, relation_type_group, nextval('relation_version_seq') as version";
     private static final String DELETE_QUERY = "DELETE FROM relation WHERE from_id = ? AND from_type = ? AND to_id = ? AND to_type = ? AND relation_type = ? AND relation_type_group = ? " + RETURNING;
 
@@ -90,6 +96,11 @@ public class JpaRelationDao extends JpaAbstractDaoListeningExecutorService imple
                         ALL_TYPE_GROUP_NAMES));
     }
 
+    @Override
+    public List<EntityRelation> findAllByFrom(TenantId tenantId, Collection<EntityId> from, RelationTypeGroup typeGroup) {
+        return findAllByIds(from, ids -> relationRepository.findAllByFromIdInAndRelationTypeGroup(ids, typeGroup.name()), EntityRelation::getFrom);
+    }
+
     @Override
     public List<EntityRelation> findAllByFromAndType(TenantId tenantId, EntityId from, String relationType, RelationTypeGroup typeGroup) {
         return DaoUtil.convertDataList(
@@ -118,6 +129,34 @@ public class JpaRelationDao extends JpaAbstractDaoListeningExecutorService imple
                         ALL_TYPE_GROUP_NAMES));
     }
 
+    @Override
+    public List<EntityRelation> findAllByTo(TenantId tenantId, Collection<EntityId> to, RelationTypeGroup typeGroup) {
+        return findAllByIds(to, ids -> relationRepository.findAllByToIdInAndRelationTypeGroup(ids, typeGroup.name()), EntityRelation::getTo);
+    }
+
+    /*
+     * Relations are fetched by id only (ids are unique across entity types) in chunks of MAX_IDS_PER_QUERY,
+     * the entity type is checked afterwards to keep the same semantics as the single-entity lookups.
+     */
+    private List<EntityRelation> findAllByIds(Collection<EntityId> entityIds, Function<List<UUID>, List<RelationEntity>> dbCall,
+                                              Function<EntityRelation, EntityId> entityIdGetter) {
+        if (entityIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<EntityId> uniqueIds = new HashSet<>(entityIds);
+        List<UUID> ids = uniqueIds.stream().map(EntityId::getId).toList();
+        List<EntityRelation> relations = new ArrayList<>();
+        for (List<UUID> idsChunk : Lists.partition(ids, MAX_IDS_PER_QUERY)) {
+            for (RelationEntity entity : dbCall.apply(idsChunk)) {
+                EntityRelation relation = entity.toData();
+                if (uniqueIds.contains(entityIdGetter.apply(relation))) {
+                    relations.add(relation);
+                }
+            }
+        }
+        return relations;
+    }
+
     @Override
     public List<EntityRelation> findAllByToAndType(TenantId tenantId, EntityId to, String relationType, RelationTypeGroup typeGroup) {
         return DaoUtil.convertDataList(
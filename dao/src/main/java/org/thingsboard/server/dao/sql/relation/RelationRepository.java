@@ -26,6 +26,7 @@ import org.thingsboard.server.common.data.rule.RuleChainType;
 import org.thingsboard.server.dao.model.sql.RelationCompositeKey;
 import org.thingsboard.server.dao.model.sql.RelationEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -45,6 +46,9 @@ public interface RelationRepository
                                                                                        String relationType,
                                                                                        String relationTypeGroup);
 
+    List<RelationEntity> findAllByFromIdInAndRelationTypeGroup(Collection<UUID> fromIds,
+                                                               String relationTypeGroup);
+
     List<RelationEntity> findAllByToIdAndToTypeAndRelationTypeGroup(UUID toId,
                                                                     String toType,
                                                                     String relationTypeGroup);
@@ -58,6 +62,9 @@ public interface RelationRepository
                                                                                    String relationType,
                                                                                    String relationTypeGroup);
 
+    List<RelationEntity> findAllByToIdInAndRelationTypeGroup(Collection<UUID> toIds,
+                                                             String relationTypeGroup);
+
     @Query("SELECT r FROM RelationEntity r WHERE " +
             "r.relationTypeGroup = 'RULE_NODE' AND r.toType = 'RULE_CHAIN' " +
             "AND r.toId in (SELECT id from RuleChainEntity where type = :ruleChainType )")
@@ -21,6 +21,7 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort.Direction;
 import org.thingsboard.server.common.data.id.EntityId;
@@ -38,7 +39,9 @@ import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
 import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.sql.TbSqlQueueSettings;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsAggregationRepository;
 import org.thingsboard.server.dao.sqlts.ts.TsKvRepository;
 import org.thingsboard.server.dao.timeseries.TimeseriesDao;
 import org.thingsboard.server.dao.util.TimeUtils;
@@ -60,9 +63,17 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
     @Autowired
     protected InsertTsRepository<TsKvEntity> insertRepository;
 
+    @Autowired
+    protected SqlTsAggregationRepository aggregationRepository;
+
+    @Value("${sql.ts.aggregation_mode:PER_INTERVAL}")
+    protected SqlTsAggregationMode aggregationMode;
+
     protected TbSqlBlockingQueueWrapper<TsKvEntity, Void> tsQueue;
     @Autowired
     private StatsFactory statsFactory;
+    @Autowired
+    private TbSqlQueueSettings sqlQueueSettings;
 
     @Autowired
     private KeyDictionaryDao keyDictionaryDao;
@@ -79,14 +90,18 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
                 .build();
 
         Function<TsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
-        tsQueue = new TbSqlBlockingQueueWrapper<>(tsParams, hashcodeFunction, tsBatchThreads, statsFactory);
-        tsQueue.init(logExecutor, v -> insertRepository.saveOrUpdate(v),
+        tsQueue = new TbSqlBlockingQueueWrapper<>(tsParams, hashcodeFunction, tsBatchThreads, statsFactory, sqlQueueSettings);
+        tsQueue.init(logExecutor, this::saveBatch,
                 Comparator.comparing((Function<TsKvEntity, UUID>) AbstractTsKvEntity::getEntityId)
                         .thenComparing(AbstractTsKvEntity::getKey)
                         .thenComparing(AbstractTsKvEntity::getTs)
         );
     }
 
+    protected void saveBatch(List<TsKvEntity> entities) {
+        insertRepository.saveOrUpdate(entities);
+    }
+
     @PreDestroy
     protected void destroy() {
         if (tsQueue != null) {
@@ -122,26 +137,47 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         if (Aggregation.NONE.equals(aggParams.getAggregation()) || aggParams.getInterval() < 1) {
             return Futures.immediateFuture(findAllAsyncWithLimit(entityId, query));
         } else {
-            List<ListenableFuture<Optional<TsKvEntity>>> futures = new ArrayList<>();
-            var intervalType = aggParams.getIntervalType();
-            long startPeriod = query.getStartTs();
             long endPeriod = Math.max(query.getStartTs() + 1, query.getEndTs());
-            while (startPeriod < endPeriod) {
-                long startTs = startPeriod;
-                long endTs;
-                if (IntervalType.MILLISECONDS.equals(intervalType)) {
-                    endTs = startPeriod + aggParams.getInterval();
-                } else {
-                    endTs = TimeUtils.calculateIntervalEnd(startTs, intervalType, aggParams.getTzId());
-                }
-                endTs = Math.min(endTs, endPeriod);
-                long ts = startTs + (endTs - startTs) / 2;
-                ListenableFuture<Optional<TsKvEntity>> aggregateTsKvEntry = findAndAggregateAsync(entityId, query.getKey(), startTs, endTs, ts, query.getAggregation());
-                futures.add(aggregateTsKvEntry);
-                startPeriod = endTs;
+            long[] intervalStarts = calculateIntervalStarts(query, endPeriod);
+            return getReadTsKvQueryResultFuture(query, aggregateIntervalsAsync(entityId, query.getKey(), intervalStarts, endPeriod, query.getAggregation()));
+        }
+    }
+
+    /**
+     * Aggregates the raw records of the given intervals.
+     *
+     * @param intervalStarts ascending starts of the intervals; each interval ends at the start of the next one
+     * @param endTs          end of the last interval (exclusive)
+     */
+    protected ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> aggregateIntervalsAsync(EntityId entityId, String key, long[] intervalStarts, long endTs, Aggregation aggregation) {
+        if (SqlTsAggregationMode.SINGLE_PASS.equals(aggregationMode)) {
+            return findAndAggregateAllAsync(entityId, key, intervalStarts, endTs, aggregation);
+        }
+        List<ListenableFuture<Optional<TsKvEntity>>> futures = new ArrayList<>(intervalStarts.length);
+        for (int i = 0; i < intervalStarts.length; i++) {
+            long startTs = intervalStarts[i];
+            long intervalEndTs = i + 1 < intervalStarts.length ? intervalStarts[i + 1] : endTs;
+            long ts = startTs + (intervalEndTs - startTs) / 2;
+            ListenableFuture<Optional<TsKvEntity>> aggregateTsKvEntry = findAndAggregateAsync(entityId, key, startTs, intervalEndTs, ts, aggregation);
+            futures.add(aggregateTsKvEntry);
+        }
+        return Futures.allAsList(futures);
+    }
+
+    static long[] calculateIntervalStarts(ReadTsKvQuery query, long endPeriod) {
+        var aggParams = query.getAggParameters();
+        var intervalType = aggParams.getIntervalType();
+        List<Long> intervalStarts = new ArrayList<>();
+        long startPeriod = query.getStartTs();
+        while (startPeriod < endPeriod) {
+            intervalStarts.add(startPeriod);
+            if (IntervalType.MILLISECONDS.equals(intervalType)) {
+                startPeriod = startPeriod + aggParams.getInterval();
+            } else {
+                startPeriod = TimeUtils.calculateIntervalEnd(startPeriod, intervalType, aggParams.getTzId());
             }
-            return getReadTsKvQueryResultFuture(query, Futures.allAsList(futures));
         }
+        return intervalStarts.stream().mapToLong(Long::longValue).toArray();
     }
 
     ReadTsKvQueryResult findAllAsyncWithLimit(EntityId entityId, ReadTsKvQuery query) {
@@ -172,6 +208,26 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         });
     }
 
+    ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> findAndAggregateAllAsync(EntityId entityId, String key, long[] intervalStarts, long endTs, Aggregation aggregation) {
+        return service.submit(() -> {
+            var keyId = keyDictionaryDao.getOrSaveKeyId(key);
+            List<TsKvEntity> entities = aggregationRepository.findAggregates(entityId.getId(), keyId, intervalStarts, endTs, aggregation);
+            List<Optional<? extends AbstractTsKvEntity>> result = new ArrayList<>(entities.size());
+            for (TsKvEntity entity : entities) {
+                if (entity.isNotEmpty()) {
+                    entity.setEntityId(entityId.getId());
+                    entity.setStrKey(key);
+                    result.add(Optional.of(entity));
+                }
+            }
+            if (result.isEmpty()) {
+                // an empty list is treated as a missing query result, while the per-interval mode returns empty intervals
+                result.add(Optional.empty());
+            }
+            return result;
+        });
+    }
+
     protected TsKvEntity switchAggregation(EntityId entityId, String key, long startTs, long endTs, Aggregation aggregation) {
         var keyId = keyDictionaryDao.getOrSaveKeyId(key);
         switch (aggregation) {
@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Streams time-series rows into PostgreSQL using the binary COPY protocol.
+ * Rows are written in the (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) column order
+ * shared by the ts_kv and ts_kv_latest tables.
+ */
+public final class TsKvBinaryCopyWriter {
+
+    public static final String COLUMNS = "entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v";
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short FIELD_COUNT = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private TsKvBinaryCopyWriter() {
+    }
+
+    public static String createStagingTableQuery(String stagingTable) {
+        return "CREATE TEMP TABLE IF NOT EXISTS " + stagingTable + " (entity_id uuid NOT NULL, key int NOT NULL, ts bigint NOT NULL, " +
+                "bool_v boolean, str_v varchar(10000000), long_v bigint, dbl_v double precision, json_v json) ON COMMIT DELETE ROWS";
+    }
+
+    public static long copy(Connection connection, String stagingTable, List<? extends AbstractTsKvEntity> entities,
+                            UnaryOperator<String> strSanitizer) throws SQLException, IOException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        String copySql = "COPY " + stagingTable + " (" + COLUMNS + ") FROM STDIN WITH (FORMAT BINARY)";
+        try (PGCopyOutputStream copyOut = new PGCopyOutputStream(pgConnection, copySql, BUFFER_SIZE)) {
+            write(copyOut, entities, strSanitizer);
+            copyOut.endCopy();
+            return copyOut.getHandledRowCount();
+        }
+    }
+
+    public static void write(OutputStream target, List<? extends AbstractTsKvEntity> entities,
+                             UnaryOperator<String> strSanitizer) throws IOException {
+        DataOutputStream out = new DataOutputStream(target);
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+        for (AbstractTsKvEntity entity : entities) {
+            out.writeShort(FIELD_COUNT);
+            writeUuid(out, entity.getEntityId());
+            out.writeInt(Integer.BYTES);
+            out.writeInt(entity.getKey());
+            out.writeInt(Long.BYTES);
+            out.writeLong(entity.getTs());
+            if (entity.getBooleanValue() != null) {
+                out.writeInt(1);
+                out.writeByte(entity.getBooleanValue() ? 1 : 0);
+            } else {
+                out.writeInt(-1);
+            }
+            writeText(out, strSanitizer.apply(entity.getStrValue()));
+            if (entity.getLongValue() != null) {
+                out.writeInt(Long.BYTES);
+                out.writeLong(entity.getLongValue());
+            } else {
+                out.writeInt(-1);
+            }
+            if (entity.getDoubleValue() != null) {
+                out.writeInt(Double.BYTES);
+                out.writeDouble(entity.getDoubleValue());
+            } else {
+                out.writeInt(-1);
+            }
+            // binary representation of the json type is the same as its text representation
+            writeText(out, strSanitizer.apply(entity.getJsonValue()));
+        }
+        out.writeShort(-1);
+        out.flush();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeInt(16);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+}
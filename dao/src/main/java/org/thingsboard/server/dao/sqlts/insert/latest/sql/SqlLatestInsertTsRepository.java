@@ -19,14 +19,25 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.thingsboard.server.dao.AbstractVersionedInsertRepository;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.sqlts.TsKey;
+import org.thingsboard.server.dao.sqlts.insert.SqlTsInsertMode;
+import org.thingsboard.server.dao.sqlts.insert.TsKvBinaryCopyWriter;
 import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
 
+import java.io.IOException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @SqlTsLatestAnyDao
 @Repository
@@ -35,6 +46,9 @@ public class SqlLatestInsertTsRepository extends AbstractVersionedInsertReposito
     @Value("${sql.ts_latest.update_by_latest_ts:true}")
     private Boolean updateByLatestTs;
 
+    @Value("${sql.ts_latest.insert_mode:UPSERT}")
+    private SqlTsInsertMode insertMode;
+
     private static final String BATCH_UPDATE =
             "UPDATE ts_kv_latest SET ts = ?, bool_v = ?, str_v = ?, long_v = ?, dbl_v = ?, json_v = cast(? AS json), version = nextval('ts_kv_latest_version_seq') WHERE entity_id = ? AND key = ?";
 
@@ -48,13 +62,59 @@ public class SqlLatestInsertTsRepository extends AbstractVersionedInsertReposito
 
     private static final String RETURNING = " RETURNING version";
 
+    private static final String STAGING_TABLE = "tb_ts_kv_latest_copy_staging";
+
+    private static final String MERGE_FROM_STAGING =
+            "INSERT INTO ts_kv_latest (" + TsKvBinaryCopyWriter.COLUMNS + ", version) " +
+                    "SELECT " + TsKvBinaryCopyWriter.COLUMNS + ", nextval('ts_kv_latest_version_seq') FROM " + STAGING_TABLE + " " +
+                    "ON CONFLICT (entity_id, key) DO UPDATE SET ts = excluded.ts, bool_v = excluded.bool_v, str_v = excluded.str_v, " +
+                    "long_v = excluded.long_v, dbl_v = excluded.dbl_v, json_v = excluded.json_v, version = nextval('ts_kv_latest_version_seq')";
+
+    private static final String MERGE_FROM_STAGING_BY_LATEST_TS = MERGE_FROM_STAGING + " WHERE ts_kv_latest.ts <= excluded.ts";
+
+    private static final String MERGE_RETURNING = " RETURNING entity_id, key, version";
+
     private String batchUpdateQuery;
     private String insertOrUpdateQuery;
+    private String mergeFromStagingQuery;
 
     @PostConstruct
     private void init() {
         this.batchUpdateQuery = (updateByLatestTs ? BATCH_UPDATE_BY_LATEST_TS : BATCH_UPDATE) + RETURNING;
         this.insertOrUpdateQuery = (updateByLatestTs ? INSERT_OR_UPDATE_BY_LATEST_TS : INSERT_OR_UPDATE) + RETURNING;
+        this.mergeFromStagingQuery = (updateByLatestTs ? MERGE_FROM_STAGING_BY_LATEST_TS : MERGE_FROM_STAGING) + MERGE_RETURNING;
+    }
+
+    /*
+     * Entities are expected to be unique by (entity_id, key): the latest queue keeps only the most recent value per key.
+     */
+    @Override
+    public List<Long> saveOrUpdate(List<TsKvLatestEntity> entities) {
+        if (insertMode != SqlTsInsertMode.COPY || entities.isEmpty()) {
+            return super.saveOrUpdate(entities);
+        }
+        return transactionTemplate.execute(status -> {
+            Map<TsKey, Long> versions = jdbcTemplate.execute((ConnectionCallback<Map<TsKey, Long>>) con -> {
+                try (Statement statement = con.createStatement()) {
+                    statement.execute(TsKvBinaryCopyWriter.createStagingTableQuery(STAGING_TABLE));
+                    TsKvBinaryCopyWriter.copy(con, STAGING_TABLE, entities, this::replaceNullChars);
+                    Map<TsKey, Long> result = new HashMap<>(entities.size() * 2);
+                    try (ResultSet rs = statement.executeQuery(mergeFromStagingQuery)) {
+                        while (rs.next()) {
+                            result.put(new TsKey(rs.getObject(1, UUID.class), rs.getInt(2)), rs.getLong(3));
+                        }
+                    }
+                    return result;
+                } catch (IOException e) {
+                    throw new SQLException("Failed to copy latest ts records to the staging table", e);
+                }
+            });
+            List<Long> seqNumbers = new ArrayList<>(entities.size());
+            for (TsKvLatestEntity entity : entities) {
+                seqNumbers.add(versions.get(new TsKey(entity.getEntityId(), entity.getKey())));
+            }
+            return seqNumbers;
+        });
     }
 
     @Override
@@ -15,19 +15,33 @@
  */
 package org.thingsboard.server.dao.sqlts.insert.sql;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvCompositeKey;
 import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sqlts.insert.AbstractInsertRepository;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.SqlTsInsertMode;
+import org.thingsboard.server.dao.sqlts.insert.TsKvBinaryCopyWriter;
 import org.thingsboard.server.dao.util.SqlTsDao;
 
+import java.io.IOException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @SqlTsDao
 @Repository
 @Transactional
@@ -36,8 +50,79 @@ public class SqlInsertTsRepository extends AbstractInsertRepository implements I
     private static final String INSERT_ON_CONFLICT_DO_UPDATE = "INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) VALUES (?, ?, ?, ?, ?, ?, ?, cast(? AS json)) " +
             "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = ?, str_v = ?, long_v = ?, dbl_v = ?, json_v = cast(? AS json);";
 
+    private static final String STAGING_TABLE = "tb_ts_kv_copy_staging";
+
+    private static final String MERGE_FROM_STAGING = "WITH merged AS (INSERT INTO ts_kv (" + TsKvBinaryCopyWriter.COLUMNS + ") " +
+            "SELECT " + TsKvBinaryCopyWriter.COLUMNS + " FROM " + STAGING_TABLE + " " +
+            "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = excluded.bool_v, str_v = excluded.str_v, long_v = excluded.long_v, " +
+            "dbl_v = excluded.dbl_v, json_v = excluded.json_v RETURNING (xmax = 0) AS inserted) " +
+            "SELECT count(*) FILTER (WHERE NOT inserted) FROM merged";
+
+    @Value("${sql.ts.insert_mode:UPSERT}")
+    private SqlTsInsertMode insertMode;
+
+    @Value("${sql.ts.copy.conflict_ratio_threshold:0.5}")
+    private double conflictRatioThreshold;
+
+    @Value("${sql.ts.copy.fallback_batches:100}")
+    private int fallbackBatches;
+
+    private final AtomicInteger fallbackBatchesLeft = new AtomicInteger();
+
     @Override
     public void saveOrUpdate(List<TsKvEntity> entities) {
+        if (insertMode == SqlTsInsertMode.COPY && !entities.isEmpty() && !isFallbackActive()) {
+            List<TsKvEntity> uniqueEntities = deduplicate(entities);
+            double duplicatesRatio = 1.0 - (double) uniqueEntities.size() / entities.size();
+            if (duplicatesRatio <= conflictRatioThreshold) {
+                copyAndMerge(uniqueEntities);
+                return;
+            }
+            log.debug("Batch of {} ts records has {} duplicates, falling back to upsert", entities.size(), entities.size() - uniqueEntities.size());
+            startFallback();
+        }
+        upsert(entities);
+    }
+
+    private void copyAndMerge(List<TsKvEntity> entities) {
+        long conflicts = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try (Statement statement = con.createStatement()) {
+                statement.execute(TsKvBinaryCopyWriter.createStagingTableQuery(STAGING_TABLE));
+                TsKvBinaryCopyWriter.copy(con, STAGING_TABLE, entities, this::replaceNullChars);
+                try (ResultSet rs = statement.executeQuery(MERGE_FROM_STAGING)) {
+                    return rs.next() ? rs.getLong(1) : 0L;
+                }
+            } catch (IOException e) {
+                throw new SQLException("Failed to copy ts records to the staging table", e);
+            }
+        });
+        if ((double) conflicts / entities.size() > conflictRatioThreshold) {
+            log.debug("Batch of {} ts records caused {} conflicts, falling back to upsert", entities.size(), conflicts);
+            startFallback();
+        }
+    }
+
+    private boolean isFallbackActive() {
+        return fallbackBatchesLeft.getAndUpdate(left -> left > 0 ? left - 1 : 0) > 0;
+    }
+
+    private void startFallback() {
+        fallbackBatchesLeft.set(fallbackBatches);
+    }
+
+    /*
+     * A single INSERT ... ON CONFLICT DO UPDATE can't affect the same row twice,
+     * so only the last record for each (entity_id, key, ts) is kept - the same result as a sequential upsert.
+     */
+    private static List<TsKvEntity> deduplicate(List<TsKvEntity> entities) {
+        Map<TsKvCompositeKey, TsKvEntity> unique = new LinkedHashMap<>(entities.size() * 2);
+        for (TsKvEntity entity : entities) {
+            unique.put(new TsKvCompositeKey(entity.getEntityId(), entity.getKey(), entity.getTs()), entity);
+        }
+        return unique.size() == entities.size() ? entities : new ArrayList<>(unique.values());
+    }
+
+    private void upsert(List<TsKvEntity> entities) {
         jdbcTemplate.batchUpdate(INSERT_ON_CONFLICT_DO_UPDATE, new BatchPreparedStatementSetter() {
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
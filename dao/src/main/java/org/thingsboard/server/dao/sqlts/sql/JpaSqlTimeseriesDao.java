@@ -26,8 +26,11 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
 import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sqlts.AbstractChunkedAggregationTimeseriesDao;
 import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
@@ -44,6 +47,9 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -62,6 +68,10 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
     private SqlPartitioningRepository partitioningRepository;
     @Autowired
     private KeyDictionaryDao keyDictionaryDao;
+    @Autowired
+    private SqlTsRollupService rollupService;
+    @Autowired
+    private SqlTsRollupRepository rollupRepository;
 
     private SqlTsPartitionDate tsFormat;
 
@@ -100,6 +110,85 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
         return Futures.transform(tsQueue.add(entity), v -> dataPointDays, MoreExecutors.directExecutor());
     }
 
+    @Override
+    protected void saveBatch(List<TsKvEntity> entities) {
+        if (rollupService.isEnabled()) {
+            rollupService.saveAndMarkDirty(entities, super::saveBatch);
+        } else {
+            super.saveBatch(entities);
+        }
+    }
+
+    @Override
+    public ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
+        if (!rollupService.isEnabled()) {
+            return super.remove(tenantId, entityId, query);
+        }
+        return service.submit(() -> {
+            Integer keyId = keyDictionaryDao.getOrSaveKeyId(query.getKey());
+            rollupService.removeAndMarkDirty(entityId.getId(), keyId, query.getStartTs(), query.getEndTs(),
+                    () -> tsKvRepository.delete(entityId.getId(), keyId, query.getStartTs(), query.getEndTs()));
+            return null;
+        });
+    }
+
+    /*
+     * Aggregates the longest run of intervals that match a rollup from the rollup and the rest of the intervals from the raw records
+     * */
+    @Override
+    protected ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> aggregateIntervalsAsync(EntityId entityId, String key, long[] intervalStarts, long endTs, Aggregation aggregation) {
+        long now = System.currentTimeMillis();
+        if (rollupService.resolve(intervalStarts, endTs, now, List.of()).isEmpty()) {
+            return super.aggregateIntervalsAsync(entityId, key, intervalStarts, endTs, aggregation);
+        }
+        // the intervals with the records that are not rolled up yet are aggregated from the raw records
+        ListenableFuture<List<SqlTsRollupService.DirtyRange>> dirtyRangesFuture = service.submit(() ->
+                rollupService.findDirtyRanges(entityId.getId(), keyDictionaryDao.getOrSaveKeyId(key)));
+        return Futures.transformAsync(dirtyRangesFuture, dirtyRanges -> {
+            Optional<SqlTsRollupService.RollupRange> rollupRangeOpt = rollupService.resolve(intervalStarts, endTs, now, dirtyRanges);
+            if (rollupRangeOpt.isEmpty()) {
+                return super.aggregateIntervalsAsync(entityId, key, intervalStarts, endTs, aggregation);
+            }
+            return aggregateWithRollupAsync(entityId, key, intervalStarts, endTs, aggregation, rollupRangeOpt.get());
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> aggregateWithRollupAsync(EntityId entityId, String key, long[] intervalStarts, long endTs,
+                                                                                                     Aggregation aggregation, SqlTsRollupService.RollupRange rollupRange) {
+        int fromIdx = rollupRange.fromIdx();
+        int toIdx = rollupRange.toIdx();
+        long rollupEndTs = toIdx < intervalStarts.length ? intervalStarts[toIdx] : endTs;
+        List<ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>>> futures = new ArrayList<>(3);
+        if (fromIdx > 0) {
+            futures.add(super.aggregateIntervalsAsync(entityId, key, Arrays.copyOfRange(intervalStarts, 0, fromIdx), intervalStarts[fromIdx], aggregation));
+        }
+        futures.add(findRollupAggregatesAsync(entityId, key, rollupRange.interval(), Arrays.copyOfRange(intervalStarts, fromIdx, toIdx), rollupEndTs, aggregation));
+        if (toIdx < intervalStarts.length) {
+            futures.add(super.aggregateIntervalsAsync(entityId, key, Arrays.copyOfRange(intervalStarts, toIdx, intervalStarts.length), endTs, aggregation));
+        }
+        return Futures.transform(Futures.allAsList(futures), results -> {
+            List<Optional<? extends AbstractTsKvEntity>> data = results.stream().flatMap(List::stream).toList();
+            // an empty list is treated as a missing query result
+            return data.isEmpty() ? List.of(Optional.empty()) : data;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> findRollupAggregatesAsync(EntityId entityId, String key, TsRollupInterval interval,
+                                                                                                      long[] intervalStarts, long endTs, Aggregation aggregation) {
+        return service.submit(() -> {
+            Integer keyId = keyDictionaryDao.getOrSaveKeyId(key);
+            List<Optional<? extends AbstractTsKvEntity>> result = new ArrayList<>();
+            for (TsKvEntity entity : rollupRepository.findAggregates(entityId.getId(), keyId, interval, intervalStarts, endTs, aggregation)) {
+                if (entity.isNotEmpty()) {
+                    entity.setEntityId(entityId.getId());
+                    entity.setStrKey(key);
+                    result.add(Optional.of(entity));
+                }
+            }
+            return result;
+        });
+    }
+
     @Override
     public void cleanup(long systemTtl) {
         if (systemTtl > 0) {
@@ -0,0 +1,152 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+/**
+ * Aggregates all intervals of a time-series query with a single GROUP BY scan of the ts_kv table.
+ * Rows are assigned to the intervals using the width_bucket function with the precalculated interval starts as thresholds,
+ * so calendar-aware intervals (weeks, months, quarters in a given timezone) are supported the same way as fixed ones.
+ * The aggregate expressions are the same as in {@link org.thingsboard.server.dao.sqlts.ts.TsKvRepository},
+ * except for the numeric min/max placeholders of null values that are taken from the Timescale aggregation queries.
+ */
+@SqlTsDao
+@Repository
+@RequiredArgsConstructor
+public class SqlTsAggregationRepository {
+
+    private static final String SELECT_BUCKET = "SELECT width_bucket(ts, ?) AS bucket, ";
+
+    private static final String FROM_WHERE_CLAUSE = ", MAX(ts) AS max_ts FROM ts_kv " +
+            "WHERE entity_id = ? AND key = ? AND ts >= ? AND ts < ? " +
+            "GROUP BY bucket ORDER BY bucket";
+
+    private static final String FIND_AVG_OR_SUM_QUERY = SELECT_BUCKET +
+            "SUM(COALESCE(long_v, 0)) AS long_value, " +
+            "SUM(COALESCE(dbl_v, 0.0)) AS dbl_value, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String FIND_MAX_QUERY = SELECT_BUCKET +
+            "MAX(COALESCE(long_v, -9223372036854775807)) AS long_value, " +
+            "MAX(COALESCE(dbl_v, -1.79769E+308)) AS dbl_value, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "MAX(str_v) AS str_value, MAX(CASE WHEN str_v IS NOT NULL THEN ts END) AS str_max_ts" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String FIND_MIN_QUERY = SELECT_BUCKET +
+            "MIN(COALESCE(long_v, 9223372036854775807)) AS long_value, " +
+            "MIN(COALESCE(dbl_v, 1.79769E+308)) AS dbl_value, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "MIN(str_v) AS str_value, MAX(CASE WHEN str_v IS NOT NULL THEN ts END) AS str_max_ts" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String FIND_COUNT_QUERY = SELECT_BUCKET +
+            "SUM(CASE WHEN bool_v IS NULL THEN 0 ELSE 1 END) AS bool_count, " +
+            "SUM(CASE WHEN str_v IS NULL THEN 0 ELSE 1 END) AS str_count, " +
+            "SUM(CASE WHEN long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "SUM(CASE WHEN json_v IS NULL THEN 0 ELSE 1 END) AS json_count" +
+            FROM_WHERE_CLAUSE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the aggregated values of the non-empty intervals ordered by interval start.
+     * The ts of each returned entity is set to the middle of its interval.
+     *
+     * @param intervalStarts ascending starts of the intervals; each interval ends at the start of the next one
+     * @param endTs          end of the last interval (exclusive)
+     */
+    public List<TsKvEntity> findAggregates(UUID entityId, int key, long[] intervalStarts, long endTs, Aggregation aggregation) {
+        String query = switch (aggregation) {
+            case AVG, SUM -> FIND_AVG_OR_SUM_QUERY;
+            case MAX -> FIND_MAX_QUERY;
+            case MIN -> FIND_MIN_QUERY;
+            case COUNT -> FIND_COUNT_QUERY;
+            default -> throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
+        };
+        Long[] thresholds = LongStream.of(intervalStarts).boxed().toArray(Long[]::new);
+        return jdbcTemplate.query(query, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", thresholds));
+            ps.setObject(2, entityId);
+            ps.setInt(3, key);
+            ps.setLong(4, intervalStarts[0]);
+            ps.setLong(5, endTs);
+        }, intervalRowMapper(intervalStarts, endTs, aggregation));
+    }
+
+    /*
+     * Maps the rows of width_bucket queries that use the column aliases of this repository
+     * */
+    static RowMapper<TsKvEntity> intervalRowMapper(long[] intervalStarts, long endTs, Aggregation aggregation) {
+        return (rs, rowNum) -> {
+            TsKvEntity entity = toEntity(rs, aggregation);
+            int bucket = rs.getInt("bucket") - 1;
+            long startTs = intervalStarts[bucket];
+            long bucketEndTs = bucket + 1 < intervalStarts.length ? intervalStarts[bucket + 1] : endTs;
+            entity.setTs(startTs + (bucketEndTs - startTs) / 2);
+            return entity;
+        };
+    }
+
+    private static TsKvEntity toEntity(ResultSet rs, Aggregation aggregation) throws SQLException {
+        Long maxTs = getLong(rs, "max_ts");
+        if (aggregation == Aggregation.COUNT) {
+            return new TsKvEntity(getLong(rs, "bool_count"), getLong(rs, "str_count"), getLong(rs, "long_count"),
+                    getLong(rs, "dbl_count"), getLong(rs, "json_count"), maxTs);
+        }
+        TsKvEntity numeric = new TsKvEntity(getLong(rs, "long_value"), getDouble(rs, "dbl_value"),
+                getLong(rs, "long_count"), getLong(rs, "dbl_count"), aggregation.name(), maxTs);
+        if (aggregation == Aggregation.MIN || aggregation == Aggregation.MAX) {
+            // same fallback as for the per-interval queries: string min/max is used when there are no numeric values
+            if (!numeric.isNotEmpty()) {
+                return new TsKvEntity(rs.getString("str_value"), getLong(rs, "str_max_ts"));
+            }
+        }
+        return numeric;
+    }
+
+    /*
+     * SUM of bigint values is returned as numeric
+     * */
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        Number value = (Number) rs.getObject(column);
+        return value != null ? value.longValue() : null;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        Number value = (Number) rs.getObject(column);
+        return value != null ? value.doubleValue() : null;
+    }
+
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.DirtyEntry;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.DirtyRange;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.RollupKey;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+/**
+ * Maintains and reads the ts_rollup table with minute/hour/day aggregates of the raw ts_kv records.
+ * A rollup is always recomputed from its source for the whole affected range, which keeps it correct
+ * for overwritten and removed records at the cost of re-reading the range.
+ */
+@SqlTsDao
+@Repository
+@RequiredArgsConstructor
+public class SqlTsRollupRepository {
+
+    private static final String COLUMNS = "entity_id, key, interval_ms, ts, long_sum, dbl_sum, long_min, long_max, dbl_min, dbl_max, " +
+            "str_min, str_max, bool_count, str_count, long_count, dbl_count, json_count, max_ts, str_max_ts";
+
+    // the same range may be recomputed concurrently by several nodes
+    private static final String ON_CONFLICT_DO_UPDATE = " ON CONFLICT (entity_id, key, interval_ms, ts) DO UPDATE SET " +
+            "long_sum = excluded.long_sum, dbl_sum = excluded.dbl_sum, long_min = excluded.long_min, long_max = excluded.long_max, " +
+            "dbl_min = excluded.dbl_min, dbl_max = excluded.dbl_max, str_min = excluded.str_min, str_max = excluded.str_max, " +
+            "bool_count = excluded.bool_count, str_count = excluded.str_count, long_count = excluded.long_count, " +
+            "dbl_count = excluded.dbl_count, json_count = excluded.json_count, max_ts = excluded.max_ts, str_max_ts = excluded.str_max_ts";
+
+    private static final String ROLLUP_FROM_RAW = "INSERT INTO ts_rollup (" + COLUMNS + ") " +
+            "SELECT entity_id, key, cast(? AS bigint), ts - MOD(ts, cast(? AS bigint)) AS rollup_ts, " +
+            "SUM(long_v), SUM(dbl_v), MIN(long_v), MAX(long_v), MIN(dbl_v), MAX(dbl_v), MIN(str_v), MAX(str_v), " +
+            "COUNT(bool_v), COUNT(str_v), COUNT(long_v), COUNT(dbl_v), COUNT(json_v), MAX(ts), MAX(CASE WHEN str_v IS NOT NULL THEN ts END) " +
+            "FROM ts_kv WHERE %s ts >= ? AND ts < ? GROUP BY entity_id, key, rollup_ts" + ON_CONFLICT_DO_UPDATE;
+
+    private static final String ROLLUP_FROM_FINER = "INSERT INTO ts_rollup (" + COLUMNS + ") " +
+            "SELECT entity_id, key, cast(? AS bigint), ts - MOD(ts, cast(? AS bigint)) AS rollup_ts, " +
+            "SUM(long_sum), SUM(dbl_sum), MIN(long_min), MAX(long_max), MIN(dbl_min), MAX(dbl_max), MIN(str_min), MAX(str_max), " +
+            "SUM(bool_count), SUM(str_count), SUM(long_count), SUM(dbl_count), SUM(json_count), MAX(max_ts), MAX(str_max_ts) " +
+            "FROM ts_rollup WHERE %s interval_ms = %d AND ts >= ? AND ts < ? GROUP BY entity_id, key, rollup_ts" + ON_CONFLICT_DO_UPDATE;
+
+    private static final String ENTITY_KEY_CLAUSE = "entity_id = ? AND key = ? AND";
+
+    private static final String DELETE_RANGE = "DELETE FROM ts_rollup WHERE %s interval_ms = ? AND ts >= ? AND ts < ?";
+
+    private static final String SELECT_BUCKET = "SELECT width_bucket(ts, ?) AS bucket, ";
+
+    private static final String FROM_WHERE_CLAUSE = ", MAX(max_ts) AS max_ts FROM ts_rollup " +
+            "WHERE entity_id = ? AND key = ? AND interval_ms = ? AND ts >= ? AND ts < ? " +
+            "GROUP BY bucket ORDER BY bucket";
+
+    // null sums are replaced to match the aggregation of the raw records, where nulls are summed as zeros
+    private static final String FIND_AVG_OR_SUM_QUERY = SELECT_BUCKET +
+            "COALESCE(SUM(long_sum), 0) AS long_value, COALESCE(SUM(dbl_sum), 0.0) AS dbl_value, " +
+            "SUM(long_count) AS long_count, SUM(dbl_count) AS dbl_count" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String FIND_MAX_QUERY = SELECT_BUCKET +
+            "COALESCE(MAX(long_max), -9223372036854775807) AS long_value, COALESCE(MAX(dbl_max), -1.79769E+308) AS dbl_value, " +
+            "SUM(long_count) AS long_count, SUM(dbl_count) AS dbl_count, " +
+            "MAX(str_max) AS str_value, MAX(str_max_ts) AS str_max_ts" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String FIND_MIN_QUERY = SELECT_BUCKET +
+            "COALESCE(MIN(long_min), 9223372036854775807) AS long_value, COALESCE(MIN(dbl_min), 1.79769E+308) AS dbl_value, " +
+            "SUM(long_count) AS long_count, SUM(dbl_count) AS dbl_count, " +
+            "MIN(str_min) AS str_value, MAX(str_max_ts) AS str_max_ts" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String FIND_COUNT_QUERY = SELECT_BUCKET +
+            "SUM(bool_count) AS bool_count, SUM(str_count) AS str_count, SUM(long_count) AS long_count, " +
+            "SUM(dbl_count) AS dbl_count, SUM(json_count) AS json_count" +
+            FROM_WHERE_CLAUSE;
+
+    private static final String INIT_VALID_SINCE = "INSERT INTO ts_rollup_state (id, valid_since) VALUES (0, ?) ON CONFLICT (id) DO NOTHING";
+    private static final String GET_VALID_SINCE = "SELECT valid_since FROM ts_rollup_state WHERE id = 0";
+    private static final String UPDATE_VALID_SINCE = "UPDATE ts_rollup_state SET valid_since = ? WHERE id = 0 AND valid_since = ?";
+
+    private static final String MARK_DIRTY = "INSERT INTO ts_rollup_dirty (entity_id, key, day_ts, start_ts, end_ts, version) VALUES (?, ?, ?, ?, ?, 0) " +
+            "ON CONFLICT (entity_id, key, day_ts) DO UPDATE SET start_ts = LEAST(ts_rollup_dirty.start_ts, excluded.start_ts), " +
+            "end_ts = GREATEST(ts_rollup_dirty.end_ts, excluded.end_ts), version = ts_rollup_dirty.version + 1";
+
+    private static final String FIND_DIRTY_RANGES = "SELECT start_ts, end_ts FROM ts_rollup_dirty WHERE entity_id = ? AND key = ?";
+
+    // the ranges claimed by another node are skipped until its claim expires
+    private static final String CLAIM_DIRTY = "UPDATE ts_rollup_dirty SET claimed_until = ? WHERE (entity_id, key, day_ts) IN " +
+            "(SELECT entity_id, key, day_ts FROM ts_rollup_dirty WHERE claimed_until < ? LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING entity_id, key, day_ts, start_ts, end_ts, version";
+
+    private static final String DELETE_DIRTY = "DELETE FROM ts_rollup_dirty WHERE entity_id = ? AND key = ? AND day_ts = ? AND version = ?";
+
+    private static final String RELEASE_DIRTY = "UPDATE ts_rollup_dirty SET claimed_until = 0 WHERE entity_id = ? AND key = ? AND day_ts = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Recomputes the rollups of a single time-series key for the range aligned to the rollup interval
+     * from the rollups of the given finer interval, or from the raw records if the source is null.
+     */
+    public void recompute(UUID entityId, int key, TsRollupInterval interval, TsRollupInterval source, long startTs, long endTs) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(String.format(DELETE_RANGE, ENTITY_KEY_CLAUSE), entityId, key, interval.getIntervalMs(), startTs, endTs);
+            jdbcTemplate.update(rollupQuery(source, ENTITY_KEY_CLAUSE),
+                    interval.getIntervalMs(), interval.getIntervalMs(), entityId, key, startTs, endTs);
+        });
+    }
+
+    /**
+     * Recomputes the rollups of all time-series keys for the range aligned to the rollup interval.
+     */
+    public void recomputeAll(TsRollupInterval interval, long startTs, long endTs) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(String.format(DELETE_RANGE, ""), interval.getIntervalMs(), startTs, endTs);
+            jdbcTemplate.update(rollupQuery(interval.getFiner(), ""), interval.getIntervalMs(), interval.getIntervalMs(), startTs, endTs);
+        });
+    }
+
+    private static String rollupQuery(TsRollupInterval source, String entityKeyClause) {
+        if (source == null) {
+            return String.format(ROLLUP_FROM_RAW, entityKeyClause);
+        } else {
+            return String.format(ROLLUP_FROM_FINER, entityKeyClause, source.getIntervalMs());
+        }
+    }
+
+    /**
+     * Returns the aggregated values of the non-empty intervals ordered by interval start,
+     * the same way as {@link SqlTsAggregationRepository#findAggregates}.
+     * All the interval boundaries must be aligned to the rollup interval.
+     */
+    public List<TsKvEntity> findAggregates(UUID entityId, int key, TsRollupInterval interval, long[] intervalStarts, long endTs, Aggregation aggregation) {
+        String query = switch (aggregation) {
+            case AVG, SUM -> FIND_AVG_OR_SUM_QUERY;
+            case MAX -> FIND_MAX_QUERY;
+            case MIN -> FIND_MIN_QUERY;
+            case COUNT -> FIND_COUNT_QUERY;
+            default -> throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
+        };
+        Long[] thresholds = LongStream.of(intervalStarts).boxed().toArray(Long[]::new);
+        return jdbcTemplate.query(query, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", thresholds));
+            ps.setObject(2, entityId);
+            ps.setInt(3, key);
+            ps.setLong(4, interval.getIntervalMs());
+            ps.setLong(5, intervalStarts[0]);
+            ps.setLong(6, endTs);
+        }, SqlTsAggregationRepository.intervalRowMapper(intervalStarts, endTs, aggregation));
+    }
+
+    public void delete(UUID entityId, int key, TsRollupInterval interval, long startTs, long endTs) {
+        jdbcTemplate.update(String.format(DELETE_RANGE, ENTITY_KEY_CLAUSE), entityId, key, interval.getIntervalMs(), startTs, endTs);
+    }
+
+    public int cleanup(TsRollupInterval interval, long expirationTs) {
+        return jdbcTemplate.update("DELETE FROM ts_rollup WHERE interval_ms = ? AND ts < ?", interval.getIntervalMs(), expirationTs);
+    }
+
+    /**
+     * Merges the given ranges into the dirty ranges of the time-series keys. Must be called in the transaction that modifies the records.
+     */
+    public void markDirty(Map<RollupKey, DirtyRange> dirtyRanges) {
+        List<Map.Entry<RollupKey, DirtyRange>> entries = new ArrayList<>(dirtyRanges.entrySet());
+        jdbcTemplate.batchUpdate(MARK_DIRTY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RollupKey key = entries.get(i).getKey();
+                DirtyRange range = entries.get(i).getValue();
+                ps.setObject(1, key.entityId());
+                ps.setInt(2, key.keyId());
+                ps.setLong(3, key.dayTs());
+                ps.setLong(4, range.startTs());
+                ps.setLong(5, range.endTs());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    public List<DirtyRange> findDirtyRanges(UUID entityId, int key) {
+        return jdbcTemplate.query(FIND_DIRTY_RANGES, (rs, rowNum) -> new DirtyRange(rs.getLong("start_ts"), rs.getLong("end_ts")), entityId, key);
+    }
+
+    /**
+     * Claims up to the given number of dirty ranges that are not claimed by another node.
+     */
+    public List<DirtyEntry> claimDirty(long now, long claimedUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_DIRTY, (rs, rowNum) -> new DirtyEntry(
+                new RollupKey(rs.getObject("entity_id", UUID.class), rs.getInt("key"), rs.getLong("day_ts")),
+                new DirtyRange(rs.getLong("start_ts"), rs.getLong("end_ts")),
+                rs.getLong("version")), claimedUntil, now, limit);
+    }
+
+    /**
+     * Removes the recomputed dirty range, or releases it for the next recompute if it was modified during the recompute.
+     */
+    public void completeDirty(DirtyEntry entry) {
+        RollupKey key = entry.key();
+        if (jdbcTemplate.update(DELETE_DIRTY, key.entityId(), key.keyId(), key.dayTs(), entry.version()) == 0) {
+            jdbcTemplate.update(RELEASE_DIRTY, key.entityId(), key.keyId(), key.dayTs());
+        }
+    }
+
+    /**
+     * Returns the start of the time range covered by the rollups, initializing it with the given value on the first call.
+     */
+    public long initValidSince(long validSince) {
+        jdbcTemplate.update(INIT_VALID_SINCE, validSince);
+        return jdbcTemplate.queryForObject(GET_VALID_SINCE, Long.class);
+    }
+
+    public long getValidSince() {
+        return jdbcTemplate.queryForObject(GET_VALID_SINCE, Long.class);
+    }
+
+    public boolean updateValidSince(long expectedValidSince, long validSince) {
+        return jdbcTemplate.update(UPDATE_VALID_SINCE, validSince, expectedValidSince) > 0;
+    }
+
+}
@@ -0,0 +1,359 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.sql;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the minute/hour/day rollups of the SQL time-series up to date and decides which rollup can serve an aggregation query.
+ * <p>
+ * The write path marks the saved and removed ranges of each time-series key as dirty in the ts_rollup_dirty table
+ * in the same transaction as the records, and the dirty ranges are periodically claimed and recomputed level by level by any node.
+ * The dirty ranges are tracked per UTC day, so that late data does not widen the recomputed range of the current day.
+ * The intervals that overlap a dirty range are aggregated from the raw records until the range is recomputed.
+ * A rollup is recomputed from the finer rollup, or from the raw records when the finer rollup has already expired by its TTL.
+ * The rollups that neither of them holds completely are kept as they are instead of being rebuilt from the remaining data.
+ * The rollups are only used for the data since the "valid since" timestamp, which is initialized to the next UTC midnight
+ * when the rollups are enabled for the first time and is moved backwards by the optional backfill.
+ */
+@Slf4j
+@SqlTsDao
+@Component
+@RequiredArgsConstructor
+public class SqlTsRollupService {
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::entityId)
+            .thenComparingInt(RollupKey::keyId)
+            .thenComparingLong(RollupKey::dayTs);
+
+    private final SqlTsRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Getter
+    @Value("${sql.ts.rollup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sql.ts.rollup.flush_interval_ms:10000}")
+    private long flushIntervalMs;
+
+    @Value("${sql.ts.rollup.query_lag_ms:60000}")
+    private long queryLagMs;
+
+    @Value("${sql.ts.rollup.flush_batch_size:100}")
+    private int flushBatchSize;
+
+    @Value("${sql.ts.rollup.claim_timeout_ms:300000}")
+    private long claimTimeoutMs;
+
+    @Value("${sql.ts.rollup.backfill_days:0}")
+    private int backfillDays;
+
+    @Value("${sql.ttl.ts.rollup.minute_ttl:604800}")
+    private long minuteTtl;
+
+    @Value("${sql.ttl.ts.rollup.hour_ttl:7776000}")
+    private long hourTtl;
+
+    @Value("${sql.ttl.ts.rollup.day_ttl:0}")
+    private long dayTtl;
+
+    @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
+    private long rawTtl;
+
+    private volatile long validSince = Long.MAX_VALUE;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        validSince = rollupRepository.initValidSince(TsRollupInterval.DAY.alignUp(now));
+        log.info("Time-series rollups are valid since {}", validSince);
+        scheduler = ThingsBoardExecutors.newSingleThreadScheduledExecutor("ts-rollup");
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Saves the records and marks their ranges as dirty in the same transaction,
+     * so that the records are never missing from an aggregation served by the rollups.
+     */
+    public void saveAndMarkDirty(List<TsKvEntity> entities, Consumer<List<TsKvEntity>> saveFunction) {
+        // sorted to lock the dirty ranges in the same order by the concurrent batches
+        Map<RollupKey, DirtyRange> dirtyRanges = new TreeMap<>(KEY_ORDER);
+        for (TsKvEntity entity : entities) {
+            long ts = entity.getTs();
+            dirtyRanges.merge(new RollupKey(entity.getEntityId(), entity.getKey(), TsRollupInterval.DAY.alignDown(ts)),
+                    new DirtyRange(ts, ts + 1), DirtyRange::merge);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            saveFunction.accept(entities);
+            rollupRepository.markDirty(dirtyRanges);
+        });
+    }
+
+    /**
+     * Removes the records and the rollups that are fully covered by the removed range and marks the partially covered ones as dirty
+     * in the same transaction.
+     */
+    public void removeAndMarkDirty(UUID entityId, int keyId, long startTs, long endTs, Runnable removeFunction) {
+        transactionTemplate.executeWithoutResult(status -> {
+            removeFunction.run();
+            if (startTs >= endTs) {
+                return;
+            }
+            for (TsRollupInterval interval : TsRollupInterval.values()) {
+                long fromTs = interval.alignUp(startTs);
+                long toTs = interval.alignDown(endTs);
+                if (fromTs < toTs) {
+                    rollupRepository.delete(entityId, keyId, interval, fromTs, toTs);
+                }
+            }
+            Map<RollupKey, DirtyRange> dirtyRanges = new TreeMap<>(KEY_ORDER);
+            long startDayEndTs = TsRollupInterval.DAY.alignUp(startTs + 1);
+            dirtyRanges.put(new RollupKey(entityId, keyId, TsRollupInterval.DAY.alignDown(startTs)),
+                    new DirtyRange(startTs, Math.min(endTs, startDayEndTs)));
+            if (endTs > startDayEndTs) {
+                long endDayStartTs = Math.max(startTs, TsRollupInterval.DAY.alignDown(endTs - 1));
+                dirtyRanges.put(new RollupKey(entityId, keyId, endDayStartTs), new DirtyRange(endDayStartTs, endTs));
+            }
+            rollupRepository.markDirty(dirtyRanges);
+        });
+    }
+
+    public List<DirtyRange> findDirtyRanges(UUID entityId, int keyId) {
+        return rollupRepository.findDirtyRanges(entityId, keyId);
+    }
+
+    /**
+     * Recomputes the dirty ranges claimed by this node. The claim expires after the timeout, so the ranges claimed
+     * by a node that failed to recompute them are recomputed by the next flush of any node.
+     */
+    public void flush() {
+        int recomputed = 0;
+        List<DirtyEntry> claimed;
+        do {
+            long now = System.currentTimeMillis();
+            try {
+                claimed = rollupRepository.claimDirty(now, now + claimTimeoutMs, flushBatchSize);
+            } catch (Exception e) {
+                log.warn("Failed to claim the dirty ranges of the rollups", e);
+                break;
+            }
+            for (DirtyEntry entry : claimed) {
+                RollupKey key = entry.key();
+                DirtyRange range = entry.range();
+                try {
+                    for (TsRollupInterval interval : TsRollupInterval.values()) {
+                        recompute(key, interval, interval.alignDown(range.startTs()), interval.alignUp(range.endTs()), now);
+                    }
+                    rollupRepository.completeDirty(entry);
+                    recomputed++;
+                } catch (Exception e) {
+                    log.warn("[{}][{}] Failed to recompute rollups for range [{}, {}), retrying in {} ms",
+                            key.entityId(), key.keyId(), range.startTs(), range.endTs(), claimTimeoutMs, e);
+                }
+            }
+        } while (claimed.size() >= flushBatchSize);
+        if (recomputed > 0) {
+            log.debug("Recomputed rollups of {} time-series keys", recomputed);
+        }
+        backfill();
+    }
+
+    /*
+     * Recomputes the newest part of the range from the coarsest source that holds it completely within its TTL:
+     * the finer rollups first and the raw records last. The rest of the range is left as is, since rebuilding it
+     * from the expired source would lose the data that is rolled up already
+     * */
+    private void recompute(RollupKey key, TsRollupInterval interval, long startTs, long endTs, long now) {
+        long toTs = endTs;
+        TsRollupInterval source = interval.getFiner();
+        while (toTs > startTs) {
+            long sourceSince = getSourceSince(source, now);
+            long fromTs = sourceSince <= startTs ? startTs : Math.min(interval.alignUp(sourceSince), toTs);
+            if (fromTs < toTs) {
+                rollupRepository.recompute(key.entityId(), key.keyId(), interval, source, fromTs, toTs);
+                toTs = fromTs;
+            }
+            if (source == null) {
+                break;
+            }
+            source = source.getFiner();
+        }
+    }
+
+    /*
+     * Start of the time range that is not expired by the TTL of the rollup or of the raw records if the source is null
+     * */
+    private long getSourceSince(TsRollupInterval source, long now) {
+        long ttl = source != null ? getTtl(source) : rawTtl;
+        return ttl > 0 ? now - TimeUnit.SECONDS.toMillis(ttl) : Long.MIN_VALUE;
+    }
+
+    /*
+     * Extends the rollups by one day of the history per flush
+     * */
+    private void backfill() {
+        if (backfillDays <= 0) {
+            return;
+        }
+        long since = validSince;
+        long backfillTo = TsRollupInterval.DAY.alignDown(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(backfillDays));
+        if (since <= backfillTo) {
+            return;
+        }
+        long startTs = since - TsRollupInterval.DAY.getIntervalMs();
+        try {
+            recomputeAll(startTs, since);
+            if (rollupRepository.updateValidSince(since, startTs)) {
+                log.info("Backfilled time-series rollups since {}", startTs);
+            }
+            validSince = rollupRepository.getValidSince();
+        } catch (Exception e) {
+            log.warn("Failed to backfill rollups for range [{}, {})", startTs, since, e);
+        }
+    }
+
+    private void recomputeAll(long startTs, long endTs) {
+        for (TsRollupInterval interval : TsRollupInterval.values()) {
+            rollupRepository.recomputeAll(interval, interval.alignDown(startTs), interval.alignUp(endTs));
+        }
+    }
+
+    /**
+     * Returns the longest run of consecutive intervals that can be aggregated from a single rollup level.
+     * An interval can be aggregated from a rollup when both its boundaries are aligned to the rollup interval,
+     * it is within the time range covered by the rollup, it ends before the recent data that may not be rolled up yet
+     * and it does not overlap the dirty ranges of the time-series key.
+     * The coarsest rollup is chosen among the ones with the longest run.
+     */
+    public Optional<RollupRange> resolve(long[] intervalStarts, long endTs, long now, List<DirtyRange> dirtyRanges) {
+        if (!enabled || intervalStarts.length == 0) {
+            return Optional.empty();
+        }
+        RollupRange best = null;
+        long maxTs = now - queryLagMs;
+        TsRollupInterval[] intervals = TsRollupInterval.values();
+        for (int i = intervals.length - 1; i >= 0; i--) {
+            TsRollupInterval interval = intervals[i];
+            long ttl = getTtl(interval);
+            long minTs = ttl > 0 ? Math.max(validSince, now - TimeUnit.SECONDS.toMillis(ttl)) : validSince;
+            int runStart = -1;
+            for (int idx = 0; idx <= intervalStarts.length; idx++) {
+                boolean eligible = false;
+                if (idx < intervalStarts.length) {
+                    long startTs = intervalStarts[idx];
+                    long intervalEndTs = idx + 1 < intervalStarts.length ? intervalStarts[idx + 1] : endTs;
+                    eligible = startTs >= minTs && intervalEndTs <= maxTs && interval.isAligned(startTs) && interval.isAligned(intervalEndTs)
+                            && !isDirty(dirtyRanges, startTs, intervalEndTs);
+                }
+                if (eligible && runStart < 0) {
+                    runStart = idx;
+                } else if (!eligible && runStart >= 0) {
+                    if (best == null || idx - runStart > best.toIdx() - best.fromIdx()) {
+                        best = new RollupRange(interval, runStart, idx);
+                    }
+                    runStart = -1;
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static boolean isDirty(List<DirtyRange> dirtyRanges, long startTs, long endTs) {
+        for (DirtyRange range : dirtyRanges) {
+            if (range.startTs() < endTs && startTs < range.endTs()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getTtl(TsRollupInterval interval) {
+        return switch (interval) {
+            case MINUTE -> minuteTtl;
+            case HOUR -> hourTtl;
+            case DAY -> dayTtl;
+        };
+    }
+
+    public void cleanup() {
+        if (!enabled) {
+            return;
+        }
+        for (TsRollupInterval interval : TsRollupInterval.values()) {
+            long ttl = getTtl(interval);
+            if (ttl > 0) {
+                long expirationTs = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(ttl);
+                int removed = rollupRepository.cleanup(interval, expirationTs);
+                log.info("Removed {} {} time-series rollups by TTL", removed, interval);
+            }
+        }
+    }
+
+    /**
+     * Intervals [fromIdx, toIdx) of a query that are aggregated from the rollup of the given interval
+     */
+    public record RollupRange(TsRollupInterval interval, int fromIdx, int toIdx) {
+    }
+
+    record RollupKey(UUID entityId, int keyId, long dayTs) {
+    }
+
+    record DirtyRange(long startTs, long endTs) {
+
+        DirtyRange merge(DirtyRange other) {
+            return new DirtyRange(Math.min(startTs, other.startTs), Math.max(endTs, other.endTs));
+        }
+
+    }
+
+    /**
+     * Dirty range claimed for the recompute. The version is incremented on every write to the range.
+     */
+    record DirtyEntry(RollupKey key, DirtyRange range, long version) {
+    }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.sql;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Granularity of the pre-aggregated time-series rollups. Each level is computed from the previous (finer) one
+ * while it is not expired by its TTL, the finest level is computed from the raw ts_kv records.
+ */
+public enum TsRollupInterval {
+
+    MINUTE(TimeUnit.MINUTES.toMillis(1)),
+    HOUR(TimeUnit.HOURS.toMillis(1)),
+    DAY(TimeUnit.DAYS.toMillis(1));
+
+    @Getter
+    private final long intervalMs;
+
+    TsRollupInterval(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public TsRollupInterval getFiner() {
+        return ordinal() > 0 ? values()[ordinal() - 1] : null;
+    }
+
+    public long alignDown(long ts) {
+        return ts - Math.floorMod(ts, intervalMs);
+    }
+
+    public long alignUp(long ts) {
+        long aligned = alignDown(ts);
+        if (aligned == ts) {
+            return ts;
+        }
+        return aligned > Long.MAX_VALUE - intervalMs ? Long.MAX_VALUE : aligned + intervalMs;
+    }
+
+    public boolean isAligned(long ts) {
+        return Math.floorMod(ts, intervalMs) == 0;
+    }
+
+}
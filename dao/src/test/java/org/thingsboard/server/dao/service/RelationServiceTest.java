@@ -771,6 +771,29 @@ public class RelationServiceTest extends AbstractServiceTest {
         Assert.assertTrue(relations.containsAll(expectedRelations));
     }
 
+    @Test
+    public void testFindByQueryMultipleParentsDirectionTo() throws Exception {
+        AssetId leaf = new AssetId(Uuids.timeBased());
+        List<EntityRelation> expectedRelations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AssetId parent = new AssetId(Uuids.timeBased());
+            AssetId grandParent = new AssetId(Uuids.timeBased());
+            expectedRelations.add(saveRelation(new EntityRelation(parent, leaf, EntityRelation.CONTAINS_TYPE)));
+            expectedRelations.add(saveRelation(new EntityRelation(grandParent, parent, EntityRelation.CONTAINS_TYPE)));
+        }
+
+        EntityRelationsQuery query = new EntityRelationsQuery();
+        query.setParameters(new RelationsSearchParameters(leaf, EntitySearchDirection.TO, -1, false));
+        List<EntityRelation> relations = relationService.findByQuery(SYSTEM_TENANT_ID, query).get();
+        Assert.assertEquals(expectedRelations.size(), relations.size());
+        Assert.assertTrue(relations.containsAll(expectedRelations));
+
+        query.setParameters(new RelationsSearchParameters(leaf, EntitySearchDirection.TO, 1, false));
+        relations = relationService.findByQuery(SYSTEM_TENANT_ID, query).get();
+        Assert.assertEquals(3, relations.size());
+        Assert.assertTrue(relations.stream().allMatch(relation -> relation.getTo().equals(leaf)));
+    }
+
     private void createAssetRelationsRecursively(AssetId rootAsset, int lvl, List<EntityRelation> entityRelations, boolean lastLvlOnly) throws Exception {
         if (lvl == 0) return;
 
@@ -0,0 +1,232 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.service.timeseries.sql;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.BaseDeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.service.DaoSqlTest;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService;
+import org.thingsboard.server.dao.sqlts.sql.TsRollupInterval;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DaoSqlTest
+@TestPropertySource(properties = {
+        "sql.ts.rollup.enabled=true",
+        // the rollups are flushed by the tests
+        "sql.ts.rollup.flush_interval_ms=3600000"
+})
+public class TimeseriesServiceSqlRollupTest extends TimeseriesServiceSqlTest {
+
+    private static final String ROLLUP_KEY = "rollupKey";
+    private static final long SECOND = TimeUnit.SECONDS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private SqlTsRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long day;
+    private long minuteTtl;
+
+    @Before
+    public void beforeRollups() {
+        // the rollups cover the whole history instead of the data since the next midnight
+        ReflectionTestUtils.setField(rollupService, "validSince", 0L);
+        // within the TTL of the minute rollups
+        day = TsRollupInterval.DAY.alignDown(System.currentTimeMillis()) - 3 * DAY;
+        minuteTtl = rollupService.getTtl(TsRollupInterval.MINUTE);
+    }
+
+    @After
+    public void afterRollups() {
+        ReflectionTestUtils.setField(rollupService, "minuteTtl", minuteTtl);
+    }
+
+    @Test
+    public void testRollupsMatchRawAggregation() throws Exception {
+        saveRollupEntries();
+        // the saved records are not rolled up yet, so the raw records are aggregated
+        Map<String, List<String>> raw = findAllAggregations();
+
+        rollupService.flush();
+
+        assertThat(countDirtyRanges()).isZero();
+        for (TsRollupInterval interval : TsRollupInterval.values()) {
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ts_rollup WHERE entity_id = ? AND interval_ms = ?",
+                    Long.class, deviceId.getId(), interval.getIntervalMs())).isPositive();
+        }
+        assertThat(findAllAggregations()).isEqualTo(raw);
+    }
+
+    @Test
+    public void testLateWriteIntoRolledUpIntervalIsAggregated() throws Exception {
+        saveRollupEntries();
+        rollupService.flush();
+        Map<String, List<String>> rolledUp = findAllAggregations();
+
+        save(day + HOUR + 30 * SECOND + 1, new LongDataEntry(ROLLUP_KEY, 1000L));
+        save(day + 20 * HOUR + 5, new DoubleDataEntry(ROLLUP_KEY, -7.25));
+        assertThat(countDirtyRanges()).isEqualTo(1);
+        Map<String, List<String>> raw = findAllAggregations();
+        assertThat(raw).isNotEqualTo(rolledUp);
+
+        rollupService.flush();
+
+        assertThat(countDirtyRanges()).isZero();
+        assertThat(findAllAggregations()).isEqualTo(raw);
+    }
+
+    @Test
+    public void testRemovedRecordsAreRemovedFromRollups() throws Exception {
+        saveRollupEntries();
+        rollupService.flush();
+
+        tsService.remove(tenantId, deviceId, List.of(new BaseDeleteTsKvQuery(ROLLUP_KEY, day + HOUR + 30 * MINUTE, day + 6 * HOUR)))
+                .get(MAX_TIMEOUT, TimeUnit.SECONDS);
+        Map<String, List<String>> raw = findAllAggregations();
+
+        rollupService.flush();
+
+        assertThat(findAllAggregations()).isEqualTo(raw);
+    }
+
+    @Test
+    public void testLateWriteOlderThanMinuteTtlIsAggregated() throws Exception {
+        saveRollupEntries();
+        rollupService.flush();
+        expireMinuteRollups();
+
+        save(day + HOUR + 30 * SECOND + 1, new LongDataEntry(ROLLUP_KEY, 1000L));
+        save(day + 20 * HOUR + 5, new DoubleDataEntry(ROLLUP_KEY, -7.25));
+        Map<String, List<String>> raw = findAllAggregations();
+
+        rollupService.flush();
+
+        assertThat(countDirtyRanges()).isZero();
+        assertThat(findAllAggregations()).isEqualTo(raw);
+    }
+
+    @Test
+    public void testRemovedRecordsOlderThanMinuteTtlAreRemovedFromRollups() throws Exception {
+        saveRollupEntries();
+        rollupService.flush();
+        expireMinuteRollups();
+
+        tsService.remove(tenantId, deviceId, List.of(new BaseDeleteTsKvQuery(ROLLUP_KEY, day + HOUR + 30 * MINUTE, day + 6 * HOUR)))
+                .get(MAX_TIMEOUT, TimeUnit.SECONDS);
+        Map<String, List<String>> raw = findAllAggregations();
+
+        rollupService.flush();
+
+        assertThat(countDirtyRanges()).isZero();
+        assertThat(findAllAggregations()).isEqualTo(raw);
+    }
+
+    @Test
+    public void testFlushedIntervalsAreServedFromRollups() throws Exception {
+        saveRollupEntries();
+        rollupService.flush();
+        List<String> daySum = findAll(day, day + DAY, DAY, Aggregation.SUM);
+        // not aligned to a rollup interval
+        List<String> rawDaySum = findAll(day + 1, day + DAY, DAY, Aggregation.SUM);
+
+        // the record inserted without marking its range as dirty is only visible in the raw aggregation
+        jdbcTemplate.update("INSERT INTO ts_kv (entity_id, key, ts, long_v) VALUES (?, (SELECT key_id FROM key_dictionary WHERE key = ?), ?, ?)",
+                deviceId.getId(), ROLLUP_KEY, day + 2 * HOUR + 3, 1000000L);
+
+        assertThat(findAll(day + 1, day + DAY, DAY, Aggregation.SUM)).isNotEqualTo(rawDaySum);
+        assertThat(findAll(day, day + DAY, DAY, Aggregation.SUM)).isEqualTo(daySum);
+    }
+
+    private void saveRollupEntries() throws Exception {
+        for (int i = 0; i < 48; i++) {
+            long ts = day + i * 30 * MINUTE + i * SECOND;
+            KvEntry entry = i % 2 == 0 ? new LongDataEntry(ROLLUP_KEY, (long) i * 3) : new DoubleDataEntry(ROLLUP_KEY, i * 0.5);
+            save(ts, entry);
+        }
+        for (int i = 0; i < 10; i++) {
+            save(day + HOUR + i * MINUTE + 7 * SECOND, new LongDataEntry(ROLLUP_KEY, (long) i - 5));
+        }
+        // outside of the queried day
+        save(day + DAY, new LongDataEntry(ROLLUP_KEY, 100L));
+        save(day - 1, new LongDataEntry(ROLLUP_KEY, 100L));
+    }
+
+    /*
+     * Shortens the TTL of the minute rollups to one day, so the tested day is older than it, and removes the expired rollups
+     * */
+    private void expireMinuteRollups() {
+        ReflectionTestUtils.setField(rollupService, "minuteTtl", TimeUnit.DAYS.toSeconds(1));
+        rollupService.cleanup();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ts_rollup WHERE entity_id = ? AND interval_ms = ? AND ts < ?",
+                Long.class, deviceId.getId(), MINUTE, day + DAY)).isZero();
+    }
+
+    private void save(long ts, KvEntry entry) throws Exception {
+        tsService.save(tenantId, deviceId, toTsEntry(ts, entry)).get(MAX_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    private Map<String, List<String>> findAllAggregations() throws Exception {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (Aggregation aggregation : List.of(Aggregation.MIN, Aggregation.MAX, Aggregation.AVG, Aggregation.SUM, Aggregation.COUNT)) {
+            // day, hour and minute rollups
+            result.put("day " + aggregation, findAll(day, day + DAY, DAY, aggregation));
+            result.put("hour " + aggregation, findAll(day, day + DAY, HOUR, aggregation));
+            result.put("minute " + aggregation, findAll(day + HOUR, day + 2 * HOUR, MINUTE, aggregation));
+            // hour rollups followed by the raw records of the incomplete interval
+            result.put("partial " + aggregation, findAll(day, day + 5 * HOUR + 30 * MINUTE, HOUR, aggregation));
+        }
+        return result;
+    }
+
+    private List<String> findAll(long startTs, long endTs, long interval, Aggregation aggregation) throws Exception {
+        List<TsKvEntry> entries = tsService.findAll(tenantId, deviceId,
+                List.of(new BaseReadTsKvQuery(ROLLUP_KEY, startTs, endTs, interval, 10000, aggregation))).get(MAX_TIMEOUT, TimeUnit.SECONDS);
+        List<String> result = new ArrayList<>(entries.size());
+        for (TsKvEntry entry : entries) {
+            result.add(entry.getTs() + " " + entry.getDataType() + " " + entry.getValueAsString());
+        }
+        return result;
+    }
+
+    private long countDirtyRanges() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM ts_rollup_dirty WHERE entity_id = ?", Long.class, deviceId.getId());
+    }
+
+}
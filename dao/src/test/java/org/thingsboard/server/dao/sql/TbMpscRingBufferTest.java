@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbMpscRingBufferTest {
+
+    @Test
+    public void testCapacityIsRoundedToPowerOfTwo() {
+        assertThat(new TbMpscRingBuffer<>(2).capacity()).isEqualTo(2);
+        assertThat(new TbMpscRingBuffer<>(3).capacity()).isEqualTo(4);
+        assertThat(new TbMpscRingBuffer<>(1000).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    public void testOfferFailsWhenFullAndSucceedsAfterPoll() {
+        TbMpscRingBuffer<Integer> buffer = new TbMpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        TbMpscRingBuffer<Integer> buffer = new TbMpscRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch latch = new CountDownLatch(producers);
+        try {
+            for (int p = 0; p < producers; p++) {
+                int offset = p * perProducer;
+                executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(offset + i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    latch.countDown();
+                });
+            }
+            Set<Integer> received = new HashSet<>();
+            List<Integer> batch = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (received.size() < producers * perProducer && System.currentTimeMillis() < deadline) {
+                buffer.drainTo(batch, 100);
+                received.addAll(batch);
+                batch.clear();
+            }
+            assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(received).hasSize(producers * perProducer);
+            assertThat(buffer.isEmpty()).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
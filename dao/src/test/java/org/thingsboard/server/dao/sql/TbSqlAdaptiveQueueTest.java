@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.stats.MessagesStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class TbSqlAdaptiveQueueTest {
+
+    private ScheduledLogExecutorComponent logExecutor;
+    private TbSqlAdaptiveQueue<Integer, Integer> queue;
+
+    @BeforeEach
+    public void setUp() {
+        logExecutor = new ScheduledLogExecutorComponent();
+        logExecutor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (queue != null) {
+            queue.destroy();
+        }
+        logExecutor.stop();
+    }
+
+    @Test
+    public void testElementsAreSavedWithoutWaitingForMaxDelay() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        queue = createQueue(newSettings(1024), 100, 60_000);
+        queue.init(logExecutor, batch -> {
+            batches.add(batch);
+            return batch.stream().map(i -> i * 2).toList();
+        }, Comparator.naturalOrder(), l -> l, 0);
+
+        assertThat(queue.add(21).get(5, TimeUnit.SECONDS)).isEqualTo(42);
+
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(queue.add(i));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i * 2);
+        }
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(100));
+    }
+
+    @Test
+    public void testFullQueueRejectsElements() throws Exception {
+        CountDownLatch saveStarted = new CountDownLatch(1);
+        CountDownLatch releaseSave = new CountDownLatch(1);
+        TbSqlQueueSettings settings = newSettings(2);
+        settings.setMaxEnqueueWaitMs(10);
+        queue = createQueue(settings, 1, 10);
+        queue.init(logExecutor, batch -> {
+            saveStarted.countDown();
+            try {
+                releaseSave.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return batch;
+        }, Comparator.naturalOrder(), l -> l, 0);
+
+        ListenableFuture<Integer> inProgress = queue.add(0);
+        assertThat(saveStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.add(1);
+        queue.add(2);
+        ListenableFuture<Integer> rejected = queue.add(3);
+
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        releaseSave.countDown();
+        assertThat(inProgress.get(5, TimeUnit.SECONDS)).isEqualTo(0);
+    }
+
+    @Test
+    public void testFailedSaveCompletesFuturesExceptionally() {
+        queue = createQueue(newSettings(16), 10, 10);
+        queue.init(logExecutor, batch -> {
+            throw new IllegalStateException("DB is down");
+        }, Comparator.naturalOrder(), l -> l, 0);
+
+        ListenableFuture<Integer> future = queue.add(1);
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private TbSqlAdaptiveQueue<Integer, Integer> createQueue(TbSqlQueueSettings settings, int batchSize, long maxDelay) {
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Test")
+                .batchSize(batchSize)
+                .maxDelay(maxDelay)
+                .statsPrintIntervalMs(60_000)
+                .statsNamePrefix("test")
+                .batchSortEnabled(false)
+                .withResponse(true)
+                .build();
+        return new TbSqlAdaptiveQueue<>(params, settings, mock(MessagesStats.class), mock(Timer.class), mock(Timer.class));
+    }
+
+    private TbSqlQueueSettings newSettings(int capacity) {
+        TbSqlQueueSettings settings = new TbSqlQueueSettings();
+        settings.setType(TbSqlQueueType.ADAPTIVE);
+        settings.setCapacity(capacity);
+        settings.setMinBatchSize(1);
+        settings.setTargetCommitLatencyMs(50);
+        settings.setMaxEnqueueWaitMs(1000);
+        return settings;
+    }
+
+}
@@ -15,17 +15,50 @@
  */
 package org.thingsboard.server.dao.sql.query;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityDataCountMode;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortCursor;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = DefaultEntityQueryRepository.class)
@@ -41,6 +74,14 @@ public class DefaultEntityQueryRepositoryTest {
     @Autowired
     DefaultEntityQueryRepository repo;
 
+    final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    final CustomerId customerId = new CustomerId(EntityId.NULL_UUID);
+
+    @Before
+    public void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
     /*
      * This value has to be reasonable small to prevent infinite recursion as early as possible
      * */
@@ -66,4 +107,95 @@ public class DefaultEntityQueryRepositoryTest {
         assertThat(repo.getMaxLevel(Integer.MAX_VALUE), equalTo(repo.getMaxLevelAllowed()));
     }
 
+    @Test
+    public void givenSameQueryWithDifferentPages_whenFindEntityData_thenPageParametersAreBound() {
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(Integer.class))).thenReturn(25);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenReturn(rows(10));
+
+        repo.findEntityDataByQuery(tenantId, customerId, deviceQuery(new EntityDataPageLink(10, 0, null, createdTimeSortOrder())));
+        repo.findEntityDataByQuery(tenantId, customerId, deviceQuery(new EntityDataPageLink(10, 2, null, createdTimeSortOrder())));
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource> paramsCaptor = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate, times(2)).queryForList(sqlCaptor.capture(), paramsCaptor.capture());
+        assertThat(sqlCaptor.getAllValues().get(0), equalTo(sqlCaptor.getAllValues().get(1)));
+        assertThat(sqlCaptor.getValue(), containsString("limit :page_limit offset :page_offset"));
+        assertThat(paramsCaptor.getAllValues().get(0).getValue("page_offset"), equalTo(0L));
+        assertThat(paramsCaptor.getAllValues().get(1).getValue("page_offset"), equalTo(20L));
+        assertThat(paramsCaptor.getValue().getValue("page_limit"), equalTo(10L));
+    }
+
+    @Test
+    public void givenCountModeNone_whenFindEntityData_thenCountQueryIsSkipped() {
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenReturn(rows(11));
+        EntityDataPageLink pageLink = new EntityDataPageLink(10, 1, null, createdTimeSortOrder());
+        pageLink.setCountMode(EntityDataCountMode.NONE);
+
+        PageData<EntityData> result = repo.findEntityDataByQuery(tenantId, customerId, deviceQuery(pageLink));
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), any(SqlParameterSource.class), eq(Integer.class));
+        ArgumentCaptor<SqlParameterSource> paramsCaptor = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).queryForList(anyString(), paramsCaptor.capture());
+        assertThat(paramsCaptor.getValue().getValue("page_limit"), equalTo(11L));
+        assertThat(result.getData().size(), equalTo(10));
+        assertThat(result.hasNext(), equalTo(true));
+        assertThat(result.getTotalElements(), equalTo(20L));
+        assertThat(result.getTotalPages(), equalTo(3));
+    }
+
+    @Test
+    public void givenCountModeEstimate_whenFindEntityData_thenCountIsReused() {
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(Integer.class))).thenReturn(25);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenReturn(rows(5));
+        EntityDataPageLink pageLink = new EntityDataPageLink(5, 0, "estimate", createdTimeSortOrder());
+        pageLink.setCountMode(EntityDataCountMode.ESTIMATE);
+
+        repo.findEntityDataByQuery(tenantId, customerId, deviceQuery(pageLink));
+        PageData<EntityData> result = repo.findEntityDataByQuery(tenantId, customerId, deviceQuery(pageLink));
+
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), any(SqlParameterSource.class), eq(Integer.class));
+        assertThat(result.getTotalElements(), equalTo(25L));
+        assertThat(result.hasNext(), equalTo(false));
+    }
+
+    @Test
+    public void givenSortCursor_whenFindEntityData_thenKeysetPaginationIsUsed() {
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(Integer.class))).thenReturn(25);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenReturn(rows(3));
+        UUID lastId = UUID.randomUUID();
+        EntityDataPageLink pageLink = new EntityDataPageLink(10, 2, null, createdTimeSortOrder());
+        pageLink.setSortCursor(new EntityDataSortCursor("1700000000000", lastId));
+
+        PageData<EntityData> result = repo.findEntityDataByQuery(tenantId, customerId, deviceQuery(pageLink));
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource> paramsCaptor = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).queryForList(sqlCaptor.capture(), paramsCaptor.capture());
+        assertThat(sqlCaptor.getValue(), containsString("result.id) < (false, :page_cursor_sort_value, :page_cursor_entity_id)"));
+        assertThat(sqlCaptor.getValue(), not(containsString("offset")));
+        assertThat(paramsCaptor.getValue().getValue("page_cursor_sort_value"), equalTo("1700000000000"));
+        assertThat(paramsCaptor.getValue().getValue("page_cursor_entity_id"), equalTo(lastId));
+        assertThat(result.getData().size(), equalTo(3));
+        assertThat(result.hasNext(), equalTo(false));
+    }
+
+    private EntityDataQuery deviceQuery(EntityDataPageLink pageLink) {
+        EntityTypeFilter filter = new EntityTypeFilter();
+        filter.setEntityType(EntityType.DEVICE);
+        List<EntityKey> entityFields = List.of(new EntityKey(EntityKeyType.ENTITY_FIELD, "name"));
+        return new EntityDataQuery(filter, pageLink, entityFields, Collections.emptyList(), Collections.emptyList());
+    }
+
+    private static EntityDataSortOrder createdTimeSortOrder() {
+        return new EntityDataSortOrder(new EntityKey(EntityKeyType.ENTITY_FIELD, "createdTime"), EntityDataSortOrder.Direction.DESC);
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(Map.of("id", UUID.randomUUID(), "entity_type", EntityType.DEVICE.name()));
+        }
+        return rows;
+    }
+
 }
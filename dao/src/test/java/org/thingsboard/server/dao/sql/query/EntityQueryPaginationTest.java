@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.query;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityDataCountMode;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortCursor;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.entity.EntityQueryDao;
+import org.thingsboard.server.dao.service.AbstractServiceTest;
+import org.thingsboard.server.dao.service.DaoSqlTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DaoSqlTest
+public class EntityQueryPaginationTest extends AbstractServiceTest {
+
+    private static final EntityKey LABEL_KEY = new EntityKey(EntityKeyType.ENTITY_FIELD, "label");
+
+    @Autowired
+    private EntityQueryDao entityQueryDao;
+    @Autowired
+    private AssetService assetService;
+
+    @Test
+    public void testOffsetAndKeysetPagesAreOrderedTheSameWithNullSortValues() {
+        List<EntityId> assetIds = new ArrayList<>();
+        List<EntityId> nullLabelIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Asset asset = new Asset();
+            asset.setTenantId(tenantId);
+            asset.setName("Asset " + i);
+            asset.setType("default");
+            // null, empty and non-empty labels are mixed
+            asset.setLabel(i % 3 == 0 ? null : i % 3 == 1 ? "" : "Label " + i);
+            EntityId assetId = assetService.saveAsset(asset).getId();
+            assetIds.add(assetId);
+            if (asset.getLabel() == null) {
+                nullLabelIds.add(assetId);
+            }
+        }
+
+        for (EntityDataSortOrder.Direction direction : EntityDataSortOrder.Direction.values()) {
+            List<EntityId> offsetOrder = findAllByOffset(direction);
+            List<EntityId> keysetOrder = findAllByKeyset(direction);
+
+            assertThat(offsetOrder).containsExactlyInAnyOrderElementsOf(assetIds);
+            // nulls are last in the ascending order and first in the descending one
+            List<EntityId> nulls = direction == EntityDataSortOrder.Direction.ASC ?
+                    offsetOrder.subList(offsetOrder.size() - nullLabelIds.size(), offsetOrder.size()) :
+                    offsetOrder.subList(0, nullLabelIds.size());
+            assertThat(nulls).containsExactlyInAnyOrderElementsOf(nullLabelIds);
+            assertThat(keysetOrder).containsExactlyElementsOf(offsetOrder);
+        }
+    }
+
+    private List<EntityId> findAllByOffset(EntityDataSortOrder.Direction direction) {
+        List<EntityId> result = new ArrayList<>();
+        EntityDataPageLink pageLink = new EntityDataPageLink(5, 0, null, new EntityDataSortOrder(LABEL_KEY, direction));
+        PageData<EntityData> page;
+        do {
+            page = find(pageLink);
+            page.getData().forEach(entityData -> result.add(entityData.getEntityId()));
+            pageLink = pageLink.nextPageLink();
+        } while (page.hasNext());
+        return result;
+    }
+
+    private List<EntityId> findAllByKeyset(EntityDataSortOrder.Direction direction) {
+        List<EntityId> result = new ArrayList<>();
+        EntityDataSortCursor cursor = null;
+        PageData<EntityData> page;
+        do {
+            EntityDataPageLink pageLink = new EntityDataPageLink(5, 0, null, new EntityDataSortOrder(LABEL_KEY, direction),
+                    false, cursor, EntityDataCountMode.NONE);
+            page = find(pageLink);
+            page.getData().forEach(entityData -> result.add(entityData.getEntityId()));
+            if (!page.getData().isEmpty()) {
+                EntityData last = page.getData().get(page.getData().size() - 1);
+                cursor = new EntityDataSortCursor(last.getLatest().get(EntityKeyType.ENTITY_FIELD).get("label").getValue(),
+                        last.getEntityId().getId());
+            }
+        } while (page.hasNext());
+        return result;
+    }
+
+    private PageData<EntityData> find(EntityDataPageLink pageLink) {
+        EntityTypeFilter filter = new EntityTypeFilter();
+        filter.setEntityType(EntityType.ASSET);
+        EntityDataQuery query = new EntityDataQuery(filter, pageLink, List.of(LABEL_KEY), Collections.emptyList(), Collections.emptyList());
+        return entityQueryDao.findEntityDataByQuery(tenantId, new CustomerId(EntityId.NULL_UUID), query);
+    }
+
+}
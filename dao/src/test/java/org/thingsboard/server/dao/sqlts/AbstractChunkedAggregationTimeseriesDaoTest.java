@@ -18,17 +18,24 @@ package org.thingsboard.server.dao.sqlts;
 import com.google.common.util.concurrent.Futures;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.kv.AggregationParams;
 import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.IntervalType;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.willCallRealMethod;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.mock;
@@ -36,6 +43,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.thingsboard.server.common.data.id.TenantId.SYS_TENANT_ID;
+import static org.thingsboard.server.common.data.kv.Aggregation.AVG;
 import static org.thingsboard.server.common.data.kv.Aggregation.COUNT;
 
 public class AbstractChunkedAggregationTimeseriesDaoTest {
@@ -52,6 +60,7 @@ public class AbstractChunkedAggregationTimeseriesDaoTest {
         willReturn(Futures.immediateFuture(optionalListenableFuture)).given(tsDao).findAndAggregateAsync(any(), anyString(), anyLong(), anyLong(), anyLong(), any());
         willReturn(Futures.immediateFuture(mock(ReadTsKvQueryResult.class))).given(tsDao).getReadTsKvQueryResultFuture(any(), any());
         willReturn(mock(ReadTsKvQueryResult.class)).given(tsDao).findAllAsyncWithLimit(any(), any());
+        willReturn(Futures.immediateFuture(List.of())).given(tsDao).findAndAggregateAllAsync(any(), anyString(), any(), anyLong(), any());
     }
 
     @Test
@@ -165,6 +174,30 @@ public class AbstractChunkedAggregationTimeseriesDaoTest {
         verify(tsDao, times(0)).findAndAggregateAsync(any(), any(), anyLong(), anyLong(), anyLong(), any());
     }
 
+    @Test
+    public void givenSinglePassMode_whenAggregateCount_thenAllIntervalsAreAggregatedWithOneQuery() {
+        ReadTsKvQuery query = new BaseReadTsKvQuery(TEMP, 1, 3000, 1000, LIMIT, COUNT, DESC);
+        ReflectionTestUtils.setField(tsDao, "aggregationMode", SqlTsAggregationMode.SINGLE_PASS);
+        willCallRealMethod().given(tsDao).findAllAsync(SYS_TENANT_ID, SYS_TENANT_ID, query);
+        tsDao.findAllAsync(SYS_TENANT_ID, SYS_TENANT_ID, query);
+        verify(tsDao, times(0)).findAndAggregateAsync(any(), any(), anyLong(), anyLong(), anyLong(), any());
+        verify(tsDao, times(1)).findAndAggregateAllAsync(eq(SYS_TENANT_ID), eq(TEMP), eq(new long[]{1, 1001, 2001}), eq(3000L), eq(COUNT));
+    }
+
+    @Test
+    public void givenCalendarInterval_whenCalculateIntervalStarts_thenIntervalsFollowTimezoneMonths() {
+        ZoneId tz = ZoneId.of("Europe/Kyiv");
+        long startTs = ZonedDateTime.of(2024, 1, 15, 0, 0, 0, 0, tz).toInstant().toEpochMilli();
+        long endTs = ZonedDateTime.of(2024, 4, 10, 0, 0, 0, 0, tz).toInstant().toEpochMilli();
+        ReadTsKvQuery query = new BaseReadTsKvQuery(TEMP, startTs, endTs, AggregationParams.calendar(AVG, IntervalType.MONTH, tz), LIMIT);
+
+        assertThat(AbstractChunkedAggregationTimeseriesDao.calculateIntervalStarts(query, endTs)).containsExactly(
+                startTs,
+                ZonedDateTime.of(2024, 2, 1, 0, 0, 0, 0, tz).toInstant().toEpochMilli(),
+                ZonedDateTime.of(2024, 3, 1, 0, 0, 0, 0, tz).toInstant().toEpochMilli(),
+                ZonedDateTime.of(2024, 4, 1, 0, 0, 0, 0, tz).toInstant().toEpochMilli());
+    }
+
     long getTsForReadTsKvQuery(long startTs, long endTs) {
         return startTs + (endTs - startTs) / 2L;
     }
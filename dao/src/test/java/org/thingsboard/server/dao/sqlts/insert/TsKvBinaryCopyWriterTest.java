@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TsKvBinaryCopyWriterTest {
+
+    @Test
+    public void testWriteBinaryCopyFormat() throws IOException {
+        UUID entityId = UUID.randomUUID();
+        TsKvEntity dblEntity = new TsKvEntity();
+        dblEntity.setEntityId(entityId);
+        dblEntity.setKey(7);
+        dblEntity.setTs(1000L);
+        dblEntity.setDoubleValue(42.5);
+        TsKvEntity strEntity = new TsKvEntity();
+        strEntity.setEntityId(entityId);
+        strEntity.setKey(8);
+        strEntity.setTs(2000L);
+        strEntity.setStrValue("value\u0000");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TsKvBinaryCopyWriter.write(bytes, List.of(dblEntity, strEntity), s -> s == null ? null : s.replace("\u0000", ""));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        assertThat(signature).isEqualTo(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        assertThat(in.readInt()).isZero();
+        assertThat(in.readInt()).isZero();
+
+        assertThat(in.readShort()).isEqualTo((short) 8);
+        assertThat(in.readInt()).isEqualTo(16);
+        assertThat(new UUID(in.readLong(), in.readLong())).isEqualTo(entityId);
+        assertThat(in.readInt()).isEqualTo(4);
+        assertThat(in.readInt()).isEqualTo(7);
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readLong()).isEqualTo(1000L);
+        assertThat(in.readInt()).isEqualTo(-1); // bool_v
+        assertThat(in.readInt()).isEqualTo(-1); // str_v
+        assertThat(in.readInt()).isEqualTo(-1); // long_v
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readDouble()).isEqualTo(42.5);
+        assertThat(in.readInt()).isEqualTo(-1); // json_v
+
+        assertThat(in.readShort()).isEqualTo((short) 8);
+        in.skipNBytes(4 + 16 + 4 + 4 + 4 + 8);
+        assertThat(in.readInt()).isEqualTo(-1); // bool_v
+        assertThat(in.readInt()).isEqualTo(5);
+        byte[] str = new byte[5];
+        in.readFully(str);
+        assertThat(new String(str, StandardCharsets.UTF_8)).isEqualTo("value");
+        assertThat(in.readInt()).isEqualTo(-1); // long_v
+        assertThat(in.readInt()).isEqualTo(-1); // dbl_v
+        assertThat(in.readInt()).isEqualTo(-1); // json_v
+
+        assertThat(in.readShort()).isEqualTo((short) -1);
+        assertThat(in.available()).isZero();
+    }
+
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.sql;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.DirtyEntry;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.DirtyRange;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.RollupKey;
+import org.thingsboard.server.dao.sqlts.sql.SqlTsRollupService.RollupRange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SqlTsRollupServiceTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NOW = 100 * DAY + 12 * HOUR + 30 * MINUTE + 15000;
+    private static final UUID ENTITY_ID = UUID.randomUUID();
+    private static final int KEY_ID = 7;
+
+    private SqlTsRollupRepository rollupRepository;
+    private SqlTsRollupService rollupService;
+
+    @Before
+    public void setUp() {
+        rollupRepository = mock(SqlTsRollupRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        rollupService = new SqlTsRollupService(rollupRepository, transactionTemplate);
+        ReflectionTestUtils.setField(rollupService, "enabled", true);
+        ReflectionTestUtils.setField(rollupService, "validSince", 90 * DAY);
+        ReflectionTestUtils.setField(rollupService, "queryLagMs", MINUTE);
+        ReflectionTestUtils.setField(rollupService, "flushBatchSize", 10);
+        ReflectionTestUtils.setField(rollupService, "claimTimeoutMs", MINUTE);
+    }
+
+    @Test
+    public void testAlignment() {
+        assertThat(TsRollupInterval.HOUR.alignDown(HOUR + 1)).isEqualTo(HOUR);
+        assertThat(TsRollupInterval.HOUR.alignUp(HOUR + 1)).isEqualTo(2 * HOUR);
+        assertThat(TsRollupInterval.HOUR.alignUp(HOUR)).isEqualTo(HOUR);
+        assertThat(TsRollupInterval.MINUTE.alignDown(-1)).isEqualTo(-MINUTE);
+        assertThat(TsRollupInterval.DAY.alignUp(Long.MAX_VALUE - 1)).isEqualTo(Long.MAX_VALUE);
+        assertThat(TsRollupInterval.DAY.getFiner()).isEqualTo(TsRollupInterval.HOUR);
+        assertThat(TsRollupInterval.MINUTE.getFiner()).isNull();
+    }
+
+    @Test
+    public void testResolvePrefersCoarsestRollup() {
+        long start = 95 * DAY;
+        long[] intervalStarts = {start, start + DAY, start + 2 * DAY};
+        assertThat(rollupService.resolve(intervalStarts, start + 3 * DAY, NOW, List.of()))
+                .contains(new RollupRange(TsRollupInterval.DAY, 0, 3));
+    }
+
+    @Test
+    public void testResolveSkipsUnalignedAndRecentIntervals() {
+        long hourStart = NOW - NOW % HOUR;
+        long[] intervalStarts = {hourStart - 3 * HOUR + 30000, hourStart - 2 * HOUR, hourStart - HOUR, hourStart};
+        // the first interval is not aligned to an hour, the last one is not complete yet
+        assertThat(rollupService.resolve(intervalStarts, NOW, NOW, List.of()))
+                .contains(new RollupRange(TsRollupInterval.HOUR, 1, 3));
+    }
+
+    @Test
+    public void testResolveRespectsValidSinceAndTtl() {
+        long[] beforeValidSince = {89 * DAY, 90 * DAY};
+        assertThat(rollupService.resolve(beforeValidSince, 91 * DAY, NOW, List.of()))
+                .contains(new RollupRange(TsRollupInterval.DAY, 1, 2));
+
+        ReflectionTestUtils.setField(rollupService, "minuteTtl", TimeUnit.HOURS.toSeconds(1));
+        long start = NOW - NOW % MINUTE - 2 * HOUR;
+        long[] minutes = new long[120];
+        for (int i = 0; i < minutes.length; i++) {
+            minutes[i] = start + i * MINUTE;
+        }
+        RollupRange range = rollupService.resolve(minutes, start + 120 * MINUTE, NOW, List.of()).orElseThrow();
+        assertThat(range.interval()).isEqualTo(TsRollupInterval.MINUTE);
+        assertThat(minutes[range.fromIdx()]).isGreaterThanOrEqualTo(NOW - HOUR);
+        assertThat(range.toIdx()).isEqualTo(119);
+
+        ReflectionTestUtils.setField(rollupService, "enabled", false);
+        assertThat(rollupService.resolve(beforeValidSince, 91 * DAY, NOW, List.of())).isEmpty();
+    }
+
+    @Test
+    public void testResolveSkipsDirtyIntervals() {
+        long start = 95 * DAY;
+        long[] intervalStarts = {start, start + DAY, start + 2 * DAY};
+        List<DirtyRange> dirtyRanges = List.of(new DirtyRange(start + DAY + 5, start + DAY + 6));
+        assertThat(rollupService.resolve(intervalStarts, start + 3 * DAY, NOW, dirtyRanges))
+                .contains(new RollupRange(TsRollupInterval.DAY, 0, 1));
+    }
+
+    @Test
+    public void testSavedRecordsAreMarkedDirtyPerDay() {
+        long ts = 95 * DAY + 5 * HOUR;
+        List<TsKvEntity> entities = List.of(entity(ts), entity(ts + MINUTE), entity(ts + DAY));
+        Consumer<List<TsKvEntity>> saveFunction = mock(Consumer.class);
+        rollupService.saveAndMarkDirty(entities, saveFunction);
+
+        var inOrder = inOrder(saveFunction, rollupRepository);
+        inOrder.verify(saveFunction).accept(entities);
+        inOrder.verify(rollupRepository).markDirty(Map.of(
+                new RollupKey(ENTITY_ID, KEY_ID, 95 * DAY), new DirtyRange(ts, ts + MINUTE + 1),
+                new RollupKey(ENTITY_ID, KEY_ID, 96 * DAY), new DirtyRange(ts + DAY, ts + DAY + 1)));
+    }
+
+    @Test
+    public void testFlushRecomputesDirtyRangesLevelByLevel() {
+        long ts = 95 * DAY + 5 * HOUR + 10 * MINUTE + 5;
+        DirtyEntry entry = new DirtyEntry(new RollupKey(ENTITY_ID, KEY_ID, 95 * DAY), new DirtyRange(ts, ts + MINUTE + 1), 3);
+        when(rollupRepository.claimDirty(anyLong(), anyLong(), anyInt())).thenReturn(List.of(entry));
+        rollupService.flush();
+
+        var inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.MINUTE, null, ts - 5, ts - 5 + 2 * MINUTE);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.HOUR, TsRollupInterval.MINUTE,
+                95 * DAY + 5 * HOUR, 95 * DAY + 6 * HOUR);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.DAY, TsRollupInterval.HOUR, 95 * DAY, 96 * DAY);
+        inOrder.verify(rollupRepository).completeDirty(entry);
+    }
+
+    @Test
+    public void testLateWriteOlderThanMinuteTtlIsRolledUpFromRawRecords() {
+        setDefaultTtls();
+        long day = TsRollupInterval.DAY.alignDown(System.currentTimeMillis()) - 10 * DAY;
+        long ts = day + 5 * HOUR + 10 * MINUTE + 5;
+        DirtyEntry entry = new DirtyEntry(new RollupKey(ENTITY_ID, KEY_ID, day), new DirtyRange(ts, ts + 1), 0);
+        when(rollupRepository.claimDirty(anyLong(), anyLong(), anyInt())).thenReturn(List.of(entry));
+        rollupService.flush();
+
+        // the minute rollups of the hour are expired, so the hour is not rebuilt from them
+        var inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.MINUTE, null, ts - 5, ts - 5 + MINUTE);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.HOUR, null, day + 5 * HOUR, day + 6 * HOUR);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.DAY, TsRollupInterval.HOUR, day, day + DAY);
+        inOrder.verify(rollupRepository).completeDirty(entry);
+        verify(rollupRepository, never()).recompute(any(), anyInt(), any(), eq(TsRollupInterval.MINUTE), anyLong(), anyLong());
+    }
+
+    @Test
+    public void testRemovedRangeAcrossMinuteTtlIsRolledUpFromRawRecordsBeforeTtl() {
+        setDefaultTtls();
+        long now = System.currentTimeMillis();
+        long day = TsRollupInterval.DAY.alignDown(now) - 7 * DAY;
+        long minuteTtlHour = TsRollupInterval.HOUR.alignUp(now - 7 * DAY);
+        DirtyEntry entry = new DirtyEntry(new RollupKey(ENTITY_ID, KEY_ID, day), new DirtyRange(day + 30 * MINUTE, day + DAY), 0);
+        when(rollupRepository.claimDirty(anyLong(), anyLong(), anyInt())).thenReturn(List.of(entry));
+        rollupService.flush();
+
+        var inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.MINUTE, null, day + 30 * MINUTE, day + DAY);
+        if (minuteTtlHour < day + DAY) {
+            inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.HOUR, TsRollupInterval.MINUTE, minuteTtlHour, day + DAY);
+        }
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.HOUR, null, day, minuteTtlHour);
+        inOrder.verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.DAY, TsRollupInterval.HOUR, day, day + DAY);
+        inOrder.verify(rollupRepository).completeDirty(entry);
+    }
+
+    @Test
+    public void testRollupsAreKeptWhenRawRecordsAreExpired() {
+        setDefaultTtls();
+        ReflectionTestUtils.setField(rollupService, "rawTtl", TimeUnit.DAYS.toSeconds(5));
+        long day = TsRollupInterval.DAY.alignDown(System.currentTimeMillis()) - 10 * DAY;
+        DirtyEntry entry = new DirtyEntry(new RollupKey(ENTITY_ID, KEY_ID, day), new DirtyRange(day + HOUR, day + 2 * HOUR), 0);
+        when(rollupRepository.claimDirty(anyLong(), anyLong(), anyInt())).thenReturn(List.of(entry));
+        rollupService.flush();
+
+        // neither the raw records nor the minute rollups hold the range anymore
+        verify(rollupRepository, never()).recompute(any(), anyInt(), eq(TsRollupInterval.MINUTE), any(), anyLong(), anyLong());
+        verify(rollupRepository, never()).recompute(any(), anyInt(), eq(TsRollupInterval.HOUR), any(), anyLong(), anyLong());
+        verify(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.DAY, TsRollupInterval.HOUR, day, day + DAY);
+        verify(rollupRepository).completeDirty(entry);
+    }
+
+    @Test
+    public void testFailedRecomputeStaysClaimed() {
+        long ts = 95 * DAY + 5;
+        DirtyEntry entry = new DirtyEntry(new RollupKey(ENTITY_ID, KEY_ID, 95 * DAY), new DirtyRange(ts, ts + 1), 0);
+        when(rollupRepository.claimDirty(anyLong(), anyLong(), anyInt())).thenReturn(List.of(entry));
+        doThrow(new RuntimeException("test")).when(rollupRepository).recompute(ENTITY_ID, KEY_ID, TsRollupInterval.MINUTE, null, 95 * DAY, 95 * DAY + MINUTE);
+        rollupService.flush();
+
+        verify(rollupRepository, never()).recompute(eq(ENTITY_ID), eq(KEY_ID), eq(TsRollupInterval.HOUR), any(), anyLong(), anyLong());
+        verify(rollupRepository, never()).completeDirty(any());
+    }
+
+    @Test
+    public void testRemoveDeletesCoveredRollupsAndMarksEdges() {
+        long startTs = 95 * DAY + 30 * MINUTE;
+        long endTs = 97 * DAY + HOUR;
+        Runnable removeFunction = mock(Runnable.class);
+        rollupService.removeAndMarkDirty(ENTITY_ID, KEY_ID, startTs, endTs, removeFunction);
+
+        verify(removeFunction).run();
+        verify(rollupRepository).delete(ENTITY_ID, KEY_ID, TsRollupInterval.MINUTE, startTs, endTs);
+        verify(rollupRepository).delete(ENTITY_ID, KEY_ID, TsRollupInterval.HOUR, 95 * DAY + HOUR, endTs);
+        verify(rollupRepository).delete(ENTITY_ID, KEY_ID, TsRollupInterval.DAY, 96 * DAY, 97 * DAY);
+        verify(rollupRepository).markDirty(Map.of(
+                new RollupKey(ENTITY_ID, KEY_ID, 95 * DAY), new DirtyRange(startTs, 96 * DAY),
+                new RollupKey(ENTITY_ID, KEY_ID, 97 * DAY), new DirtyRange(97 * DAY, endTs)));
+    }
+
+    private void setDefaultTtls() {
+        ReflectionTestUtils.setField(rollupService, "minuteTtl", TimeUnit.DAYS.toSeconds(7));
+        ReflectionTestUtils.setField(rollupService, "hourTtl", TimeUnit.DAYS.toSeconds(90));
+    }
+
+    private static TsKvEntity entity(long ts) {
+        TsKvEntity entity = new TsKvEntity();
+        entity.setEntityId(ENTITY_ID);
+        entity.setKey(KEY_ID);
+        entity.setTs(ts);
+        return entity;
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.edqs.data;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.edqs.DataPoint;
+import org.thingsboard.server.edqs.data.dp.LongDataPoint;
+import org.thingsboard.server.edqs.data.dp.StringDataPoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataPointMapTest {
+
+    private final DataPointMap map = new DataPointMap();
+
+    @Test
+    public void testPutGetAndRemove() {
+        assertThat(map.put(5, new LongDataPoint(1L, 50L))).isTrue();
+        assertThat(map.put(1, new LongDataPoint(1L, 10L))).isTrue();
+        assertThat(map.put(3, new StringDataPoint(1L, "30"))).isTrue();
+        assertThat(map.size()).isEqualTo(3);
+
+        assertThat(map.get(1).getLong()).isEqualTo(10L);
+        assertThat(map.get(3).getStr()).isEqualTo("30");
+        assertThat(map.get(5).getLong()).isEqualTo(50L);
+        assertThat(map.get(4)).isNull();
+
+        assertThat(map.put(3, new LongDataPoint(2L, 31L))).isFalse();
+        assertThat(map.get(3).getLong()).isEqualTo(31L);
+
+        assertThat(map.remove(3)).isTrue();
+        assertThat(map.remove(3)).isFalse();
+        assertThat(map.get(3)).isNull();
+        assertThat(map.get(1).getLong()).isEqualTo(10L);
+        assertThat(map.get(5).getLong()).isEqualTo(50L);
+
+        assertThat(map.remove(1)).isTrue();
+        assertThat(map.remove(5)).isTrue();
+        assertThat(map.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testEqualDataPointKeepsExistingInstance() {
+        DataPoint existing = new LongDataPoint(1L, 10L);
+        map.put(1, existing);
+
+        assertThat(map.put(1, new LongDataPoint(1L, 10L))).isFalse();
+        assertThat(map.get(1)).isSameAs(existing);
+
+        DataPoint newer = new LongDataPoint(2L, 10L);
+        map.put(1, newer);
+        assertThat(map.get(1)).isSameAs(newer);
+    }
+
+}
@@ -82,7 +82,7 @@ public abstract class AbstractEDQTest {
     @Autowired
     protected EdqsMapper edqsMapper;
     @MockBean
-    private DummyEdqsStatsService edqsStatsService;
+    protected DummyEdqsStatsService edqsStatsService;
 
     protected final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
     protected final CustomerId customerId = new CustomerId(UUID.randomUUID());
@@ -0,0 +1,192 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.edqs.repo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.edqs.LatestTsKv;
+import org.thingsboard.server.common.data.edqs.query.QueryResult;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityKeyValueType;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.common.data.query.FilterPredicateValue;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.NumericFilterPredicate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@TestPropertySource(properties = {
+        "queue.edqs.sort_indexes.enabled=true",
+        "queue.edqs.sort_indexes.min_entities=1"
+})
+public class EntitySortIndexTest extends AbstractEDQTest {
+
+    private final Device[] devices = new Device[5];
+
+    @Before
+    public void setUp() {
+        double[] temperatures = {25.0, 19.0, 30.0, 21.0, 27.0};
+        for (int i = 0; i < devices.length; i++) {
+            Device device = new Device();
+            device.setId(new DeviceId(UUID.randomUUID()));
+            device.setTenantId(tenantId);
+            device.setName("Device " + i);
+            device.setCreatedTime(42L + i);
+            device.setDeviceProfileId(new DeviceProfileId(defaultDeviceProfileId));
+            addOrUpdate(EntityType.DEVICE, device);
+            addOrUpdate(new LatestTsKv(device.getId(), new BasicTsKvEntry(43, new DoubleDataEntry("temperature", temperatures[i])), 0L));
+            devices[i] = device;
+        }
+    }
+
+    @Test
+    public void testSortByTelemetryUsesIndex() {
+        var result = findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 2, null);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(ids(result)).containsExactly(devices[1].getId(), devices[3].getId());
+
+        result = findByTemperature(EntityDataSortOrder.Direction.ASC, 2, 2, null);
+        assertThat(ids(result)).containsExactly(devices[2].getId());
+        assertThat(result.hasNext()).isFalse();
+
+        result = findByTemperature(EntityDataSortOrder.Direction.DESC, 0, 2, null);
+        assertThat(ids(result)).containsExactly(devices[2].getId(), devices[4].getId());
+
+        verify(edqsStatsService, atLeastOnce()).reportSortIndexHit();
+        verify(edqsStatsService, never()).reportSortIndexMiss();
+    }
+
+    @Test
+    public void testIndexIsUpdatedIncrementally() {
+        findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+
+        addOrUpdate(new LatestTsKv(devices[2].getId(), new BasicTsKvEntry(44, new DoubleDataEntry("temperature", 10.0)), 1L));
+        Device newDevice = new Device();
+        newDevice.setId(new DeviceId(UUID.randomUUID()));
+        newDevice.setTenantId(tenantId);
+        newDevice.setName("Device 5");
+        newDevice.setCreatedTime(50L);
+        newDevice.setDeviceProfileId(new DeviceProfileId(defaultDeviceProfileId));
+        addOrUpdate(EntityType.DEVICE, newDevice);
+
+        var result = findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 10, null);
+        // device without telemetry goes first, as in the regular sort
+        assertThat(ids(result)).containsExactly(newDevice.getId(), devices[2].getId(), devices[1].getId(),
+                devices[3].getId(), devices[0].getId(), devices[4].getId());
+        assertThat(result.getTotalElements()).isEqualTo(6);
+    }
+
+    @Test
+    public void testSortByIndexWithKeyFilter() {
+        KeyFilter filter = new KeyFilter();
+        filter.setKey(new EntityKey(EntityKeyType.TIME_SERIES, "temperature"));
+        var predicate = new NumericFilterPredicate();
+        predicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER_OR_EQUAL);
+        predicate.setValue(new FilterPredicateValue<>(21.0));
+        filter.setPredicate(predicate);
+        filter.setValueType(EntityKeyValueType.NUMERIC);
+
+        var result = findByTemperature(EntityDataSortOrder.Direction.DESC, 1, 2, List.of(filter));
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(ids(result)).containsExactly(devices[0].getId(), devices[3].getId());
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testMixedValueTypesFallBackToFullSort() {
+        addOrUpdate(new LatestTsKv(devices[0].getId(), new BasicTsKvEntry(44, new StringDataEntry("temperature", "hot")), 1L));
+
+        var result = findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        verify(edqsStatsService, atLeastOnce()).reportSortIndexMiss();
+
+        result = findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        verify(edqsStatsService, never()).reportSortIndexHit();
+    }
+
+    @Test
+    public void testInvalidIndexIsDroppedAndRebuilt() {
+        findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+        verify(edqsStatsService, times(1)).reportSortIndexHit();
+
+        addOrUpdate(new LatestTsKv(devices[0].getId(), new BasicTsKvEntry(44, new StringDataEntry("temperature", "hot")), 1L));
+        findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+        verify(edqsStatsService, times(1)).reportSortIndexHit();
+
+        addOrUpdate(new LatestTsKv(devices[0].getId(), new BasicTsKvEntry(45, new DoubleDataEntry("temperature", 5.0)), 2L));
+        expireSortKeyBackoff();
+        var result = findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 2, null);
+        verify(edqsStatsService, times(2)).reportSortIndexHit();
+        assertThat(ids(result)).containsExactly(devices[0].getId(), devices[1].getId());
+    }
+
+    @Test
+    public void testInvalidKeyIsNotRebuiltDuringBackoff() {
+        findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+        addOrUpdate(new LatestTsKv(devices[0].getId(), new BasicTsKvEntry(44, new StringDataEntry("temperature", "hot")), 1L));
+        findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 5, null);
+
+        // the values are consistent again, but the key is backed off
+        addOrUpdate(new LatestTsKv(devices[0].getId(), new BasicTsKvEntry(45, new DoubleDataEntry("temperature", 5.0)), 2L));
+        var result = findByTemperature(EntityDataSortOrder.Direction.ASC, 0, 2, null);
+        assertThat(ids(result)).containsExactly(devices[0].getId(), devices[1].getId());
+        verify(edqsStatsService, times(1)).reportSortIndexHit();
+        verify(edqsStatsService, times(2)).reportSortIndexMiss();
+    }
+
+    private void expireSortKeyBackoff() {
+        ((Map<?, ?>) ReflectionTestUtils.getField(repository.get(tenantId), "invalidSortKeys")).clear();
+    }
+
+    private PageData<QueryResult> findByTemperature(EntityDataSortOrder.Direction direction, int page, int pageSize, List<KeyFilter> keyFilters) {
+        EntityTypeFilter filter = new EntityTypeFilter();
+        filter.setEntityType(EntityType.DEVICE);
+        var pageLink = new EntityDataPageLink(pageSize, page, null, new EntityDataSortOrder(new EntityKey(EntityKeyType.TIME_SERIES, "temperature"), direction), false);
+        var entityFields = List.of(new EntityKey(EntityKeyType.ENTITY_FIELD, "name"));
+        var latestValues = List.of(new EntityKey(EntityKeyType.TIME_SERIES, "temperature"));
+        return repository.findEntityDataByQuery(tenantId, null, new EntityDataQuery(filter, pageLink, entityFields, latestValues, keyFilters), false);
+    }
+
+    private static List<UUID> ids(PageData<QueryResult> result) {
+        return result.getData().stream().map(r -> r.getEntityId().getId()).toList();
+    }
+
+}
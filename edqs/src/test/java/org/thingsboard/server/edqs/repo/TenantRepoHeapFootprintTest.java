@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2016-2026 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.edqs.repo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.edqs.AttributeKv;
+import org.thingsboard.server.common.data.edqs.DataPoint;
+import org.thingsboard.server.common.data.edqs.LatestTsKv;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.stats.DummyEdqsStatsService;
+import org.thingsboard.server.edqs.data.dp.BoolDataPoint;
+import org.thingsboard.server.edqs.data.dp.DoubleDataPoint;
+import org.thingsboard.server.edqs.data.dp.LongDataPoint;
+import org.thingsboard.server.edqs.data.dp.StringDataPoint;
+import org.thingsboard.server.edqs.util.DefaultEdqsMapper;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the heap retained by a synthetic tenant to size EDQS nodes.
+ * Disabled by default, run with: mvn test -Dtest=TenantRepoHeapFootprintTest -Dedqs.footprint.entities=1000000
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "edqs.footprint.entities", matches = "\\d+")
+public class TenantRepoHeapFootprintTest {
+
+    private static final String[] ATTRIBUTE_KEYS = {"active", "firmwareVersion", "serialNumber", "inactivityTimeout"};
+    private static final String[] TELEMETRY_KEYS = {"temperature", "humidity", "battery", "rssi", "status", "lastSeen"};
+
+    @Test
+    public void measureTenantRepoHeapFootprint() {
+        int entities = Integer.getInteger("edqs.footprint.entities");
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        DeviceProfileId profileId = new DeviceProfileId(UUID.randomUUID());
+
+        long before = usedHeap();
+        TenantRepo repo = new TenantRepo(tenantId, new DummyEdqsStatsService());
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < entities; i++) {
+            DeviceId deviceId = new DeviceId(UUID.randomUUID());
+            Device device = new Device(deviceId);
+            device.setTenantId(tenantId);
+            device.setDeviceProfileId(profileId);
+            device.setName("Device " + i);
+            device.setType("default");
+            device.setCreatedTime(ts);
+            repo.addOrUpdate(DefaultEdqsMapper.toEntity(EntityType.DEVICE, device));
+
+            repo.addOrUpdate(attribute(deviceId, ATTRIBUTE_KEYS[0], new BoolDataPoint(ts, i % 2 == 0)));
+            repo.addOrUpdate(attribute(deviceId, ATTRIBUTE_KEYS[1], new StringDataPoint(ts, "1.0." + (i % 10))));
+            repo.addOrUpdate(attribute(deviceId, ATTRIBUTE_KEYS[2], new StringDataPoint(ts, "SN-" + i, false)));
+            repo.addOrUpdate(attribute(deviceId, ATTRIBUTE_KEYS[3], new LongDataPoint(ts, 600000L)));
+
+            repo.addOrUpdate(latest(deviceId, TELEMETRY_KEYS[0], new DoubleDataPoint(ts + i, 20.0 + i % 15)));
+            repo.addOrUpdate(latest(deviceId, TELEMETRY_KEYS[1], new DoubleDataPoint(ts + i, 40.0 + i % 30)));
+            repo.addOrUpdate(latest(deviceId, TELEMETRY_KEYS[2], new LongDataPoint(ts + i, i % 100)));
+            repo.addOrUpdate(latest(deviceId, TELEMETRY_KEYS[3], new LongDataPoint(ts + i, -(i % 90))));
+            repo.addOrUpdate(latest(deviceId, TELEMETRY_KEYS[4], new StringDataPoint(ts + i, i % 3 == 0 ? "OK" : "WARN")));
+            repo.addOrUpdate(latest(deviceId, TELEMETRY_KEYS[5], new LongDataPoint(ts + i, ts + i)));
+        }
+        long after = usedHeap();
+
+        assertThat(repo.getEntityMap(EntityType.DEVICE)).hasSize(entities);
+        long retained = after - before;
+        log.info("EDQS tenant repo with {} devices, {} attributes and {} latest telemetry keys per device: {} MB retained, {} bytes per device",
+                entities, ATTRIBUTE_KEYS.length, TELEMETRY_KEYS.length, retained / (1024 * 1024), retained / entities);
+    }
+
+    private static AttributeKv attribute(DeviceId deviceId, String key, DataPoint dataPoint) {
+        return AttributeKv.builder()
+                .entityId(deviceId)
+                .scope(AttributeScope.SERVER_SCOPE)
+                .key(key)
+                .version(1L)
+                .dataPoint(dataPoint)
+                .build();
+    }
+
+    private static LatestTsKv latest(DeviceId deviceId, String key, DataPoint dataPoint) {
+        return LatestTsKv.builder()
+                .entityId(deviceId)
+                .key(key)
+                .version(1L)
+                .dataPoint(dataPoint)
+                .build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
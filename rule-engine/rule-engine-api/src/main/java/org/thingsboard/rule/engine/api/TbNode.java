@@ -29,6 +29,13 @@ public interface TbNode {
 
     void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException;
 
+    /**
+     * Processes the incoming message.
+     * <p>
+     * The JSON tree returned by {@link TbMsg#getJsonData()} is parsed once and shared with the other nodes that process
+     * the same message and the messages derived from it. The node must not modify it; use {@link JsonNode#deepCopy()}
+     * to build a new message body from it.
+     */
     void onMsg(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException, TbNodeException;
 
     default void destroy() {
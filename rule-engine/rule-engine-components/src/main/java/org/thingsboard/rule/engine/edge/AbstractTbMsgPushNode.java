@@ -91,7 +91,7 @@ public abstract class AbstractTbMsgPushNode<T extends BaseTbMsgPushNodeConfigura
             Map<String, String> metadata = msg.getMetaData().getData();
             EdgeEventActionType actionType = getEdgeEventActionTypeByMsgType(msg);
             Map<String, Object> entityBody = new HashMap<>();
-            JsonNode dataJson = JacksonUtil.toJsonNode(msg.getData());
+            JsonNode dataJson = msg.getJsonData();
             switch (actionType) {
                 case ATTRIBUTES_UPDATED, POST_ATTRIBUTES -> {
                     entityBody.put("kv", dataJson);
@@ -86,7 +86,7 @@ public class CalculateDeltaNode implements TbNode {
             ctx.tellNext(msg, TbNodeConnectionType.OTHER);
             return;
         }
-        JsonNode msgData = JacksonUtil.toJsonNode(msg.getData());
+        JsonNode msgData = msg.getJsonData();
         if (msgData == null || !msgData.has(config.getInputValueKey())) {
             ctx.tellNext(msg, TbNodeConnectionType.OTHER);
             return;
@@ -151,7 +151,7 @@ public class CalculateDeltaNode implements TbNode {
     protected ListenableFuture<TbMsg> processMsgAsync(TbContext ctx, TbMsg msg) {
         ListenableFuture<ValueWithTs> latestValueFuture = getLatestFromCacheOrFetchFromDb(ctx, msg);
         return Futures.transform(latestValueFuture, previousData -> {
-            ObjectNode json = (ObjectNode) JacksonUtil.toJsonNode(msg.getData());
+            ObjectNode json = (ObjectNode) msg.getJsonData().deepCopy();
             double currentValue = json.get(config.getInputValueKey()).asDouble();
             if (config.isUseCache()) {
                 cache.put(msg.getOriginator(), new ValueWithTs(msg.getMetaDataTs(), currentValue));
@@ -315,7 +315,7 @@ class DeviceState {
 
     protected boolean processTelemetryUpdatedNotification(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
         JsonElement msgData = JsonParser.parseString(msg.getData());
-        JsonElement telemetryData = Optional.ofNullable(JsonParser.parseString(msg.getData()))
+        JsonElement telemetryData = Optional.ofNullable(msgData)
                 .filter(JsonElement::isJsonObject)
                 .map(e -> e.getAsJsonObject().get("timeseries"))
                 .orElse(msgData);
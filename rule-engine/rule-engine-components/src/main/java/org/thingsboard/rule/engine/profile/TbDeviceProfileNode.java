@@ -118,7 +118,7 @@ public class TbDeviceProfileNode implements TbNode {
         } else if (msg.isTypeOf(TbMsgType.DEVICE_PROFILE_UPDATE_SELF_MSG)) {
             updateProfile(ctx, new DeviceProfileId(UUID.fromString(msg.getData())));
         } else if (msg.isTypeOf(TbMsgType.DEVICE_UPDATE_SELF_MSG)) {
-            JsonNode data = JacksonUtil.toJsonNode(msg.getData());
+            JsonNode data = msg.getJsonData();
             DeviceId deviceId = new DeviceId(UUID.fromString(data.get("deviceId").asText()));
             if (data.has("profileId")) {
                 invalidateDeviceProfileCache(deviceId, new DeviceProfileId(UUID.fromString(data.get("deviceProfileId").asText())));
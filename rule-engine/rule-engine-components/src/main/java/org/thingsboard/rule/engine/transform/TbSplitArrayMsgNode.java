@@ -51,7 +51,7 @@ public class TbSplitArrayMsgNode implements TbNode {
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException, TbNodeException {
-        JsonNode jsonNode = JacksonUtil.toJsonNode(msg.getData());
+        JsonNode jsonNode = msg.getJsonData();
         if (jsonNode.isArray()) {
             ArrayNode data = (ArrayNode) jsonNode;
             if (data.isEmpty()) {
@@ -217,6 +217,32 @@ public class TbMathNodeTest {
         }
     }
 
+    @Test
+    public void testCachedJsonDataIsNotModified() {
+        var node = initNode(TbRuleNodeMathFunctionType.ADD,
+                new TbMathResult(TbMathArgumentType.MESSAGE_BODY, "result", 2, false, false, null),
+                new TbMathArgument(TbMathArgumentType.MESSAGE_BODY, "a"),
+                new TbMathArgument(TbMathArgumentType.MESSAGE_BODY, "b")
+        );
+
+        TbMsg msg = TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(originator)
+                .copyMetaData(TbMsgMetaData.EMPTY)
+                .data(JacksonUtil.newObjectNode().put("a", 2).put("b", 3).toString())
+                .build();
+        var cachedJsonData = msg.getJsonData();
+        var expectedJsonData = cachedJsonData.deepCopy();
+
+        node.onMsg(ctx, msg);
+
+        ArgumentCaptor<TbMsg> msgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx, timeout(TIMEOUT).times(1)).tellSuccess(msgCaptor.capture());
+
+        assertTrue(msgCaptor.getValue().getJsonData().has("result"));
+        assertThat(msg.getJsonData()).isSameAs(cachedJsonData).isEqualTo(expectedJsonData);
+    }
+
     private static Stream<Arguments> testSimpleTwoArgumentFunction() {
         return Stream.of(
                 Arguments.of(TbRuleNodeMathFunctionType.ADD, 2.1, 2.2, 4.3),
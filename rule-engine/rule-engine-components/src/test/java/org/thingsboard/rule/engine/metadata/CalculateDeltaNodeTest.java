@@ -262,6 +262,36 @@ public class CalculateDeltaNodeTest extends AbstractRuleNodeUpgradeTest {
         assertEquals(expectedMsgData, actualMsgCaptor.getValue().getData());
     }
 
+    @Test
+    public void givenValidMsg_whenOnMsg_thenCachedJsonDataIsNotModified() throws TbNodeException {
+        // GIVEN
+        config.setInputValueKey("temperature");
+        config.setOutputValueKey("temp_delta");
+        config.setUseCache(false);
+        nodeConfiguration = new TbNodeConfiguration(JacksonUtil.valueToTree(config));
+        node.init(ctxMock, nodeConfiguration);
+
+        mockFindLatestAsync(new BasicTsKvEntry(System.currentTimeMillis(), new DoubleDataEntry("temperature", 40.5)));
+
+        var msg = TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(DUMMY_DEVICE_ORIGINATOR)
+                .copyMetaData(TbMsgMetaData.EMPTY)
+                .data("{\"temperature\": 42,\"airPressure\":123}")
+                .build();
+        var cachedJsonData = msg.getJsonData();
+        var expectedJsonData = cachedJsonData.deepCopy();
+
+        // WHEN
+        node.onMsg(ctxMock, msg);
+
+        // THEN
+        var actualMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctxMock).tellSuccess(actualMsgCaptor.capture());
+        assertThat(actualMsgCaptor.getValue().getJsonData().has("temp_delta")).isTrue();
+        assertThat(msg.getJsonData()).isSameAs(cachedJsonData).isEqualTo(expectedJsonData);
+    }
+
     @Test
     public void givenLongStringValue_whenOnMsgAndCachingOff_thenShouldTellSuccess() throws TbNodeException {
         // GIVEN
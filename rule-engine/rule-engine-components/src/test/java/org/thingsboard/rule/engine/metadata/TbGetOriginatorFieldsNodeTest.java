@@ -196,6 +196,41 @@ public class TbGetOriginatorFieldsNodeTest {
         assertThat(actualMessageCaptor.getValue().getMetaData()).isEqualTo(msgMetaData);
     }
 
+    @Test
+    public void givenValidMsgAndFetchToData_whenOnMsg_thenCachedJsonDataIsNotModified() throws TbNodeException, ExecutionException, InterruptedException {
+        // GIVEN
+        var device = new Device();
+        device.setId(DUMMY_DEVICE_ORIGINATOR);
+        device.setName("Test device");
+        device.setType("Test device type");
+
+        config.setFetchTo(TbMsgSource.DATA);
+        node.config = config;
+        node.fetchTo = TbMsgSource.DATA;
+        msg = TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(DUMMY_DEVICE_ORIGINATOR)
+                .copyMetaData(new TbMsgMetaData())
+                .data("{\"temp\":42,\"humidity\":77}")
+                .build();
+        var cachedJsonData = msg.getJsonData();
+        var expectedJsonData = cachedJsonData.deepCopy();
+
+        when(ctxMock.getDeviceService()).thenReturn(deviceServiceMock);
+        when(ctxMock.getTenantId()).thenReturn(DUMMY_TENANT_ID);
+        when(deviceServiceMock.findDeviceById(eq(DUMMY_TENANT_ID), eq(device.getId()))).thenReturn(device);
+        when(ctxMock.getDbCallbackExecutor()).thenReturn(DB_EXECUTOR);
+
+        // WHEN
+        node.onMsg(ctxMock, msg);
+
+        // THEN
+        var actualMessageCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctxMock, times(1)).tellSuccess(actualMessageCaptor.capture());
+        assertThat(actualMessageCaptor.getValue().getJsonData().has("originatorName")).isTrue();
+        assertThat(msg.getJsonData()).isSameAs(cachedJsonData).isEqualTo(expectedJsonData);
+    }
+
     @Test
     public void givenDeviceWithEmptyLabel_whenOnMsg_thenShouldTellSuccessAndFetchToData() throws TbNodeException, ExecutionException, InterruptedException {
         // GIVEN